@@ -0,0 +1,33 @@
+package com.viet.data.bench;
+
+import com.viet.data.dto.response.CSVParseResult;
+import com.viet.data.module.Dataset;
+import com.viet.data.processor.CSVProcessor;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+
+/**
+ * A parsed, profiled dataset as the analysis paths see it after upload.
+ */
+final class AnalysisFixture {
+
+    final CSVParseResult parsed;
+    final Dataset dataset;
+
+    AnalysisFixture(SyntheticCsv spec) {
+        byte[] csv = spec.toBytes();
+        parsed = new CSVProcessor().processCSV(new ByteArrayInputStream(csv));
+
+        dataset = new Dataset();
+        dataset.setId("benchmark");
+        dataset.setUserId("benchmark");
+        dataset.setFileSize((long) csv.length);
+        dataset.setRowCount(parsed.getRowCount());
+        dataset.setColumnCount(parsed.getColumnCount());
+        dataset.setColumns(parsed.getColumns());
+        dataset.setSampleData(parsed.getSampleData());
+        dataset.setStatus(Dataset.DatasetStatus.PROCESSED);
+        dataset.setCreatedAt(LocalDateTime.now());
+    }
+}
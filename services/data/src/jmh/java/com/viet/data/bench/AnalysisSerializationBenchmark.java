@@ -0,0 +1,100 @@
+package com.viet.data.bench;
+
+import com.viet.data.dto.request.AnalysisRequest;
+import com.viet.data.dto.response.AnalysisResult;
+import com.viet.data.dto.response.ChartConfig;
+import com.viet.data.dto.response.HistogramData;
+import com.viet.data.module.ColumnMetadata;
+import com.viet.data.service.AnalysisResultWriter;
+import com.viet.data.service.StatisticsService;
+import com.viet.data.sketch.ColumnSketch;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.viet.data.bench.SyntheticCsv.Kind.*;
+
+/**
+ * Writing a descriptive-statistics plus correlation result to the response, as
+ * {@code POST /analyze} does, for the full result and for a {@code fields} selection.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalysisSerializationBenchmark {
+
+    @Param({"40"})
+    private int columns;
+
+    @Param({"", "summary,insights"})
+    private String fields;
+
+    private final AnalysisResultWriter writer = new AnalysisResultWriter(Jackson2ObjectMapperBuilder.json().build());
+    private AnalysisResult result;
+    private Set<String> selected;
+
+    @Setup
+    public void analyze() {
+        StatisticsService statisticsService = new StatisticsService();
+        AnalysisFixture fixture = new AnalysisFixture(SyntheticCsv.mixed(20_000, columns, DOUBLE, INTEGER, CATEGORY)
+                .build());
+
+        result = new AnalysisResult();
+        result.setId("benchmark");
+        result.setDatasetId(fixture.dataset.getId());
+        result.setUserId(fixture.dataset.getUserId());
+        result.setAnalysisType(AnalysisRequest.AnalysisType.DESCRIPTIVE_STATS);
+        result.setSummary(statisticsService.calculateDescriptiveStats(fixture.dataset, fixture.parsed.getSketches()));
+        result.setCorrelations(statisticsService.calculateCorrelations(fixture.parsed.getTable().getNumericColumns()));
+        result.setVisualizationSuggestions(statisticsService.generateVisualizationSuggestions(fixture.dataset, result));
+        result.setInsights(statisticsService.generateCorrelationInsights(result.getCorrelations()));
+
+        List<ChartConfig> charts = new ArrayList<>();
+        charts.add(new ChartConfig("heatmap", "Correlation Matrix", null, "correlations", null));
+        charts.add(new ChartConfig("bar", "Descriptive Statistics", null, "summary.columnStats", null));
+        for (ColumnMetadata column : fixture.dataset.getColumns()) {
+            ColumnSketch sketch = fixture.parsed.getSketches().get(column.getName());
+            if (sketch != null && sketch.getHistogram() != null) {
+                charts.add(new ChartConfig("histogram", column.getName(), null, null,
+                        statisticsService.rebinHistogram(column.getName(), sketch.getHistogram(),
+                                StatisticsService.DEFAULT_HISTOGRAM_BINS, HistogramData.Mode.FIXED_WIDTH)));
+            }
+        }
+        result.setCharts(charts);
+        result.setAnalyzedAt(LocalDateTime.now());
+        result.setStatus("COMPLETED");
+
+        selected = writer.parseFields(fields);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        writer.write("Analysis completed", result, selected, out);
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
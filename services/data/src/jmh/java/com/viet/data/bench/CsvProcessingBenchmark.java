@@ -0,0 +1,36 @@
+package com.viet.data.bench;
+
+import com.viet.data.dto.response.CSVParseResult;
+import com.viet.data.processor.CSVProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full parse and profile of an uploaded file, per file shape.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvProcessingBenchmark {
+
+    @Param
+    private Shapes shape;
+
+    private final CSVProcessor processor = new CSVProcessor();
+    private byte[] csv;
+
+    @Setup
+    public void generate() {
+        csv = shape.getSpec().toBytes();
+    }
+
+    @Benchmark
+    public CSVParseResult processCSV() {
+        return processor.processCSV(new ByteArrayInputStream(csv));
+    }
+}
@@ -0,0 +1,24 @@
+package com.viet.data.bench;
+
+import static com.viet.data.bench.SyntheticCsv.Kind.*;
+
+/**
+ * File shapes shared by the parsing benchmarks.
+ */
+public enum Shapes {
+
+    NARROW_TALL(SyntheticCsv.mixed(200_000, 4, INTEGER, DOUBLE, CATEGORY, DATE).build()),
+    WIDE_SHORT(SyntheticCsv.mixed(2_000, 200, INTEGER, DOUBLE, CATEGORY, BOOLEAN).build()),
+    TEXT_HEAVY(SyntheticCsv.mixed(50_000, 10, TEXT, TEXT, TEXT, CATEGORY, INTEGER).build()),
+    NUMERIC_HEAVY(SyntheticCsv.mixed(50_000, 20, DOUBLE, DOUBLE, DOUBLE, INTEGER).nullRate(0.02).build());
+
+    private final SyntheticCsv spec;
+
+    Shapes(SyntheticCsv spec) {
+        this.spec = spec;
+    }
+
+    public SyntheticCsv getSpec() {
+        return spec;
+    }
+}
@@ -0,0 +1,63 @@
+package com.viet.data.bench;
+
+import com.viet.data.dto.response.DataAnomaly;
+import com.viet.data.dto.response.DataPattern;
+import com.viet.data.service.StatisticsService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.viet.data.bench.SyntheticCsv.Kind.*;
+
+/**
+ * Each analysis type over heap vectors and sketches of an already profiled dataset.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatisticsBenchmark {
+
+    @Param({"10000", "200000"})
+    private int rows;
+
+    private final StatisticsService statisticsService = new StatisticsService();
+    private AnalysisFixture fixture;
+
+    @Setup
+    public void profile() {
+        fixture = new AnalysisFixture(SyntheticCsv.mixed(rows, 12, DOUBLE, DOUBLE, INTEGER, CATEGORY, DATE, DOUBLE)
+                .nullRate(0.01)
+                .build());
+    }
+
+    @Benchmark
+    public Map<String, Object> descriptiveStats() {
+        return statisticsService.calculateDescriptiveStats(fixture.dataset, fixture.parsed.getSketches());
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Double>> correlations() {
+        return statisticsService.calculateCorrelations(fixture.parsed.getTable().getNumericColumns());
+    }
+
+    @Benchmark
+    public List<DataAnomaly> outliers() {
+        return statisticsService.detectOutliers(fixture.parsed.getTable().getNumericColumns(),
+                fixture.parsed.getSketches());
+    }
+
+    @Benchmark
+    public List<DataPattern> trends() {
+        return statisticsService.analyzeTrends(fixture.dataset, fixture.parsed.getSketches().getRollups());
+    }
+
+    @Benchmark
+    public List<DataPattern> patterns() {
+        return statisticsService.detectPatterns(fixture.dataset);
+    }
+}
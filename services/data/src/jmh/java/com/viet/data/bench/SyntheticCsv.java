@@ -0,0 +1,137 @@
+package com.viet.data.bench;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic CSV generator. The same spec and seed always produce the same bytes, so
+ * benchmark and load-test runs are comparable across machines and commits.
+ */
+@Getter
+@Builder
+public class SyntheticCsv {
+
+    public enum Kind {
+        INTEGER,
+        DOUBLE,
+        BOOLEAN,
+        DATE,
+        // Drawn from {@code cardinality} distinct labels
+        CATEGORY,
+        // Free text, close to one distinct value per row
+        TEXT
+    }
+
+    private static final String[] WORDS = {
+            "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel",
+            "india", "juliet", "kilo", "lima", "mike", "november", "oscar", "papa"
+    };
+    private static final LocalDate FIRST_DATE = LocalDate.of(2015, 1, 1);
+
+    private final int rows;
+    @Singular
+    private final List<Kind> columns;
+    @Builder.Default
+    private final int cardinality = 20;
+    // Share of cells left empty, in every column
+    @Builder.Default
+    private final double nullRate = 0.0;
+    @Builder.Default
+    private final long seed = 42;
+
+    /**
+     * {@code count} columns cycling through {@code kinds}.
+     */
+    public static SyntheticCsvBuilder mixed(int rows, int count, Kind... kinds) {
+        SyntheticCsvBuilder builder = builder().rows(rows);
+        for (int i = 0; i < count; i++) {
+            builder.column(kinds[i % kinds.length]);
+        }
+        return builder;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows * columns.size() * 8);
+        try {
+            write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public void write(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        for (int c = 0; c < columns.size(); c++) {
+            if (c > 0) {
+                writer.write(',');
+            }
+            writer.write(columns.get(c).name().toLowerCase(Locale.ROOT) + "_" + c);
+        }
+        writer.write('\n');
+
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder line = new StringBuilder();
+        for (int row = 0; row < rows; row++) {
+            line.setLength(0);
+            for (int c = 0; c < columns.size(); c++) {
+                if (c > 0) {
+                    line.append(',');
+                }
+                if (nullRate > 0 && random.nextDouble() < nullRate) {
+                    continue;
+                }
+                appendValue(line, columns.get(c), row, random);
+            }
+            line.append('\n');
+            writer.append(line);
+        }
+        writer.flush();
+    }
+
+    private void appendValue(StringBuilder line, Kind kind, int row, SplittableRandom random) {
+        switch (kind) {
+            case INTEGER:
+                line.append(random.nextInt(1_000_000));
+                break;
+            case DOUBLE:
+                // Mostly normal, with a thin tail of extreme values for the outlier paths
+                double value = random.nextDouble() < 0.01
+                        ? random.nextDouble(-1e4, 1e4)
+                        : gaussian(random) * 15 + 100;
+                line.append(Math.round(value * 1000) / 1000.0);
+                break;
+            case BOOLEAN:
+                line.append(random.nextBoolean());
+                break;
+            case DATE:
+                line.append(FIRST_DATE.plusDays(row % 3650));
+                break;
+            case CATEGORY:
+                line.append("cat_").append(random.nextInt(cardinality));
+                break;
+            case TEXT:
+                line.append('"');
+                for (int w = 0, words = 3 + random.nextInt(6); w < words; w++) {
+                    line.append(w > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                line.append(", no. ").append(random.nextInt(Integer.MAX_VALUE)).append('"');
+                break;
+            default:
+                throw new IllegalStateException("Unknown kind " + kind);
+        }
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
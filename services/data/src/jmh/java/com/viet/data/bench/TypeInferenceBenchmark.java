@@ -0,0 +1,66 @@
+package com.viet.data.bench;
+
+import com.viet.data.dto.response.CSVParseResult;
+import com.viet.data.processor.CSVProcessor;
+import com.viet.data.processor.TemporalFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type inference per column kind. The files hold exactly one inference sample (1000 rows,
+ * see {@code CSVProcessor}), so inference dominates the parse.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeInferenceBenchmark {
+
+    private static final int SAMPLE_ROWS = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Sample {
+        @Param
+        private SyntheticCsv.Kind kind;
+
+        private final CSVProcessor processor = new CSVProcessor();
+        private byte[] csv;
+
+        @Setup
+        public void generate() {
+            csv = SyntheticCsv.mixed(SAMPLE_ROWS, 8, kind).build().toBytes();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Dates {
+        private Set<String> europeanDates;
+
+        @Setup
+        public void generate() {
+            // Day-first dates fail every earlier format before matching, the slowest detection
+            europeanDates = new HashSet<>();
+            DateTimeFormatter format = DateTimeFormatter.ofPattern("dd/MM/uuuu");
+            for (int day = 0; day < SAMPLE_ROWS; day++) {
+                europeanDates.add(LocalDate.of(2020, 1, 13).plusDays(day).format(format));
+            }
+        }
+    }
+
+    @Benchmark
+    public CSVParseResult inferSample(Sample sample) {
+        return sample.processor.processCSV(new ByteArrayInputStream(sample.csv));
+    }
+
+    @Benchmark
+    public TemporalFormat detectEuropeanDates(Dates dates) {
+        return TemporalFormat.detect(dates.europeanDates);
+    }
+}
@@ -0,0 +1,63 @@
+package com.viet.data.load;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * An upload held in memory, as the multipart resolver would hand it to the controller.
+ */
+final class InMemoryMultipartFile implements MultipartFile {
+
+    private final String fileName;
+    private final byte[] content;
+
+    InMemoryMultipartFile(String fileName, byte[] content) {
+        this.fileName = fileName;
+        this.content = content;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return fileName;
+    }
+
+    @Override
+    public String getContentType() {
+        return "text/csv";
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return content.length == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return content.length;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        return content;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.write(dest.toPath(), content);
+    }
+}
@@ -0,0 +1,181 @@
+package com.viet.data.load;
+
+import com.viet.data.module.Dataset;
+import com.viet.data.module.StoredBlob;
+import com.viet.data.repository.DatasetRepository;
+import com.viet.data.repository.StoredBlobRepository;
+import com.viet.data.repository.UserDatasetStatsRepository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Map-backed stand-ins for the Mongo repositories, covering the queries the upload and
+ * analyze paths issue, with the same semantics as their Mongo definitions. Any other
+ * repository method fails loudly so a new query on those paths is noticed.
+ */
+final class InMemoryRepositories {
+
+    private final ConcurrentMap<String, Dataset> datasets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, StoredBlob> blobs = new ConcurrentHashMap<>();
+
+    DatasetRepository datasetRepository() {
+        return proxy(DatasetRepository.class, (method, args) -> {
+            switch (method.getName()) {
+                case "save": {
+                    Dataset dataset = (Dataset) args[0];
+                    if (dataset.getId() == null) {
+                        dataset.setId(UUID.randomUUID().toString());
+                    }
+                    datasets.put(dataset.getId(), dataset);
+                    return dataset;
+                }
+                case "findById":
+                    return Optional.ofNullable(datasets.get((String) args[0]));
+                case "findByIdAndUserId":
+                    return Optional.ofNullable(datasets.get((String) args[0]))
+                            .filter(dataset -> dataset.getUserId().equals(args[1])
+                                    && !dataset.getStatus().isDeleted());
+                case "findProfiledByContentHash":
+                    return datasets.values().stream()
+                            .filter(dataset -> args[0].equals(dataset.getContentHash())
+                                    && dataset.getStatus() == args[1]
+                                    && dataset.getChunkPaths() != null && dataset.getChunkPaths().size() == 1)
+                            .limit(1)
+                            .toList();
+                case "claimForAppend": {
+                    Dataset dataset = datasets.get((String) args[0]);
+                    synchronized (this) {
+                        if (dataset == null || dataset.getStatus() != Dataset.DatasetStatus.PROCESSED) {
+                            return false;
+                        }
+                        dataset.setStatus(Dataset.DatasetStatus.PROCESSING);
+                        dataset.setAppendLeaseExpiresAt((LocalDateTime) args[2]);
+                        return true;
+                    }
+                }
+                case "replaceIfLeased": {
+                    Dataset dataset = (Dataset) args[0];
+                    synchronized (this) {
+                        Dataset stored = datasets.get(dataset.getId());
+                        if (stored == null || !args[1].equals(stored.getAppendLeaseExpiresAt())) {
+                            return false;
+                        }
+                        datasets.put(dataset.getId(), dataset);
+                        return true;
+                    }
+                }
+                case "releaseAppend": {
+                    Dataset dataset = datasets.get((String) args[0]);
+                    synchronized (this) {
+                        if (dataset != null && args[1].equals(dataset.getAppendLeaseExpiresAt())) {
+                            dataset.setStatus(Dataset.DatasetStatus.PROCESSED);
+                            dataset.setAppendLeaseExpiresAt(null);
+                        }
+                        return null;
+                    }
+                }
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    StoredBlobRepository storedBlobRepository() {
+        return proxy(StoredBlobRepository.class, (method, args) -> {
+            switch (method.getName()) {
+                case "acquire": {
+                    StoredBlob acquired = blobs.compute((String) args[0], (id, blob) -> {
+                        if (blob == null) {
+                            return new StoredBlob(id, (String) args[1], (Long) args[2], 1L, LocalDateTime.now(), null);
+                        }
+                        if (blob.getDeletingSince() == null) {
+                            blob.setRefCount(blob.getRefCount() + 1);
+                        }
+                        return blob;
+                    });
+                    return acquired.getDeletingSince() == null ? acquired : null;
+                }
+                case "release": {
+                    StoredBlob blob = blobs.computeIfPresent((String) args[0], (id, current) -> {
+                        current.setRefCount(current.getRefCount() - 1);
+                        return current;
+                    });
+                    return blob != null ? blob.getRefCount() : -1L;
+                }
+                case "claimDeletion": {
+                    boolean[] claimed = {false};
+                    blobs.computeIfPresent((String) args[0], (id, blob) -> {
+                        if (blob.getRefCount() <= 0 && blob.getDeletingSince() == null) {
+                            blob.setDeletingSince((LocalDateTime) args[1]);
+                            claimed[0] = true;
+                        }
+                        return blob;
+                    });
+                    return claimed[0];
+                }
+                case "removeDeleted":
+                    blobs.computeIfPresent((String) args[0], (id, blob) -> blob.getDeletingSince() != null ? null : blob);
+                    return null;
+                case "removeStaleDeletion":
+                    blobs.computeIfPresent((String) args[0], (id, blob) -> blob.getDeletingSince() != null
+                            && blob.getDeletingSince().isBefore((LocalDateTime) args[1]) ? null : blob);
+                    return null;
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    /**
+     * Stats are never read by the harness, so the counter updates are no-ops.
+     */
+    UserDatasetStatsRepository userDatasetStatsRepository() {
+        return proxy(UserDatasetStatsRepository.class, (method, args) -> {
+            switch (method.getName()) {
+                case "beginUpdate":
+                case "abortUpdate":
+                case "recordUpload":
+                case "recordAppend":
+                case "recordDelete":
+                    return null;
+                case "findById":
+                    return Optional.empty();
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    private static Object unsupported(Method method) {
+        throw new UnsupportedOperationException(method.getName() + " is not implemented by the load-test stand-in");
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Method method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "InMemory" + type.getSimpleName();
+                }
+            }
+            return handler.invoke(method, args);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+}
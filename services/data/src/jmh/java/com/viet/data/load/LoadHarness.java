@@ -0,0 +1,337 @@
+package com.viet.data.load;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viet.data.bench.SyntheticCsv;
+import com.viet.data.config.ProcessingConfig;
+import com.viet.data.dto.request.AnalysisRequest;
+import com.viet.data.dto.response.AnalysisResult;
+import com.viet.data.exception.MemoryBudgetExceededException;
+import com.viet.data.processor.CSVProcessor;
+import com.viet.data.repository.DatasetRepository;
+import com.viet.data.repository.StoredBlobRepository;
+import com.viet.data.repository.UserDatasetStatsRepository;
+import com.viet.data.service.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load test of the upload and analyze paths, run in-process against the real
+ * services with in-memory repositories and a temporary storage directory, so it needs no
+ * Mongo, config server or network. Uploads and analyses are issued at fixed target rates
+ * whether or not earlier requests have finished, and each stage reports HDR latency
+ * percentiles and throughput.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark clean compile exec:exec@load -Dload.args="--duration=60 --upload-rate=2 --analyze-rate=20"
+ * </pre>
+ *
+ * Service settings such as {@code app.memory.budget-bytes} can be passed as {@code -D}
+ * system properties in {@code load.jvmArgs}.
+ */
+public final class LoadHarness {
+
+    private static final String USER_ROLE = "USER";
+
+    private final Options options;
+    private final DataProcessingService dataProcessingService;
+    private final AnalysisResultWriter analysisResultWriter;
+
+    private final List<byte[]> files = new ArrayList<>();
+    private final List<String[]> datasets = new CopyOnWriteArrayList<>();
+    private final Map<String, StageStats> stages = new ConcurrentSkipListMap<>();
+    private final AtomicLong uploadSequence = new AtomicLong();
+
+    private LoadHarness(Options options, AnnotationConfigApplicationContext context) {
+        this.options = options;
+        this.dataProcessingService = context.getBean(DataProcessingService.class);
+        this.analysisResultWriter = context.getBean(AnalysisResultWriter.class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        Path storage = Files.createTempDirectory("data-load-");
+        try (AnnotationConfigApplicationContext context = createContext(storage)) {
+            new LoadHarness(options, context).run();
+        } finally {
+            FileSystemUtils.deleteRecursively(storage);
+        }
+    }
+
+    private static AnnotationConfigApplicationContext createContext(Path storage) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("load",
+                Map.of("app.file.storage.path", storage.toString())));
+
+        InMemoryRepositories repositories = new InMemoryRepositories();
+        context.registerBean(DatasetRepository.class, repositories::datasetRepository);
+        context.registerBean(StoredBlobRepository.class, repositories::storedBlobRepository);
+        context.registerBean(UserDatasetStatsRepository.class, repositories::userDatasetStatsRepository);
+        context.registerBean(ObjectMapper.class, () -> Jackson2ObjectMapperBuilder.json().build());
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(ProcessingConfig.class, CSVProcessor.class, FileStorageService.class,
+                StatisticsService.class, SketchStore.class, ColumnStore.class, RollupStore.class,
+                UserStatsService.class, MemoryGovernor.class, PipelineMetrics.class, SamplingPlanner.class,
+                DataProcessingService.class, AnalysisResultWriter.class);
+        context.refresh();
+        return context;
+    }
+
+    private void run() throws Exception {
+        generateFiles();
+        seedDatasets();
+
+        ExecutorService workers = Executors.newFixedThreadPool(options.threads);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+
+        List<Thread> pacers = new ArrayList<>();
+        pacers.add(pace("upload", options.uploadRate, start, end, workers, this::upload));
+        pacers.add(pace("analyze", options.analyzeRate, start, end, workers, this::analyze));
+        for (Thread pacer : pacers) {
+            pacer.join();
+        }
+
+        // Let everything already issued finish; it is part of the measured load
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.MINUTES);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        report(elapsedSeconds);
+    }
+
+    private void generateFiles() {
+        long bytes = 0;
+        for (int i = 0; i < options.files; i++) {
+            byte[] csv = SyntheticCsv.mixed(options.rows, options.columns, options.kinds)
+                    .cardinality(options.cardinality)
+                    .nullRate(options.nullRate)
+                    .seed(options.seed + i)
+                    .build()
+                    .toBytes();
+            files.add(csv);
+            bytes += csv.length;
+        }
+        System.out.printf("Generated %d distinct files, %d rows x %d columns, %.1f MB in total%n",
+                options.files, options.rows, options.columns, bytes / 1048576.0);
+    }
+
+    /**
+     * Uploads one file per user before the clock starts, so analyses have targets from the
+     * first second.
+     */
+    private void seedDatasets() {
+        for (int user = 0; user < options.users; user++) {
+            uploadNext();
+        }
+    }
+
+    private void upload(long dueNanos) {
+        StageStats stage = stage("upload");
+        try {
+            uploadNext();
+            stage.recordSuccess(dueNanos);
+        } catch (MemoryBudgetExceededException e) {
+            stage.recordRejected();
+        } catch (RuntimeException e) {
+            stage.recordError();
+        }
+    }
+
+    private void uploadNext() {
+        long sequence = uploadSequence.getAndIncrement();
+        // Past the distinct files, uploads repeat content and take the deduplication path
+        int file = (int) (sequence % files.size());
+        String userId = "load-user-" + sequence % options.users;
+        String datasetId = dataProcessingService.processUpload(
+                new InMemoryMultipartFile("load-" + file + ".csv", files.get(file)), userId, USER_ROLE).getId();
+        datasets.add(new String[]{datasetId, userId});
+    }
+
+    private void analyze(long dueNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] target = datasets.get(random.nextInt(datasets.size()));
+        AnalysisRequest.AnalysisType type = options.types.get(random.nextInt(options.types.size()));
+
+        AnalysisRequest request = new AnalysisRequest();
+        request.setDatasetId(target[0]);
+        request.setUserId(target[1]);
+        request.setAnalysisType(type);
+
+        StageStats stage = stage("analyze." + type.name());
+        AnalysisResult result;
+        try {
+            result = dataProcessingService.analyzeDataset(request);
+        } catch (MemoryBudgetExceededException e) {
+            stage.recordRejected();
+            return;
+        } catch (RuntimeException e) {
+            stage.recordError();
+            return;
+        }
+        if ("FAILED".equals(result.getStatus())) {
+            stage.recordError();
+            return;
+        }
+        stage.recordSuccess(dueNanos);
+
+        StageStats respond = stage("respond");
+        long respondStart = System.nanoTime();
+        try {
+            analysisResultWriter.write("Analysis completed", result, analysisResultWriter.parseFields(null),
+                    OutputStream.nullOutputStream());
+            respond.recordSuccess(respondStart);
+        } catch (IOException | RuntimeException e) {
+            respond.recordError();
+        }
+    }
+
+    private Thread pace(String name, double ratePerSecond, long start, long end, ExecutorService workers,
+                        Request request) {
+        Thread pacer = new Thread(() -> {
+            if (ratePerSecond <= 0) {
+                return;
+            }
+            long intervalNanos = (long) (1e9 / ratePerSecond);
+            for (long due = start; due < end; due += intervalNanos) {
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long dueNanos = due;
+                workers.execute(() -> request.issue(dueNanos));
+            }
+        }, name + "-pacer");
+        pacer.start();
+        return pacer;
+    }
+
+    private StageStats stage(String name) {
+        return stages.computeIfAbsent(name, StageStats::new);
+    }
+
+    private void report(double elapsedSeconds) throws IOException {
+        System.out.printf("%nRan %.1f s at %.1f uploads/s and %.1f analyses/s on %d threads%n%n",
+                elapsedSeconds, options.uploadRate, options.analyzeRate, options.threads);
+        StageStats.printHeader(System.out);
+        for (StageStats stage : stages.values()) {
+            stage.print(System.out, elapsedSeconds);
+        }
+
+        if (options.hgrmDir != null) {
+            Files.createDirectories(options.hgrmDir);
+            for (StageStats stage : stages.values()) {
+                stage.writeDistribution(options.hgrmDir);
+            }
+            System.out.println("\nPercentile distributions written to " + options.hgrmDir.toAbsolutePath());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        void issue(long dueNanos);
+    }
+
+    /**
+     * {@code --name=value} arguments; every one has a default.
+     */
+    private static final class Options {
+        private long durationSeconds = 30;
+        private double uploadRate = 1;
+        private double analyzeRate = 10;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int users = 4;
+        private int files = 16;
+        private int rows = 50_000;
+        private int columns = 12;
+        private SyntheticCsv.Kind[] kinds = {SyntheticCsv.Kind.DOUBLE, SyntheticCsv.Kind.INTEGER,
+                SyntheticCsv.Kind.CATEGORY, SyntheticCsv.Kind.DATE};
+        private int cardinality = 20;
+        private double nullRate = 0.01;
+        private long seed = 42;
+        private List<AnalysisRequest.AnalysisType> types = List.of(
+                AnalysisRequest.AnalysisType.DESCRIPTIVE_STATS,
+                AnalysisRequest.AnalysisType.CORRELATION_ANALYSIS,
+                AnalysisRequest.AnalysisType.OUTLIER_DETECTION);
+        private Path hgrmDir;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int equals = arg.indexOf('=');
+                if (!arg.startsWith("--") || equals < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String value = arg.substring(equals + 1);
+                switch (arg.substring(2, equals)) {
+                    case "duration":
+                        options.durationSeconds = Long.parseLong(value);
+                        break;
+                    case "upload-rate":
+                        options.uploadRate = Double.parseDouble(value);
+                        break;
+                    case "analyze-rate":
+                        options.analyzeRate = Double.parseDouble(value);
+                        break;
+                    case "threads":
+                        options.threads = Integer.parseInt(value);
+                        break;
+                    case "users":
+                        options.users = Integer.parseInt(value);
+                        break;
+                    case "files":
+                        options.files = Integer.parseInt(value);
+                        break;
+                    case "rows":
+                        options.rows = Integer.parseInt(value);
+                        break;
+                    case "columns":
+                        options.columns = Integer.parseInt(value);
+                        break;
+                    case "kinds":
+                        options.kinds = Arrays.stream(value.split(","))
+                                .map(kind -> SyntheticCsv.Kind.valueOf(kind.trim().toUpperCase(Locale.ROOT)))
+                                .toArray(SyntheticCsv.Kind[]::new);
+                        break;
+                    case "cardinality":
+                        options.cardinality = Integer.parseInt(value);
+                        break;
+                    case "null-rate":
+                        options.nullRate = Double.parseDouble(value);
+                        break;
+                    case "seed":
+                        options.seed = Long.parseLong(value);
+                        break;
+                    case "types":
+                        options.types = Arrays.stream(value.split(","))
+                                .map(type -> AnalysisRequest.AnalysisType.valueOf(type.trim().toUpperCase(Locale.ROOT)))
+                                .toList();
+                        break;
+                    case "hgrm-dir":
+                        options.hgrmDir = Path.of(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.viet.data.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one stage. Latency runs from the moment the request was due,
+ * not from when a worker picked it up, so time spent queued behind slow requests counts.
+ */
+final class StageStats {
+
+    private final String name;
+    private final Histogram latencyMicros = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    StageStats(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void recordSuccess(long dueNanos) {
+        latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueNanos));
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    static void printHeader(PrintStream out) {
+        out.printf("%-32s %8s %7s %8s %9s %9s %9s %9s %9s %9s%n",
+                "stage", "ok", "errors", "rejected", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    void print(PrintStream out, double elapsedSeconds) {
+        long count = latencyMicros.getTotalCount();
+        out.printf("%-32s %8d %7d %8d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                name, count, errors.sum(), rejected.sum(), count / elapsedSeconds,
+                millis(50), millis(90), millis(99), millis(99.9), latencyMicros.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * Full percentile distribution in the {@code .hgrm} format the HdrHistogram plotter reads.
+     */
+    void writeDistribution(Path directory) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+            latencyMicros.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private double millis(double percentile) {
+        return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,371 @@
+package com.viet.data.column;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Memory-mapped spill file holding the numeric, temporal and dictionary-encoded columns of
+ * one dataset. The header is followed by one region per column ({@code capacity} doubles,
+ * longs or {@code int} codes, then the validity bitmap) and a trailer with the dictionaries.
+ * Regions are mapped read-only, so the data lives in the OS page cache and is shared by
+ * every reader of the same file.
+ */
+public class ColumnFile {
+
+    private static final int MAGIC = 0x434F4C31; // "COL1"
+    private static final int VERSION = 2;
+    private static final int ROW_COUNT_OFFSET = 12;
+    private static final int DICTIONARY_OFFSET_OFFSET = 20;
+
+    // A single mapping is limited to Integer.MAX_VALUE bytes
+    public static final int MAX_ROWS = Integer.MAX_VALUE / Double.BYTES;
+
+    public enum Kind {
+        DOUBLE(Double.BYTES),
+        DICTIONARY(Integer.BYTES),
+        // Stored by ordinal, so new kinds go last
+        LONG(Long.BYTES);
+
+        private final int width;
+
+        Kind(int width) {
+            this.width = width;
+        }
+    }
+
+    private final Path path;
+    private final int rowCount;
+    private final Map<String, DoubleColumn> numericColumns;
+    private final Map<String, LongColumn> longColumns;
+    private final Map<String, DictionaryColumn> dictionaryColumns;
+
+    private ColumnFile(Path path, int rowCount, Map<String, DoubleColumn> numericColumns,
+                       Map<String, LongColumn> longColumns, Map<String, DictionaryColumn> dictionaryColumns) {
+        this.path = path;
+        this.rowCount = rowCount;
+        this.numericColumns = numericColumns;
+        this.longColumns = longColumns;
+        this.dictionaryColumns = dictionaryColumns;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<DoubleColumn> getNumericColumns() {
+        return new ArrayList<>(numericColumns.values());
+    }
+
+    public List<LongColumn> getLongColumns() {
+        return new ArrayList<>(longColumns.values());
+    }
+
+    public List<DictionaryColumn> getDictionaryColumns() {
+        return new ArrayList<>(dictionaryColumns.values());
+    }
+
+    /**
+     * Returns the named numeric column, or null when the file has none by that name.
+     */
+    public DoubleColumn getNumericColumn(String name) {
+        return numericColumns.get(name);
+    }
+
+    /**
+     * Returns the named long column, or null when the file has none by that name.
+     */
+    public LongColumn getLongColumn(String name) {
+        return longColumns.get(name);
+    }
+
+    /**
+     * Returns the named dictionary column, or null when the file has none by that name.
+     */
+    public DictionaryColumn getDictionaryColumn(String name) {
+        return dictionaryColumns.get(name);
+    }
+
+    public static ColumnFile open(Path path) throws IOException {
+        Header header;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            header = Header.read(in);
+        }
+
+        Map<String, DoubleColumn> numericColumns = new LinkedHashMap<>();
+        Map<String, LongColumn> longColumns = new LinkedHashMap<>();
+        Map<String, DictionaryColumn> dictionaryColumns = new LinkedHashMap<>();
+
+        // Mappings stay valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<List<String>> dictionaries = readDictionaries(channel, header);
+            int dictionaryIndex = 0;
+
+            for (int i = 0; i < header.names.size(); i++) {
+                String name = header.names.get(i);
+                Kind kind = header.kinds.get(i);
+                long offset = header.regionOffset(i);
+                ByteBuffer values = channel.map(FileChannel.MapMode.READ_ONLY, offset, header.valuesBytes(kind))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                ByteBuffer validity = channel.map(FileChannel.MapMode.READ_ONLY,
+                                offset + header.valuesBytes(kind), header.validityBytes())
+                        .order(ByteOrder.LITTLE_ENDIAN);
+
+                if (kind == Kind.DOUBLE) {
+                    numericColumns.put(name, new OffHeapDoubleColumn(name, values, validity, header.rowCount));
+                } else if (kind == Kind.LONG) {
+                    longColumns.put(name, new OffHeapLongColumn(name, values, validity, header.rowCount));
+                } else {
+                    dictionaryColumns.put(name, new OffHeapDictionaryColumn(name, values, validity, header.rowCount,
+                            dictionaries.get(dictionaryIndex++)));
+                }
+            }
+        }
+        return new ColumnFile(path, header.rowCount, numericColumns, longColumns, dictionaryColumns);
+    }
+
+    private static List<List<String>> readDictionaries(FileChannel channel, Header header) throws IOException {
+        List<List<String>> dictionaries = new ArrayList<>();
+        if (!header.kinds.contains(Kind.DICTIONARY)) {
+            return dictionaries;
+        }
+        channel.position(header.dictionaryOffset);
+        // Not closed: closing the stream would close the channel still used for mapping
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        for (Kind kind : header.kinds) {
+            if (kind != Kind.DICTIONARY) {
+                continue;
+            }
+            int size = in.readInt();
+            List<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                values.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            dictionaries.add(Collections.unmodifiableList(values));
+        }
+        return dictionaries;
+    }
+
+    /**
+     * @param columns column names and kinds, in file order
+     */
+    public static Writer create(Path path, LinkedHashMap<String, Kind> columns, int capacity) throws IOException {
+        if (capacity < 0 || capacity > MAX_ROWS) {
+            throw new IllegalArgumentException("Column capacity out of range: " + capacity);
+        }
+        Header header = new Header(new ArrayList<>(columns.keySet()), new ArrayList<>(columns.values()),
+                capacity, 0, 0);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE_NEW)))) {
+            header.write(out);
+        }
+        return new Writer(path, header);
+    }
+
+    /**
+     * Fills a new column file row by row through writable mappings. Regions start zeroed,
+     * so rows that are never set read back as null.
+     */
+    public static class Writer implements Closeable {
+
+        private final Header header;
+        private final FileChannel channel;
+        private final MappedByteBuffer[] values;
+        private final MappedByteBuffer[] validity;
+        private final ValueDictionary[] dictionaries;
+
+        private Writer(Path path, Header header) throws IOException {
+            this.header = header;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int columnCount = header.names.size();
+            this.values = new MappedByteBuffer[columnCount];
+            this.validity = new MappedByteBuffer[columnCount];
+            this.dictionaries = new ValueDictionary[columnCount];
+            try {
+                for (int i = 0; i < columnCount; i++) {
+                    Kind kind = header.kinds.get(i);
+                    long offset = header.regionOffset(i);
+                    values[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset, header.valuesBytes(kind));
+                    values[i].order(ByteOrder.LITTLE_ENDIAN);
+                    validity[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                            offset + header.valuesBytes(kind), header.validityBytes());
+                    validity[i].order(ByteOrder.LITTLE_ENDIAN);
+                    if (kind == Kind.DICTIONARY) {
+                        dictionaries[i] = new ValueDictionary();
+                    }
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public int getCapacity() {
+            return header.capacity;
+        }
+
+        public void set(int column, int row, double value) {
+            values[column].putDouble(row << 3, value);
+            markValid(column, row);
+        }
+
+        public void setLong(int column, int row, long value) {
+            values[column].putLong(row << 3, value);
+            markValid(column, row);
+        }
+
+        public void setString(int column, int row, String value) {
+            values[column].putInt(row << 2, dictionaries[column].encode(value));
+            markValid(column, row);
+        }
+
+        private void markValid(int column, int row) {
+            int word = (row >>> 6) << 3;
+            validity[column].putLong(word, validity[column].getLong(word) | (1L << row));
+        }
+
+        /**
+         * Records how many rows were written, appends the dictionaries and flushes
+         * everything to disk.
+         */
+        public void finish(int rowCount) throws IOException {
+            if (rowCount > header.capacity) {
+                throw new IllegalArgumentException("Row count " + rowCount + " exceeds capacity " + header.capacity);
+            }
+            for (int i = 0; i < values.length; i++) {
+                values[i].force();
+                validity[i].force();
+            }
+
+            long dictionaryOffset = header.endOffset();
+            channel.position(dictionaryOffset);
+            // Not closed: closing the stream would close the channel
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            for (ValueDictionary dictionary : dictionaries) {
+                if (dictionary == null) {
+                    continue;
+                }
+                out.writeInt(dictionary.size());
+                for (String value : dictionary.getValues()) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+            out.flush();
+
+            ByteBuffer counts = ByteBuffer.allocate(Integer.BYTES + Integer.BYTES + Long.BYTES)
+                    .putInt(rowCount)
+                    .putInt(header.names.size())
+                    .putLong(dictionaryOffset)
+                    .flip();
+            channel.write(counts, ROW_COUNT_OFFSET);
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class Header {
+        private final List<String> names;
+        private final List<Kind> kinds;
+        private final int capacity;
+        private final int rowCount;
+        private final long dictionaryOffset;
+        private final long dataOffset;
+
+        private Header(List<String> names, List<Kind> kinds, int capacity, int rowCount, long dictionaryOffset) {
+            this.names = List.copyOf(names);
+            this.kinds = List.copyOf(kinds);
+            this.capacity = capacity;
+            this.rowCount = rowCount;
+            this.dictionaryOffset = dictionaryOffset;
+            long length = DICTIONARY_OFFSET_OFFSET + Long.BYTES;
+            for (String name : names) {
+                length += 1 + 2 + utfLength(name);
+            }
+            this.dataOffset = (length + 7) & ~7L;
+        }
+
+        private long valuesBytes(Kind kind) {
+            // Padded to whole words so every region starts 8-byte aligned
+            return (((long) capacity * kind.width) + 7) & ~7L;
+        }
+
+        private long validityBytes() {
+            return (long) ((capacity + 63) >>> 6) * Long.BYTES;
+        }
+
+        private long regionOffset(int column) {
+            long offset = dataOffset;
+            for (int i = 0; i < column; i++) {
+                offset += valuesBytes(kinds.get(i)) + validityBytes();
+            }
+            return offset;
+        }
+
+        private long endOffset() {
+            return regionOffset(names.size());
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(capacity);
+            out.writeInt(rowCount);
+            out.writeInt(names.size());
+            out.writeLong(dictionaryOffset);
+            for (int i = 0; i < names.size(); i++) {
+                out.writeByte(kinds.get(i).ordinal());
+                out.writeUTF(names.get(i));
+            }
+        }
+
+        private static Header read(DataInputStream in) throws IOException {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a column file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported column file version " + version);
+            }
+            int capacity = in.readInt();
+            int rowCount = in.readInt();
+            int columnCount = in.readInt();
+            long dictionaryOffset = in.readLong();
+            List<String> names = new ArrayList<>(columnCount);
+            List<Kind> kinds = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                kinds.add(Kind.values()[in.readByte()]);
+                names.add(in.readUTF());
+            }
+            return new Header(names, kinds, capacity, rowCount, dictionaryOffset);
+        }
+
+        private static int utfLength(String value) {
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                length += c >= 0x0001 && c <= 0x007F ? 1 : c > 0x07FF ? 3 : 2;
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.viet.data.column;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parsed rows of a CSV file as one typed vector per column, in header order.
+ */
+public class ColumnTable {
+
+    private final int rowCount;
+    private final Map<String, ColumnVector> columns = new LinkedHashMap<>();
+
+    public ColumnTable(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public void add(ColumnVector column) {
+        columns.put(column.getName(), column);
+    }
+
+    public ColumnVector getColumn(String name) {
+        return columns.get(name);
+    }
+
+    public List<ColumnVector> getColumns() {
+        return new ArrayList<>(columns.values());
+    }
+
+    public List<DoubleColumn> getNumericColumns() {
+        List<DoubleColumn> numeric = new ArrayList<>();
+        for (ColumnVector column : columns.values()) {
+            if (column instanceof DoubleColumn) {
+                numeric.add((DoubleColumn) column);
+            }
+        }
+        return numeric;
+    }
+}
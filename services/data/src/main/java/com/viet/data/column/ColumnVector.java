@@ -0,0 +1,81 @@
+package com.viet.data.column;
+
+import java.util.BitSet;
+
+/**
+ * Heap-resident column of primitive values with a null bitset, built once while parsing.
+ */
+public abstract class ColumnVector {
+
+    private final String name;
+    private final int size;
+    private final long[] nullWords;
+
+    protected ColumnVector(String name, int size, BitSet nulls) {
+        this.name = name;
+        this.size = size;
+        this.nullWords = nulls.toLongArray();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        int word = row >>> 6;
+        return word < nullWords.length && (nullWords[word] & (1L << row)) != 0;
+    }
+
+    public int getNullCount() {
+        int count = 0;
+        for (long word : nullWords) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Validity of the 64 rows starting at {@code word * 64}, as in {@link DoubleColumn#validityWord}.
+     */
+    public long validityWord(int word) {
+        long valid = word < nullWords.length ? ~nullWords[word] : -1L;
+        int remaining = size - (word << 6);
+        return remaining >= 64 ? valid : remaining <= 0 ? 0 : valid & ((1L << remaining) - 1);
+    }
+
+    /**
+     * Boxed value at {@code row}, or null; meant for previews, not for scans.
+     */
+    public abstract Object getObject(int row);
+
+    /**
+     * Growable storage shared by the typed builders.
+     */
+    abstract static class Builder {
+        protected int size;
+        protected final BitSet nulls = new BitSet();
+
+        public int size() {
+            return size;
+        }
+
+        public void appendNull() {
+            ensureCapacity(size + 1);
+            nulls.set(size++);
+        }
+
+        protected abstract int capacity();
+
+        protected abstract void grow(int capacity);
+
+        protected void ensureCapacity(int required) {
+            if (required > capacity()) {
+                grow(Math.max(required, Math.max(16, capacity() + (capacity() >> 1))));
+            }
+        }
+    }
+}
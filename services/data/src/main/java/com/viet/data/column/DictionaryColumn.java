@@ -0,0 +1,65 @@
+package com.viet.data.column;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Read-only view of a dictionary-encoded string column. Kernels work on the {@code int}
+ * codes; strings are only looked up once per distinct value.
+ */
+public interface DictionaryColumn {
+
+    String getName();
+
+    int size();
+
+    boolean isNull(int row);
+
+    /**
+     * Dictionary code at {@code row}; unspecified for null rows.
+     */
+    int getCode(int row);
+
+    List<String> getDictionary();
+
+    default String getString(int row) {
+        return isNull(row) ? null : getDictionary().get(getCode(row));
+    }
+
+    /**
+     * Code of {@code value}, or -1 when it never occurs in the column.
+     */
+    default int codeOf(String value) {
+        return getDictionary().indexOf(value);
+    }
+
+    /**
+     * Number of non-null rows per code.
+     */
+    default long[] countByCode() {
+        long[] counts = new long[getDictionary().size()];
+        for (int row = 0; row < size(); row++) {
+            if (!isNull(row)) {
+                counts[getCode(row)]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Rows whose value equals {@code value}.
+     */
+    default BitSet filterEquals(String value) {
+        BitSet rows = new BitSet(size());
+        int code = codeOf(value);
+        if (code < 0) {
+            return rows;
+        }
+        for (int row = 0; row < size(); row++) {
+            if (!isNull(row) && getCode(row) == code) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+}
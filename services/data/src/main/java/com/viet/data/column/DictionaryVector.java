@@ -0,0 +1,96 @@
+package com.viet.data.column;
+
+import java.util.*;
+
+/**
+ * String column stored as {@code int} codes into a dictionary of its distinct values.
+ */
+public class DictionaryVector extends ColumnVector implements DictionaryColumn {
+
+    private final int[] codes;
+    private final List<String> dictionary;
+
+    private DictionaryVector(String name, int[] codes, int size, BitSet nulls, List<String> dictionary) {
+        super(name, size, nulls);
+        this.codes = codes;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public int getCode(int row) {
+        return codes[row];
+    }
+
+    @Override
+    public List<String> getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : dictionary.get(codes[row]);
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return getString(row);
+    }
+
+    public static class Builder extends ColumnVector.Builder {
+        private final int maxSize;
+        private int[] codes = new int[0];
+        private final ValueDictionary dictionary = new ValueDictionary();
+
+        /**
+         * @param maxSize dictionary size past which {@link #tryAppend} refuses new values
+         */
+        public Builder(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Appends the value, or returns false without appending when it would grow the
+         * dictionary past its maximum size.
+         */
+        public boolean tryAppend(String value) {
+            int code = dictionary.encode(value);
+            if (code >= maxSize) {
+                return false;
+            }
+            ensureCapacity(size + 1);
+            codes[size++] = code;
+            return true;
+        }
+
+        /**
+         * Decodes the rows so far into a plain builder, to continue without a dictionary.
+         */
+        public StringVector.Builder toStringBuilder() {
+            StringVector.Builder builder = new StringVector.Builder();
+            List<String> values = dictionary.getValues();
+            for (int row = 0; row < size; row++) {
+                if (nulls.get(row)) {
+                    builder.appendNull();
+                } else {
+                    builder.append(values.get(codes[row]));
+                }
+            }
+            return builder;
+        }
+
+        @Override
+        protected int capacity() {
+            return codes.length;
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        public DictionaryVector build(String name) {
+            return new DictionaryVector(name, Arrays.copyOf(codes, size), size, nulls,
+                    List.copyOf(dictionary.getValues()));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.viet.data.column;
+
+/**
+ * Read-only view of a numeric column. Rows are addressed by their position in the
+ * dataset; missing or unparseable values are null.
+ */
+public interface DoubleColumn {
+
+    String getName();
+
+    int size();
+
+    boolean isNull(int row);
+
+    /**
+     * Value at {@code row}; unspecified for null rows.
+     */
+    double get(int row);
+
+    /**
+     * Copies {@code length} values starting at {@code fromRow} into {@code dest}; values of
+     * null rows are unspecified. Implementations override this with a bulk copy.
+     */
+    default void get(int fromRow, double[] dest, int length) {
+        for (int i = 0; i < length; i++) {
+            dest[i] = get(fromRow + i);
+        }
+    }
+
+    /**
+     * Validity of the 64 rows starting at {@code word * 64}: bit {@code i} is set when that
+     * row is non-null. Bits past {@link #size()} are clear.
+     */
+    default long validityWord(int word) {
+        long bits = 0;
+        int base = word << 6;
+        int end = Math.min(size(), base + 64);
+        for (int row = base; row < end; row++) {
+            if (!isNull(row)) {
+                bits |= 1L << row;
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,52 @@
+package com.viet.data.column;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class DoubleVector extends ColumnVector implements DoubleColumn {
+
+    private final double[] values;
+
+    private DoubleVector(String name, double[] values, int size, BitSet nulls) {
+        super(name, size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public double get(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void get(int fromRow, double[] dest, int length) {
+        System.arraycopy(values, fromRow, dest, 0, length);
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    public static class Builder extends ColumnVector.Builder {
+        private double[] values = new double[0];
+
+        public void append(double value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        @Override
+        protected int capacity() {
+            return values.length;
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        public DoubleVector build(String name) {
+            return new DoubleVector(name, Arrays.copyOf(values, size), size, nulls);
+        }
+    }
+}
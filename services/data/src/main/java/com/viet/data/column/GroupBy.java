@@ -0,0 +1,82 @@
+package com.viet.data.column;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Per-group count, sum, min and max of a numeric measure, grouped by the codes of a
+ * dictionary column. Groups are indexed by code, so no key is hashed per row.
+ */
+public class GroupBy {
+
+    private final long[] counts;
+    private final long[] measureCounts;
+    private final double[] sums;
+    private final double[] mins;
+    private final double[] maxes;
+
+    private GroupBy(int groupCount) {
+        counts = new long[groupCount];
+        measureCounts = new long[groupCount];
+        sums = new double[groupCount];
+        mins = new double[groupCount];
+        maxes = new double[groupCount];
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * @param measure optional column to aggregate; null counts rows only
+     * @param rows    optional row filter; null selects every row
+     */
+    public static GroupBy aggregate(DictionaryColumn keys, DoubleColumn measure, BitSet rows) {
+        GroupBy result = new GroupBy(keys.getDictionary().size());
+        int size = measure != null ? Math.min(keys.size(), measure.size()) : keys.size();
+
+        for (int row = rows != null ? rows.nextSetBit(0) : 0;
+             row >= 0 && row < size;
+             row = rows != null ? rows.nextSetBit(row + 1) : row + 1) {
+            if (keys.isNull(row)) {
+                continue;
+            }
+            int code = keys.getCode(row);
+            result.counts[code]++;
+            if (measure != null && !measure.isNull(row)) {
+                double value = measure.get(row);
+                result.measureCounts[code]++;
+                result.sums[code] += value;
+                result.mins[code] = Math.min(result.mins[code], value);
+                result.maxes[code] = Math.max(result.maxes[code], value);
+            }
+        }
+        return result;
+    }
+
+    public int getGroupCount() {
+        return counts.length;
+    }
+
+    public long getCount(int code) {
+        return counts[code];
+    }
+
+    public long getMeasureCount(int code) {
+        return measureCounts[code];
+    }
+
+    public double getSum(int code) {
+        return sums[code];
+    }
+
+    public double getMin(int code) {
+        return mins[code];
+    }
+
+    public double getMax(int code) {
+        return maxes[code];
+    }
+
+    public double getMean(int code) {
+        return measureCounts[code] > 0 ? sums[code] / measureCounts[code] : Double.NaN;
+    }
+}
@@ -0,0 +1,13 @@
+package com.viet.data.column;
+
+/**
+ * Column of 64-bit integers, such as epoch-based dates. Readable as doubles as well, which
+ * is exact up to 2^53.
+ */
+public interface LongColumn extends DoubleColumn {
+
+    /**
+     * Value at {@code row}; unspecified for null rows.
+     */
+    long getLong(int row);
+}
@@ -0,0 +1,86 @@
+package com.viet.data.column;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.LongFunction;
+
+/**
+ * Integer column. Also readable as doubles, so numeric kernels accept it unchanged.
+ * Dates and date-times are held here too, as epoch days or millis, with a renderer that
+ * turns them back into text for previews.
+ */
+public class LongVector extends ColumnVector implements LongColumn {
+
+    private final long[] values;
+    private final LongFunction<Object> renderer;
+
+    private LongVector(String name, long[] values, int size, BitSet nulls, LongFunction<Object> renderer) {
+        super(name, size, nulls);
+        this.values = values;
+        this.renderer = renderer;
+    }
+
+    @Override
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    public double get(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void get(int fromRow, double[] dest, int length) {
+        for (int i = 0; i < length; i++) {
+            dest[i] = values[fromRow + i];
+        }
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : renderer.apply(values[row]);
+    }
+
+    public static class Builder extends ColumnVector.Builder {
+        private long[] values = new long[0];
+
+        public void append(long value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        @Override
+        protected int capacity() {
+            return values.length;
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        /**
+         * Widens to doubles once a fractional value shows up after type inference.
+         */
+        public DoubleVector.Builder toDoubleBuilder() {
+            DoubleVector.Builder builder = new DoubleVector.Builder();
+            for (int row = 0; row < size; row++) {
+                if (nulls.get(row)) {
+                    builder.appendNull();
+                } else {
+                    builder.append(values[row]);
+                }
+            }
+            return builder;
+        }
+
+        public LongVector build(String name) {
+            return build(name, Long::valueOf);
+        }
+
+        public LongVector build(String name, LongFunction<Object> renderer) {
+            return new LongVector(name, Arrays.copyOf(values, size), size, nulls, renderer);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.viet.data.column;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.BitSet;
+
+/**
+ * Hot numeric loops over {@link DoubleColumn}s. The SIMD implementation is chosen at
+ * startup when {@code jdk.incubator.vector} is resolved and the CPU has vector lanes for
+ * doubles; otherwise, or with {@code -Dapp.kernels.vectorized=false}, a scalar one is used.
+ * Both skip null rows.
+ */
+@Slf4j
+public abstract class NumericKernels {
+
+    // Rows per validity word; kernels work through columns one word-sized chunk at a time
+    static final int CHUNK = 64;
+
+    private static final NumericKernels INSTANCE = select();
+
+    public static NumericKernels get() {
+        return INSTANCE;
+    }
+
+    public abstract Summary summarize(DoubleColumn column);
+
+    /**
+     * Means and centered co-moments over the rows where both columns are non-null.
+     */
+    public abstract CoMoments coMoments(DoubleColumn x, DoubleColumn y);
+
+    /**
+     * Non-null rows whose value is below {@code lower} or above {@code upper}.
+     */
+    public abstract BitSet selectOutside(DoubleColumn column, double lower, double upper);
+
+    public abstract String getName();
+
+    private static NumericKernels select() {
+        NumericKernels kernels = new ScalarKernels();
+        if (Boolean.parseBoolean(System.getProperty("app.kernels.vectorized", "true"))) {
+            try {
+                if (VectorizedKernels.isSupported()) {
+                    kernels = new VectorizedKernels();
+                }
+            } catch (LinkageError e) {
+                // Started without --add-modules jdk.incubator.vector
+            }
+        }
+        log.info("Using {} numeric kernels", kernels.getName());
+        return kernels;
+    }
+
+    public record Summary(long count, double sum, double sumOfSquares, double min, double max) {
+
+        public double mean() {
+            return count > 0 ? sum / count : Double.NaN;
+        }
+    }
+
+    public record CoMoments(long count, double meanX, double meanY, double sxx, double syy, double sxy) {
+
+        public double correlation() {
+            return count < 2 ? Double.NaN : sxy / Math.sqrt(sxx * syy);
+        }
+    }
+}
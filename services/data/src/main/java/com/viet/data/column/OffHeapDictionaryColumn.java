@@ -0,0 +1,50 @@
+package com.viet.data.column;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Dictionary-encoded column stored outside the heap: little-endian {@code int} codes plus
+ * a validity bitmap. The dictionary itself is small and kept on the heap.
+ */
+public class OffHeapDictionaryColumn implements DictionaryColumn {
+
+    private final String name;
+    private final ByteBuffer codes;
+    private final ByteBuffer validity;
+    private final int size;
+    private final List<String> dictionary;
+
+    OffHeapDictionaryColumn(String name, ByteBuffer codes, ByteBuffer validity, int size, List<String> dictionary) {
+        this.name = name;
+        this.codes = codes;
+        this.validity = validity;
+        this.size = size;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return (validity.getLong((row >>> 6) << 3) & (1L << row)) == 0;
+    }
+
+    @Override
+    public int getCode(int row) {
+        return codes.getInt(row << 2);
+    }
+
+    @Override
+    public List<String> getDictionary() {
+        return dictionary;
+    }
+}
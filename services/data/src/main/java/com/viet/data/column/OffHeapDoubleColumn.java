@@ -0,0 +1,66 @@
+package com.viet.data.column;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+/**
+ * Numeric column stored outside the heap: little-endian doubles plus a validity bitmap
+ * with one bit per row, set for non-null values. Only absolute reads are used, so one
+ * instance can be shared by concurrent readers.
+ */
+public class OffHeapDoubleColumn implements DoubleColumn {
+
+    private final String name;
+    private final ByteBuffer values;
+    private final DoubleBuffer doubles;
+    private final ByteBuffer validity;
+    private final int size;
+
+    OffHeapDoubleColumn(String name, ByteBuffer values, ByteBuffer validity, int size) {
+        this.name = name;
+        this.values = values;
+        this.doubles = values.asDoubleBuffer();
+        this.validity = validity;
+        this.size = size;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return (validity.getLong((row >>> 6) << 3) & (1L << row)) == 0;
+    }
+
+    @Override
+    public double get(int row) {
+        return values.getDouble(row << 3);
+    }
+
+    @Override
+    public void get(int fromRow, double[] dest, int length) {
+        doubles.get(fromRow, dest, 0, length);
+    }
+
+    @Override
+    public long validityWord(int word) {
+        // Rows past the row count are never set, so no masking is needed
+        return validity.getLong(word << 3);
+    }
+
+    public long getNullCount() {
+        long valid = 0;
+        int words = (size + 63) >>> 6;
+        for (int word = 0; word < words; word++) {
+            valid += Long.bitCount(validity.getLong(word << 3));
+        }
+        return size - valid;
+    }
+}
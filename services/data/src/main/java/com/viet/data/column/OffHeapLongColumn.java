@@ -0,0 +1,52 @@
+package com.viet.data.column;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Integer column stored outside the heap, laid out like {@link OffHeapDoubleColumn} but
+ * with little-endian longs. Holds epoch-based dates.
+ */
+public class OffHeapLongColumn implements LongColumn {
+
+    private final String name;
+    private final ByteBuffer values;
+    private final ByteBuffer validity;
+    private final int size;
+
+    OffHeapLongColumn(String name, ByteBuffer values, ByteBuffer validity, int size) {
+        this.name = name;
+        this.values = values;
+        this.validity = validity;
+        this.size = size;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return (validity.getLong((row >>> 6) << 3) & (1L << row)) == 0;
+    }
+
+    @Override
+    public long getLong(int row) {
+        return values.getLong(row << 3);
+    }
+
+    @Override
+    public double get(int row) {
+        return values.getLong(row << 3);
+    }
+
+    @Override
+    public long validityWord(int word) {
+        return validity.getLong(word << 3);
+    }
+}
@@ -0,0 +1,43 @@
+package com.viet.data.column;
+
+import java.util.List;
+
+/**
+ * A dictionary column holding only rows {@code offset} onwards of a dataset, addressed by
+ * dataset row. Rows outside the range read as null.
+ */
+public class OffsetDictionaryColumn implements DictionaryColumn {
+
+    private final DictionaryColumn rows;
+    private final int offset;
+
+    public OffsetDictionaryColumn(DictionaryColumn rows, int offset) {
+        this.rows = rows;
+        this.offset = offset;
+    }
+
+    @Override
+    public String getName() {
+        return rows.getName();
+    }
+
+    @Override
+    public int size() {
+        return offset + rows.size();
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return row < offset || row >= offset + rows.size() || rows.isNull(row - offset);
+    }
+
+    @Override
+    public int getCode(int row) {
+        return rows.getCode(row - offset);
+    }
+
+    @Override
+    public List<String> getDictionary() {
+        return rows.getDictionary();
+    }
+}
@@ -0,0 +1,121 @@
+package com.viet.data.column;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A window of rows over the decoded columns of a dataset, in dataset column order. Text of too
+ * many distinct values for the {@link ColumnFile} is read from the CSV for the page's rows only,
+ * and the memory held for it is released when the page is closed.
+ */
+public class RowPage implements AutoCloseable {
+
+    public enum Type {
+        INTEGER, DOUBLE, DATE, DATETIME, TEXT
+    }
+
+    private final List<Column> columns;
+    private final int offset;
+    private final int count;
+    private final int totalRows;
+    private final Runnable release;
+
+    public RowPage(List<Column> columns, int offset, int count, int totalRows, Runnable release) {
+        this.columns = List.copyOf(columns);
+        this.offset = offset;
+        this.count = count;
+        this.totalRows = totalRows;
+        this.release = release;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    @Override
+    public void close() {
+        release.run();
+    }
+
+    public static final class Column {
+        private final String name;
+        private final Type type;
+        private final DoubleColumn numbers;
+        private final DictionaryColumn text;
+
+        private Column(String name, Type type, DoubleColumn numbers, DictionaryColumn text) {
+            this.name = name;
+            this.type = type;
+            this.numbers = numbers;
+            this.text = text;
+        }
+
+        public static Column numeric(DoubleColumn values, boolean integral) {
+            return new Column(values.getName(), integral ? Type.INTEGER : Type.DOUBLE, values, null);
+        }
+
+        public static Column temporal(LongColumn values, boolean withTime) {
+            return new Column(values.getName(), withTime ? Type.DATETIME : Type.DATE, values, null);
+        }
+
+        public static Column text(DictionaryColumn values) {
+            return new Column(values.getName(), Type.TEXT, null, values);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public boolean isNull(int row) {
+            return type == Type.TEXT ? text.isNull(row) : numbers.isNull(row);
+        }
+
+        public double getDouble(int row) {
+            return numbers.get(row);
+        }
+
+        /**
+         * Integer value, epoch day or epoch millisecond, depending on the type.
+         */
+        public long getLong(int row) {
+            return numbers instanceof LongColumn longs ? longs.getLong(row) : (long) numbers.get(row);
+        }
+
+        public DictionaryColumn getText() {
+            return text;
+        }
+
+        /**
+         * JSON-friendly value: numbers as such, dates in ISO-8601, text as the string.
+         */
+        public Object getObject(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return switch (type) {
+                case INTEGER -> getLong(row);
+                case DOUBLE -> getDouble(row);
+                case DATE -> LocalDate.ofEpochDay(getLong(row)).toString();
+                case DATETIME -> Instant.ofEpochMilli(getLong(row)).toString();
+                case TEXT -> text.getString(row);
+            };
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.viet.data.column;
+
+import java.util.BitSet;
+
+class ScalarKernels extends NumericKernels {
+
+    @Override
+    public Summary summarize(DoubleColumn column) {
+        long count = 0;
+        double sum = 0;
+        double sumOfSquares = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < column.size(); row++) {
+            if (!column.isNull(row)) {
+                double value = column.get(row);
+                count++;
+                sum += value;
+                sumOfSquares += value * value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        return new Summary(count, sum, sumOfSquares, min, max);
+    }
+
+    @Override
+    public CoMoments coMoments(DoubleColumn x, DoubleColumn y) {
+        // Two passes over the shared rows: means first, then centered sums for stability
+        int size = Math.min(x.size(), y.size());
+        long n = 0;
+        double sumX = 0;
+        double sumY = 0;
+        for (int row = 0; row < size; row++) {
+            if (!x.isNull(row) && !y.isNull(row)) {
+                sumX += x.get(row);
+                sumY += y.get(row);
+                n++;
+            }
+        }
+        if (n == 0) {
+            return new CoMoments(0, Double.NaN, Double.NaN, 0, 0, 0);
+        }
+
+        double meanX = sumX / n;
+        double meanY = sumY / n;
+        double sxx = 0;
+        double syy = 0;
+        double sxy = 0;
+        for (int row = 0; row < size; row++) {
+            if (!x.isNull(row) && !y.isNull(row)) {
+                double dx = x.get(row) - meanX;
+                double dy = y.get(row) - meanY;
+                sxx += dx * dx;
+                syy += dy * dy;
+                sxy += dx * dy;
+            }
+        }
+        return new CoMoments(n, meanX, meanY, sxx, syy, sxy);
+    }
+
+    @Override
+    public BitSet selectOutside(DoubleColumn column, double lower, double upper) {
+        BitSet rows = new BitSet(column.size());
+        for (int row = 0; row < column.size(); row++) {
+            if (!column.isNull(row)) {
+                double value = column.get(row);
+                if (value < lower || value > upper) {
+                    rows.set(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,225 @@
+package com.viet.data.column;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rows of a dataset sampled without replacement within strata, with the weight each sampled
+ * row stands for ({@code N_h / n_h} of its stratum). Totals, counts and means over any subset
+ * of rows are estimated with the usual stratified estimators, with standard errors that
+ * include the finite population correction.
+ */
+public class StratifiedSample {
+
+    public static final double CONFIDENCE_LEVEL = 0.95;
+    // Two-sided normal quantile for CONFIDENCE_LEVEL
+    public static final double Z = 1.959964;
+
+    private final ColumnFile rows;
+    private final String weightColumn;
+    private final DoubleColumn weights;
+    private final int[] strata;
+    private final long[] stratumRows;
+    private final double[] stratumWeights;
+    private final String strataColumn;
+    private final long populationRows;
+
+    /**
+     * @param rows         the sampled rows
+     * @param weightColumn numeric column of {@code rows} holding the population rows each sampled row stands for
+     * @param strataColumn column the sample was stratified on, or null for a single stratum
+     */
+    public StratifiedSample(ColumnFile rows, String weightColumn, String strataColumn) {
+        this.rows = rows;
+        this.weightColumn = weightColumn;
+        this.weights = rows.getNumericColumn(weightColumn);
+        this.strataColumn = strataColumn;
+
+        // Nulls of the strata column form a stratum of their own, after the dictionary codes
+        DictionaryColumn keys = strataColumn != null ? rows.getDictionaryColumn(strataColumn) : null;
+        int stratumCount = keys != null ? keys.getDictionary().size() + 1 : 1;
+        this.strata = new int[rows.getRowCount()];
+        this.stratumRows = new long[stratumCount];
+        this.stratumWeights = new double[stratumCount];
+        double population = 0;
+        for (int row = 0; row < strata.length; row++) {
+            int stratum = keys == null ? 0 : keys.isNull(row) ? stratumCount - 1 : keys.getCode(row);
+            strata[row] = stratum;
+            stratumRows[stratum]++;
+            stratumWeights[stratum] = weights.get(row);
+            population += weights.get(row);
+        }
+        this.populationRows = Math.round(population);
+    }
+
+    public int getRowCount() {
+        return strata.length;
+    }
+
+    public long getPopulationRows() {
+        return populationRows;
+    }
+
+    public int getStratumCount() {
+        return stratumRows.length;
+    }
+
+    public String getStrataColumn() {
+        return strataColumn;
+    }
+
+    public double getWeight(int row) {
+        return weights.get(row);
+    }
+
+    /**
+     * Numeric columns of the sampled rows, without the weights.
+     */
+    public List<DoubleColumn> getNumericColumns() {
+        List<DoubleColumn> columns = new ArrayList<>(rows.getNumericColumns());
+        columns.removeIf(column -> column.getName().equals(weightColumn));
+        return columns;
+    }
+
+    public DoubleColumn getNumericColumn(String name) {
+        return name.equals(weightColumn) ? null : rows.getNumericColumn(name);
+    }
+
+    public DictionaryColumn getDictionaryColumn(String name) {
+        return rows.getDictionaryColumn(name);
+    }
+
+    public Domain newDomain() {
+        return new Domain();
+    }
+
+    /**
+     * A point estimate and its standard error, which is NaN when the sample cannot estimate it.
+     */
+    public record Estimate(double value, double standardError) {
+
+        public double lower() {
+            return value - Z * standardError;
+        }
+
+        public double upper() {
+            return value + Z * standardError;
+        }
+    }
+
+    /**
+     * A subset of the population, such as one group of a group-by, accumulated from the sample
+     * rows that fall into it. {@link #add} counts a row; {@link #addValue} also records the
+     * measure of a row whose measure is not null.
+     */
+    public final class Domain {
+        private final long[] counts = new long[stratumRows.length];
+        private final long[] valueCounts = new long[stratumRows.length];
+        private final double[] sums = new double[stratumRows.length];
+        private final double[] sumSquares = new double[stratumRows.length];
+
+        private Domain() {
+        }
+
+        public void add(int row) {
+            counts[strata[row]]++;
+        }
+
+        public void addValue(int row, double value) {
+            int stratum = strata[row];
+            valueCounts[stratum]++;
+            sums[stratum] += value;
+            sumSquares[stratum] += value * value;
+        }
+
+        public boolean isEmpty() {
+            for (long count : counts) {
+                if (count > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public boolean hasValues() {
+            for (long count : valueCounts) {
+                if (count > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Population rows in the domain.
+         */
+        public Estimate count() {
+            // The indicator of the domain is its own square
+            double[] indicator = Arrays.stream(counts).asDoubleStream().toArray();
+            return total(indicator, indicator);
+        }
+
+        /**
+         * Population total of the measure over the domain.
+         */
+        public Estimate sum() {
+            return total(sums, sumSquares);
+        }
+
+        /**
+         * Mean of the measure over the domain, as the ratio of the estimated total to the
+         * estimated number of values, with a linearized standard error.
+         */
+        public Estimate mean() {
+            double total = 0;
+            double values = 0;
+            for (int h = 0; h < stratumRows.length; h++) {
+                total += stratumWeights[h] * sums[h];
+                values += stratumWeights[h] * valueCounts[h];
+            }
+            if (values == 0) {
+                return new Estimate(Double.NaN, Double.NaN);
+            }
+            double ratio = total / values;
+
+            // Residuals x - ratio over rows with a value, zero elsewhere in the stratum
+            double variance = 0;
+            for (int h = 0; h < stratumRows.length; h++) {
+                double s1 = sums[h] - ratio * valueCounts[h];
+                double s2 = sumSquares[h] - 2 * ratio * sums[h] + ratio * ratio * valueCounts[h];
+                variance += stratumVariance(h, s1, s2);
+            }
+            return new Estimate(ratio, Math.sqrt(variance) / values);
+        }
+
+        private Estimate total(double[] s1, double[] s2) {
+            double total = 0;
+            double variance = 0;
+            for (int h = 0; h < stratumRows.length; h++) {
+                total += stratumWeights[h] * s1[h];
+                variance += stratumVariance(h, s1[h], s2[h]);
+            }
+            return new Estimate(total, Math.sqrt(variance));
+        }
+
+        /**
+         * Variance contributed by stratum {@code h} to an estimated total, from the sum and sum of
+         * squares of the variable over its sample rows: {@code N_h^2 (1 - n_h/N_h) s_h^2 / n_h}.
+         * NaN when a single row stands for several, as its spread is then unknown.
+         */
+        private double stratumVariance(int h, double s1, double s2) {
+            long n = stratumRows[h];
+            double weight = stratumWeights[h];
+            if (weight <= 1) {
+                // Fully sampled strata add no error
+                return 0;
+            }
+            if (n < 2) {
+                return Double.NaN;
+            }
+            double sampleVariance = Math.max(0, (s2 - s1 * s1 / n) / (n - 1));
+            return weight * weight * n * (1 - 1 / weight) * sampleVariance;
+        }
+    }
+}
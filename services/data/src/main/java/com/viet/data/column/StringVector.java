@@ -0,0 +1,49 @@
+package com.viet.data.column;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Plain string column, used once a column has too many distinct values to be worth a dictionary.
+ */
+public class StringVector extends ColumnVector {
+
+    private final String[] values;
+
+    private StringVector(String name, String[] values, int size, BitSet nulls) {
+        super(name, size, nulls);
+        this.values = values;
+    }
+
+    public String getString(int row) {
+        return values[row];
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return values[row];
+    }
+
+    public static class Builder extends ColumnVector.Builder {
+        private String[] values = new String[0];
+
+        public void append(String value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        @Override
+        protected int capacity() {
+            return values.length;
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        public StringVector build(String name) {
+            return new StringVector(name, Arrays.copyOf(values, size), size, nulls);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.viet.data.column;
+
+import java.util.Arrays;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of one value column against a time column,
+ * with the min and max of every bucket as an envelope. Buckets split the time window into
+ * equal widths, one per output pixel, so irregular sampling keeps its spacing on the chart.
+ * <p>
+ * Runs in linear time over the mapped columns: one pass accumulates per-bucket counts, sums
+ * and extremes, a second picks each bucket's point. Rows sorted by time are revisited bucket
+ * by bucket in place; otherwise they are first ordered by bucket with a counting sort.
+ */
+public final class TimeSeriesDownsampler {
+
+    private TimeSeriesDownsampler() {
+    }
+
+    /**
+     * @param from first time of the window, inclusive
+     * @param to   last time of the window, inclusive
+     */
+    public static Series downsample(LongColumn time, DoubleColumn values, long from, long to, int buckets) {
+        int rowCount = Math.min(time.size(), values.size());
+        double span = (double) to - from + 1;
+        Accumulator acc = new Accumulator(buckets);
+
+        // Pass 1: bucket statistics, the end points and whether rows are in time order
+        long previous = Long.MIN_VALUE;
+        boolean sorted = true;
+        for (int row = 0; row < rowCount; row++) {
+            if (time.isNull(row) || values.isNull(row)) {
+                continue;
+            }
+            long t = time.getLong(row);
+            if (t < from || t > to) {
+                continue;
+            }
+            sorted &= t >= previous;
+            previous = t;
+            acc.add(bucketOf(t, from, span, buckets), row, t, t - from, values.get(row));
+        }
+
+        if (acc.points == 0) {
+            return new Series(new long[0], new double[0], new long[0], new double[0], new double[0], 0);
+        }
+
+        int[] order = sorted ? null : orderByBucket(time, values, from, to, span, acc);
+
+        // Pass 2: in each bucket keep the point forming the largest triangle with the point kept
+        // in the previous bucket and the average of the next non-empty bucket
+        long[] pointTimes = new long[acc.nonEmpty + 2];
+        double[] pointValues = new double[acc.nonEmpty + 2];
+        int points = 0;
+        pointTimes[points] = acc.firstTime;
+        pointValues[points++] = acc.firstValue;
+
+        int next = acc.nextNonEmpty(0);
+        for (int bucket = next; bucket >= 0; bucket = next) {
+            next = acc.nextNonEmpty(bucket + 1);
+            double ax = pointTimes[points - 1] - (double) from;
+            double ay = pointValues[points - 1];
+            double cx = next >= 0 ? acc.sumOffsets[next] / acc.counts[next] : acc.lastTime - (double) from;
+            double cy = next >= 0 ? acc.sumValues[next] / acc.counts[next] : acc.lastValue;
+
+            double bestArea = -1;
+            int bestRow = -1;
+            int start = sorted ? acc.firstRows[bucket] : acc.offsets[bucket];
+            int end = sorted ? acc.lastRows[bucket] + 1 : acc.offsets[bucket] + (int) acc.counts[bucket];
+            for (int i = start; i < end; i++) {
+                int row = sorted ? i : order[i];
+                if (sorted && (time.isNull(row) || values.isNull(row))) {
+                    continue;
+                }
+                long t = time.getLong(row);
+                if (sorted && (t < from || t > to)) {
+                    continue;
+                }
+                double bx = t - (double) from;
+                double by = values.get(row);
+                double area = Math.abs((ax - cx) * (by - ay) - (ax - bx) * (cy - ay));
+                if (area > bestArea) {
+                    bestArea = area;
+                    bestRow = row;
+                }
+            }
+            points = append(pointTimes, pointValues, points, time.getLong(bestRow), values.get(bestRow));
+        }
+        points = append(pointTimes, pointValues, points, acc.lastTime, acc.lastValue);
+
+        long[] bucketTimes = new long[acc.nonEmpty];
+        double[] mins = new double[acc.nonEmpty];
+        double[] maxes = new double[acc.nonEmpty];
+        int i = 0;
+        for (int bucket = acc.nextNonEmpty(0); bucket >= 0; bucket = acc.nextNonEmpty(bucket + 1), i++) {
+            bucketTimes[i] = from + (long) Math.floor(bucket * span / buckets);
+            mins[i] = acc.mins[bucket];
+            maxes[i] = acc.maxes[bucket];
+        }
+
+        return new Series(Arrays.copyOf(pointTimes, points), Arrays.copyOf(pointValues, points),
+                bucketTimes, mins, maxes, acc.points);
+    }
+
+    private static int append(long[] times, double[] values, int points, long t, double value) {
+        // The end points are usually also picked in the first and last buckets
+        if (times[points - 1] == t && values[points - 1] == value) {
+            return points;
+        }
+        times[points] = t;
+        values[points] = value;
+        return points + 1;
+    }
+
+    private static int bucketOf(long t, long from, double span, int buckets) {
+        return Math.min(buckets - 1, (int) ((t - from) * (double) buckets / span));
+    }
+
+    /**
+     * Rows of the window grouped by bucket, for data that is not in time order.
+     */
+    private static int[] orderByBucket(LongColumn time, DoubleColumn values, long from, long to, double span,
+                                       Accumulator acc) {
+        int buckets = acc.counts.length;
+        acc.offsets = new int[buckets];
+        int offset = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            acc.offsets[bucket] = offset;
+            offset += (int) acc.counts[bucket];
+        }
+
+        int[] order = new int[offset];
+        int[] fill = acc.offsets.clone();
+        int rowCount = Math.min(time.size(), values.size());
+        for (int row = 0; row < rowCount; row++) {
+            if (time.isNull(row) || values.isNull(row)) {
+                continue;
+            }
+            long t = time.getLong(row);
+            if (t >= from && t <= to) {
+                order[fill[bucketOf(t, from, span, buckets)]++] = row;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Downsampled points in time order, and the envelope of every non-empty bucket.
+     */
+    public record Series(long[] times, double[] values, long[] bucketTimes, double[] mins, double[] maxes,
+                         long pointsInWindow) {
+    }
+
+    private static final class Accumulator {
+        private final long[] counts;
+        // Times relative to the window start, which keeps the sums exact enough in doubles
+        private final double[] sumOffsets;
+        private final double[] sumValues;
+        private final double[] mins;
+        private final double[] maxes;
+        private final int[] firstRows;
+        private final int[] lastRows;
+        private int[] offsets;
+        private long points;
+        private int nonEmpty;
+        private long firstTime = Long.MAX_VALUE;
+        private double firstValue;
+        private long lastTime = Long.MIN_VALUE;
+        private double lastValue;
+
+        private Accumulator(int buckets) {
+            counts = new long[buckets];
+            sumOffsets = new double[buckets];
+            sumValues = new double[buckets];
+            mins = new double[buckets];
+            maxes = new double[buckets];
+            firstRows = new int[buckets];
+            lastRows = new int[buckets];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+        }
+
+        private void add(int bucket, int row, long t, long offset, double value) {
+            if (counts[bucket]++ == 0) {
+                firstRows[bucket] = row;
+                nonEmpty++;
+            }
+            lastRows[bucket] = row;
+            sumOffsets[bucket] += offset;
+            sumValues[bucket] += value;
+            mins[bucket] = Math.min(mins[bucket], value);
+            maxes[bucket] = Math.max(maxes[bucket], value);
+            points++;
+            if (t < firstTime) {
+                firstTime = t;
+                firstValue = value;
+            }
+            if (t >= lastTime) {
+                lastTime = t;
+                lastValue = value;
+            }
+        }
+
+        private int nextNonEmpty(int from) {
+            for (int bucket = from; bucket < counts.length; bucket++) {
+                if (counts[bucket] > 0) {
+                    return bucket;
+                }
+            }
+            return -1;
+        }
+    }
+}
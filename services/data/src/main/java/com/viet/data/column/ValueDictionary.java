@@ -0,0 +1,33 @@
+package com.viet.data.column;
+
+import java.util.*;
+
+/**
+ * Distinct values of a column in first-seen order; a value's code is its position.
+ */
+public class ValueDictionary {
+
+    // Past this many distinct values a column is stored without a dictionary
+    public static final int MAX_SIZE = 1 << 16;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,157 @@
+package com.viet.data.column;
+
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.BitSet;
+
+/**
+ * SIMD kernels on the incubating Vector API. Each 64-row chunk is copied into a scratch
+ * array and processed {@code SPECIES.length()} lanes at a time, with the chunk's validity
+ * word as the lane mask, so null rows never need a branch.
+ */
+class VectorizedKernels extends NumericKernels {
+
+    // Our own DoubleVector is a column type; the SIMD one is always written out in full
+    private static final VectorSpecies<Double> SPECIES = jdk.incubator.vector.DoubleVector.SPECIES_PREFERRED;
+
+    static boolean isSupported() {
+        int lanes = SPECIES.length();
+        return lanes >= 2 && CHUNK % lanes == 0;
+    }
+
+    @Override
+    public Summary summarize(DoubleColumn column) {
+        int lanes = SPECIES.length();
+        double[] chunk = new double[CHUNK];
+        jdk.incubator.vector.DoubleVector sum = jdk.incubator.vector.DoubleVector.zero(SPECIES);
+        jdk.incubator.vector.DoubleVector sumOfSquares = sum;
+        jdk.incubator.vector.DoubleVector min = jdk.incubator.vector.DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        jdk.incubator.vector.DoubleVector max = jdk.incubator.vector.DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        long count = 0;
+
+        for (int word = 0, base = 0; base < column.size(); word++, base += CHUNK) {
+            long valid = column.validityWord(word);
+            if (valid == 0) {
+                continue;
+            }
+            int length = Math.min(CHUNK, column.size() - base);
+            column.get(base, chunk, length);
+            count += Long.bitCount(valid);
+
+            for (int i = 0; i < length; i += lanes) {
+                VectorMask<Double> mask = VectorMask.fromLong(SPECIES, valid >>> i);
+                jdk.incubator.vector.DoubleVector v = jdk.incubator.vector.DoubleVector.fromArray(SPECIES, chunk, i);
+                sum = sum.add(v, mask);
+                sumOfSquares = sumOfSquares.add(v.mul(v), mask);
+                min = min.lanewise(VectorOperators.MIN, v, mask);
+                max = max.lanewise(VectorOperators.MAX, v, mask);
+            }
+        }
+
+        return new Summary(count, sum.reduceLanes(VectorOperators.ADD),
+                sumOfSquares.reduceLanes(VectorOperators.ADD),
+                min.reduceLanes(VectorOperators.MIN), max.reduceLanes(VectorOperators.MAX));
+    }
+
+    @Override
+    public CoMoments coMoments(DoubleColumn x, DoubleColumn y) {
+        int lanes = SPECIES.length();
+        int size = Math.min(x.size(), y.size());
+        double[] chunkX = new double[CHUNK];
+        double[] chunkY = new double[CHUNK];
+
+        // Pass 1: means over the shared rows
+        jdk.incubator.vector.DoubleVector sumX = jdk.incubator.vector.DoubleVector.zero(SPECIES);
+        jdk.incubator.vector.DoubleVector sumY = sumX;
+        long n = 0;
+        for (int word = 0, base = 0; base < size; word++, base += CHUNK) {
+            long valid = sharedValidity(x, y, word, size - base);
+            if (valid == 0) {
+                continue;
+            }
+            int length = Math.min(CHUNK, size - base);
+            x.get(base, chunkX, length);
+            y.get(base, chunkY, length);
+            n += Long.bitCount(valid);
+
+            for (int i = 0; i < length; i += lanes) {
+                VectorMask<Double> mask = VectorMask.fromLong(SPECIES, valid >>> i);
+                sumX = sumX.add(jdk.incubator.vector.DoubleVector.fromArray(SPECIES, chunkX, i), mask);
+                sumY = sumY.add(jdk.incubator.vector.DoubleVector.fromArray(SPECIES, chunkY, i), mask);
+            }
+        }
+        if (n == 0) {
+            return new CoMoments(0, Double.NaN, Double.NaN, 0, 0, 0);
+        }
+
+        double meanX = sumX.reduceLanes(VectorOperators.ADD) / n;
+        double meanY = sumY.reduceLanes(VectorOperators.ADD) / n;
+
+        // Pass 2: centered sums for stability
+        jdk.incubator.vector.DoubleVector sxx = jdk.incubator.vector.DoubleVector.zero(SPECIES);
+        jdk.incubator.vector.DoubleVector syy = sxx;
+        jdk.incubator.vector.DoubleVector sxy = sxx;
+        for (int word = 0, base = 0; base < size; word++, base += CHUNK) {
+            long valid = sharedValidity(x, y, word, size - base);
+            if (valid == 0) {
+                continue;
+            }
+            int length = Math.min(CHUNK, size - base);
+            x.get(base, chunkX, length);
+            y.get(base, chunkY, length);
+
+            for (int i = 0; i < length; i += lanes) {
+                VectorMask<Double> mask = VectorMask.fromLong(SPECIES, valid >>> i);
+                jdk.incubator.vector.DoubleVector dx = jdk.incubator.vector.DoubleVector.fromArray(SPECIES, chunkX, i)
+                        .sub(meanX);
+                jdk.incubator.vector.DoubleVector dy = jdk.incubator.vector.DoubleVector.fromArray(SPECIES, chunkY, i)
+                        .sub(meanY);
+                sxx = sxx.add(dx.mul(dx), mask);
+                syy = syy.add(dy.mul(dy), mask);
+                sxy = sxy.add(dx.mul(dy), mask);
+            }
+        }
+
+        return new CoMoments(n, meanX, meanY, sxx.reduceLanes(VectorOperators.ADD),
+                syy.reduceLanes(VectorOperators.ADD), sxy.reduceLanes(VectorOperators.ADD));
+    }
+
+    @Override
+    public BitSet selectOutside(DoubleColumn column, double lower, double upper) {
+        int lanes = SPECIES.length();
+        double[] chunk = new double[CHUNK];
+        long[] words = new long[(column.size() + CHUNK - 1) / CHUNK];
+
+        for (int word = 0, base = 0; base < column.size(); word++, base += CHUNK) {
+            long valid = column.validityWord(word);
+            if (valid == 0) {
+                continue;
+            }
+            int length = Math.min(CHUNK, column.size() - base);
+            column.get(base, chunk, length);
+
+            long selected = 0;
+            for (int i = 0; i < length; i += lanes) {
+                jdk.incubator.vector.DoubleVector v = jdk.incubator.vector.DoubleVector.fromArray(SPECIES, chunk, i);
+                VectorMask<Double> outside = v.compare(VectorOperators.LT, lower)
+                        .or(v.compare(VectorOperators.GT, upper));
+                selected |= outside.toLong() << i;
+            }
+            words[word] = selected & valid;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    @Override
+    public String getName() {
+        return "vectorized (" + SPECIES.length() + " lanes)";
+    }
+
+    private static long sharedValidity(DoubleColumn x, DoubleColumn y, int word, int remaining) {
+        long valid = x.validityWord(word) & y.validityWord(word);
+        // The shorter column bounds the rows, even if the longer one has values past it
+        return remaining >= CHUNK ? valid : valid & ((1L << remaining) - 1);
+    }
+}
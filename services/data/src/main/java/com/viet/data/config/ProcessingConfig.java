@@ -0,0 +1,45 @@
+package com.viet.data.config;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ProcessingConfig {
+
+    /**
+     * Bounded pool shared by all batch uploads. When the queue is full the submitting request
+     * thread profiles the file itself, which throttles uploads to what the pool can absorb.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor profilingExecutor(
+            @Value("${app.processing.batch.workers:0}") int workers,
+            @Value("${app.processing.batch.queue-capacity:64}") int queueCapacity) {
+        int poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("profiling-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    /**
+     * Off-heap memory for Arrow responses. Each response takes a child allocator, so a
+     * leak is reported against the request that caused it.
+     */
+    @Bean(destroyMethod = "close")
+    public BufferAllocator arrowAllocator(
+            @Value("${app.arrow.max-memory-bytes:268435456}") long maxMemoryBytes) {
+        return new RootAllocator(maxMemoryBytes);
+    }
+}
@@ -31,6 +31,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/data/health").permitAll() // Health check
                         .requestMatchers("/actuator/health").permitAll() // Actuator
                         .requestMatchers("/api/data/**").authenticated()
+                        // Flight recordings expose the internals of every request
+                        .requestMatchers("/actuator/jfr/**").hasRole("ADMIN")
 
                         .anyRequest().authenticated() // Tất cả endpoints khác cần auth
                 )
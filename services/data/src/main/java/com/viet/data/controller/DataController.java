@@ -1,23 +1,54 @@
 package com.viet.data.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viet.data.column.RowPage;
 import com.viet.data.config.SecurityUtils;
 import com.viet.data.dto.dtos.ApiResponse;
 import com.viet.data.dto.dtos.DatasetDTO;
+import com.viet.data.dto.dtos.DatasetPageDTO;
+import com.viet.data.dto.dtos.UserStatsDTO;
 import com.viet.data.dto.request.AnalysisRequest;
+import com.viet.data.dto.request.JoinRequest;
 import com.viet.data.dto.response.AnalysisResult;
+import com.viet.data.dto.response.BatchUploadResult;
+import com.viet.data.dto.response.GroupStats;
+import com.viet.data.dto.response.HistogramData;
+import com.viet.data.dto.response.RowPageDTO;
+import com.viet.data.dto.response.SamplingInfo;
+import com.viet.data.dto.response.TimeRollupData;
+import com.viet.data.dto.response.TimeSeriesChartData;
+import com.viet.data.exception.DatasetNotFoundException;
+import com.viet.data.exception.FileValidationException;
+import com.viet.data.exception.MemoryBudgetExceededException;
+import com.viet.data.service.AnalysisResultWriter;
+import com.viet.data.service.ArrowStreamService;
+import com.viet.data.service.ChartDataService;
 import com.viet.data.service.DataProcessingService;
 import com.viet.data.service.DatasetService;
+import com.viet.data.service.JoinService;
+import com.viet.data.service.UserStatsService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/data")
@@ -27,7 +58,13 @@ public class DataController {
 
     private final DataProcessingService dataProcessingService;
     private final DatasetService datasetService;
+    private final UserStatsService userStatsService;
+    private final ArrowStreamService arrowStreamService;
+    private final ChartDataService chartDataService;
+    private final JoinService joinService;
+    private final AnalysisResultWriter analysisResultWriter;
     private final SecurityUtils securityUtils;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/upload")
     public ResponseEntity<ApiResponse<DatasetDTO>> uploadDataset(
@@ -45,6 +82,9 @@ public class DataController {
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(ApiResponse.success("Dataset uploaded successfully", dataset));
 
+        } catch (MemoryBudgetExceededException e) {
+            return tooManyRequests(e);
+
         } catch (Exception e) {
             log.error("File upload failed for user {}: {}", userId, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -52,6 +92,68 @@ public class DataController {
         }
     }
 
+    @PostMapping("/upload/batch")
+    public ResponseEntity<ApiResponse<List<BatchUploadResult>>> uploadDatasets(
+            @RequestParam("files") List<MultipartFile> files,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+        String userRole = securityUtils.getCurrentUserRole(request);
+
+        log.info("Batch upload request from user: {}, role: {}, files: {}", userId, userRole, files.size());
+
+        try {
+            List<BatchUploadResult> results = dataProcessingService.processBatchUpload(files, userId, userRole);
+            long created = results.stream()
+                    .filter(result -> result.getStatus() == BatchUploadResult.Status.CREATED)
+                    .count();
+            return ResponseEntity.ok(ApiResponse.success(
+                    String.format("%d of %d files uploaded successfully", created, results.size()), results));
+
+        } catch (FileValidationException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("FILE_VALIDATION_ERROR", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Batch upload failed for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("UPLOAD_FAILED", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/datasets/{datasetId}/append")
+    public ResponseEntity<ApiResponse<DatasetDTO>> appendToDataset(
+            @PathVariable String datasetId,
+            @RequestParam("file") MultipartFile file,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        log.info("Append request from user: {} for dataset: {}, file: {}",
+                userId, datasetId, file.getOriginalFilename());
+
+        try {
+            DatasetDTO dataset = dataProcessingService.appendToDataset(datasetId, file, userId);
+            return ResponseEntity.ok(ApiResponse.success("Rows appended successfully", dataset));
+
+        } catch (MemoryBudgetExceededException e) {
+            return tooManyRequests(e);
+
+        } catch (DatasetNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("DATASET_NOT_FOUND", e.getMessage()));
+
+        } catch (FileValidationException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("FILE_VALIDATION_ERROR", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Append failed for dataset {}: {}", datasetId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("APPEND_FAILED", e.getMessage()));
+        }
+    }
+
     @GetMapping("/datasets")
     public ResponseEntity<ApiResponse<List<DatasetDTO>>> getUserDatasets(
             @RequestParam(defaultValue = "0") int page,
@@ -71,6 +173,29 @@ public class DataController {
         }
     }
 
+    @GetMapping("/datasets/summaries")
+    public ResponseEntity<ApiResponse<DatasetPageDTO>> getUserDatasetSummaries(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        try {
+            DatasetPageDTO page = datasetService.getUserDatasetPage(userId, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success(page));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("INVALID_CURSOR", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Error fetching dataset summaries for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("FETCH_ERROR", e.getMessage()));
+        }
+    }
+
     @GetMapping("/datasets/{datasetId}")
     public ResponseEntity<ApiResponse<DatasetDTO>> getDataset(
             @PathVariable String datasetId,
@@ -92,9 +217,278 @@ public class DataController {
         }
     }
 
+    @GetMapping("/datasets/{datasetId}/histograms")
+    public ResponseEntity<ApiResponse<List<HistogramData>>> getHistograms(
+            @PathVariable String datasetId,
+            @RequestParam(required = false) String column,
+            @RequestParam(defaultValue = "10") int bins,
+            @RequestParam(defaultValue = "FIXED_WIDTH") HistogramData.Mode mode,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        try {
+            List<HistogramData> histograms = datasetService.getHistograms(datasetId, userId, column, bins, mode);
+            return ResponseEntity.ok(ApiResponse.success(histograms));
+
+        } catch (DatasetNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("DATASET_NOT_FOUND", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Error fetching histograms for dataset {}: {}", datasetId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("HISTOGRAM_ERROR", e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/datasets/{datasetId}/histograms", produces = ArrowStreamService.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> getHistogramsArrow(
+            @PathVariable String datasetId,
+            @RequestParam(required = false) String column,
+            @RequestParam(defaultValue = "10") int bins,
+            @RequestParam(defaultValue = "FIXED_WIDTH") HistogramData.Mode mode,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        try {
+            List<HistogramData> histograms = datasetService.getHistograms(datasetId, userId, column, bins, mode);
+            return arrowStream(out -> arrowStreamService.writeHistograms(histograms, out));
+
+        } catch (DatasetNotFoundException e) {
+            return jsonError(HttpStatus.NOT_FOUND, "DATASET_NOT_FOUND", e.getMessage());
+
+        } catch (Exception e) {
+            log.error("Error fetching histograms for dataset {}: {}", datasetId, e.getMessage());
+            return jsonError(HttpStatus.BAD_REQUEST, "HISTOGRAM_ERROR", e.getMessage());
+        }
+    }
+
+    @GetMapping("/datasets/{datasetId}/rows")
+    public ResponseEntity<ApiResponse<RowPageDTO>> getRows(
+            @PathVariable String datasetId,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "100") int limit,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        try {
+            RowPageDTO rows = datasetService.getRows(datasetId, userId, offset, limit);
+            return ResponseEntity.ok(ApiResponse.success(rows));
+
+        } catch (MemoryBudgetExceededException e) {
+            return tooManyRequests(e);
+
+        } catch (DatasetNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("DATASET_NOT_FOUND", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Error fetching rows of dataset {}: {}", datasetId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("ROWS_ERROR", e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/datasets/{datasetId}/rows", produces = ArrowStreamService.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> getRowsArrow(
+            @PathVariable String datasetId,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "" + DatasetService.MAX_STREAMED_ROWS) int limit,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        try {
+            RowPage page = datasetService.getRowPage(datasetId, userId, offset, limit);
+            return arrowStream(out -> {
+                try (page) {
+                    arrowStreamService.writeRows(page, out);
+                }
+            });
+
+        } catch (MemoryBudgetExceededException e) {
+            return streamingTooManyRequests(e);
+
+        } catch (DatasetNotFoundException e) {
+            return jsonError(HttpStatus.NOT_FOUND, "DATASET_NOT_FOUND", e.getMessage());
+
+        } catch (Exception e) {
+            log.error("Error fetching rows of dataset {}: {}", datasetId, e.getMessage());
+            return jsonError(HttpStatus.BAD_REQUEST, "ROWS_ERROR", e.getMessage());
+        }
+    }
+
+    @GetMapping("/datasets/{datasetId}/correlations")
+    public ResponseEntity<ApiResponse<Map<String, Map<String, Double>>>> getCorrelations(
+            @PathVariable String datasetId,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        try {
+            Map<String, Map<String, Double>> correlations = datasetService.getCorrelations(datasetId, userId);
+            return ResponseEntity.ok(ApiResponse.success(correlations));
+
+        } catch (MemoryBudgetExceededException e) {
+            return tooManyRequests(e);
+
+        } catch (DatasetNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("DATASET_NOT_FOUND", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Error computing correlations for dataset {}: {}", datasetId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("CORRELATION_ERROR", e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/datasets/{datasetId}/correlations", produces = ArrowStreamService.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> getCorrelationsArrow(
+            @PathVariable String datasetId,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        try {
+            Map<String, Map<String, Double>> correlations = datasetService.getCorrelations(datasetId, userId);
+            return arrowStream(out -> arrowStreamService.writeCorrelations(correlations, out));
+
+        } catch (MemoryBudgetExceededException e) {
+            return streamingTooManyRequests(e);
+
+        } catch (DatasetNotFoundException e) {
+            return jsonError(HttpStatus.NOT_FOUND, "DATASET_NOT_FOUND", e.getMessage());
+
+        } catch (Exception e) {
+            log.error("Error computing correlations for dataset {}: {}", datasetId, e.getMessage());
+            return jsonError(HttpStatus.BAD_REQUEST, "CORRELATION_ERROR", e.getMessage());
+        }
+    }
+
+    @GetMapping("/datasets/{datasetId}/group-by")
+    public ResponseEntity<ApiResponse<List<GroupStats>>> groupBy(
+            @PathVariable String datasetId,
+            @RequestParam String by,
+            @RequestParam(required = false) String measure,
+            @RequestParam(required = false) String filterColumn,
+            @RequestParam(required = false) String filterValue,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String approximate,
+            @RequestParam(required = false) Long latencyTargetMs,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        try {
+            DatasetService.GroupByResult result = datasetService.groupBy(datasetId, userId, by, measure,
+                    filterColumn, filterValue, limit, approximate, latencyTargetMs);
+            SamplingInfo sampling = result.sampling();
+            if (Boolean.TRUE.equals(sampling.getApproximate())) {
+                String message = String.format("Estimated from a stratified sample of %d of %d rows, "
+                                + "with %.0f%% confidence intervals",
+                        sampling.getSampleRows(), sampling.getPopulationRows(), sampling.getConfidenceLevel() * 100);
+                return ResponseEntity.ok(ApiResponse.success(message, result.groups()));
+            }
+            return ResponseEntity.ok(ApiResponse.success(result.groups()));
+
+        } catch (MemoryBudgetExceededException e) {
+            return tooManyRequests(e);
+
+        } catch (DatasetNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("DATASET_NOT_FOUND", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Error grouping dataset {} by {}: {}", datasetId, by, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("GROUP_BY_ERROR", e.getMessage()));
+        }
+    }
+
+    /**
+     * Count, sum, min, max and sum of squares of numeric columns per day, week or month of a
+     * date or date-time column, read from the rollups built at ingestion.
+     */
+    @GetMapping("/datasets/{datasetId}/rollup")
+    public ResponseEntity<ApiResponse<TimeRollupData>> getRollup(
+            @PathVariable String datasetId,
+            @RequestParam(required = false) String time,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) List<String> values,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        try {
+            TimeRollupData rollup = datasetService.getRollup(datasetId, userId, time, granularity, values, from, to);
+            return ResponseEntity.ok(ApiResponse.success(rollup));
+
+        } catch (DatasetNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("DATASET_NOT_FOUND", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Error rolling up dataset {}: {}", datasetId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("ROLLUP_ERROR", e.getMessage()));
+        }
+    }
+
+    /**
+     * Downsamples numeric columns against a date or date-time column to {@code width} points.
+     * The window is {@code from}/{@code to} (ISO-8601) or tile {@code tile} of zoom level
+     * {@code zoom}; the whole range by default. Tiles of the top zoom levels are cacheable.
+     */
+    @GetMapping("/datasets/{datasetId}/chart-data")
+    public ResponseEntity<ApiResponse<TimeSeriesChartData>> getChartData(
+            @PathVariable String datasetId,
+            @RequestParam(required = false) String time,
+            @RequestParam(required = false) List<String> values,
+            @RequestParam(defaultValue = "" + ChartDataService.DEFAULT_WIDTH) int width,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Integer zoom,
+            @RequestParam(required = false) Integer tile,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+
+        try {
+            ChartDataService.ChartDataResult result = chartDataService.getChartData(datasetId, userId, time, values,
+                    width, from, to, zoom, tile);
+            if (result.etag() == null) {
+                return ResponseEntity.ok(ApiResponse.success(result.data()));
+            }
+            return ResponseEntity.ok()
+                    .eTag(result.etag())
+                    .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePrivate())
+                    .body(ApiResponse.success(result.data()));
+
+        } catch (DatasetNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("DATASET_NOT_FOUND", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Error building chart data for dataset {}: {}", datasetId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("CHART_DATA_ERROR", e.getMessage()));
+        }
+    }
+
+    /**
+     * Runs an analysis and streams the result. {@code fields} is a comma-separated list of
+     * result fields to return, e.g. {@code fields=summary,charts}; all fields by default.
+     */
     @PostMapping("/analyze")
-    public ResponseEntity<ApiResponse<AnalysisResult>> analyzeDataset(
+    public ResponseEntity<StreamingResponseBody> analyzeDataset(
             @Valid @RequestBody AnalysisRequest request,
+            @RequestParam(required = false) String fields,
             HttpServletRequest httpRequest) { // ✅ Thêm HttpServletRequest
 
         String userId = securityUtils.getCurrentUserId(httpRequest);
@@ -102,21 +496,81 @@ public class DataController {
         log.info("Analysis request from user: {} for dataset: {}, type: {}",
                 userId, request.getDatasetId(), request.getAnalysisType());
 
+        Set<String> selected;
+        try {
+            selected = analysisResultWriter.parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            return jsonError(HttpStatus.BAD_REQUEST, "INVALID_FIELDS", e.getMessage());
+        }
+
         try {
             request.setUserId(userId);
             AnalysisResult result = dataProcessingService.analyzeDataset(request);
 
             if ("FAILED".equals(result.getStatus())) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(ApiResponse.error("ANALYSIS_FAILED", result.getErrorMessage()));
+                return jsonError(HttpStatus.INTERNAL_SERVER_ERROR, "ANALYSIS_FAILED", result.getErrorMessage());
             }
 
-            return ResponseEntity.ok(ApiResponse.success("Analysis completed", result));
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> analysisResultWriter.write("Analysis completed", result, selected, out));
+
+        } catch (MemoryBudgetExceededException e) {
+            return streamingTooManyRequests(e);
 
         } catch (Exception e) {
             log.error("Analysis failed for dataset {}: {}", request.getDatasetId(), e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.error("ANALYSIS_ERROR", e.getMessage()));
+            return jsonError(HttpStatus.INTERNAL_SERVER_ERROR, "ANALYSIS_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Joins two of the user's datasets on a key column. The result is stored as a new dataset
+     * by default, or streamed back as CSV with {@code output=STREAM}. A streamed result over the
+     * row limit ends with a {@link JoinService#TRUNCATED_MARKER} line.
+     */
+    @PostMapping("/join")
+    public ResponseEntity<StreamingResponseBody> joinDatasets(
+            @Valid @RequestBody JoinRequest joinRequest,
+            HttpServletRequest request) {
+
+        String userId = securityUtils.getCurrentUserId(request);
+        String userRole = securityUtils.getCurrentUserRole(request);
+
+        log.info("Join request from user: {} for datasets: {} and {}, key: {}, type: {}, output: {}",
+                userId, joinRequest.getLeftDatasetId(), joinRequest.getRightDatasetId(),
+                joinRequest.getLeftKey(), joinRequest.getJoinType(), joinRequest.getOutput());
+
+        try {
+            if (joinRequest.getOutput() != JoinRequest.Output.STREAM) {
+                DatasetDTO dataset = joinService.joinToDataset(joinRequest, userId, userRole);
+                return ResponseEntity.status(HttpStatus.CREATED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(jsonBody(ApiResponse.success("Datasets joined successfully", dataset)));
+            }
+
+            // Validated and admitted up front, since errors cannot change the status once rows stream
+            JoinService.JoinPlan plan = joinService.plan(joinRequest, userId);
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename(plan.getFileName(), StandardCharsets.UTF_8).build().toString())
+                    .body(out -> {
+                        try (plan) {
+                            joinService.stream(plan, out);
+                        }
+                    });
+
+        } catch (MemoryBudgetExceededException e) {
+            return streamingTooManyRequests(e);
+
+        } catch (DatasetNotFoundException e) {
+            return jsonError(HttpStatus.NOT_FOUND, "DATASET_NOT_FOUND", e.getMessage());
+
+        } catch (Exception e) {
+            log.error("Join failed for datasets {} and {}: {}",
+                    joinRequest.getLeftDatasetId(), joinRequest.getRightDatasetId(), e.getMessage());
+            return jsonError(HttpStatus.BAD_REQUEST, "JOIN_ERROR", e.getMessage());
         }
     }
 
@@ -147,18 +601,11 @@ public class DataController {
     }
 
     @GetMapping("/stats")
-    public ResponseEntity<ApiResponse<Object>> getServiceStats(HttpServletRequest request) {
+    public ResponseEntity<ApiResponse<UserStatsDTO>> getServiceStats(HttpServletRequest request) {
         String userId = securityUtils.getCurrentUserId(request);
 
         try {
-            long datasetCount = datasetService.getUserDatasetCount(userId);
-            List<DatasetDTO> recentDatasets = datasetService.getRecentDatasets(userId, 5);
-
-            Object stats = Map.of(
-                    "totalDatasets", datasetCount,
-                    "recentDatasets", recentDatasets
-            );
-
+            UserStatsDTO stats = userStatsService.getStats(userId);
             return ResponseEntity.ok(ApiResponse.success(stats));
 
         } catch (Exception e) {
@@ -178,4 +625,34 @@ public class DataController {
                 "Authorization", request.getHeader("Authorization")
         ));
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<StreamingResponseBody> arrowStream(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ArrowStreamService.MEDIA_TYPE))
+                .body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> jsonError(HttpStatus status, String code, String message) {
+        // Errors stay JSON on streamed endpoints, even when the client asked for Arrow
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonBody(ApiResponse.error(code, message)));
+    }
+
+    private StreamingResponseBody jsonBody(Object value) {
+        return out -> objectMapper.writeValue(StreamUtils.nonClosing(out), value);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamingTooManyRequests(MemoryBudgetExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonBody(ApiResponse.error("SERVER_BUSY", e.getMessage())));
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> tooManyRequests(MemoryBudgetExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ApiResponse.error("SERVER_BUSY", e.getMessage()));
+    }
+}
@@ -0,0 +1,23 @@
+package com.viet.data.dto.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatasetSummaryDTO {
+    private String id;
+    private String originalFileName;
+    private Long fileSize;
+    private Integer rowCount;
+    private Integer columnCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private String status;
+}
@@ -0,0 +1,14 @@
+package com.viet.data.dto.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredFile {
+    private String path;
+    private String contentHash;
+    private Long size;
+}
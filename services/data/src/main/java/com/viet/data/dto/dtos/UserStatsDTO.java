@@ -0,0 +1,19 @@
+package com.viet.data.dto.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStatsDTO {
+    private Long totalDatasets;
+    private Long totalRows;
+    private Long totalBytes;
+    private List<DatasetSummaryDTO> recentDatasets;
+}
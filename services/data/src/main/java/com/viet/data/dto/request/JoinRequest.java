@@ -0,0 +1,36 @@
+package com.viet.data.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JoinRequest {
+    @NotBlank
+    private String leftDatasetId;
+    @NotBlank
+    private String rightDatasetId;
+    @NotBlank
+    private String leftKey;
+    // Same name as the left key when not set
+    private String rightKey;
+    private JoinType joinType = JoinType.INNER;
+    private Output output = Output.DATASET;
+    // File name of the derived dataset; made up from both datasets' names when not set
+    private String name;
+
+    public enum JoinType {
+        INNER,
+        LEFT
+    }
+
+    public enum Output {
+        // Stored and profiled as a new dataset of the user
+        DATASET,
+        // Streamed back as CSV without being stored
+        STREAM
+    }
+}
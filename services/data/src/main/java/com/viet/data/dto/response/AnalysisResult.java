@@ -22,11 +22,15 @@ public class AnalysisResult {
     private List<DataPattern> patterns;
     private List<DataAnomaly> anomalies;
     private Map<String, Map<String, Double>> correlations;
+    // Only for correlations estimated from the sample
+    private Map<String, Map<String, ConfidenceInterval>> correlationIntervals;
     private List<Prediction> predictions;
     private List<VisualizationSuggestion> visualizationSuggestions;
     private LocalDateTime analyzedAt;
     private Long processingTimeMs;
     private String status;
     private String errorMessage;
-    private Map<String, Object> frontendData;
+    private List<ChartConfig> charts;
+    private List<String> insights;
+    private SamplingInfo sampling;
 }
@@ -0,0 +1,35 @@
+package com.viet.data.dto.response;
+
+import com.viet.data.dto.dtos.DatasetDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchUploadResult {
+    private String fileName;
+    private Status status;
+    private DatasetDTO dataset;
+    private String errorMessage;
+
+    public enum Status {
+        CREATED,
+        FAILED,
+        // Not attempted for lack of memory budget; safe to retry
+        REJECTED
+    }
+
+    public static BatchUploadResult created(String fileName, DatasetDTO dataset) {
+        return new BatchUploadResult(fileName, Status.CREATED, dataset, null);
+    }
+
+    public static BatchUploadResult failed(String fileName, String errorMessage) {
+        return new BatchUploadResult(fileName, Status.FAILED, null, errorMessage);
+    }
+
+    public static BatchUploadResult rejected(String fileName, String errorMessage) {
+        return new BatchUploadResult(fileName, Status.REJECTED, null, errorMessage);
+    }
+}
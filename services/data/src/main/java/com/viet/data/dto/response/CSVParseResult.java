@@ -1,6 +1,8 @@
 package com.viet.data.dto.response;
 
+import com.viet.data.column.ColumnTable;
 import com.viet.data.module.ColumnMetadata;
+import com.viet.data.sketch.SketchBundle;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,4 +22,6 @@ public class CSVParseResult {
     private List<Map<String, Object>> sampleData;
     private List<String> headers;
     private Map<String, Object> basicStats;
+    private SketchBundle sketches;
+    private ColumnTable table;
 }
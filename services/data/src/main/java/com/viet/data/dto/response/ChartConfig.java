@@ -0,0 +1,22 @@
+package com.viet.data.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chart the frontend can draw from an analysis result. Charts over data the result
+ * already carries name it in {@code source} (a top-level result field, optionally followed
+ * by a map key, e.g. {@code summary.columnStats}) instead of embedding a second copy;
+ * only data that exists nowhere else, like re-binned histograms, is inlined in {@code data}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChartConfig {
+    private String type;
+    private String title;
+    private String description;
+    private String source;
+    private Object data;
+}
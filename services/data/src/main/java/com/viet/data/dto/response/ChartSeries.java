@@ -0,0 +1,25 @@
+package com.viet.data.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One value column of a time-series chart: the downsampled line, and the min and max of
+ * every non-empty bucket for drawing an envelope behind it. Times are epoch milliseconds.
+ * Points are kept in primitive arrays, as cached tiles hold many of them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChartSeries {
+    private String column;
+    private Long pointsInWindow;
+    private long[] times;
+    private double[] values;
+    private long[] envelopeTimes;
+    private double[] mins;
+    private double[] maxes;
+}
@@ -0,0 +1,13 @@
+package com.viet.data.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfidenceInterval {
+    private Double lower;
+    private Double upper;
+}
@@ -0,0 +1,22 @@
+package com.viet.data.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupStats {
+    private String value;
+    private Long count;
+    // Measure aggregates; null when no measure was requested or the group has no values
+    private Double sum;
+    private Double mean;
+    private Double min;
+    private Double max;
+    // Only for groups estimated from the sample, whose min and max are left null
+    private ConfidenceInterval countInterval;
+    private ConfidenceInterval sumInterval;
+    private ConfidenceInterval meanInterval;
+}
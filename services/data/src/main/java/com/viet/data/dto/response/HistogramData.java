@@ -0,0 +1,24 @@
+package com.viet.data.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistogramData {
+    private String columnName;
+    private Mode mode;
+    private Integer bins;
+    private List<Double> binEdges;
+    private List<Long> counts;
+    private Long totalCount;
+
+    public enum Mode {
+        FIXED_WIDTH,
+        QUANTILE
+    }
+}
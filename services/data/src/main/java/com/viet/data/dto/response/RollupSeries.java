@@ -0,0 +1,27 @@
+package com.viet.data.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Per-period aggregates of one numeric column, aligned with {@link TimeRollupData#getPeriods()}.
+ * Means and standard deviations are null for periods without values.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupSeries {
+    private String column;
+    private List<Long> counts;
+    private List<Double> sums;
+    private List<Double> mins;
+    private List<Double> maxes;
+    private List<Double> sumsOfSquares;
+    private List<Double> means;
+    private List<Double> stdDevs;
+}
@@ -0,0 +1,21 @@
+package com.viet.data.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RowPageDTO {
+    private Integer offset;
+    private Integer count;
+    private Integer totalRows;
+    private List<String> columns;
+    private List<Map<String, Object>> rows;
+}
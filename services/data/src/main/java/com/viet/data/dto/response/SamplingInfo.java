@@ -0,0 +1,25 @@
+package com.viet.data.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How an analysis was executed: exactly, or on the dataset's stratified sample.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SamplingInfo {
+    private Boolean approximate;
+    private String reason;
+    private Long latencyTargetMs;
+    // Predicted from the observed throughput of earlier runs; null when not needed for the choice
+    private Long estimatedExactMs;
+    private Long sampleRows;
+    private Long populationRows;
+    private String strataColumn;
+    private Double confidenceLevel;
+}
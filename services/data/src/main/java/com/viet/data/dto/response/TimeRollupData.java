@@ -0,0 +1,22 @@
+package com.viet.data.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeRollupData {
+    private String timeColumn;
+    private String granularity;
+    // First day of each period with rows, and how many rows it has
+    private List<LocalDate> periods;
+    private List<Long> rows;
+    private List<RollupSeries> series;
+}
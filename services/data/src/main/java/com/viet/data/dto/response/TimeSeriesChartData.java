@@ -0,0 +1,24 @@
+package com.viet.data.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSeriesChartData {
+    private String timeColumn;
+    // Window in epoch milliseconds, inclusive
+    private Long from;
+    private Long to;
+    private Integer width;
+    // Set for tile requests only
+    private Integer zoom;
+    private Integer tile;
+    private List<ChartSeries> series;
+}
@@ -2,6 +2,7 @@ package com.viet.data.exception;
 
 import com.viet.data.dto.dtos.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -54,6 +55,14 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error("UNSUPPORTED_ANALYSIS", ex.getMessage()));
     }
 
+    @ExceptionHandler(MemoryBudgetExceededException.class)
+    public ResponseEntity<ApiResponse<Object>> handleMemoryBudgetExceededException(MemoryBudgetExceededException ex) {
+        log.warn("Memory budget exceeded: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ApiResponse.error("SERVER_BUSY", ex.getMessage()));
+    }
+
     @ExceptionHandler(MaxUploadSizeExceededException.class)
     public ResponseEntity<ApiResponse<Object>> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException ex) {
         log.warn("File size exceeded: {}", ex.getMessage());
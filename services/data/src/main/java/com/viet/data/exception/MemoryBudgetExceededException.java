@@ -0,0 +1,14 @@
+package com.viet.data.exception;
+
+public class MemoryBudgetExceededException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public MemoryBudgetExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
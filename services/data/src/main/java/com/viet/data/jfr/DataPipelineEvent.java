@@ -0,0 +1,87 @@
+package com.viet.data.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for one step of dataset ingestion or analysis. Outer steps come
+ * from {@code DataProcessingService} stages; finer ones from the CSV parser, the statistics
+ * and result serialization run inside them on the same thread, so recordings show where
+ * the time of a slow request went.
+ * <p>
+ * Begin and commit cost next to nothing while no recording is running; callers only do
+ * extra work, like counting bytes, when {@link #isEnabled()} is true.
+ */
+@Name(DataPipelineEvent.NAME)
+@Label("Data Pipeline Step")
+@Category({"Data Service", "Pipeline"})
+@Description("One step of dataset ingestion or analysis")
+@StackTrace(false)
+public class DataPipelineEvent extends Event {
+
+    public static final String NAME = "com.viet.data.PipelineStep";
+
+    @Label("Stage")
+    private String stage;
+
+    @Label("Dataset Id")
+    private String datasetId;
+
+    @Label("Analysis Type")
+    private String analysisType;
+
+    @Label("Rows")
+    private long rows;
+
+    @Label("Columns")
+    private int columns;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    public DataPipelineEvent(String stage) {
+        this.stage = stage;
+    }
+
+    /**
+     * Creates and begins an event for {@code stage}.
+     */
+    public static DataPipelineEvent start(String stage) {
+        DataPipelineEvent event = new DataPipelineEvent(stage);
+        event.begin();
+        return event;
+    }
+
+    public DataPipelineEvent datasetId(String datasetId) {
+        this.datasetId = datasetId;
+        return this;
+    }
+
+    public DataPipelineEvent analysisType(String analysisType) {
+        this.analysisType = analysisType;
+        return this;
+    }
+
+    public DataPipelineEvent rows(long rows) {
+        this.rows = rows;
+        return this;
+    }
+
+    public DataPipelineEvent columns(int columns) {
+        this.columns = columns;
+        return this;
+    }
+
+    public DataPipelineEvent bytes(long bytes) {
+        this.bytes = bytes;
+        return this;
+    }
+
+    public DataPipelineEvent succeeded() {
+        this.succeeded = true;
+        return this;
+    }
+}
@@ -0,0 +1,210 @@
+package com.viet.data.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.*;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-demand Flight Recorder recordings under {@code /actuator/jfr}:
+ * <ul>
+ *   <li>{@code GET /actuator/jfr}: the recordings kept by this endpoint</li>
+ *   <li>{@code POST /actuator/jfr} with optional {@code settings} ({@code default} or {@code profile})
+ *       and {@code durationSeconds}: starts a recording</li>
+ *   <li>{@code POST /actuator/jfr/{id}}: stops it, keeping its data</li>
+ *   <li>{@code GET /actuator/jfr/{id}}: downloads what it has recorded so far as a {@code .jfr} file</li>
+ *   <li>{@code DELETE /actuator/jfr/{id}}: stops it and discards its data</li>
+ * </ul>
+ * Every recording stops by itself after {@code app.jfr.max-duration} and keeps at most
+ * {@code app.jfr.max-size-bytes} on disk, so a forgotten one cannot fill the disk. At most
+ * {@value #MAX_RECORDINGS} run at once; stopped ones stay downloadable until more than
+ * {@value #MAX_STOPPED_RECORDINGS} have stopped, when the oldest is discarded.
+ */
+@Component
+@Endpoint(id = "jfr")
+@Slf4j
+public class FlightRecorderEndpoint {
+
+    private static final String DEFAULT_SETTINGS = "default";
+    private static final int MAX_RECORDINGS = 4;
+    private static final int MAX_STOPPED_RECORDINGS = 4;
+    private static final int STATUS_CONFLICT = 409;
+
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    public FlightRecorderEndpoint(@Value("${app.jfr.max-duration:PT15M}") Duration maxDuration,
+                                  @Value("${app.jfr.max-size-bytes:268435456}") long maxSizeBytes) {
+        this.maxDuration = maxDuration;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    @ReadOperation
+    public List<RecordingInfo> recordings() {
+        return recordings.values().stream()
+                .sorted(Comparator.comparingLong(Recording::getId))
+                .map(RecordingInfo::of)
+                .toList();
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<RecordingInfo> start(@Nullable String settings,
+                                                                 @Nullable Long durationSeconds) {
+        // Recordings that stopped, on request or at their duration, no longer count
+        if (recordings.values().stream().filter(recording -> !isStopped(recording)).count() >= MAX_RECORDINGS) {
+            return new WebEndpointResponse<>(STATUS_CONFLICT);
+        }
+        discardOldestStopped();
+
+        String settingsName = settings != null ? settings : DEFAULT_SETTINGS;
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (IOException | ParseException e) {
+            throw new InvalidEndpointRequestException("Unknown recording settings: " + settingsName,
+                    "Unknown settings");
+        }
+
+        Duration duration = durationSeconds != null && durationSeconds > 0
+                ? Duration.ofSeconds(durationSeconds)
+                : maxDuration;
+        if (duration.compareTo(maxDuration) > 0) {
+            duration = maxDuration;
+        }
+
+        Recording recording = new Recording(configuration);
+        recording.setName("data-service-" + Instant.now());
+        recording.enable(DataPipelineEvent.class);
+        recording.setToDisk(true);
+        recording.setDuration(duration);
+        recording.setMaxSize(maxSizeBytes);
+        recording.start();
+        recordings.put(recording.getId(), recording);
+
+        log.info("Started flight recording {} with {} settings for {}", recording.getId(), settingsName, duration);
+        return new WebEndpointResponse<>(RecordingInfo.of(recording));
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<RecordingInfo> stop(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Stopped flight recording {}", id);
+        }
+        return new WebEndpointResponse<>(RecordingInfo.of(recording));
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> download(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            Path file = Files.createTempFile("recording-" + id + "-", ".jfr");
+            try {
+                recording.dump(file);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+            return new WebEndpointResponse<>(new TemporaryFileResource(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to dump flight recording " + id, e);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> discard(@Selector long id) {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        recording.close();
+        log.info("Discarded flight recording {}", id);
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+    }
+
+    private void discardOldestStopped() {
+        List<Recording> stopped = recordings.values().stream()
+                .filter(FlightRecorderEndpoint::isStopped)
+                .sorted(Comparator.comparingLong(Recording::getId))
+                .toList();
+        for (Recording recording : stopped.subList(0, Math.max(0, stopped.size() - MAX_STOPPED_RECORDINGS + 1))) {
+            if (recordings.remove(recording.getId(), recording)) {
+                recording.close();
+                log.info("Discarded stopped flight recording {} to make room", recording.getId());
+            }
+        }
+    }
+
+    private static boolean isStopped(Recording recording) {
+        return recording.getState() == RecordingState.STOPPED || recording.getState() == RecordingState.CLOSED;
+    }
+
+    public record RecordingInfo(long id, String name, RecordingState state, Instant startTime,
+                                Duration duration, long sizeBytes) {
+
+        static RecordingInfo of(Recording recording) {
+            return new RecordingInfo(recording.getId(), recording.getName(), recording.getState(),
+                    recording.getStartTime(), recording.getDuration(), recording.getSize());
+        }
+    }
+
+    /**
+     * A dumped recording, deleted once the response has been streamed from it.
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(Path path) {
+            super(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isFile() {
+            // Keeps the response on getInputStream, so the file is deleted after it is sent
+            return false;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.viet.data.join;
+
+import com.viet.data.exception.DataProcessingException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Equi-join of two row streams. The build side is loaded into a {@link KeyIndex} and the probe
+ * side streamed past it. When the build side outgrows the memory budget, both sides are
+ * hash-partitioned into spill files and joined one partition pair at a time (a Grace hash
+ * join), so only one build partition is held in memory. A partition still over the budget is
+ * split again on further hash bits; only rows sharing one key value cannot be split, and the
+ * join is refused then.
+ * <p>
+ * Rows are arrays of column values, null where a value is missing. The sink receives the left
+ * and right row of each match whichever side is built; a left join also passes every unmatched
+ * left row with a null right row.
+ */
+@Slf4j
+public final class HashJoin {
+
+    public enum Type {
+        INNER,
+        LEFT
+    }
+
+    @FunctionalInterface
+    public interface RowSource {
+        /**
+         * Streams every row once; may be called again to stream them from the start.
+         */
+        void forEachRow(Consumer<String[]> action);
+    }
+
+    @FunctionalInterface
+    public interface RowSink {
+        void accept(String[] left, String[] right);
+    }
+
+    private static final int MAX_PARTITIONS = 256;
+    // Hash bits taken by each further split of an oversized partition
+    private static final int SPLIT_BITS = 4;
+    // Heap footprint of a row array and of each string in it, beyond the characters
+    private static final long ROW_OVERHEAD_BYTES = 24;
+    private static final long VALUE_OVERHEAD_BYTES = 48;
+    // Index slots and chain links per build row
+    private static final long INDEX_BYTES_PER_ROW = 40;
+
+    private final JoinKey key;
+    private final Type type;
+    private final boolean buildIsLeft;
+    private final int buildKey;
+    private final int probeKey;
+    private final long memoryBudget;
+    private final Path spillDir;
+    private int partitionCount;
+
+    /**
+     * @param buildIsLeft whether the build side is the left input of the join
+     * @param buildKey    key column index in build rows
+     * @param probeKey    key column index in probe rows
+     * @param spillDir    directory for partition files, created when needed
+     */
+    public HashJoin(JoinKey key, Type type, boolean buildIsLeft, int buildKey, int probeKey,
+                    long memoryBudget, Path spillDir) {
+        this.key = key;
+        this.type = type;
+        this.buildIsLeft = buildIsLeft;
+        this.buildKey = buildKey;
+        this.probeKey = probeKey;
+        this.memoryBudget = memoryBudget;
+        this.spillDir = spillDir;
+    }
+
+    /**
+     * Partitions the last run joined from disk, after any splits, or 0 when it ran in memory.
+     */
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * @param buildRows expected build rows, to size partitions if the build side spills
+     */
+    public void run(RowSource build, long buildRows, RowSource probe, RowSink sink) throws IOException {
+        partitionCount = 0;
+        Table table = new Table();
+        try {
+            build.forEachRow(row -> {
+                table.add(row);
+                if (table.bytes > memoryBudget) {
+                    throw new BudgetExceeded();
+                }
+            });
+        } catch (BudgetExceeded e) {
+            long estimatedBytes = table.bytes / table.rows.size() * Math.max(buildRows, table.rows.size());
+            runPartitioned(build, probe, sink, partitionsFor(estimatedBytes));
+            return;
+        }
+
+        probe.forEachRow(row -> table.probe(row, sink));
+        table.finish(sink);
+    }
+
+    private int partitionsFor(long estimatedBytes) {
+        // Twice the minimum, so uneven key distributions still fit
+        long needed = Math.max(2, 2 * ((estimatedBytes + memoryBudget - 1) / memoryBudget));
+        return (int) Math.min(MAX_PARTITIONS, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    private void runPartitioned(RowSource build, RowSource probe, RowSink sink, int partitions) throws IOException {
+        partitionCount = partitions;
+        Path dir = spillDir.resolve("join-" + UUID.randomUUID());
+        Files.createDirectories(dir);
+        long startTime = System.currentTimeMillis();
+        try {
+            int bits = Integer.numberOfTrailingZeros(partitions);
+            spill(build, buildKey, buildIsLeft, dir, "build", 0, bits, sink);
+            spill(probe, probeKey, !buildIsLeft, dir, "probe", 0, bits, sink);
+            log.info("Spilled join inputs into {} partitions in {} ms", partitions,
+                    System.currentTimeMillis() - startTime);
+
+            joinPartitions(dir, bits, bits, sink);
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Joins the partition pairs of one directory.
+     *
+     * @param usedBits hash bits that select a partition, including those of the directory itself
+     */
+    private void joinPartitions(Path dir, int bits, int usedBits, RowSink sink) throws IOException {
+        for (int partition = 0; partition < 1 << bits; partition++) {
+            Path buildFile = dir.resolve("build-" + partition);
+            Table table = new Table();
+            try {
+                readPartition(buildFile, row -> {
+                    table.add(row);
+                    if (table.bytes > memoryBudget) {
+                        throw new BudgetExceeded();
+                    }
+                });
+            } catch (BudgetExceeded e) {
+                split(dir, partition, usedBits, sink);
+                continue;
+            }
+            readPartition(dir.resolve("probe-" + partition), row -> table.probe(row, sink));
+            table.finish(sink);
+        }
+    }
+
+    /**
+     * Splits a partition pair on the next hash bits and joins the pieces.
+     *
+     * @throws DataProcessingException if all build rows of the partition share one key hash
+     */
+    private void split(Path dir, int partition, int usedBits, RowSink sink) throws IOException {
+        Path buildFile = dir.resolve("build-" + partition);
+        Path probeFile = dir.resolve("probe-" + partition);
+        Path splitDir = Files.createDirectories(dir.resolve("split-" + partition));
+        int bits = Math.min(SPLIT_BITS, Long.SIZE - usedBits);
+        if (bits == 0 || !spill(rowsIn(buildFile), buildKey, buildIsLeft, splitDir, "build", usedBits, bits, sink)) {
+            throw new DataProcessingException("More rows share one join key value than fit the join's memory budget of "
+                    + memoryBudget + " bytes");
+        }
+        spill(rowsIn(probeFile), probeKey, !buildIsLeft, splitDir, "probe", usedBits, bits, sink);
+        Files.delete(buildFile);
+        Files.delete(probeFile);
+
+        partitionCount += (1 << bits) - 1;
+        log.info("Split join partition {} of {} into {} partitions", partition, dir.getFileName(), 1 << bits);
+        joinPartitions(splitDir, bits, usedBits + bits, sink);
+    }
+
+    /**
+     * Writes rows into partition files by hash bits {@code [shift, shift + bits)}. Rows whose key
+     * cannot match anything are not spilled: a left join emits its left ones right away and the
+     * rest are dropped.
+     *
+     * @return whether the spilled rows have more than one key hash, so further bits can split them
+     */
+    private boolean spill(RowSource source, int keyColumn, boolean leftSide, Path dir, String name, int shift,
+                          int bits, RowSink sink) throws IOException {
+        DataOutputStream[] outputs = new DataOutputStream[1 << bits];
+        long[] firstHash = new long[1];
+        boolean[] spilled = new boolean[1];
+        boolean[] mixed = new boolean[1];
+        try {
+            for (int partition = 0; partition < outputs.length; partition++) {
+                outputs[partition] = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(dir.resolve(name + "-" + partition))));
+            }
+            source.forEachRow(row -> {
+                String value = row[keyColumn];
+                long hash = 0;
+                boolean matchable = value != null;
+                if (matchable) {
+                    try {
+                        hash = hashOf(value, leftSide);
+                    } catch (IllegalArgumentException e) {
+                        matchable = false;
+                    }
+                }
+                if (!matchable) {
+                    if (type == Type.LEFT && leftSide) {
+                        sink.accept(row, null);
+                    }
+                    return;
+                }
+
+                if (!spilled[0]) {
+                    spilled[0] = true;
+                    firstHash[0] = hash;
+                } else if (hash != firstHash[0]) {
+                    mixed[0] = true;
+                }
+                try {
+                    writeRow(outputs[(int) ((hash << shift) >>> (Long.SIZE - bits))], row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (DataOutputStream output : outputs) {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+        return mixed[0];
+    }
+
+    /**
+     * Hash of a key value whose high bits pick its partitions, independent of the index's own
+     * slot hash. Distinct primitive keys always hash apart.
+     *
+     * @throws IllegalArgumentException if the value does not parse as the key type
+     */
+    private long hashOf(String value, boolean leftSide) {
+        long hash = key.isPrimitive() ? key.toLong(value, leftSide) : textHash(value);
+        // Fibonacci hashing: multiplying by an odd constant is a bijection that spreads low bits up
+        return hash * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * 64-bit FNV-1a of the characters, so distinct text keys share a hash far more rarely than
+     * with {@link String#hashCode()}.
+     */
+    private static long textHash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static RowSource rowsIn(Path path) {
+        return action -> {
+            try {
+                readPartition(path, action);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static void writeRow(DataOutputStream out, String[] row) throws IOException {
+        out.writeInt(row.length);
+        for (String value : row) {
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                // writeUTF caps values at 64 KB
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void readPartition(Path path, Consumer<String[]> action) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                String[] row = new String[length];
+                for (int i = 0; i < length; i++) {
+                    int size = in.readInt();
+                    if (size >= 0) {
+                        byte[] bytes = new byte[size];
+                        in.readFully(bytes);
+                        row[i] = new String(bytes, StandardCharsets.UTF_8);
+                    }
+                }
+                action.accept(row);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Could not delete join spill file {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not delete join spill directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Build rows of one partition (or of the whole build side) and their key index.
+     */
+    private final class Table {
+        private final List<String[]> rows = new ArrayList<>();
+        private final KeyIndex index = new KeyIndex(key.isPrimitive());
+        private final BitSet matched = new BitSet();
+        private long bytes;
+
+        private void add(String[] row) {
+            int number = rows.size();
+            rows.add(row);
+            bytes += ROW_OVERHEAD_BYTES + INDEX_BYTES_PER_ROW + 4L * row.length;
+            for (String value : row) {
+                if (value != null) {
+                    bytes += VALUE_OVERHEAD_BYTES + value.length();
+                }
+            }
+
+            String value = row[buildKey];
+            if (value == null) {
+                return;
+            }
+            if (!key.isPrimitive()) {
+                index.add(value, number);
+                return;
+            }
+            try {
+                index.add(key.toLong(value, buildIsLeft), number);
+            } catch (IllegalArgumentException e) {
+                // Unparseable keys match nothing
+            }
+        }
+
+        private void probe(String[] row, RowSink sink) {
+            String value = row[probeKey];
+            int match = KeyIndex.NONE;
+            if (value != null && !key.isPrimitive()) {
+                match = index.first(value);
+            } else if (value != null) {
+                try {
+                    match = index.first(key.toLong(value, !buildIsLeft));
+                } catch (IllegalArgumentException e) {
+                    // Unparseable keys match nothing
+                }
+            }
+
+            if (match == KeyIndex.NONE && type == Type.LEFT && !buildIsLeft) {
+                sink.accept(row, null);
+            }
+            for (int build = match; build != KeyIndex.NONE; build = index.next(build)) {
+                matched.set(build);
+                if (buildIsLeft) {
+                    sink.accept(rows.get(build), row);
+                } else {
+                    sink.accept(row, rows.get(build));
+                }
+            }
+        }
+
+        /**
+         * Emits the left rows nothing matched, when the left side was built.
+         */
+        private void finish(RowSink sink) {
+            if (type != Type.LEFT || !buildIsLeft) {
+                return;
+            }
+            for (int build = matched.nextClearBit(0); build < rows.size(); build = matched.nextClearBit(build + 1)) {
+                sink.accept(rows.get(build), null);
+            }
+        }
+    }
+
+    /**
+     * Thrown from the build callbacks to stop loading once the budget is exceeded.
+     */
+    private static final class BudgetExceeded extends RuntimeException {
+        private BudgetExceeded() {
+            super(null, null, false, false);
+        }
+    }
+}
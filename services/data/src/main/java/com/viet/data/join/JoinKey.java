@@ -0,0 +1,95 @@
+package com.viet.data.join;
+
+import com.viet.data.module.ColumnMetadata;
+import com.viet.data.processor.TemporalFormat;
+
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * How the key values of two join columns are compared. Integer, decimal and same-typed
+ * temporal keys are normalized to a {@code long} so they hash into a primitive table, {@code 7}
+ * matches {@code 7.0} and one date layout matches another; anything else is compared as text.
+ * Values that do not parse as the key type never match, like SQL nulls.
+ */
+public final class JoinKey {
+
+    enum Kind {
+        INTEGER,
+        DECIMAL,
+        TEMPORAL,
+        TEXT
+    }
+
+    private final Kind kind;
+    private final TemporalFormat leftFormat;
+    private final TemporalFormat rightFormat;
+
+    private JoinKey(Kind kind, TemporalFormat leftFormat, TemporalFormat rightFormat) {
+        this.kind = kind;
+        this.leftFormat = leftFormat;
+        this.rightFormat = rightFormat;
+    }
+
+    public static JoinKey of(ColumnMetadata left, ColumnMetadata right) {
+        TemporalFormat leftFormat = TemporalFormat.of(left);
+        TemporalFormat rightFormat = TemporalFormat.of(right);
+        if (leftFormat != null && rightFormat != null && leftFormat.getDataType() == rightFormat.getDataType()) {
+            return new JoinKey(Kind.TEMPORAL, leftFormat, rightFormat);
+        }
+        if (Boolean.TRUE.equals(left.getIsNumeric()) && Boolean.TRUE.equals(right.getIsNumeric())) {
+            boolean integers = left.getDataType() == ColumnMetadata.DataType.INTEGER
+                    && right.getDataType() == ColumnMetadata.DataType.INTEGER;
+            return new JoinKey(integers ? Kind.INTEGER : Kind.DECIMAL, null, null);
+        }
+        return new JoinKey(Kind.TEXT, null, null);
+    }
+
+    public boolean isPrimitive() {
+        return kind != Kind.TEXT;
+    }
+
+    public String describe() {
+        return kind.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Normalized value of a primitive key.
+     *
+     * @throws IllegalArgumentException if the value does not parse as the key type
+     */
+    long toLong(String value, boolean leftSide) {
+        switch (kind) {
+            case INTEGER:
+                try {
+                    return Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    // Integral values written in decimal notation, such as 7.0
+                    double d = parseFinite(value);
+                    if (d != Math.rint(d) || Math.abs(d) >= 0x1p63) {
+                        throw new NumberFormatException("Not an integer: " + value);
+                    }
+                    return (long) d;
+                }
+            case DECIMAL:
+                // Adding 0.0 turns -0.0 into 0.0, so both zeros share one key
+                return Double.doubleToLongBits(parseFinite(value) + 0.0);
+            case TEMPORAL:
+                try {
+                    return (leftSide ? leftFormat : rightFormat).parse(value);
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException(e.getMessage(), e);
+                }
+            default:
+                throw new IllegalStateException("Text keys have no primitive value");
+        }
+    }
+
+    private double parseFinite(String value) {
+        double d = Double.parseDouble(value);
+        if (!Double.isFinite(d)) {
+            throw new NumberFormatException("Not a finite number: " + value);
+        }
+        return d;
+    }
+}
@@ -0,0 +1,134 @@
+package com.viet.data.join;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Build-side index from join key to row numbers. Primitive keys live in an open-addressing
+ * table of longs with linear probing; text keys are first mapped to dictionary codes. Rows
+ * sharing a key are chained through {@code next} in insertion order.
+ */
+final class KeyIndex {
+
+    static final int NONE = -1;
+
+    private final boolean primitive;
+    // Primitive keys: slot i holds keys[i] when heads[i] != NONE
+    private long[] keys;
+    // Text keys: dictionary code of each distinct key
+    private final Map<String, Integer> codes;
+    // First and last row of each slot or code
+    private int[] heads;
+    private int[] tails;
+    private int mask;
+    private int keyCount;
+    private int[] next = new int[64];
+
+    KeyIndex(boolean primitive) {
+        this.primitive = primitive;
+        this.codes = primitive ? null : new HashMap<>();
+        int capacity = 64;
+        this.keys = primitive ? new long[capacity] : null;
+        this.heads = new int[capacity];
+        this.tails = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(heads, NONE);
+    }
+
+    void add(long key, int row) {
+        int slot = slotOf(key);
+        if (heads[slot] == NONE) {
+            keys[slot] = key;
+            keyCount++;
+            append(slot, row);
+            // Keep the load factor at or below one half
+            if (keyCount * 2 > heads.length) {
+                rehash();
+            }
+            return;
+        }
+        append(slot, row);
+    }
+
+    void add(String key, int row) {
+        Integer code = codes.get(key);
+        if (code == null) {
+            code = codes.size();
+            codes.put(key, code);
+            if (code == heads.length) {
+                heads = Arrays.copyOf(heads, code * 2);
+                tails = Arrays.copyOf(tails, code * 2);
+                Arrays.fill(heads, code, heads.length, NONE);
+            }
+        }
+        append(code, row);
+    }
+
+    int first(long key) {
+        return heads[slotOf(key)];
+    }
+
+    int first(String key) {
+        Integer code = codes.get(key);
+        return code != null ? heads[code] : NONE;
+    }
+
+    int next(int row) {
+        return next[row];
+    }
+
+    private void append(int slot, int row) {
+        if (row >= next.length) {
+            next = Arrays.copyOf(next, Math.max(row + 1, next.length * 2));
+        }
+        next[row] = NONE;
+        if (heads[slot] == NONE) {
+            heads[slot] = row;
+        } else {
+            next[tails[slot]] = row;
+        }
+        tails[slot] = row;
+    }
+
+    /**
+     * The slot holding {@code key}, or the empty slot where it would go.
+     */
+    private int slotOf(long key) {
+        int slot = (int) mix(key) & mask;
+        while (heads[slot] != NONE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        int[] oldTails = tails;
+        keys = new long[oldKeys.length * 2];
+        heads = new int[oldHeads.length * 2];
+        tails = new int[oldTails.length * 2];
+        mask = heads.length - 1;
+        Arrays.fill(heads, NONE);
+        for (int i = 0; i < oldHeads.length; i++) {
+            if (oldHeads[i] != NONE) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+                tails[slot] = oldTails[i];
+            }
+        }
+    }
+
+    /**
+     * Finalizer of MurmurHash3, so sequential ids spread over the table.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+}
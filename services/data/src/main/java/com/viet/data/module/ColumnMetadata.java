@@ -17,6 +17,12 @@ public class ColumnMetadata {
     private List<String> sampleValues;
     private Boolean isNumeric;
     private Boolean isCategorical;
+    // DATE and DATETIME columns only: the TemporalFormat name and the range in epoch days or millis
+    private String temporalFormat;
+    private Long minTime;
+    private Long maxTime;
+    // Values after the inference sample that did not parse as the column's type; stored as nulls
+    private Long rejectedCount;
 
     public enum DataType {
         STRING, INTEGER, DOUBLE, BOOLEAN, DATE, DATETIME, UNKNOWN
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -12,6 +14,8 @@ import java.util.List;
 import java.util.Map;
 
 @Document(collection = "datasets")
+// Serves per-user listings newest first, with _id as the keyset tie-breaker
+@CompoundIndex(name = "user_created_id_idx", def = "{ 'user_id': 1, 'created_at': -1, '_id': -1 }")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,6 +46,19 @@ public class Dataset {
     @Field("storage_path")
     private String storagePath;
 
+    // Every stored CSV chunk of the dataset: the original upload followed by appended slices
+    @Field("chunk_paths")
+    private List<String> chunkPaths;
+
+    // Rows in each of the chunk paths, in the same order; missing on datasets stored before it
+    @Field("chunk_row_counts")
+    private List<Integer> chunkRowCounts;
+
+    // SHA-256 of the originally uploaded file
+    @Indexed
+    @Field("content_hash")
+    private String contentHash;
+
     private DatasetStatus status;
 
     @Field("created_at")
@@ -56,7 +73,26 @@ public class Dataset {
     @Field("basic_stats")
     private Map<String, ColumnStatistics> basicStats;
 
+    @Field("sketch_bundle")
+    private byte[] sketchBundle;
+
+    @Field("sketch_path")
+    private String sketchPath;
+
+    // When an append's claim on a PROCESSING dataset runs out and another append may take it over
+    @Field("append_lease_expires_at")
+    private LocalDateTime appendLeaseExpiresAt;
+
+    // When the storage reaper's claim on a REAPING dataset runs out and another sweep may take it over
+    @Field("reap_lease_expires_at")
+    private LocalDateTime reapLeaseExpiresAt;
+
     public enum DatasetStatus {
-        UPLOADING, PROCESSING, PROCESSED, FAILED, DELETED
+        // REAPING: deleted, with its storage being reclaimed under a lease
+        UPLOADING, PROCESSING, PROCESSED, FAILED, DELETED, REAPING;
+
+        public boolean isDeleted() {
+            return this == DELETED || this == REAPING;
+        }
     }
 }
\ No newline at end of file
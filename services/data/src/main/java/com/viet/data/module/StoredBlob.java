@@ -0,0 +1,34 @@
+package com.viet.data.module;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "stored_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredBlob {
+    // SHA-256 of the file content
+    @Id
+    private String id;
+
+    private String path;
+
+    private Long size;
+
+    @Field("ref_count")
+    private Long refCount;
+
+    @Field("created_at")
+    private LocalDateTime createdAt;
+
+    // Set once the last reference is gone and the file is being deleted; uploads wait it out
+    @Field("deleting_since")
+    private LocalDateTime deletingSince;
+}
@@ -0,0 +1,51 @@
+package com.viet.data.module;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Per-user dataset counters, maintained incrementally on upload, append and delete. Every
+ * change bumps {@code version} and counts itself in {@code pending_updates} from before its
+ * dataset write until its counter update, so a rebuild from the datasets collection can tell
+ * whether a change overlapped it.
+ */
+@Document(collection = "user_dataset_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDatasetStats {
+    // The user id
+    @Id
+    private String id;
+
+    @Field("dataset_count")
+    private Long datasetCount;
+
+    @Field("total_rows")
+    private Long totalRows;
+
+    @Field("total_bytes")
+    private Long totalBytes;
+
+    // Newest first
+    @Field("recent_dataset_ids")
+    private List<String> recentDatasetIds;
+
+    @Field("updated_at")
+    private LocalDateTime updatedAt;
+
+    // Created by a counter update before any rebuild, so the counters hold only deltas
+    private Boolean partial;
+
+    private Long version;
+
+    @Field("pending_updates")
+    private Long pendingUpdates;
+}
@@ -1,8 +1,14 @@
 package com.viet.data.processor;
 
+import com.viet.data.column.*;
 import com.viet.data.dto.response.CSVParseResult;
 import com.viet.data.exception.CSVProcessingException;
+import com.viet.data.jfr.DataPipelineEvent;
 import com.viet.data.module.ColumnMetadata;
+import com.viet.data.sketch.BaseHistogram;
+import com.viet.data.sketch.ColumnSketch;
+import com.viet.data.sketch.SketchBundle;
+import com.viet.data.sketch.TimeRollup;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
@@ -11,9 +17,14 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Component
@@ -25,60 +36,170 @@ public class CSVProcessor {
     private static final int MAX_SAMPLE_VALUES = 5;
 
     public CSVParseResult processCSV(MultipartFile file) {
-        try (Reader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
+        try {
+            return processCSV(CompressedInput.decompress(file.getInputStream()));
+        } catch (IOException e) {
+            log.error("Error reading CSV file: {}", e.getMessage());
+            throw new CSVProcessingException("Failed to process CSV file: " + e.getMessage());
+        }
+    }
+
+    public CSVParseResult processCSV(InputStream inputStream) {
+        return processCSV(inputStream, null);
+    }
+
+    /**
+     * @param datasetId dataset the rows belong to, recorded on the parse event
+     */
+    public CSVParseResult processCSV(InputStream inputStream, String datasetId) {
+        DataPipelineEvent event = DataPipelineEvent.start("csv.parse").datasetId(datasetId);
+        // Bytes are only counted while a recording takes the event
+        CountingInputStream counted = event.isEnabled() ? new CountingInputStream(inputStream) : null;
+        try (Reader reader = new BufferedReader(new InputStreamReader(counted != null ? counted : inputStream));
              CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT
                      .withFirstRecordAsHeader()
                      .withIgnoreHeaderCase()
                      .withTrim()
                      .withIgnoreSurroundingSpaces())) {
 
-            List<CSVRecord> records = parser.getRecords();
-            Map<String, Integer> headerMap = parser.getHeaderMap();
+            List<String> headers = parser.getHeaderNames();
+            Iterator<CSVRecord> records = parser.iterator();
 
-            log.info("Processing CSV with {} columns and {} rows", headerMap.size(), records.size());
+            // Only the inference sample is held as text; every other row goes straight into vectors
+            List<String[]> sample = new ArrayList<>();
+            while (sample.size() < SAMPLE_SIZE && records.hasNext()) {
+                sample.add(valuesOf(records.next(), headers.size()));
+            }
 
             // Analyze columns
-            List<ColumnMetadata> columns = analyzeColumns(records, new ArrayList<>(headerMap.keySet()));
+            List<ColumnMetadata> columns = analyzeColumns(sample, headers);
+            List<ColumnProfiler> profilers = columns.stream()
+                    .map(ColumnProfiler::new)
+                    .collect(Collectors.toList());
+
+            int rowCount = 0;
+            for (String[] row : sample) {
+                for (int i = 0; i < profilers.size(); i++) {
+                    profilers.get(i).accept(row[i]);
+                }
+                rowCount++;
+            }
+            sample = null;
+
+            while (records.hasNext()) {
+                CSVRecord record = records.next();
+                for (int i = 0; i < profilers.size(); i++) {
+                    profilers.get(i).accept(i < record.size() ? record.get(i) : null);
+                }
+                rowCount++;
+            }
+
+            log.info("Processing CSV with {} columns and {} rows", headers.size(), rowCount);
+            event.rows(rowCount).columns(headers.size());
+
+            // Finish vectors and the sketches profiled alongside them
+            ColumnTable table = new ColumnTable(rowCount);
+            SketchBundle sketches = new SketchBundle(rowCount);
+            for (ColumnProfiler profiler : profilers) {
+                table.add(profiler.finish());
+                sketches.put(profiler.column.getName(), profiler.sketch);
+            }
+            addRollups(table, columns, sketches);
 
             // Get sample data for preview
-            List<Map<String, Object>> sampleData = extractSampleData(records, headerMap, PREVIEW_ROWS);
+            List<Map<String, Object>> sampleData = extractSampleData(table, PREVIEW_ROWS);
 
             // Calculate basic statistics
-            Map<String, Object> basicStats = calculateBasicStats(records, columns, headerMap);
+            Map<String, Object> basicStats = calculateBasicStats(rowCount, columns);
 
+            event.succeeded();
             return CSVParseResult.builder()
-                    .rowCount(records.size())
-                    .columnCount(headerMap.size())
+                    .rowCount(rowCount)
+                    .columnCount(headers.size())
                     .columns(columns)
                     .sampleData(sampleData)
-                    .headers(new ArrayList<>(headerMap.keySet()))
+                    .headers(new ArrayList<>(headers))
                     .basicStats(basicStats)
+                    .sketches(sketches)
+                    .table(table)
                     .build();
 
         } catch (Exception e) {
             log.error("Error processing CSV file: {}", e.getMessage());
             throw new CSVProcessingException("Failed to process CSV file: " + e.getMessage());
+        } finally {
+            if (counted != null) {
+                event.bytes(counted.getCount());
+            }
+            event.commit();
+        }
+    }
+
+    public List<String> readHeaders(MultipartFile file) {
+        try {
+            return readHeaders(CompressedInput.decompress(file.getInputStream()));
+        } catch (IOException e) {
+            log.error("Error reading CSV header: {}", e.getMessage());
+            throw new CSVProcessingException("Failed to read CSV header: " + e.getMessage());
+        }
+    }
+
+    public List<String> readHeaders(InputStream inputStream) {
+        try (Reader reader = new BufferedReader(new InputStreamReader(inputStream));
+             CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT
+                     .withFirstRecordAsHeader()
+                     .withIgnoreHeaderCase()
+                     .withTrim()
+                     .withIgnoreSurroundingSpaces())) {
+
+            // The header is read when the parser is created; no records are consumed
+            return parser.getHeaderNames();
+
+        } catch (Exception e) {
+            log.error("Error reading CSV header: {}", e.getMessage());
+            throw new CSVProcessingException("Failed to read CSV header: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams records one at a time, without holding the file in memory.
+     */
+    public void forEachRecord(InputStream inputStream, Consumer<CSVRecord> action) {
+        try (Reader reader = new BufferedReader(new InputStreamReader(inputStream));
+             CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT
+                     .withFirstRecordAsHeader()
+                     .withIgnoreHeaderCase()
+                     .withTrim()
+                     .withIgnoreSurroundingSpaces())) {
+
+            for (CSVRecord record : parser) {
+                action.accept(record);
+            }
+
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error reading CSV records: {}", e.getMessage());
+            throw new CSVProcessingException("Failed to read CSV records: " + e.getMessage());
         }
     }
 
-    private List<ColumnMetadata> analyzeColumns(List<CSVRecord> records, List<String> headers) {
-        return headers.stream()
-                .map(header -> analyzeSingleColumn(records, header))
-                .collect(Collectors.toList());
+    private List<ColumnMetadata> analyzeColumns(List<String[]> sample, List<String> headers) {
+        List<ColumnMetadata> columns = new ArrayList<>(headers.size());
+        for (int i = 0; i < headers.size(); i++) {
+            columns.add(analyzeSingleColumn(sample, i, headers.get(i)));
+        }
+        return columns;
     }
 
-    private ColumnMetadata analyzeSingleColumn(List<CSVRecord> records, String columnName) {
+    private ColumnMetadata analyzeSingleColumn(List<String[]> sample, int index, String columnName) {
         Set<String> uniqueValues = new HashSet<>();
         long nullCount = 0;
         List<String> sampleValues = new ArrayList<>();
         boolean isNumeric = true;
         boolean isCategorical = false;
 
-        // Analyze first SAMPLE_SIZE records for performance
-        int sampleSize = Math.min(records.size(), SAMPLE_SIZE);
-
-        for (int i = 0; i < sampleSize; i++) {
-            String value = records.get(i).get(columnName);
+        // Types are inferred from the first SAMPLE_SIZE records only
+        for (String[] row : sample) {
+            String value = row[index];
 
             if (value == null || value.trim().isEmpty()) {
                 nullCount++;
@@ -102,7 +223,9 @@ public class CSVProcessor {
             isCategorical = true;
         }
 
-        ColumnMetadata.DataType dataType = inferDataType(sampleValues, isNumeric, isCategorical);
+        // Every distinct sample value must match, so one formatter serves the whole column
+        TemporalFormat temporalFormat = isNumeric ? null : TemporalFormat.detect(uniqueValues);
+        ColumnMetadata.DataType dataType = inferDataType(sampleValues, isNumeric, temporalFormat);
 
         return new ColumnMetadata(
                 columnName,
@@ -111,7 +234,11 @@ public class CSVProcessor {
                 nullCount,
                 sampleValues,
                 isNumeric,
-                isCategorical
+                isCategorical,
+                temporalFormat != null ? temporalFormat.name() : null,
+                null,
+                null,
+                null
         );
     }
 
@@ -127,7 +254,8 @@ public class CSVProcessor {
         }
     }
 
-    private ColumnMetadata.DataType inferDataType(List<String> sampleValues, boolean isNumeric, boolean isCategorical) {
+    private ColumnMetadata.DataType inferDataType(List<String> sampleValues, boolean isNumeric,
+                                                  TemporalFormat temporalFormat) {
         if (isNumeric) {
             // Check if it's integer or double
             for (String value : sampleValues) {
@@ -151,66 +279,63 @@ public class CSVProcessor {
             return ColumnMetadata.DataType.BOOLEAN;
         }
 
-        // Check for date/datetime (simple check)
-        if (sampleValues.stream().anyMatch(this::looksLikeDate)) {
-            return ColumnMetadata.DataType.DATETIME;
+        if (temporalFormat != null) {
+            return temporalFormat.getDataType();
         }
 
         return ColumnMetadata.DataType.STRING;
     }
 
-    private boolean looksLikeDate(String value) {
-        // Simple date pattern matching
-        return value.matches("\\d{4}-\\d{2}-\\d{2}") ||
-                value.matches("\\d{2}/\\d{2}/\\d{4}") ||
-                value.matches("\\d{4}-\\d{2}-\\d{2}.*\\d{2}:\\d{2}:\\d{2}");
+    private String[] valuesOf(CSVRecord record, int columnCount) {
+        String[] values = new String[columnCount];
+        for (int i = 0; i < columnCount && i < record.size(); i++) {
+            values[i] = record.get(i);
+        }
+        return values;
+    }
+
+    /**
+     * Rolls every numeric column up by day against each date and date-time column.
+     */
+    private void addRollups(ColumnTable table, List<ColumnMetadata> columns, SketchBundle sketches) {
+        List<DoubleColumn> values = new ArrayList<>();
+        for (ColumnMetadata column : columns) {
+            if (Boolean.TRUE.equals(column.getIsNumeric())) {
+                values.add((DoubleColumn) table.getColumn(column.getName()));
+            }
+        }
+        for (ColumnMetadata column : columns) {
+            TemporalFormat format = TemporalFormat.of(column);
+            if (format == null) {
+                continue;
+            }
+            TimeRollup rollup = TimeRollup.build((LongColumn) table.getColumn(column.getName()),
+                    format.getDataType() == ColumnMetadata.DataType.DATETIME, values);
+            if (rollup != null) {
+                sketches.putRollup(column.getName(), rollup);
+            }
+        }
     }
 
-    private List<Map<String, Object>> extractSampleData(List<CSVRecord> records,
-                                                        Map<String, Integer> headerMap,
-                                                        int maxRows) {
+    private List<Map<String, Object>> extractSampleData(ColumnTable table, int maxRows) {
         List<Map<String, Object>> sampleData = new ArrayList<>();
-        List<String> headers = new ArrayList<>(headerMap.keySet());
+        List<ColumnVector> columns = table.getColumns();
 
-        int rowCount = Math.min(records.size(), maxRows);
+        int rowCount = Math.min(table.getRowCount(), maxRows);
         for (int i = 0; i < rowCount; i++) {
             Map<String, Object> row = new LinkedHashMap<>();
-            CSVRecord record = records.get(i);
-
-            for (String header : headers) {
-                String value = record.get(header);
-                row.put(header, convertValue(value));
+            for (ColumnVector column : columns) {
+                row.put(column.getName(), column.getObject(i));
             }
-
             sampleData.add(row);
         }
 
         return sampleData;
     }
 
-    private Object convertValue(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            return null;
-        }
-
-        // Try numeric conversion
-        try {
-            if (value.contains(".")) {
-                return Double.parseDouble(value);
-            } else {
-                return Long.parseLong(value);
-            }
-        } catch (NumberFormatException e) {
-            // Not a number, return as string
-            return value;
-        }
-    }
-
-    private Map<String, Object> calculateBasicStats(List<CSVRecord> records,
-                                                    List<ColumnMetadata> columns,
-                                                    Map<String, Integer> headerMap) {
+    private Map<String, Object> calculateBasicStats(int rowCount, List<ColumnMetadata> columns) {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalRows", records.size());
+        stats.put("totalRows", rowCount);
         stats.put("totalColumns", columns.size());
         stats.put("processingTime", System.currentTimeMillis());
 
@@ -223,7 +348,7 @@ public class CSVProcessor {
         stats.put("typeDistribution", typeDistribution);
 
         // Data quality metrics
-        long totalCells = (long) records.size() * columns.size();
+        long totalCells = (long) rowCount * columns.size();
         long nullCells = columns.stream()
                 .mapToLong(ColumnMetadata::getNullCount)
                 .sum();
@@ -237,4 +362,181 @@ public class CSVProcessor {
 
         return stats;
     }
+
+    /**
+     * Profiles one column while the rows stream past: feeds its sketch and appends to a
+     * vector of the inferred type. Text columns are dictionary-encoded until they exceed
+     * {@link ValueDictionary#MAX_SIZE} distinct values; dates become epoch values in the
+     * column's locked format. Numeric and temporal values that fail to parse are rejected:
+     * stored and sketched as nulls, and counted in {@link ColumnMetadata#getRejectedCount()}.
+     */
+    private static final class ColumnProfiler {
+        private final ColumnMetadata column;
+        private final ColumnSketch sketch = new ColumnSketch();
+        private final TemporalFormat temporalFormat;
+        private long minTime = Long.MAX_VALUE;
+        private long maxTime = Long.MIN_VALUE;
+        private long rejectedCount;
+        private LongVector.Builder times;
+        private LongVector.Builder longs;
+        private DoubleVector.Builder doubles;
+        private DictionaryVector.Builder strings;
+        private StringVector.Builder plainStrings;
+
+        private ColumnProfiler(ColumnMetadata column) {
+            this.column = column;
+            this.temporalFormat = TemporalFormat.of(column);
+            if (temporalFormat != null) {
+                times = new LongVector.Builder();
+            } else if (!Boolean.TRUE.equals(column.getIsNumeric())) {
+                strings = new DictionaryVector.Builder(ValueDictionary.MAX_SIZE);
+            } else if (column.getDataType() == ColumnMetadata.DataType.INTEGER) {
+                longs = new LongVector.Builder();
+            } else {
+                doubles = new DoubleVector.Builder();
+            }
+        }
+
+        private void accept(String value) {
+            if (value == null || value.isEmpty()) {
+                sketch.addNull();
+                appendNull();
+                return;
+            }
+
+            // Parse first, so a rejected value never reaches the distinct or frequent values
+            boolean accepted = true;
+            if (times != null) {
+                accepted = acceptTemporal(value);
+            } else if (strings != null) {
+                acceptString(value);
+            } else if (plainStrings != null) {
+                plainStrings.append(value);
+            } else if (longs != null) {
+                accepted = acceptInteger(value);
+            } else {
+                accepted = acceptDouble(value);
+            }
+
+            if (accepted) {
+                sketch.addValue(value);
+            } else {
+                // The type was locked on the sample; a later mismatch is kept as a null
+                sketch.addNull();
+                appendNull();
+                rejectedCount++;
+            }
+        }
+
+        private boolean acceptTemporal(String value) {
+            try {
+                long time = temporalFormat.parse(value);
+                times.append(time);
+                minTime = Math.min(minTime, time);
+                maxTime = Math.max(maxTime, time);
+                return true;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+
+        private void acceptString(String value) {
+            if (!strings.tryAppend(value)) {
+                // Too many distinct values for a dictionary to pay off
+                plainStrings = strings.toStringBuilder();
+                strings = null;
+                plainStrings.append(value);
+            }
+        }
+
+        private boolean acceptInteger(String value) {
+            try {
+                long l = Long.parseLong(value);
+                sketch.addNumber(l);
+                longs.append(l);
+                return true;
+            } catch (NumberFormatException e) {
+                // Fall back to decimal notation below
+            }
+
+            double d = parseDouble(value);
+            if (Double.isNaN(d)) {
+                return false;
+            }
+            if (d == Math.rint(d) && Math.abs(d) < 0x1p63) {
+                sketch.addNumber(d);
+                longs.append((long) d);
+            } else {
+                // The sample looked integral but the data is not; widen the column
+                doubles = longs.toDoubleBuilder();
+                longs = null;
+                column.setDataType(ColumnMetadata.DataType.DOUBLE);
+                sketch.addNumber(d);
+                doubles.append(d);
+            }
+            return true;
+        }
+
+        private boolean acceptDouble(String value) {
+            double d = parseDouble(value);
+            if (Double.isNaN(d)) {
+                return false;
+            }
+            sketch.addNumber(d);
+            doubles.append(d);
+            return true;
+        }
+
+        private void appendNull() {
+            if (times != null) {
+                times.appendNull();
+            } else if (strings != null) {
+                strings.appendNull();
+            } else if (plainStrings != null) {
+                plainStrings.appendNull();
+            } else if (longs != null) {
+                longs.appendNull();
+            } else {
+                doubles.appendNull();
+            }
+        }
+
+        private ColumnVector finish() {
+            // Sketches cover every row, not just the inference sample
+            column.setNullCount(sketch.getNullCount());
+            column.setUniqueCount(sketch.getDistinctCount());
+            column.setRejectedCount(rejectedCount);
+
+            if (times != null) {
+                if (minTime <= maxTime) {
+                    column.setMinTime(minTime);
+                    column.setMaxTime(maxTime);
+                }
+                return times.build(column.getName(), temporalFormat::format);
+            }
+            if (strings != null) {
+                return strings.build(column.getName());
+            }
+            if (plainStrings != null) {
+                return plainStrings.build(column.getName());
+            }
+            DoubleColumn numbers = longs != null ? longs.build(column.getName()) : doubles.build(column.getName());
+            if (sketch.getMoments().getCount() > 0) {
+                sketch.setHistogram(BaseHistogram.of(numbers));
+            }
+            return (ColumnVector) numbers;
+        }
+
+        /**
+         * Parses a finite double, or returns NaN for anything else.
+         */
+        private static double parseDouble(String value) {
+            try {
+                double d = Double.parseDouble(value);
+                return Double.isFinite(d) ? d : Double.NaN;
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+    }
 }
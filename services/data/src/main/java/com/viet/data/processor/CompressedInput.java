@@ -0,0 +1,39 @@
+package com.viet.data.processor;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Recognises gzip-compressed CSV by its magic bytes rather than by name or headers, so
+ * {@code .csv.gz} uploads, gzip-encoded parts and stored compressed chunks all read the same.
+ */
+public final class CompressedInput {
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CompressedInput() {
+    }
+
+    /**
+     * Returns a stream of the decompressed content if {@code in} is gzip, or of the bytes
+     * unchanged otherwise. Nothing is inflated ahead of the reader.
+     */
+    public static InputStream decompress(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        return first == GZIP_MAGIC_1 && second == GZIP_MAGIC_2
+                ? new GZIPInputStream(buffered, BUFFER_SIZE)
+                : buffered;
+    }
+
+    public static boolean isGzip(byte[] head) {
+        return head.length >= 2 && (head[0] & 0xff) == GZIP_MAGIC_1 && (head[1] & 0xff) == GZIP_MAGIC_2;
+    }
+}
@@ -0,0 +1,29 @@
+package com.viet.data.processor;
+
+import com.viet.data.exception.FileValidationException;
+
+import java.io.InputStream;
+
+/**
+ * Fails the read that takes the stream past {@code limit} bytes. Applied to decompressed
+ * content, where the upload size says little about what the parser will see.
+ */
+public class SizeLimitedInputStream extends CountingInputStream {
+
+    private final long limit;
+    private final String message;
+
+    public SizeLimitedInputStream(InputStream in, long limit, String message) {
+        super(in);
+        this.limit = limit;
+        this.message = message;
+    }
+
+    @Override
+    protected void advance(long n) {
+        super.advance(n);
+        if (getCount() > limit) {
+            throw new FileValidationException(message);
+        }
+    }
+}
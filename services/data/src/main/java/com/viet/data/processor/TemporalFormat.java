@@ -0,0 +1,118 @@
+package com.viet.data.processor;
+
+import com.viet.data.module.ColumnMetadata;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Date and date-time layouts recognised in CSV columns. A column is locked to the first
+ * format, in declaration order, that parses every value of its inference sample; values are
+ * then parsed once into epoch days ({@link ColumnMetadata.DataType#DATE}) or epoch
+ * milliseconds ({@link ColumnMetadata.DataType#DATETIME}). Date-times without an offset are
+ * taken as UTC.
+ */
+public enum TemporalFormat {
+
+    ISO_DATE("uuuu-MM-dd", false),
+    SLASHED_ISO_DATE("uuuu/MM/dd", false),
+    // Month first wins when every day in the sample is 12 or less
+    US_DATE("MM/dd/uuuu", false),
+    EUROPEAN_DATE("dd/MM/uuuu", false),
+    DOTTED_DATE("dd.MM.uuuu", false),
+    NAMED_MONTH_DATE("dd-MMM-uuuu", false),
+    ISO_DATETIME("uuuu-MM-dd'T'HH:mm[:ss]", true),
+    SPACED_ISO_DATETIME("uuuu-MM-dd HH:mm[:ss]", true),
+    US_DATETIME("MM/dd/uuuu HH:mm[:ss]", true),
+    EUROPEAN_DATETIME("dd/MM/uuuu HH:mm[:ss]", true);
+
+    private final DateTimeFormatter formatter;
+    private final boolean withTime;
+
+    TemporalFormat(String pattern, boolean withTime) {
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder()
+                .parseCaseInsensitive()
+                .appendPattern(pattern);
+        if (withTime) {
+            // Optional fraction of any precision, then an optional offset (Z, +HH, +HHMM or +HH:MM)
+            builder.optionalStart()
+                    .appendFraction(ChronoField.NANO_OF_SECOND, 1, 9, true)
+                    .optionalEnd()
+                    .appendPattern("[XXX][X]");
+        }
+        this.formatter = builder.toFormatter(Locale.ENGLISH).withResolverStyle(ResolverStyle.STRICT);
+        this.withTime = withTime;
+    }
+
+    public ColumnMetadata.DataType getDataType() {
+        return withTime ? ColumnMetadata.DataType.DATETIME : ColumnMetadata.DataType.DATE;
+    }
+
+    /**
+     * Epoch day or epoch millisecond of {@code value}.
+     *
+     * @throws DateTimeParseException if the value does not match this format
+     */
+    public long parse(String value) {
+        TemporalAccessor parsed = formatter.parse(value);
+        if (!withTime) {
+            return LocalDate.from(parsed).toEpochDay();
+        }
+        ZoneOffset offset = parsed.isSupported(ChronoField.OFFSET_SECONDS)
+                ? ZoneOffset.ofTotalSeconds(parsed.get(ChronoField.OFFSET_SECONDS))
+                : ZoneOffset.UTC;
+        return LocalDateTime.from(parsed).toInstant(offset).toEpochMilli();
+    }
+
+    /**
+     * Renders an epoch value produced by {@link #parse} in ISO-8601.
+     */
+    public String format(long epochValue) {
+        return withTime
+                ? Instant.ofEpochMilli(epochValue).toString()
+                : LocalDate.ofEpochDay(epochValue).toString();
+    }
+
+    /**
+     * Returns the first format that parses every value, or null when none does.
+     */
+    public static TemporalFormat detect(Collection<String> values) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        for (TemporalFormat format : values()) {
+            if (format.parsesAll(values)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the format recorded on a column, or null for non-temporal columns.
+     */
+    public static TemporalFormat of(ColumnMetadata column) {
+        return column.getTemporalFormat() != null ? valueOf(column.getTemporalFormat()) : null;
+    }
+
+    private boolean parsesAll(Collection<String> values) {
+        for (String value : values) {
+            try {
+                parse(value);
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,20 +1,27 @@
 package com.viet.data.repository;
 
 import com.viet.data.module.Dataset;
+import com.viet.data.module.UserDatasetStats;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DatasetRepository extends MongoRepository<Dataset, String> {
+public interface DatasetRepository extends MongoRepository<Dataset, String>, DatasetRepositoryCustom {
 
+    // The sketch bundle is never needed by listings and can be large
+    @Query(value = "{ 'user_id': ?0, 'status': { '$nin': ['DELETED', 'REAPING'] } }", fields = "{ 'sketch_bundle': 0 }")
     Page<Dataset> findByUserId(String userId, Pageable pageable);
 
+    @Query("{ '_id': ?0, 'user_id': ?1, 'status': { '$nin': ['DELETED', 'REAPING'] } }")
     Optional<Dataset> findByIdAndUserId(String id, String userId);
 
     List<Dataset> findByUserIdAndStatus(String userId, Dataset.DatasetStatus status);
@@ -28,6 +35,19 @@ public interface DatasetRepository extends MongoRepository<Dataset, String> {
     @Query("{ 'user_id': ?0, 'status': ?1 }")
     Page<Dataset> findByUserIdAndStatus(String userId, Dataset.DatasetStatus status, Pageable pageable);
 
+    @Aggregation(pipeline = {
+            "{ '$match': { 'user_id': ?0, 'status': { '$nin': ['DELETED', 'REAPING'] } } }",
+            "{ '$group': { '_id': null, 'dataset_count': { '$sum': 1 }, 'total_rows': { '$sum': '$row_count' }, 'total_bytes': { '$sum': '$file_size' } } }"
+    })
+    Optional<UserDatasetStats> aggregateUserStats(String userId);
+
+    @Query("{ 'content_hash': ?0, 'status': ?1, 'chunk_paths': { '$size': 1 } }")
+    List<Dataset> findProfiledByContentHash(String contentHash, Dataset.DatasetStatus status, Pageable pageable);
+
+    @Query("{ '_id': ?0, 'user_id': ?1, 'status': { '$nin': ['DELETED', 'REAPING'] } }")
+    @Update("{ '$set': { 'status': 'DELETED', 'updated_at': ?2 } }")
+    long markDeleted(String id, String userId, LocalDateTime deletedAt);
+
     @Query(value = "{ 'user_id': ?0 }", delete = true)
     void deleteAllByUserId(String userId);
 }
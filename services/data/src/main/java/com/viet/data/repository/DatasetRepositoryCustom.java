@@ -0,0 +1,67 @@
+package com.viet.data.repository;
+
+import com.viet.data.module.Dataset;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface DatasetRepositoryCustom {
+
+    /**
+     * Atomically moves a PROCESSED dataset, or a PROCESSING one whose append lease ran out, to
+     * PROCESSING under a lease until {@code leaseExpiresAt}.
+     *
+     * @return false if the dataset is deleted or another append holds it
+     */
+    boolean claimForAppend(String id, LocalDateTime now, LocalDateTime leaseExpiresAt);
+
+    /**
+     * Replaces the stored document, which drops the lease, only while the append claimed under
+     * {@code leaseExpiresAt} still holds it.
+     *
+     * @return false if the dataset was deleted or its lease taken over in the meantime
+     */
+    boolean replaceIfLeased(Dataset dataset, LocalDateTime leaseExpiresAt);
+
+    /**
+     * Returns a dataset to PROCESSED after a failed append, unless its lease was taken over.
+     */
+    void releaseAppend(String id, LocalDateTime leaseExpiresAt);
+
+    /**
+     * Keyset page of a user's datasets, newest first, holding only the fields a listing shows.
+     * Pass a null {@code afterCreatedAt} for the first page.
+     */
+    List<Dataset> findSummariesByUserId(String userId, LocalDateTime afterCreatedAt, String afterId, int limit);
+
+    /**
+     * The given datasets with only their listing fields, in no particular order.
+     */
+    List<Dataset> findSummariesByIds(Collection<String> ids);
+
+    /**
+     * Atomically moves one DELETED dataset, or one REAPING dataset whose lease ran out, to
+     * REAPING under a lease until {@code leaseExpiresAt} and returns it. The document stays
+     * the record of its files until {@link #removeReaped} drops it.
+     */
+    Dataset claimDeleted(LocalDateTime now, LocalDateTime leaseExpiresAt);
+
+    /**
+     * Takes one occurrence of a chunk path off a REAPING dataset before its blob is released,
+     * so a later sweep never releases it twice.
+     *
+     * @return false if no occurrence is left to release
+     */
+    boolean claimChunk(String id, String chunkPath);
+
+    /**
+     * Puts back a chunk path whose release failed, for the next sweep to retry.
+     */
+    void restoreChunk(String id, String chunkPath);
+
+    /**
+     * Drops a REAPING dataset document once all of its storage has been reclaimed.
+     */
+    void removeReaped(String id);
+}
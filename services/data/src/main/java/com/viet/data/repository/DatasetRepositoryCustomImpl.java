@@ -0,0 +1,125 @@
+package com.viet.data.repository;
+
+import com.viet.data.module.Dataset;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class DatasetRepositoryCustomImpl implements DatasetRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean claimForAppend(String id, LocalDateTime now, LocalDateTime leaseExpiresAt) {
+        // Appends claimed before leases existed have none and are taken over as expired
+        Query query = Query.query(Criteria.where("_id").is(id).orOperator(
+                Criteria.where("status").is(Dataset.DatasetStatus.PROCESSED),
+                Criteria.where("status").is(Dataset.DatasetStatus.PROCESSING).and("append_lease_expires_at").lt(now),
+                Criteria.where("status").is(Dataset.DatasetStatus.PROCESSING).and("append_lease_expires_at").exists(false)));
+        Update update = new Update()
+                .set("status", Dataset.DatasetStatus.PROCESSING)
+                .set("append_lease_expires_at", leaseExpiresAt);
+        return mongoTemplate.updateFirst(query, update, Dataset.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean replaceIfLeased(Dataset dataset, LocalDateTime leaseExpiresAt) {
+        return mongoTemplate.findAndReplace(leased(dataset.getId(), leaseExpiresAt), dataset) != null;
+    }
+
+    @Override
+    public void releaseAppend(String id, LocalDateTime leaseExpiresAt) {
+        Update update = new Update()
+                .set("status", Dataset.DatasetStatus.PROCESSED)
+                .unset("append_lease_expires_at");
+        mongoTemplate.updateFirst(leased(id, leaseExpiresAt), update, Dataset.class);
+    }
+
+    private static Query leased(String id, LocalDateTime leaseExpiresAt) {
+        return Query.query(Criteria.where("_id").is(id)
+                .and("status").is(Dataset.DatasetStatus.PROCESSING)
+                .and("append_lease_expires_at").is(leaseExpiresAt));
+    }
+
+    @Override
+    public List<Dataset> findSummariesByUserId(String userId, LocalDateTime afterCreatedAt, String afterId, int limit) {
+        Criteria criteria = Criteria.where("user_id").is(userId)
+                .and("status").nin(Dataset.DatasetStatus.DELETED, Dataset.DatasetStatus.REAPING);
+        if (afterCreatedAt != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("created_at").lt(afterCreatedAt),
+                    Criteria.where("created_at").is(afterCreatedAt).and("_id").lt(afterId));
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "created_at", "_id"))
+                .limit(limit);
+
+        return mongoTemplate.find(withSummaryFields(query), Dataset.class);
+    }
+
+    @Override
+    public List<Dataset> findSummariesByIds(Collection<String> ids) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        return mongoTemplate.find(withSummaryFields(query), Dataset.class);
+    }
+
+    @Override
+    public Dataset claimDeleted(LocalDateTime now, LocalDateTime leaseExpiresAt) {
+        Query query = Query.query(new Criteria().orOperator(
+                Criteria.where("status").is(Dataset.DatasetStatus.DELETED),
+                Criteria.where("status").is(Dataset.DatasetStatus.REAPING).and("reap_lease_expires_at").lt(now)));
+        query.fields().include("user_id", "storage_path", "chunk_paths", "sketch_path", "updated_at");
+        Update update = new Update()
+                .set("status", Dataset.DatasetStatus.REAPING)
+                .set("reap_lease_expires_at", leaseExpiresAt);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Dataset.class);
+    }
+
+    @Override
+    public boolean claimChunk(String id, String chunkPath) {
+        // Unset one matching element only: appending identical content stores the same path twice
+        Query query = Query.query(Criteria.where("_id").is(id)
+                .and("status").is(Dataset.DatasetStatus.REAPING)
+                .and("chunk_paths").is(chunkPath));
+        if (mongoTemplate.updateFirst(query, new Update().unset("chunk_paths.$"), Dataset.class)
+                .getModifiedCount() > 0) {
+            return true;
+        }
+
+        // Datasets stored before chunk paths only have their storage path
+        Query legacy = Query.query(Criteria.where("_id").is(id)
+                .and("status").is(Dataset.DatasetStatus.REAPING)
+                .and("chunk_paths").exists(false)
+                .and("storage_path").is(chunkPath));
+        return mongoTemplate.updateFirst(legacy, new Update().unset("storage_path"), Dataset.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public void restoreChunk(String id, String chunkPath) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)),
+                new Update().push("chunk_paths", chunkPath), Dataset.class);
+    }
+
+    @Override
+    public void removeReaped(String id) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(id)
+                .and("status").is(Dataset.DatasetStatus.REAPING)), Dataset.class);
+    }
+
+    private Query withSummaryFields(Query query) {
+        query.fields().include("original_file_name", "file_size", "row_count", "column_count",
+                "status", "created_at", "updated_at");
+        return query;
+    }
+}
@@ -0,0 +1,9 @@
+package com.viet.data.repository;
+
+import com.viet.data.module.StoredBlob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StoredBlobRepository extends MongoRepository<StoredBlob, String>, StoredBlobRepositoryCustom {
+}
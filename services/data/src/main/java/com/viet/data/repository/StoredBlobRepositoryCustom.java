@@ -0,0 +1,42 @@
+package com.viet.data.repository;
+
+import com.viet.data.module.StoredBlob;
+
+import java.time.LocalDateTime;
+
+public interface StoredBlobRepositoryCustom {
+
+    /**
+     * Adds a reference to the blob, creating it at {@code path} if it is new.
+     *
+     * @return the blob after the update, whose path may differ from {@code path} if it already
+     * existed; or null while the blob's file is being deleted
+     */
+    StoredBlob acquire(String id, String path, long size);
+
+    /**
+     * Drops a reference to the blob.
+     *
+     * @return the remaining reference count, or -1 if the blob is unknown
+     */
+    long release(String id);
+
+    /**
+     * Marks an unreferenced blob as being deleted, so {@link #acquire} refuses it until
+     * {@link #removeDeleted} drops the record.
+     *
+     * @return false if the blob was referenced again or is already being deleted
+     */
+    boolean claimDeletion(String id, LocalDateTime now);
+
+    /**
+     * Drops the record of a blob whose file has been deleted.
+     */
+    void removeDeleted(String id);
+
+    /**
+     * Drops the record of a blob whose deletion started before {@code before} and never
+     * finished, so uploads of its content can store it again.
+     */
+    void removeStaleDeletion(String id, LocalDateTime before);
+}
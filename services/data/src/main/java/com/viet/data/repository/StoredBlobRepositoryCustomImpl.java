@@ -0,0 +1,68 @@
+package com.viet.data.repository;
+
+import com.viet.data.module.StoredBlob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class StoredBlobRepositoryCustomImpl implements StoredBlobRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public StoredBlob acquire(String id, String path, long size) {
+        Update update = new Update()
+                .inc("ref_count", 1)
+                .setOnInsert("path", path)
+                .setOnInsert("size", size)
+                .setOnInsert("created_at", LocalDateTime.now());
+        try {
+            return mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(id).and("deleting_since").exists(false)),
+                    update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    StoredBlob.class);
+        } catch (DuplicateKeyException e) {
+            // The upsert collided with a blob being deleted
+            return null;
+        }
+    }
+
+    @Override
+    public long release(String id) {
+        StoredBlob blob = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id)),
+                new Update().inc("ref_count", -1),
+                FindAndModifyOptions.options().returnNew(true),
+                StoredBlob.class);
+        return blob != null ? blob.getRefCount() : -1;
+    }
+
+    @Override
+    public boolean claimDeletion(String id, LocalDateTime now) {
+        Query query = Query.query(Criteria.where("_id").is(id)
+                .and("ref_count").lte(0)
+                .and("deleting_since").exists(false));
+        return mongoTemplate.updateFirst(query, new Update().set("deleting_since", now), StoredBlob.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public void removeDeleted(String id) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(id).and("deleting_since").exists(true)),
+                StoredBlob.class);
+    }
+
+    @Override
+    public void removeStaleDeletion(String id, LocalDateTime before) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(id).and("deleting_since").lt(before)),
+                StoredBlob.class);
+    }
+}
@@ -0,0 +1,10 @@
+package com.viet.data.repository;
+
+import com.viet.data.module.UserDatasetStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserDatasetStatsRepository extends MongoRepository<UserDatasetStats, String>,
+        UserDatasetStatsRepositoryCustom {
+}
@@ -0,0 +1,34 @@
+package com.viet.data.repository;
+
+import com.viet.data.module.UserDatasetStats;
+
+import java.time.LocalDateTime;
+
+/**
+ * Atomic counter updates. A change calls {@link #beginUpdate} before writing the dataset and
+ * then exactly one of the record methods or {@link #abortUpdate}. Updates for users whose
+ * stats have not been built create a partial document, which the next read rebuilds from the
+ * datasets collection.
+ */
+public interface UserDatasetStatsRepositoryCustom {
+
+    void beginUpdate(String userId);
+
+    void abortUpdate(String userId);
+
+    void recordUpload(String userId, String datasetId, long rows, long bytes, int recentLimit);
+
+    void recordAppend(String userId, long rows, long bytes);
+
+    void recordDelete(String userId, String datasetId, long rows, long bytes);
+
+    /**
+     * Overwrites the counters with a rebuilt aggregate, only if no change began or finished
+     * since {@code expectedVersion} was read and none is in flight. Changes begun before
+     * {@code staleBefore} and never finished are taken to have died with their process.
+     * Inserts the document when {@code expectedVersion} is null and it does not exist.
+     *
+     * @return false if a change overlapped the rebuild
+     */
+    boolean replaceIfUnchanged(UserDatasetStats stats, Long expectedVersion, LocalDateTime staleBefore);
+}
@@ -0,0 +1,107 @@
+package com.viet.data.repository;
+
+import com.viet.data.module.UserDatasetStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class UserDatasetStatsRepositoryCustomImpl implements UserDatasetStatsRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void beginUpdate(String userId) {
+        Update update = changed(new Update().inc("pending_updates", 1));
+        mongoTemplate.upsert(byUser(userId), update, UserDatasetStats.class);
+    }
+
+    @Override
+    public void abortUpdate(String userId) {
+        Update update = changed(new Update().inc("pending_updates", -1));
+        mongoTemplate.upsert(byUser(userId), update, UserDatasetStats.class);
+    }
+
+    @Override
+    public void recordUpload(String userId, String datasetId, long rows, long bytes, int recentLimit) {
+        Update update = changed(new Update()
+                .inc("dataset_count", 1)
+                .inc("total_rows", rows)
+                .inc("total_bytes", bytes)
+                .inc("pending_updates", -1));
+        update.push("recent_dataset_ids").atPosition(Update.Position.FIRST).slice(recentLimit).each(datasetId);
+        mongoTemplate.upsert(byUser(userId), update, UserDatasetStats.class);
+    }
+
+    @Override
+    public void recordAppend(String userId, long rows, long bytes) {
+        Update update = changed(new Update()
+                .inc("total_rows", rows)
+                .inc("total_bytes", bytes)
+                .inc("pending_updates", -1));
+        mongoTemplate.upsert(byUser(userId), update, UserDatasetStats.class);
+    }
+
+    @Override
+    public void recordDelete(String userId, String datasetId, long rows, long bytes) {
+        Update update = changed(new Update()
+                .inc("dataset_count", -1)
+                .inc("total_rows", -rows)
+                .inc("total_bytes", -bytes)
+                .inc("pending_updates", -1)
+                .pull("recent_dataset_ids", datasetId));
+        mongoTemplate.upsert(byUser(userId), update, UserDatasetStats.class);
+    }
+
+    @Override
+    public boolean replaceIfUnchanged(UserDatasetStats stats, Long expectedVersion, LocalDateTime staleBefore) {
+        if (expectedVersion == null) {
+            // No change has ever touched the document; any that starts now creates it first
+            stats.setVersion(0L);
+            stats.setPendingUpdates(0L);
+            stats.setPartial(false);
+            try {
+                mongoTemplate.insert(stats);
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+
+        // Documents written before versioning have no version field, which reads as 0
+        Criteria version = expectedVersion == 0
+                ? Criteria.where("version").not().gt(0)
+                : Criteria.where("version").is(expectedVersion);
+        Query query = Query.query(new Criteria().andOperator(
+                Criteria.where("_id").is(stats.getId()),
+                version,
+                new Criteria().orOperator(
+                        Criteria.where("pending_updates").not().gt(0),
+                        Criteria.where("updated_at").lt(staleBefore))));
+        Update update = new Update()
+                .set("dataset_count", stats.getDatasetCount())
+                .set("total_rows", stats.getTotalRows())
+                .set("total_bytes", stats.getTotalBytes())
+                .set("recent_dataset_ids", stats.getRecentDatasetIds())
+                .set("updated_at", stats.getUpdatedAt())
+                .set("partial", false)
+                .set("pending_updates", 0L);
+        return mongoTemplate.updateFirst(query, update, UserDatasetStats.class).getMatchedCount() > 0;
+    }
+
+    private Update changed(Update update) {
+        return update
+                .inc("version", 1)
+                .set("updated_at", LocalDateTime.now())
+                .setOnInsert("partial", true);
+    }
+
+    private Query byUser(String userId) {
+        return Query.query(Criteria.where("_id").is(userId));
+    }
+}
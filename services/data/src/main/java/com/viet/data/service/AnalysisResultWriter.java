@@ -0,0 +1,119 @@
+package com.viet.data.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.viet.data.dto.response.AnalysisResult;
+import com.viet.data.jfr.DataPipelineEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Streams an analysis result, wrapped in the usual {@code ApiResponse} envelope, straight
+ * to the response with a {@link JsonGenerator}. Each field is serialized from the structure
+ * the analysis computed, once, and only the fields the caller selected are written.
+ */
+@Service
+public class AnalysisResultWriter {
+
+    private final ObjectMapper objectMapper;
+    // Getters of the result's properties as the mapper sees them, in response order
+    private final Map<String, AnnotatedMember> fields;
+
+    public AnalysisResultWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        BeanDescription description = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(AnalysisResult.class));
+        Map<String, AnnotatedMember> fields = new LinkedHashMap<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (property.couldSerialize()) {
+                fields.put(property.getName(), property.getAccessor());
+            }
+        }
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * Parses a comma-separated {@code fields} selector; blank selects every field.
+     *
+     * @throws IllegalArgumentException for a name that is not a result field
+     */
+    public Set<String> parseFields(String selector) {
+        if (selector == null || selector.isBlank()) {
+            return fields.keySet();
+        }
+        Set<String> selected = new HashSet<>();
+        for (String field : selector.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!fields.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + ", expected one of " + fields.keySet());
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+
+    public void write(String message, AnalysisResult result, Set<String> selected, OutputStream out) throws IOException {
+        DataPipelineEvent event = DataPipelineEvent.start("serialize").datasetId(result.getDatasetId());
+        // Bytes are only counted while a recording takes the event
+        CountingOutputStream counted = event.isEnabled() ? new CountingOutputStream(out) : null;
+        OutputStream target = StreamUtils.nonClosing(counted != null ? counted : out);
+        try (JsonGenerator generator = objectMapper.createGenerator(target)) {
+            generator.writeStartObject();
+            generator.writeBooleanField("success", true);
+            generator.writeStringField("message", message);
+
+            generator.writeObjectFieldStart("data");
+            for (Map.Entry<String, AnnotatedMember> field : fields.entrySet()) {
+                if (selected.contains(field.getKey())) {
+                    generator.writeObjectField(field.getKey(), field.getValue().getValue(result));
+                }
+            }
+            generator.writeEndObject();
+
+            generator.writeNullField("errorCode");
+            generator.writeObjectField("timestamp", LocalDateTime.now());
+            generator.writeEndObject();
+            event.succeeded();
+        } finally {
+            if (counted != null) {
+                event.bytes(counted.count);
+            }
+            if (result.getAnalysisType() != null) {
+                event.analysisType(result.getAnalysisType().name());
+            }
+            event.commit();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.viet.data.service;
+
+import com.viet.data.column.DictionaryColumn;
+import com.viet.data.column.RowPage;
+import com.viet.data.dto.response.HistogramData;
+import lombok.RequiredArgsConstructor;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.*;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes row pages, histograms and correlation matrices in the Arrow IPC stream format.
+ * Row vectors are filled straight from the decoded columns, one batch of at most
+ * {@link #BATCH_ROWS} rows at a time, so a page never exists as objects on the heap.
+ */
+@Service
+@RequiredArgsConstructor
+public class ArrowStreamService {
+
+    public static final String MEDIA_TYPE = "application/vnd.apache.arrow.stream";
+
+    private static final int BATCH_ROWS = 64 * 1024;
+
+    private final BufferAllocator arrowAllocator;
+
+    public void writeRows(RowPage page, OutputStream out) throws IOException {
+        try (BufferAllocator allocator = arrowAllocator.newChildAllocator("rows", 0, Long.MAX_VALUE)) {
+            DictionaryProvider.MapDictionaryProvider dictionaries = new DictionaryProvider.MapDictionaryProvider();
+            List<FieldVector> vectors = new ArrayList<>();
+            List<BatchFiller> fillers = new ArrayList<>();
+            try {
+                for (RowPage.Column column : page.getColumns()) {
+                    fillers.add(createFiller(column, page, allocator, vectors, dictionaries));
+                }
+
+                VectorSchemaRoot root = new VectorSchemaRoot(vectors);
+                try (ArrowStreamWriter writer = newWriter(root, dictionaries, out)) {
+                    writer.start();
+                    int end = page.getOffset() + page.getCount();
+                    for (int from = page.getOffset(); from < end; from += BATCH_ROWS) {
+                        int rows = Math.min(BATCH_ROWS, end - from);
+                        for (BatchFiller filler : fillers) {
+                            filler.fill(from, rows);
+                        }
+                        root.setRowCount(rows);
+                        writer.writeBatch();
+                    }
+                    writer.end();
+                }
+            } finally {
+                vectors.forEach(FieldVector::close);
+                for (long id : dictionaries.getDictionaryIds()) {
+                    dictionaries.lookup(id).getVector().close();
+                }
+            }
+        }
+    }
+
+    /**
+     * One row per bin: column, lower edge, upper edge, count.
+     */
+    public void writeHistograms(List<HistogramData> histograms, OutputStream out) throws IOException {
+        try (BufferAllocator allocator = arrowAllocator.newChildAllocator("histograms", 0, Long.MAX_VALUE);
+             VarCharVector columns = new VarCharVector("column", allocator);
+             Float8Vector lowers = new Float8Vector("lower", allocator);
+             Float8Vector uppers = new Float8Vector("upper", allocator);
+             BigIntVector counts = new BigIntVector("count", allocator)) {
+
+            int row = 0;
+            for (HistogramData histogram : histograms) {
+                byte[] name = histogram.getColumnName().getBytes(StandardCharsets.UTF_8);
+                for (int bin = 0; bin < histogram.getCounts().size(); bin++, row++) {
+                    columns.setSafe(row, name);
+                    lowers.setSafe(row, histogram.getBinEdges().get(bin));
+                    uppers.setSafe(row, histogram.getBinEdges().get(bin + 1));
+                    counts.setSafe(row, histogram.getCounts().get(bin));
+                }
+            }
+
+            writeSingleBatch(List.of(columns, lowers, uppers, counts), row, out);
+        }
+    }
+
+    /**
+     * A square matrix: a {@code column} name, then one double per column. Pairs without a
+     * correlation are null.
+     */
+    public void writeCorrelations(Map<String, Map<String, Double>> correlations, OutputStream out) throws IOException {
+        List<String> names = new ArrayList<>(correlations.keySet());
+        try (BufferAllocator allocator = arrowAllocator.newChildAllocator("correlations", 0, Long.MAX_VALUE)) {
+            List<FieldVector> vectors = new ArrayList<>();
+            try {
+                VarCharVector rowNames = new VarCharVector("column", allocator);
+                vectors.add(rowNames);
+                for (int row = 0; row < names.size(); row++) {
+                    rowNames.setSafe(row, names.get(row).getBytes(StandardCharsets.UTF_8));
+                }
+
+                for (String name : names) {
+                    Float8Vector values = new Float8Vector(name, allocator);
+                    vectors.add(values);
+                    values.allocateNew(names.size());
+                    for (int row = 0; row < names.size(); row++) {
+                        Double value = correlations.get(names.get(row)).get(name);
+                        if (value != null) {
+                            values.set(row, value);
+                        } else {
+                            values.setNull(row);
+                        }
+                    }
+                }
+
+                writeSingleBatch(vectors, names.size(), out);
+            } finally {
+                vectors.forEach(FieldVector::close);
+            }
+        }
+    }
+
+    private void writeSingleBatch(List<FieldVector> vectors, int rowCount, OutputStream out) throws IOException {
+        VectorSchemaRoot root = new VectorSchemaRoot(vectors);
+        root.setRowCount(rowCount);
+        try (ArrowStreamWriter writer = newWriter(root, null, out)) {
+            writer.start();
+            writer.writeBatch();
+            writer.end();
+        }
+    }
+
+    private ArrowStreamWriter newWriter(VectorSchemaRoot root, DictionaryProvider dictionaries, OutputStream out) {
+        // Closing the writer must not close the response stream
+        return new ArrowStreamWriter(root, dictionaries, Channels.newChannel(StreamUtils.nonClosing(out)));
+    }
+
+    private BatchFiller createFiller(RowPage.Column column, RowPage page, BufferAllocator allocator,
+                                     List<FieldVector> vectors, DictionaryProvider.MapDictionaryProvider dictionaries) {
+        switch (column.getType()) {
+            case INTEGER: {
+                BigIntVector vector = new BigIntVector(column.getName(), allocator);
+                vectors.add(vector);
+                return (from, rows) -> {
+                    vector.allocateNew(rows);
+                    for (int i = 0; i < rows; i++) {
+                        if (!column.isNull(from + i)) {
+                            vector.set(i, column.getLong(from + i));
+                        }
+                    }
+                };
+            }
+            case DOUBLE: {
+                Float8Vector vector = new Float8Vector(column.getName(), allocator);
+                vectors.add(vector);
+                return (from, rows) -> {
+                    vector.allocateNew(rows);
+                    for (int i = 0; i < rows; i++) {
+                        if (!column.isNull(from + i)) {
+                            vector.set(i, column.getDouble(from + i));
+                        }
+                    }
+                };
+            }
+            case DATE: {
+                DateDayVector vector = new DateDayVector(column.getName(), allocator);
+                vectors.add(vector);
+                return (from, rows) -> {
+                    vector.allocateNew(rows);
+                    for (int i = 0; i < rows; i++) {
+                        if (!column.isNull(from + i)) {
+                            vector.set(i, Math.toIntExact(column.getLong(from + i)));
+                        }
+                    }
+                };
+            }
+            case DATETIME: {
+                TimeStampMilliTZVector vector = new TimeStampMilliTZVector(column.getName(), allocator, "UTC");
+                vectors.add(vector);
+                return (from, rows) -> {
+                    vector.allocateNew(rows);
+                    for (int i = 0; i < rows; i++) {
+                        if (!column.isNull(from + i)) {
+                            vector.set(i, column.getLong(from + i));
+                        }
+                    }
+                };
+            }
+            default:
+                return createTextFiller(column, page, allocator, vectors, dictionaries);
+        }
+    }
+
+    /**
+     * Text goes out dictionary-encoded, with a dictionary of only the values the page uses,
+     * so a small page of a large-cardinality column stays small.
+     */
+    private BatchFiller createTextFiller(RowPage.Column column, RowPage page, BufferAllocator allocator,
+                                         List<FieldVector> vectors,
+                                         DictionaryProvider.MapDictionaryProvider dictionaries) {
+        DictionaryColumn text = column.getText();
+        List<String> values = text.getDictionary();
+        int[] remap = new int[values.size()];
+        Arrays.fill(remap, -1);
+
+        VarCharVector dictionaryVector = new VarCharVector(column.getName() + ".dictionary", allocator);
+        int used = 0;
+        try {
+            for (int row = page.getOffset(); row < page.getOffset() + page.getCount(); row++) {
+                if (!text.isNull(row) && remap[text.getCode(row)] < 0) {
+                    int code = text.getCode(row);
+                    remap[code] = used;
+                    dictionaryVector.setSafe(used++, values.get(code).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            dictionaryVector.setValueCount(used);
+        } catch (RuntimeException e) {
+            dictionaryVector.close();
+            throw e;
+        }
+
+        DictionaryEncoding encoding = new DictionaryEncoding(dictionaries.getDictionaryIds().size(), false,
+                new ArrowType.Int(32, true));
+        dictionaries.put(new Dictionary(dictionaryVector, encoding));
+
+        // The field carries the index type; readers resolve the values through the encoding
+        IntVector vector = new IntVector(new Field(column.getName(),
+                new FieldType(true, encoding.getIndexType(), encoding), null), allocator);
+        vectors.add(vector);
+        return (from, rows) -> {
+            vector.allocateNew(rows);
+            for (int i = 0; i < rows; i++) {
+                if (!text.isNull(from + i)) {
+                    vector.set(i, remap[text.getCode(from + i)]);
+                }
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface BatchFiller {
+        void fill(int fromRow, int rows);
+    }
+}
@@ -0,0 +1,287 @@
+package com.viet.data.service;
+
+import com.viet.data.column.ColumnFile;
+import com.viet.data.column.DoubleColumn;
+import com.viet.data.column.LongColumn;
+import com.viet.data.column.TimeSeriesDownsampler;
+import com.viet.data.dto.response.ChartSeries;
+import com.viet.data.dto.response.TimeSeriesChartData;
+import com.viet.data.exception.DatasetNotFoundException;
+import com.viet.data.module.ColumnMetadata;
+import com.viet.data.module.Dataset;
+import com.viet.data.processor.TemporalFormat;
+import com.viet.data.repository.DatasetRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Time-series chart data downsampled to a pixel width with {@link TimeSeriesDownsampler}.
+ * A window is either an explicit {@code from}/{@code to} range or a tile of a zoom level,
+ * where level {@code z} splits the column's full time range into {@code 2^z} equal tiles.
+ * Tiles of the top {@link #MAX_CACHED_ZOOM} levels are kept in memory per dataset version,
+ * up to {@code app.charts.cache-bytes} in total, and carry an ETag, so clients and proxies
+ * can cache them too.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChartDataService {
+
+    public static final int DEFAULT_WIDTH = 1000;
+    public static final int MAX_CACHED_ZOOM = 4;
+
+    private static final int MAX_WIDTH = 10_000;
+    private static final int MAX_ZOOM = 30;
+    private static final int MAX_SERIES = 16;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    // Object headers and fields of a cached tile and of each of its series
+    private static final long TILE_OVERHEAD_BYTES = 256;
+    private static final long SERIES_OVERHEAD_BYTES = 256;
+
+    private final DatasetRepository datasetRepository;
+    private final ColumnStore columnStore;
+
+    // Heap the cached tiles may take, by their estimated size; least recently used go first
+    @Value("${app.charts.cache-bytes:33554432}")
+    private long cacheBytes;
+
+    private final LinkedHashMap<String, CachedTile> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private record CachedTile(TimeSeriesChartData data, long bytes) {
+    }
+
+    /**
+     * Chart data and, for cacheable tiles, an entity tag that changes with the dataset version.
+     */
+    public record ChartDataResult(TimeSeriesChartData data, String etag) {
+    }
+
+    /**
+     * @param timeColumn   date or date-time column; the first one of the dataset by default
+     * @param valueColumns numeric columns to chart; the first {@value #MAX_SERIES} by default
+     * @param from         ISO-8601 start of an explicit window, inclusive
+     * @param to           ISO-8601 end of an explicit window, inclusive
+     * @param zoom         zoom level of a tile window; level 0 (the whole range) when no window is given
+     */
+    public ChartDataResult getChartData(String datasetId, String userId, String timeColumn, List<String> valueColumns,
+                                        int width, String from, String to, Integer zoom, Integer tile) {
+        if (width < 2 || width > MAX_WIDTH) {
+            throw new IllegalArgumentException("Width must be between 2 and " + MAX_WIDTH + ": " + width);
+        }
+        boolean explicitWindow = from != null || to != null;
+        if (explicitWindow && (zoom != null || tile != null)) {
+            throw new IllegalArgumentException("Use either from/to or zoom/tile, not both");
+        }
+        if (!explicitWindow && zoom == null) {
+            zoom = 0;
+        }
+        if (zoom != null && (zoom < 0 || zoom > MAX_ZOOM)) {
+            throw new IllegalArgumentException("Zoom must be between 0 and " + MAX_ZOOM + ": " + zoom);
+        }
+        if (zoom != null) {
+            tile = tile != null ? tile : 0;
+            if (tile < 0 || tile >= 1L << zoom) {
+                throw new IllegalArgumentException("Tile must be between 0 and " + ((1L << zoom) - 1) + ": " + tile);
+            }
+        }
+
+        Dataset dataset = datasetRepository.findByIdAndUserId(datasetId, userId)
+                .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + datasetId));
+        ColumnFile columns = columnStore.open(dataset);
+        ColumnMetadata time = findTimeColumn(dataset, columns, timeColumn);
+        List<DoubleColumn> values = findValueColumns(dataset, columns, valueColumns);
+
+        String key = null;
+        if (zoom != null && zoom <= MAX_CACHED_ZOOM) {
+            key = dataset.getId() + "@" + dataset.getUpdatedAt() + "|" + time.getName() + "|"
+                    + values.stream().map(DoubleColumn::getName).collect(Collectors.joining(",")) + "|"
+                    + width + "|" + zoom + "/" + tile;
+            TimeSeriesChartData cached = getCached(key);
+            if (cached != null) {
+                return new ChartDataResult(cached, etag(key));
+            }
+        }
+
+        TimeSeriesChartData data = downsample(time, columns.getLongColumn(time.getName()), values,
+                width, from, to, zoom, tile);
+        if (key != null) {
+            putCached(key, data);
+            return new ChartDataResult(data, etag(key));
+        }
+        return new ChartDataResult(data, null);
+    }
+
+    private synchronized TimeSeriesChartData getCached(String key) {
+        CachedTile tile = cache.get(key);
+        return tile != null ? tile.data() : null;
+    }
+
+    private synchronized void putCached(String key, TimeSeriesChartData data) {
+        long bytes = sizeOf(key, data);
+        if (bytes > cacheBytes) {
+            return;
+        }
+        CachedTile previous = cache.put(key, new CachedTile(data, bytes));
+        cachedBytes += bytes - (previous != null ? previous.bytes() : 0);
+        Iterator<CachedTile> eldest = cache.values().iterator();
+        while (cachedBytes > cacheBytes) {
+            cachedBytes -= eldest.next().bytes();
+            eldest.remove();
+        }
+    }
+
+    private static long sizeOf(String key, TimeSeriesChartData data) {
+        long bytes = TILE_OVERHEAD_BYTES + 2L * key.length();
+        for (ChartSeries series : data.getSeries()) {
+            bytes += SERIES_OVERHEAD_BYTES + 2L * series.getColumn().length()
+                    + (long) Long.BYTES * (series.getTimes().length + series.getEnvelopeTimes().length)
+                    + (long) Double.BYTES * (series.getValues().length + series.getMins().length
+                    + series.getMaxes().length);
+        }
+        return bytes;
+    }
+
+    private TimeSeriesChartData downsample(ColumnMetadata time, LongColumn times, List<DoubleColumn> values,
+                                           int width, String from, String to, Integer zoom, Integer tile) {
+        boolean days = time.getDataType() == ColumnMetadata.DataType.DATE;
+        TimeSeriesChartData.TimeSeriesChartDataBuilder data = TimeSeriesChartData.builder()
+                .timeColumn(time.getName())
+                .width(width)
+                .zoom(zoom)
+                .tile(tile);
+
+        // No values in the column at all
+        if (time.getMinTime() == null || time.getMaxTime() == null) {
+            return data.series(values.stream()
+                            .map(column -> toSeries(column.getName(), emptySeries(), days))
+                            .collect(Collectors.toList()))
+                    .build();
+        }
+
+        long low;
+        long high;
+        if (zoom != null) {
+            double span = (double) time.getMaxTime() - time.getMinTime() + 1;
+            double tileSpan = span / (1L << zoom);
+            low = time.getMinTime() + (long) Math.floor(tile * tileSpan);
+            high = tile == (1L << zoom) - 1
+                    ? time.getMaxTime()
+                    : time.getMinTime() + (long) Math.floor((tile + 1) * tileSpan) - 1;
+        } else {
+            low = from != null ? parseTime(from, days) : time.getMinTime();
+            high = to != null ? parseTime(to, days) : time.getMaxTime();
+            if (high < low) {
+                throw new IllegalArgumentException("Window ends before it starts: " + from + " to " + to);
+            }
+        }
+
+        // Integer time units cannot be split into more buckets than they span
+        int buckets = (int) Math.max(1, Math.min(width, high - low + 1));
+        List<ChartSeries> series = new ArrayList<>();
+        for (DoubleColumn column : values) {
+            series.add(toSeries(column.getName(),
+                    TimeSeriesDownsampler.downsample(times, column, low, high, buckets), days));
+        }
+
+        return data.from(toMillis(low, days))
+                .to(toMillis(high, days))
+                .series(series)
+                .build();
+    }
+
+    private ColumnMetadata findTimeColumn(Dataset dataset, ColumnFile columns, String name) {
+        for (ColumnMetadata column : dataset.getColumns()) {
+            if ((name == null || name.equals(column.getName())) && TemporalFormat.of(column) != null
+                    && columns.getLongColumn(column.getName()) != null) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException(name == null
+                ? "Dataset has no date or date-time column"
+                : "Not a date or date-time column: " + name);
+    }
+
+    private List<DoubleColumn> findValueColumns(Dataset dataset, ColumnFile columns, List<String> names) {
+        List<DoubleColumn> values = new ArrayList<>();
+        if (names == null || names.isEmpty()) {
+            for (ColumnMetadata column : dataset.getColumns()) {
+                DoubleColumn numeric = columns.getNumericColumn(column.getName());
+                if (numeric != null && values.size() < MAX_SERIES) {
+                    values.add(numeric);
+                }
+            }
+            return values;
+        }
+
+        if (names.size() > MAX_SERIES) {
+            throw new IllegalArgumentException("At most " + MAX_SERIES + " value columns can be charted at once");
+        }
+        for (String name : names) {
+            DoubleColumn numeric = columns.getNumericColumn(name);
+            if (numeric == null) {
+                throw new IllegalArgumentException("Not a numeric column: " + name);
+            }
+            values.add(numeric);
+        }
+        return values;
+    }
+
+    /**
+     * Epoch day or epoch millisecond of an ISO-8601 date, local date-time (taken as UTC) or instant.
+     */
+    private long parseTime(String value, boolean days) {
+        long millis;
+        try {
+            millis = Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            try {
+                millis = LocalDateTime.parse(value).toInstant(ZoneOffset.UTC).toEpochMilli();
+            } catch (DateTimeParseException e2) {
+                try {
+                    millis = LocalDate.parse(value).toEpochDay() * MILLIS_PER_DAY;
+                } catch (DateTimeParseException e3) {
+                    throw new IllegalArgumentException("Not an ISO-8601 date or date-time: " + value);
+                }
+            }
+        }
+        return days ? Math.floorDiv(millis, MILLIS_PER_DAY) : millis;
+    }
+
+    private long toMillis(long time, boolean days) {
+        return days ? time * MILLIS_PER_DAY : time;
+    }
+
+    private TimeSeriesDownsampler.Series emptySeries() {
+        return new TimeSeriesDownsampler.Series(new long[0], new double[0], new long[0], new double[0],
+                new double[0], 0);
+    }
+
+    private ChartSeries toSeries(String column, TimeSeriesDownsampler.Series series, boolean days) {
+        return ChartSeries.builder()
+                .column(column)
+                .pointsInWindow(series.pointsInWindow())
+                .times(days ? Arrays.stream(series.times()).map(t -> toMillis(t, true)).toArray() : series.times())
+                .values(series.values())
+                .envelopeTimes(days
+                        ? Arrays.stream(series.bucketTimes()).map(t -> toMillis(t, true)).toArray()
+                        : series.bucketTimes())
+                .mins(series.mins())
+                .maxes(series.maxes())
+                .build();
+    }
+
+    private String etag(String key) {
+        return Integer.toHexString(key.hashCode());
+    }
+}
@@ -0,0 +1,438 @@
+package com.viet.data.service;
+
+import com.viet.data.column.ColumnFile;
+import com.viet.data.column.DictionaryColumn;
+import com.viet.data.column.DoubleColumn;
+import com.viet.data.column.LongColumn;
+import com.viet.data.column.StratifiedSample;
+import com.viet.data.column.ValueDictionary;
+import com.viet.data.exception.DataProcessingException;
+import com.viet.data.module.ColumnMetadata;
+import com.viet.data.module.Dataset;
+import com.viet.data.processor.CSVProcessor;
+import com.viet.data.processor.TemporalFormat;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numeric, temporal and low-cardinality text columns of datasets, decoded once from the stored CSV
+ * chunks into memory-mapped spill files under {@code columns/}. Analyses read them through
+ * {@link ColumnFile} instead of re-parsing text onto the heap. A {@link StratifiedSample} of
+ * the same columns is kept next to them for approximate analyses.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ColumnStore {
+
+    private static final String COLUMN_DIR = "columns";
+    private static final String EXTENSION = ".cols";
+    private static final String SAMPLE_EXTENSION = ".sample";
+    private static final String WEIGHT_COLUMN = "__weight";
+    private static final int CACHE_SIZE = 32;
+
+    private final FileStorageService fileStorageService;
+    private final CSVProcessor csvProcessor;
+
+    @Value("${app.file.storage.path:./uploads}")
+    private String storagePath;
+
+    @Value("${app.analysis.sample.rows:100000}")
+    private int sampleRows;
+
+    @Value("${app.analysis.sample.min-stratum-rows:500}")
+    private int minStratumRows;
+
+    private final Map<String, ColumnFile> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ColumnFile> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private final Map<String, StratifiedSample> samples = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StratifiedSample> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private final Map<String, Object> decodeLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the decoded columns of the dataset, decoding its chunks on first use.
+     */
+    public ColumnFile open(Dataset dataset) {
+        String key = cacheKey(dataset);
+        ColumnFile cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        // One decode per dataset version; concurrent callers wait for it
+        Object lock = decodeLocks.computeIfAbsent(key, k -> new Object());
+        try {
+            synchronized (lock) {
+                cached = cache.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                Path path = spillPath(dataset);
+                ColumnFile columns = Files.exists(path) ? openExisting(dataset, path) : decode(dataset, path);
+                cache.put(key, columns);
+                return columns;
+            }
+        } catch (IOException e) {
+            log.error("Error loading columns of dataset {}: {}", dataset.getId(), e.getMessage());
+            throw new DataProcessingException("Failed to load dataset columns: " + e.getMessage(), e);
+        } finally {
+            decodeLocks.remove(key, lock);
+        }
+    }
+
+    /**
+     * Returns the stratified sample of the dataset, drawing it from the decoded columns on
+     * first use. Rows are stratified on the first categorical column, so small categories keep
+     * at least {@code app.analysis.sample.min-stratum-rows} rows (or all of theirs); the rest of
+     * the {@code app.analysis.sample.rows} budget is allocated in proportion to stratum size.
+     */
+    public StratifiedSample openSample(Dataset dataset) {
+        String key = cacheKey(dataset);
+        StratifiedSample cached = samples.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Object lock = decodeLocks.computeIfAbsent(key + SAMPLE_EXTENSION, k -> new Object());
+        try {
+            synchronized (lock) {
+                cached = samples.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                String weightColumn = weightColumn(dataset);
+                String strataColumn = strataColumn(dataset);
+                Path path = samplePath(dataset);
+                ColumnFile rows = Files.exists(path)
+                        ? openExistingSample(dataset, weightColumn, strataColumn, path)
+                        : drawSample(dataset, weightColumn, strataColumn, path);
+                StratifiedSample sample = new StratifiedSample(rows, weightColumn, strataColumn);
+                samples.put(key, sample);
+                return sample;
+            }
+        } catch (IOException e) {
+            log.error("Error loading sample of dataset {}: {}", dataset.getId(), e.getMessage());
+            throw new DataProcessingException("Failed to load dataset sample: " + e.getMessage(), e);
+        } finally {
+            decodeLocks.remove(key + SAMPLE_EXTENSION, lock);
+        }
+    }
+
+    /**
+     * Drops every spill file and sample of the dataset. Open mappings stay readable until collected.
+     */
+    public void delete(String datasetId) {
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> key.startsWith(datasetId + "@"));
+        }
+        synchronized (samples) {
+            samples.keySet().removeIf(key -> key.startsWith(datasetId + "@"));
+        }
+        deleteVersions(datasetId, EXTENSION, null);
+        deleteVersions(datasetId, SAMPLE_EXTENSION, null);
+    }
+
+    private ColumnFile openExisting(Dataset dataset, Path path) throws IOException {
+        try {
+            return ColumnFile.open(path);
+        } catch (IOException e) {
+            // Written by an older format; decode it again
+            log.info("Discarding column file {}: {}", path, e.getMessage());
+            Files.deleteIfExists(path);
+            return decode(dataset, path);
+        }
+    }
+
+    private ColumnFile decode(Dataset dataset, Path path) throws IOException {
+        // Numeric columns as doubles, dates as epoch longs, low-cardinality text columns as dictionary codes
+        LinkedHashMap<String, ColumnFile.Kind> kinds = new LinkedHashMap<>();
+        List<TemporalFormat> formats = new ArrayList<>();
+        for (ColumnMetadata column : dataset.getColumns()) {
+            TemporalFormat format = TemporalFormat.of(column);
+            if (format != null) {
+                kinds.put(column.getName(), ColumnFile.Kind.LONG);
+                formats.add(format);
+                continue;
+            }
+            if (Boolean.TRUE.equals(column.getIsNumeric())) {
+                kinds.put(column.getName(), ColumnFile.Kind.DOUBLE);
+                formats.add(null);
+            } else if (column.getUniqueCount() != null && column.getUniqueCount() <= ValueDictionary.MAX_SIZE) {
+                kinds.put(column.getName(), ColumnFile.Kind.DICTIONARY);
+                formats.add(null);
+            }
+        }
+        List<String> names = new ArrayList<>(kinds.keySet());
+        List<ColumnFile.Kind> columnKinds = new ArrayList<>(kinds.values());
+        List<String> chunkPaths = dataset.getChunkPaths() != null
+                ? dataset.getChunkPaths()
+                : List.of(dataset.getStoragePath());
+        int capacity = dataset.getRowCount() != null ? dataset.getRowCount() : 0;
+
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(dataset.getId() + "-" + UUID.randomUUID() + ".tmp");
+        long startTime = System.currentTimeMillis();
+
+        try (ColumnFile.Writer writer = ColumnFile.create(temp, kinds, capacity)) {
+            int[] row = {0};
+            for (String chunkPath : chunkPaths) {
+                try (InputStream in = fileStorageService.openFile(chunkPath)) {
+                    csvProcessor.forEachRecord(in, record -> {
+                        if (row[0] >= capacity) {
+                            throw new DataProcessingException("Dataset " + dataset.getId()
+                                    + " has more rows than its recorded row count " + capacity);
+                        }
+                        decodeRow(record, names, columnKinds, formats, writer, row[0]++);
+                    });
+                }
+            }
+            writer.finish(row[0]);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another instance decoded the same version first
+            Files.deleteIfExists(temp);
+        }
+        deleteVersions(dataset.getId(), EXTENSION, path);
+
+        log.info("Decoded {} columns of dataset {} in {} ms",
+                names.size(), dataset.getId(), System.currentTimeMillis() - startTime);
+
+        return ColumnFile.open(path);
+    }
+
+    private void decodeRow(CSVRecord record, List<String> names, List<ColumnFile.Kind> kinds,
+                           List<TemporalFormat> formats, ColumnFile.Writer writer, int row) {
+        for (int column = 0; column < names.size(); column++) {
+            String name = names.get(column);
+            String value = record.isSet(name) ? record.get(name) : null;
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            if (kinds.get(column) == ColumnFile.Kind.DICTIONARY) {
+                writer.setString(column, row, value);
+                continue;
+            }
+            if (kinds.get(column) == ColumnFile.Kind.LONG) {
+                try {
+                    writer.setLong(column, row, formats.get(column).parse(value));
+                } catch (DateTimeParseException e) {
+                    // Leave the row null, as profiling did
+                }
+                continue;
+            }
+            // Same rule as profiling: unparseable and non-finite values count as missing
+            try {
+                double d = Double.parseDouble(value);
+                if (Double.isFinite(d)) {
+                    writer.set(column, row, d);
+                }
+            } catch (NumberFormatException e) {
+                // Leave the row null
+            }
+        }
+    }
+
+    private ColumnFile openExistingSample(Dataset dataset, String weightColumn, String strataColumn, Path path)
+            throws IOException {
+        try {
+            return ColumnFile.open(path);
+        } catch (IOException e) {
+            log.info("Discarding sample {}: {}", path, e.getMessage());
+            Files.deleteIfExists(path);
+            return drawSample(dataset, weightColumn, strataColumn, path);
+        }
+    }
+
+    /**
+     * Draws the sample in one pass over the decoded columns, selecting rows within each stratum
+     * with Knuth's selection sampling, and writes it with a weight column in front.
+     */
+    private ColumnFile drawSample(Dataset dataset, String weightColumn, String strataColumn, Path path)
+            throws IOException {
+        ColumnFile full = open(dataset);
+        long startTime = System.currentTimeMillis();
+        int rowCount = full.getRowCount();
+
+        DictionaryColumn keys = strataColumn != null ? full.getDictionaryColumn(strataColumn) : null;
+        int stratumCount = keys != null ? keys.getDictionary().size() + 1 : 1;
+        long[] population = new long[stratumCount];
+        for (int row = 0; row < rowCount; row++) {
+            population[stratumOf(keys, row, stratumCount)]++;
+        }
+
+        long[] wanted = new long[stratumCount];
+        for (int h = 0; h < stratumCount; h++) {
+            long proportional = Math.round((double) sampleRows * population[h] / Math.max(1, rowCount));
+            wanted[h] = Math.min(population[h], Math.max(minStratumRows, proportional));
+        }
+
+        // Seeded by dataset, so a sample drawn again after a restart matches the previous one
+        Random random = new Random(dataset.getId().hashCode());
+        long[] remaining = population.clone();
+        long[] needed = wanted.clone();
+        BitSet selected = new BitSet(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            int h = stratumOf(keys, row, stratumCount);
+            if (random.nextDouble() * remaining[h] < needed[h]) {
+                selected.set(row);
+                needed[h]--;
+            }
+            remaining[h]--;
+        }
+
+        // Weights first, then the decoded columns in dataset order
+        LinkedHashMap<String, ColumnFile.Kind> kinds = new LinkedHashMap<>();
+        kinds.put(weightColumn, ColumnFile.Kind.DOUBLE);
+        List<Object> sources = new ArrayList<>();
+        for (ColumnMetadata column : dataset.getColumns()) {
+            String name = column.getName();
+            if (full.getLongColumn(name) != null) {
+                kinds.put(name, ColumnFile.Kind.LONG);
+                sources.add(full.getLongColumn(name));
+            } else if (full.getNumericColumn(name) != null) {
+                kinds.put(name, ColumnFile.Kind.DOUBLE);
+                sources.add(full.getNumericColumn(name));
+            } else if (full.getDictionaryColumn(name) != null) {
+                kinds.put(name, ColumnFile.Kind.DICTIONARY);
+                sources.add(full.getDictionaryColumn(name));
+            }
+        }
+
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(dataset.getId() + "-" + UUID.randomUUID() + ".tmp");
+        int sampled = selected.cardinality();
+        try (ColumnFile.Writer writer = ColumnFile.create(temp, kinds, sampled)) {
+            int out = 0;
+            for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1), out++) {
+                int h = stratumOf(keys, row, stratumCount);
+                writer.set(0, out, (double) population[h] / wanted[h]);
+                for (int i = 0; i < sources.size(); i++) {
+                    copyValue(sources.get(i), row, writer, i + 1, out);
+                }
+            }
+            writer.finish(sampled);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(temp);
+        }
+        deleteVersions(dataset.getId(), SAMPLE_EXTENSION, path);
+
+        log.info("Sampled {} of {} rows of dataset {} in {} ms, stratified on {}",
+                sampled, rowCount, dataset.getId(), System.currentTimeMillis() - startTime, strataColumn);
+
+        return ColumnFile.open(path);
+    }
+
+    private void copyValue(Object source, int row, ColumnFile.Writer writer, int column, int out) {
+        if (source instanceof LongColumn) {
+            LongColumn values = (LongColumn) source;
+            if (!values.isNull(row)) {
+                writer.setLong(column, out, values.getLong(row));
+            }
+        } else if (source instanceof DoubleColumn) {
+            DoubleColumn values = (DoubleColumn) source;
+            if (!values.isNull(row)) {
+                writer.set(column, out, values.get(row));
+            }
+        } else {
+            DictionaryColumn values = (DictionaryColumn) source;
+            if (!values.isNull(row)) {
+                writer.setString(column, out, values.getString(row));
+            }
+        }
+    }
+
+    private int stratumOf(DictionaryColumn keys, int row, int stratumCount) {
+        return keys == null ? 0 : keys.isNull(row) ? stratumCount - 1 : keys.getCode(row);
+    }
+
+    private String strataColumn(Dataset dataset) {
+        for (ColumnMetadata column : dataset.getColumns()) {
+            if (Boolean.TRUE.equals(column.getIsCategorical()) && TemporalFormat.of(column) == null
+                    && !Boolean.TRUE.equals(column.getIsNumeric())) {
+                return column.getName();
+            }
+        }
+        return null;
+    }
+
+    private String weightColumn(Dataset dataset) {
+        // A name no column of the dataset uses
+        Set<String> names = new HashSet<>();
+        dataset.getColumns().forEach(column -> names.add(column.getName()));
+        String name = WEIGHT_COLUMN;
+        while (names.contains(name)) {
+            name = "_" + name;
+        }
+        return name;
+    }
+
+    private void deleteVersions(String datasetId, String extension, Path keep) {
+        Path dir = Paths.get(storagePath, COLUMN_DIR);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, datasetId + "-*" + extension)) {
+            for (Path file : files) {
+                if (!file.equals(keep)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error deleting column files of dataset {}: {}", datasetId, e.getMessage());
+        }
+    }
+
+    private Path spillPath(Dataset dataset) {
+        long version = dataset.getUpdatedAt() != null
+                ? dataset.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli()
+                : 0;
+        return Paths.get(storagePath, COLUMN_DIR, dataset.getId() + "-" + version + EXTENSION);
+    }
+
+    private Path samplePath(Dataset dataset) {
+        Path columns = spillPath(dataset);
+        String fileName = columns.getFileName().toString();
+        return columns.resolveSibling(fileName.substring(0, fileName.length() - EXTENSION.length()) + SAMPLE_EXTENSION);
+    }
+
+    private String cacheKey(Dataset dataset) {
+        // Keyed by version so appended rows are never served from an old file
+        return dataset.getId() + "@" + dataset.getUpdatedAt();
+    }
+}
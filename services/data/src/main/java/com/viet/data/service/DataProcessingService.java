@@ -1,20 +1,40 @@
 package com.viet.data.service;
 
+import com.viet.data.column.StratifiedSample;
 import com.viet.data.dto.dtos.DatasetDTO;
+import com.viet.data.dto.dtos.StoredFile;
 import com.viet.data.dto.request.AnalysisRequest;
 import com.viet.data.dto.response.AnalysisResult;
+import com.viet.data.dto.response.BatchUploadResult;
 import com.viet.data.dto.response.CSVParseResult;
+import com.viet.data.dto.response.ChartConfig;
+import com.viet.data.dto.response.HistogramData;
+import com.viet.data.dto.response.SamplingInfo;
 import com.viet.data.exception.*;
+import com.viet.data.module.ColumnMetadata;
 import com.viet.data.module.Dataset;
 import com.viet.data.processor.CSVProcessor;
+import com.viet.data.processor.SizeLimitedInputStream;
 import com.viet.data.repository.DatasetRepository;
+import com.viet.data.sketch.ColumnSketch;
+import com.viet.data.sketch.SketchBundle;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,47 +45,259 @@ public class DataProcessingService {
     private final CSVProcessor csvProcessor;
     private final FileStorageService fileStorageService;
     private final StatisticsService statisticsService;
+    private final SketchStore sketchStore;
+    private final ColumnStore columnStore;
+    private final RollupStore rollupStore;
+    private final UserStatsService userStatsService;
+    private final ThreadPoolTaskExecutor profilingExecutor;
+    private final MemoryGovernor memoryGovernor;
+    private final PipelineMetrics pipelineMetrics;
+    private final SamplingPlanner samplingPlanner;
 
-    private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
+    private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB, of CSV content after decompression
+    private static final String FILE_SIZE_MESSAGE = "File size exceeds 50MB limit";
+
+    @Value("${app.processing.batch.max-files:50}")
+    private int maxBatchFiles;
+
+    // How long an append holds its dataset before a crashed one can be taken over
+    @Value("${app.processing.append.lease-ms:600000}")
+    private long appendLeaseMs;
 
     public DatasetDTO processUpload(MultipartFile file, String userId, String userRole) {
         log.info("Processing file upload for user: {}, file: {}", userId, file.getOriginalFilename());
 
-        try {
-            // Validate file
-            validateFile(file);
+        StoredFile storedFile = validateAndStore(file);
 
-            // Process CSV
-            CSVParseResult parseResult = csvProcessor.processCSV(file);
+        return ingestStoredFile(file.getOriginalFilename(), storedFile, userId, userRole);
+    }
 
-            // Store file
-            String storagePath = fileStorageService.storeFile(file, userId);
+    /**
+     * Stores every file on the calling thread, then profiles the stored copies on the shared
+     * profiling pool. One failed file does not affect the others.
+     */
+    public List<BatchUploadResult> processBatchUpload(List<MultipartFile> files, String userId, String userRole) {
+        log.info("Processing batch upload of {} files for user: {}", files.size(), userId);
 
-            // Create dataset entity
-            Dataset dataset = createDatasetEntity(file, userId, userRole, parseResult, storagePath);
+        if (files.isEmpty()) {
+            throw new FileValidationException("No files provided");
+        }
+        if (files.size() > maxBatchFiles) {
+            throw new FileValidationException("Too many files in one batch; maximum is " + maxBatchFiles);
+        }
 
-            // Calculate basic statistics
-            dataset.setBasicStats(statisticsService.calculateBasicStatistics(parseResult));
+        List<CompletableFuture<BatchUploadResult>> results = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            String fileName = file.getOriginalFilename();
+            StoredFile storedFile;
+            try {
+                storedFile = validateAndStore(file);
+            } catch (Exception e) {
+                log.error("Error storing batch file {} for user {}: {}", fileName, userId, e.getMessage());
+                results.add(CompletableFuture.completedFuture(BatchUploadResult.failed(fileName, e.getMessage())));
+                continue;
+            }
+
+            results.add(CompletableFuture
+                    .supplyAsync(() -> ingestStoredFile(fileName, storedFile, userId, userRole), profilingExecutor)
+                    .handle((dataset, error) -> error == null
+                            ? BatchUploadResult.created(fileName, dataset)
+                            : batchFailure(fileName, error)));
+        }
+
+        return results.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+    }
+
+    private StoredFile validateAndStore(MultipartFile file) {
+        pipelineMetrics.time(PipelineMetrics.Stage.VALIDATE, file.getSize(), () -> validateFile(file));
+
+        // Store file, hashing its content on the way
+        return pipelineMetrics.time(PipelineMetrics.Stage.STORE, file.getSize(),
+                () -> fileStorageService.storeFile(file));
+    }
+
+    private DatasetDTO ingestStoredFile(String fileName, StoredFile storedFile, String userId, String userRole) {
+        try {
+            // Create dataset entity
+            Dataset dataset = createDatasetEntity(fileName, userId, userRole, storedFile);
+
+            Optional<Dataset> identical = findIdenticalDataset(storedFile.getContentHash());
+            if (identical.isPresent()) {
+                // Byte-identical content was profiled before; reuse its results instead of parsing
+                copyProfile(identical.get(), dataset);
+                log.info("Reusing profile of dataset {} for identical upload", identical.get().getId());
+            } else {
+                long contentSize = checkedContentSize(storedFile.getPath());
+                int columnCount;
+                try (InputStream in = fileStorageService.openFile(storedFile.getPath())) {
+                    columnCount = csvProcessor.readHeaders(in).size();
+                }
+
+                // Process CSV from the stored copy once its footprint fits the memory budget
+                CSVParseResult parseResult;
+                try (MemoryGovernor.Reservation ignored = memoryGovernor.reserve("upload",
+                        memoryGovernor.estimateParse(contentSize, columnCount));
+                     InputStream in = openContent(storedFile.getPath());
+                     PipelineMetrics.StageTimer timer = pipelineMetrics.start(PipelineMetrics.Stage.PARSE, contentSize)) {
+                    parseResult = csvProcessor.processCSV(in, dataset.getId());
+                    timer.dataset(dataset.getId(), 0, columnCount).complete(parseResult.getRowCount());
+                }
+                applyProfile(dataset, parseResult);
+            }
 
             // Save to database
-            Dataset savedDataset = datasetRepository.save(dataset);
+            Dataset savedDataset;
+            try (UserStatsService.StatsUpdate statsUpdate = userStatsService.beginUpdate(userId);
+                 PipelineMetrics.StageTimer timer = pipelineMetrics.start(PipelineMetrics.Stage.SAVE, sizeOf(dataset))) {
+                savedDataset = datasetRepository.save(dataset);
+                timer.dataset(savedDataset.getId(), rowsOf(savedDataset), columnsOf(savedDataset)).complete();
+                statsUpdate.recordUpload(savedDataset);
+            }
 
             log.info("Dataset processed successfully: {} for user {}", savedDataset.getId(), userId);
 
             return mapToDTO(savedDataset);
 
+        } catch (MemoryBudgetExceededException e) {
+            fileStorageService.releaseFile(storedFile.getPath());
+            throw e;
+
         } catch (Exception e) {
-            log.error("Error processing dataset for user {}: {}", userId, e.getMessage());
+            log.error("Error processing dataset {} for user {}: {}", fileName, userId, e.getMessage());
+            fileStorageService.releaseFile(storedFile.getPath());
             throw new DataProcessingException("Failed to process dataset: " + e.getMessage());
         }
     }
 
+    /**
+     * Profiles a file the service produced itself, such as a join result, as a new dataset
+     * of the user. Uploads' size limit applies; the stored file is released if it fails.
+     */
+    public DatasetDTO ingestDerivedFile(String fileName, StoredFile storedFile, String userId, String userRole) {
+        return ingestStoredFile(fileName, storedFile, userId, userRole);
+    }
+
+    private BatchUploadResult batchFailure(String fileName, Throwable error) {
+        // supplyAsync wraps failures in CompletionException
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof MemoryBudgetExceededException
+                ? BatchUploadResult.rejected(fileName, cause.getMessage())
+                : BatchUploadResult.failed(fileName, cause.getMessage());
+    }
+
+    public DatasetDTO appendToDataset(String datasetId, MultipartFile file, String userId) {
+        log.info("Appending file {} to dataset {} for user {}", file.getOriginalFilename(), datasetId, userId);
+
+        validateFile(file);
+
+        Dataset dataset = datasetRepository.findByIdAndUserId(datasetId, userId)
+                .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + datasetId));
+
+        // Fail fast on a mismatched header before reading any rows
+        validateAppendHeaders(dataset, csvProcessor.readHeaders(file));
+
+        SketchBundle sketches = sketchStore.loadCopy(dataset);
+        if (sketches == null) {
+            throw new DataProcessingException("Dataset " + datasetId + " has no sketch bundle to merge into; upload it again");
+        }
+
+        // Claim the dataset so concurrent appends and deletes cannot interleave; the lease lets a
+        // later append take over a dataset whose append died part-way
+        LocalDateTime now = LocalDateTime.now();
+        // Mongo keeps milliseconds, and the lease is matched by equality
+        LocalDateTime leaseExpiresAt = now.plus(Duration.ofMillis(appendLeaseMs)).truncatedTo(ChronoUnit.MILLIS);
+        if (!datasetRepository.claimForAppend(datasetId, now, leaseExpiresAt)) {
+            throw new DataProcessingException("Dataset " + datasetId + " is not available for append");
+        }
+
+        String previousSketchPath = dataset.getSketchPath();
+        String chunkPath = null;
+        try {
+            // Store first, so compressed chunks are profiled from the kept copy like uploads are
+            chunkPath = fileStorageService.storeFile(file).getPath();
+            long contentSize = checkedContentSize(chunkPath);
+
+            // Profile only the new rows
+            CSVParseResult delta;
+            try (MemoryGovernor.Reservation ignored = memoryGovernor.reserve("append",
+                    memoryGovernor.estimateParse(contentSize, dataset.getColumnCount()));
+                 InputStream in = openContent(chunkPath);
+                 PipelineMetrics.StageTimer timer = pipelineMetrics.start(PipelineMetrics.Stage.PARSE, contentSize)) {
+                delta = csvProcessor.processCSV(in, datasetId);
+                timer.dataset(datasetId, 0, columnsOf(dataset)).complete(delta.getRowCount());
+            }
+
+            sketches.merge(delta.getSketches());
+
+            List<String> chunkPaths = dataset.getChunkPaths() != null
+                    ? new ArrayList<>(dataset.getChunkPaths())
+                    : new ArrayList<>(List.of(dataset.getStoragePath()));
+            // A single chunk holds every row; older appended datasets stay without counts
+            List<Integer> chunkRowCounts = dataset.getChunkRowCounts() != null
+                    ? new ArrayList<>(dataset.getChunkRowCounts())
+                    : chunkPaths.size() == 1 ? new ArrayList<>(List.of(dataset.getRowCount())) : null;
+            chunkPaths.add(chunkPath);
+            if (chunkRowCounts != null) {
+                chunkRowCounts.add(delta.getRowCount());
+            }
+
+            dataset.setChunkPaths(chunkPaths);
+            dataset.setChunkRowCounts(chunkRowCounts);
+            dataset.setRowCount(dataset.getRowCount() + delta.getRowCount());
+            dataset.setFileSize(dataset.getFileSize() + file.getSize());
+            dataset.setColumns(mergeColumns(dataset.getColumns(), delta.getColumns(), sketches));
+            try (PipelineMetrics.StageTimer timer = pipelineMetrics.start(PipelineMetrics.Stage.STATISTICS,
+                    sizeOf(dataset))) {
+                dataset.setBasicStats(statisticsService.calculateBasicStatistics(dataset.getColumns(), sketches));
+                timer.dataset(datasetId, 0, columnsOf(dataset)).complete(rowsOf(dataset));
+            }
+            dataset.setStatus(Dataset.DatasetStatus.PROCESSED);
+            dataset.setUpdatedAt(LocalDateTime.now());
+            sketchStore.attach(dataset, sketches);
+
+            try (UserStatsService.StatsUpdate statsUpdate = userStatsService.beginUpdate(userId);
+                 PipelineMetrics.StageTimer timer = pipelineMetrics.start(PipelineMetrics.Stage.SAVE, sizeOf(dataset))) {
+                timer.dataset(datasetId, rowsOf(dataset), columnsOf(dataset));
+                if (!datasetRepository.replaceIfLeased(dataset, leaseExpiresAt)) {
+                    throw new DataProcessingException("Dataset " + datasetId + " was removed or taken over during append");
+                }
+                timer.complete();
+                statsUpdate.recordAppend(delta.getRowCount(), file.getSize());
+            }
+            if (previousSketchPath != null && !previousSketchPath.equals(dataset.getSketchPath())) {
+                sketchStore.deleteSidecar(previousSketchPath);
+            }
+
+            log.info("Appended {} rows to dataset {}, now {} rows",
+                    delta.getRowCount(), datasetId, dataset.getRowCount());
+
+            return mapToDTO(dataset);
+
+        } catch (Exception e) {
+            log.error("Error appending to dataset {}: {}", datasetId, e.getMessage());
+            if (chunkPath != null) {
+                fileStorageService.releaseFile(chunkPath);
+            }
+            if (dataset.getSketchPath() != null && !dataset.getSketchPath().equals(previousSketchPath)) {
+                sketchStore.deleteSidecar(dataset.getSketchPath());
+            }
+            datasetRepository.releaseAppend(datasetId, leaseExpiresAt);
+            if (e instanceof MemoryBudgetExceededException) {
+                throw (MemoryBudgetExceededException) e;
+            }
+            throw new DataProcessingException("Failed to append to dataset: " + e.getMessage());
+        }
+    }
+
     public AnalysisResult analyzeDataset(AnalysisRequest request) {
         log.info("Starting analysis for dataset: {}, type: {}", request.getDatasetId(), request.getAnalysisType());
 
         try {
             // Get dataset
             Dataset dataset = datasetRepository.findById(request.getDatasetId())
+                    .filter(found -> !found.getStatus().isDeleted())
                     .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + request.getDatasetId()));
 
             // Verify user ownership
@@ -76,7 +308,19 @@ public class DataProcessingService {
             long startTime = System.currentTimeMillis();
 
             // Perform analysis based on type
-            AnalysisResult result = performAnalysis(dataset, request);
+            AnalysisResult result;
+            try (MemoryGovernor.Reservation ignored = memoryGovernor.reserve("analysis",
+                    memoryGovernor.estimateAnalysis(dataset, request.getAnalysisType()));
+                 PipelineMetrics.StageTimer timer = pipelineMetrics.start(PipelineMetrics.Stage.ANALYSIS,
+                         request.getAnalysisType(), sizeOf(dataset))) {
+                timer.dataset(dataset.getId(), rowsOf(dataset), columnsOf(dataset));
+                result = performAnalysis(dataset, request);
+                // Rows actually scanned, so the throughput the sampling planner predicts from stays comparable
+                SamplingInfo sampling = result.getSampling();
+                timer.complete(sampling != null && Boolean.TRUE.equals(sampling.getApproximate())
+                        ? sampling.getSampleRows()
+                        : rowsOf(dataset));
+            }
 
             result.setProcessingTimeMs(System.currentTimeMillis() - startTime);
             result.setAnalyzedAt(LocalDateTime.now());
@@ -87,6 +331,9 @@ public class DataProcessingService {
 
             return result;
 
+        } catch (MemoryBudgetExceededException e) {
+            throw e;
+
         } catch (Exception e) {
             log.error("Error analyzing dataset {}: {}", request.getDatasetId(), e.getMessage());
 
@@ -101,26 +348,147 @@ public class DataProcessingService {
         }
     }
 
-    private Dataset createDatasetEntity(MultipartFile file, String userId, String userRole,
-                                        CSVParseResult parseResult, String storagePath) {
+    private Dataset createDatasetEntity(String fileName, String userId, String userRole, StoredFile storedFile) {
         Dataset dataset = new Dataset();
         dataset.setId(UUID.randomUUID().toString());
         dataset.setUserId(userId);
         dataset.setUserRole(userRole);
-        dataset.setOriginalFileName(file.getOriginalFilename());
-        dataset.setFileSize(file.getSize());
-        dataset.setRowCount(parseResult.getRowCount());
-        dataset.setColumnCount(parseResult.getColumnCount());
-        dataset.setColumns(parseResult.getColumns());
-        dataset.setStoragePath(storagePath);
+        dataset.setOriginalFileName(fileName);
+        dataset.setFileSize(storedFile.getSize());
+        dataset.setStoragePath(storedFile.getPath());
+        dataset.setChunkPaths(new ArrayList<>(List.of(storedFile.getPath())));
+        dataset.setContentHash(storedFile.getContentHash());
         dataset.setStatus(Dataset.DatasetStatus.PROCESSED);
         dataset.setCreatedAt(LocalDateTime.now());
         dataset.setUpdatedAt(LocalDateTime.now());
-        dataset.setSampleData(parseResult.getSampleData());
 
         return dataset;
     }
 
+    private void applyProfile(Dataset dataset, CSVParseResult parseResult) {
+        dataset.setRowCount(parseResult.getRowCount());
+        dataset.setChunkRowCounts(new ArrayList<>(List.of(parseResult.getRowCount())));
+        dataset.setColumnCount(parseResult.getColumnCount());
+        dataset.setColumns(parseResult.getColumns());
+        dataset.setSampleData(parseResult.getSampleData());
+
+        // Calculate basic statistics
+        try (PipelineMetrics.StageTimer timer = pipelineMetrics.start(PipelineMetrics.Stage.STATISTICS, sizeOf(dataset))) {
+            dataset.setBasicStats(statisticsService.calculateBasicStatistics(parseResult));
+            timer.dataset(dataset.getId(), 0, columnsOf(dataset)).complete(parseResult.getRowCount());
+        }
+
+        // Persist the sketch bundle inline or as a sidecar file
+        sketchStore.attach(dataset, parseResult.getSketches());
+    }
+
+    private Optional<Dataset> findIdenticalDataset(String contentHash) {
+        // Appended datasets no longer describe just their first file, so they are never reused
+        return datasetRepository.findProfiledByContentHash(contentHash, Dataset.DatasetStatus.PROCESSED,
+                        PageRequest.of(0, 1))
+                .stream()
+                .filter(candidate -> sketchStore.load(candidate) != null)
+                .findFirst();
+    }
+
+    private void copyProfile(Dataset source, Dataset dataset) {
+        dataset.setRowCount(source.getRowCount());
+        dataset.setChunkRowCounts(new ArrayList<>(List.of(source.getRowCount())));
+        dataset.setColumnCount(source.getColumnCount());
+        dataset.setColumns(source.getColumns());
+        dataset.setSampleData(source.getSampleData());
+        dataset.setBasicStats(source.getBasicStats());
+        sketchStore.attach(dataset, sketchStore.load(source));
+    }
+
+    private void validateAppendHeaders(Dataset dataset, List<String> headers) {
+        Set<String> expected = new LinkedHashSet<>();
+        dataset.getColumns().forEach(column -> expected.add(column.getName()));
+        Set<String> actual = new LinkedHashSet<>(headers);
+
+        if (!expected.equals(actual)) {
+            Set<String> missing = new LinkedHashSet<>(expected);
+            missing.removeAll(actual);
+            Set<String> unexpected = new LinkedHashSet<>(actual);
+            unexpected.removeAll(expected);
+            throw new FileValidationException("CSV header does not match dataset columns; missing "
+                    + missing + ", unexpected " + unexpected);
+        }
+    }
+
+    private List<ColumnMetadata> mergeColumns(List<ColumnMetadata> existing, List<ColumnMetadata> delta,
+                                              SketchBundle sketches) {
+        Map<String, ColumnMetadata> deltaByName = new HashMap<>();
+        delta.forEach(column -> deltaByName.put(column.getName(), column));
+
+        List<ColumnMetadata> merged = new ArrayList<>();
+        for (ColumnMetadata column : existing) {
+            ColumnMetadata added = deltaByName.get(column.getName());
+            ColumnSketch sketch = sketches.get(column.getName());
+
+            boolean numeric = Boolean.TRUE.equals(column.getIsNumeric()) && Boolean.TRUE.equals(added.getIsNumeric());
+            long uniqueCount = sketch.getDistinctCount();
+
+            // Stored chunks are decoded with a single formatter, so dates must agree on it
+            String temporalFormat = Objects.equals(column.getTemporalFormat(), added.getTemporalFormat())
+                    ? column.getTemporalFormat()
+                    : null;
+            ColumnMetadata.DataType dataType = column.getTemporalFormat() != null && temporalFormat == null
+                    ? ColumnMetadata.DataType.STRING
+                    : widenDataType(column.getDataType(), added.getDataType());
+
+            // A column widened to text keeps no numeric histogram, moments or quantiles, and a
+            // time column that lost its format no rollup
+            if (!numeric) {
+                sketch.clearNumericProfile();
+            }
+            if (column.getTemporalFormat() != null && temporalFormat == null) {
+                sketches.removeRollup(column.getName());
+            }
+
+            merged.add(new ColumnMetadata(
+                    column.getName(),
+                    dataType,
+                    uniqueCount,
+                    sketch.getNullCount(),
+                    column.getSampleValues(),
+                    numeric,
+                    Boolean.TRUE.equals(column.getIsCategorical()) && Boolean.TRUE.equals(added.getIsCategorical())
+                            && uniqueCount <= 50,
+                    temporalFormat,
+                    temporalFormat != null ? minOf(column.getMinTime(), added.getMinTime()) : null,
+                    temporalFormat != null ? maxOf(column.getMaxTime(), added.getMaxTime()) : null,
+                    countOf(column.getRejectedCount()) + countOf(added.getRejectedCount())
+            ));
+        }
+
+        return merged;
+    }
+
+    private long countOf(Long count) {
+        return count != null ? count : 0;
+    }
+
+    private Long minOf(Long a, Long b) {
+        return a == null ? b : b == null ? a : Long.valueOf(Math.min(a, b));
+    }
+
+    private Long maxOf(Long a, Long b) {
+        return a == null ? b : b == null ? a : Long.valueOf(Math.max(a, b));
+    }
+
+    private ColumnMetadata.DataType widenDataType(ColumnMetadata.DataType current, ColumnMetadata.DataType added) {
+        if (current == added) {
+            return current;
+        }
+        boolean currentNumeric = current == ColumnMetadata.DataType.INTEGER || current == ColumnMetadata.DataType.DOUBLE;
+        boolean addedNumeric = added == ColumnMetadata.DataType.INTEGER || added == ColumnMetadata.DataType.DOUBLE;
+        if (currentNumeric && addedNumeric) {
+            return ColumnMetadata.DataType.DOUBLE;
+        }
+        return ColumnMetadata.DataType.STRING;
+    }
+
     private AnalysisResult performAnalysis(Dataset dataset, AnalysisRequest request) {
         AnalysisResult result = new AnalysisResult();
         result.setId(UUID.randomUUID().toString());
@@ -129,21 +497,32 @@ public class DataProcessingService {
         result.setAnalysisType(request.getAnalysisType());
         result.setParameters(request.getParameters());
 
+        SketchBundle sketches = sketchStore.load(dataset);
+        SamplingPlanner.Plan plan = samplingPlanner.planAnalysis(dataset, request);
+        StratifiedSample sample = plan.sampled() ? columnStore.openSample(dataset) : null;
+
         switch (request.getAnalysisType()) {
             case DESCRIPTIVE_STATS:
-                result.setSummary(statisticsService.calculateDescriptiveStats(dataset));
+                result.setSummary(statisticsService.calculateDescriptiveStats(dataset, sketches));
                 break;
 
             case CORRELATION_ANALYSIS:
-                result.setCorrelations(statisticsService.calculateCorrelations(dataset));
+                if (sample != null) {
+                    StatisticsService.SampledCorrelations estimated = statisticsService.estimateCorrelations(sample);
+                    result.setCorrelations(estimated.correlations());
+                    result.setCorrelationIntervals(estimated.intervals());
+                } else {
+                    result.setCorrelations(statisticsService.calculateCorrelations(
+                            columnStore.open(dataset).getNumericColumns()));
+                }
                 break;
 
             case TREND_ANALYSIS:
-                result.setPatterns(statisticsService.analyzeTrends(dataset));
+                result.setPatterns(statisticsService.analyzeTrends(dataset, rollupStore.load(dataset, sketches)));
                 break;
 
             case OUTLIER_DETECTION:
-                result.setAnomalies(statisticsService.detectOutliers(dataset));
+                result.setAnomalies(statisticsService.detectOutliers(columnStore.open(dataset).getNumericColumns(), sketches));
                 break;
 
             case PATTERN_DETECTION:
@@ -155,50 +534,46 @@ public class DataProcessingService {
                         "Unsupported analysis type: " + request.getAnalysisType());
         }
 
+        result.setSampling(samplingPlanner.describe(plan, sample));
+
         // Generate visualization suggestions
         result.setVisualizationSuggestions(
                 statisticsService.generateVisualizationSuggestions(dataset, result));
 
-        // Prepare frontend data
-        result.setFrontendData(prepareFrontendData(result));
+        // Charts point at the result's own fields rather than copying them
+        result.setCharts(generateChartConfigs(result, dataset, sketches));
+        result.setInsights(extractInsights(result));
 
         return result;
     }
 
-    private Map<String, Object> prepareFrontendData(AnalysisResult result) {
-        Map<String, Object> frontendData = new HashMap<>();
-
-        // Transform data for frontend consumption
-        frontendData.put("analysisType", result.getAnalysisType().name());
-        frontendData.put("summary", result.getSummary());
-        frontendData.put("charts", generateChartConfigs(result));
-        frontendData.put("insights", extractInsights(result));
-        frontendData.put("timestamp", LocalDateTime.now().toString());
-
-        return frontendData;
-    }
-
-    private List<Map<String, Object>> generateChartConfigs(AnalysisResult result) {
-        List<Map<String, Object>> charts = new ArrayList<>();
+    private List<ChartConfig> generateChartConfigs(AnalysisResult result, Dataset dataset, SketchBundle sketches) {
+        List<ChartConfig> charts = new ArrayList<>();
 
         // Correlation matrix chart
         if (result.getCorrelations() != null && !result.getCorrelations().isEmpty()) {
-            Map<String, Object> correlationChart = new HashMap<>();
-            correlationChart.put("type", "heatmap");
-            correlationChart.put("title", "Correlation Matrix");
-            correlationChart.put("data", result.getCorrelations());
-            correlationChart.put("description", "Shows relationships between numeric variables");
-            charts.add(correlationChart);
+            charts.add(new ChartConfig("heatmap", "Correlation Matrix",
+                    "Shows relationships between numeric variables", "correlations", null));
         }
 
         // Descriptive statistics chart
         if (result.getSummary() != null && result.getSummary().containsKey("columnStats")) {
-            Map<String, Object> statsChart = new HashMap<>();
-            statsChart.put("type", "bar");
-            statsChart.put("title", "Descriptive Statistics");
-            statsChart.put("data", result.getSummary().get("columnStats"));
-            statsChart.put("description", "Basic statistical measures for each column");
-            charts.add(statsChart);
+            charts.add(new ChartConfig("bar", "Descriptive Statistics",
+                    "Basic statistical measures for each column", "summary.columnStats", null));
+        }
+
+        // Distribution histograms, re-binned from the base histograms in the sketch bundle
+        if (sketches != null) {
+            for (ColumnMetadata column : dataset.getColumns()) {
+                ColumnSketch sketch = sketches.get(column.getName());
+                if (sketch == null || sketch.getHistogram() == null) {
+                    continue;
+                }
+                HistogramData histogram = statisticsService.rebinHistogram(column.getName(), sketch.getHistogram(),
+                        StatisticsService.DEFAULT_HISTOGRAM_BINS, HistogramData.Mode.FIXED_WIDTH);
+                charts.add(new ChartConfig("histogram", "Distribution of " + column.getName(),
+                        "Frequency of values across equal-width bins", null, histogram));
+            }
         }
 
         return charts;
@@ -232,21 +607,48 @@ public class DataProcessingService {
         return insights;
     }
 
+    private long sizeOf(Dataset dataset) {
+        return dataset.getFileSize() != null ? dataset.getFileSize() : 0;
+    }
+
+    private long rowsOf(Dataset dataset) {
+        return dataset.getRowCount() != null ? dataset.getRowCount() : 0;
+    }
+
+    private int columnsOf(Dataset dataset) {
+        return dataset.getColumnCount() != null ? dataset.getColumnCount() : 0;
+    }
+
     private void validateFile(MultipartFile file) {
         if (file.isEmpty()) {
             throw new FileValidationException("File is empty");
         }
 
         String fileName = file.getOriginalFilename();
-        if (fileName == null || !fileName.toLowerCase().endsWith(".csv")) {
-            throw new FileValidationException("Only CSV files are allowed");
+        String lowerName = fileName != null ? fileName.toLowerCase() : "";
+        if (!lowerName.endsWith(".csv") && !lowerName.endsWith(".csv.gz")) {
+            throw new FileValidationException("Only CSV files (optionally gzip-compressed) are allowed");
         }
 
+        // Compressed uploads are checked again against their decompressed size while parsing
         if (file.getSize() > MAX_FILE_SIZE) {
-            throw new FileValidationException("File size exceeds 50MB limit");
+            throw new FileValidationException(FILE_SIZE_MESSAGE);
         }
     }
 
+    private long checkedContentSize(String path) throws IOException {
+        // Early rejection from the gzip trailer; openContent enforces the limit on the real bytes
+        long contentSize = fileStorageService.contentSize(path);
+        if (contentSize > MAX_FILE_SIZE) {
+            throw new FileValidationException(FILE_SIZE_MESSAGE);
+        }
+        return contentSize;
+    }
+
+    private InputStream openContent(String path) throws IOException {
+        return new SizeLimitedInputStream(fileStorageService.openFile(path), MAX_FILE_SIZE, FILE_SIZE_MESSAGE);
+    }
+
     private DatasetDTO mapToDTO(Dataset dataset) {
         return DatasetDTO.builder()
                 .id(dataset.getId())
@@ -1,10 +1,28 @@
 package com.viet.data.service;
 
+import com.viet.data.column.*;
 import com.viet.data.dto.dtos.DatasetDTO;
+import com.viet.data.dto.dtos.DatasetPageDTO;
+import com.viet.data.dto.dtos.DatasetSummaryDTO;
+import com.viet.data.dto.request.AnalysisRequest;
+import com.viet.data.dto.response.ConfidenceInterval;
+import com.viet.data.dto.response.GroupStats;
+import com.viet.data.dto.response.HistogramData;
+import com.viet.data.dto.response.RollupSeries;
+import com.viet.data.dto.response.RowPageDTO;
+import com.viet.data.dto.response.SamplingInfo;
+import com.viet.data.dto.response.TimeRollupData;
+import com.viet.data.exception.DataProcessingException;
 import com.viet.data.exception.DatasetNotFoundException;
+import com.viet.data.exception.MemoryBudgetExceededException;
 import com.viet.data.exception.UnauthorizedAccessException;
+import com.viet.data.module.ColumnMetadata;
 import com.viet.data.module.Dataset;
+import com.viet.data.processor.CSVProcessor;
 import com.viet.data.repository.DatasetRepository;
+import com.viet.data.sketch.ColumnSketch;
+import com.viet.data.sketch.SketchBundle;
+import com.viet.data.sketch.TimeRollup;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -13,8 +31,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +47,20 @@ import java.util.stream.Collectors;
 public class DatasetService {
 
     private final DatasetRepository datasetRepository;
+    private final StatisticsService statisticsService;
+    private final SketchStore sketchStore;
+    private final UserStatsService userStatsService;
+    private final ColumnStore columnStore;
+    private final MemoryGovernor memoryGovernor;
+    private final SamplingPlanner samplingPlanner;
+    private final RollupStore rollupStore;
+    private final CSVProcessor csvProcessor;
+    private final FileStorageService fileStorageService;
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_JSON_ROWS = 10_000;
+    // Arrow pages are written in batches straight from the mapped columns, so they can be larger
+    public static final int MAX_STREAMED_ROWS = 1_000_000;
 
     public List<DatasetDTO> getUserDatasets(String userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
@@ -32,6 +71,34 @@ public class DatasetService {
                 .collect(Collectors.toList());
     }
 
+    public DatasetPageDTO getUserDatasetPage(String userId, String cursor, int size) {
+        LocalDateTime afterCreatedAt = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] position = decodeCursor(cursor);
+            afterCreatedAt = LocalDateTime.parse(position[0]);
+            afterId = position[1];
+        }
+
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // One extra row tells whether another page follows without a count query
+        List<Dataset> datasets = datasetRepository.findSummariesByUserId(userId, afterCreatedAt, afterId, size + 1);
+        boolean hasMore = datasets.size() > size;
+        List<Dataset> page = hasMore ? datasets.subList(0, size) : datasets;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Dataset last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        return DatasetPageDTO.builder()
+                .datasets(page.stream().map(this::mapToSummaryDTO).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     public DatasetDTO getDataset(String datasetId, String userId) {
         Dataset dataset = datasetRepository.findByIdAndUserId(datasetId, userId)
                 .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + datasetId));
@@ -39,34 +106,482 @@ public class DatasetService {
         return mapToDTO(dataset);
     }
 
+    public List<HistogramData> getHistograms(String datasetId, String userId, String columnName,
+                                             int bins, HistogramData.Mode mode) {
+        Dataset dataset = datasetRepository.findByIdAndUserId(datasetId, userId)
+                .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + datasetId));
+
+        SketchBundle sketches = sketchStore.load(dataset);
+        List<HistogramData> result = new ArrayList<>();
+        if (sketches != null) {
+            for (ColumnMetadata column : dataset.getColumns()) {
+                ColumnSketch sketch = sketches.get(column.getName());
+                if (sketch != null && sketch.getHistogram() != null
+                        && (columnName == null || columnName.equals(column.getName()))) {
+                    result.add(statisticsService.rebinHistogram(column.getName(), sketch.getHistogram(), bins, mode));
+                }
+            }
+        }
+
+        if (columnName != null && result.isEmpty()) {
+            throw new IllegalArgumentException("No histogram available for column: " + columnName);
+        }
+
+        return result;
+    }
+
+    public RowPageDTO getRows(String datasetId, String userId, int offset, int limit) {
+        try (RowPage page = openRowPage(datasetId, userId, offset, limit, MAX_JSON_ROWS)) {
+            List<Map<String, Object>> rows = new ArrayList<>(page.getCount());
+            for (int row = page.getOffset(); row < page.getOffset() + page.getCount(); row++) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                for (RowPage.Column column : page.getColumns()) {
+                    values.put(column.getName(), column.getObject(row));
+                }
+                rows.add(values);
+            }
+
+            return RowPageDTO.builder()
+                    .offset(page.getOffset())
+                    .count(page.getCount())
+                    .totalRows(page.getTotalRows())
+                    .columns(page.getColumns().stream().map(RowPage.Column::getName).collect(Collectors.toList()))
+                    .rows(rows)
+                    .build();
+        }
+    }
+
+    /**
+     * Rows for streaming responses, which read the columns directly instead of building maps.
+     * The page holds a memory reservation until it is closed.
+     *
+     * @throws MemoryBudgetExceededException if the server is too busy to read the page's text
+     */
+    public RowPage getRowPage(String datasetId, String userId, int offset, int limit) {
+        return openRowPage(datasetId, userId, offset, limit, MAX_STREAMED_ROWS);
+    }
+
+    private RowPage openRowPage(String datasetId, String userId, int offset, int limit, int maxRows) {
+        if (offset < 0 || limit < 1) {
+            throw new IllegalArgumentException("Offset must be non-negative and limit positive");
+        }
+        Dataset dataset = datasetRepository.findByIdAndUserId(datasetId, userId)
+                .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + datasetId));
+
+        ColumnFile columns = columnStore.open(dataset);
+        int count = Math.max(0, Math.min(Math.min(limit, maxRows), columns.getRowCount() - offset));
+
+        // Text of too many distinct values has no column file column and is read from the CSV
+        List<String> undecoded = dataset.getColumns().stream()
+                .map(ColumnMetadata::getName)
+                .filter(name -> columns.getLongColumn(name) == null && columns.getNumericColumn(name) == null
+                        && columns.getDictionaryColumn(name) == null)
+                .toList();
+        if (undecoded.isEmpty()) {
+            return new RowPage(pageColumns(dataset, columns, Map.of()), offset, count, columns.getRowCount(), () -> { });
+        }
+
+        // Only text read back from the CSV lands on the heap; the mapped columns do not
+        MemoryGovernor.Reservation reservation = memoryGovernor.reserve("rows",
+                memoryGovernor.estimateTextPage(dataset, undecoded.size(), count));
+        try {
+            Map<String, DictionaryColumn> text = readTextColumns(dataset, undecoded, offset, count);
+            return new RowPage(pageColumns(dataset, columns, text), offset, count, columns.getRowCount(),
+                    reservation::close);
+        } catch (RuntimeException e) {
+            reservation.close();
+            throw e;
+        }
+    }
+
+    private List<RowPage.Column> pageColumns(Dataset dataset, ColumnFile columns, Map<String, DictionaryColumn> text) {
+        List<RowPage.Column> pageColumns = new ArrayList<>();
+        for (ColumnMetadata column : dataset.getColumns()) {
+            String name = column.getName();
+            if (columns.getLongColumn(name) != null) {
+                pageColumns.add(RowPage.Column.temporal(columns.getLongColumn(name),
+                        column.getDataType() == ColumnMetadata.DataType.DATETIME));
+            } else if (columns.getNumericColumn(name) != null) {
+                pageColumns.add(RowPage.Column.numeric(columns.getNumericColumn(name),
+                        column.getDataType() == ColumnMetadata.DataType.INTEGER));
+            } else if (columns.getDictionaryColumn(name) != null) {
+                pageColumns.add(RowPage.Column.text(columns.getDictionaryColumn(name)));
+            } else {
+                pageColumns.add(RowPage.Column.text(text.get(name)));
+            }
+        }
+
+        return pageColumns;
+    }
+
+    /**
+     * Reads rows {@code [offset, offset + count)} of text columns from the stored CSV chunks,
+     * starting at the chunk that holds {@code offset} when the chunk row counts are known and
+     * stopping once the last row is read.
+     */
+    private Map<String, DictionaryColumn> readTextColumns(Dataset dataset, List<String> names, int offset, int count) {
+        List<DictionaryVector.Builder> builders = new ArrayList<>();
+        for (int column = 0; column < names.size(); column++) {
+            builders.add(new DictionaryVector.Builder(Integer.MAX_VALUE));
+        }
+
+        if (!names.isEmpty() && count > 0) {
+            List<String> chunkPaths = dataset.getChunkPaths() != null
+                    ? dataset.getChunkPaths()
+                    : List.of(dataset.getStoragePath());
+            List<Integer> chunkRowCounts = dataset.getChunkRowCounts();
+            int firstChunk = 0;
+            int firstRow = 0;
+            if (chunkRowCounts != null && chunkRowCounts.size() == chunkPaths.size()) {
+                while (firstChunk < chunkPaths.size() - 1 && firstRow + chunkRowCounts.get(firstChunk) <= offset) {
+                    firstRow += chunkRowCounts.get(firstChunk++);
+                }
+            }
+            int[] row = {firstRow};
+            try {
+                for (String chunkPath : chunkPaths.subList(firstChunk, chunkPaths.size())) {
+                    try (InputStream in = fileStorageService.openFile(chunkPath)) {
+                        csvProcessor.forEachRecord(in, record -> {
+                            if (row[0] >= offset + count) {
+                                throw new PageRead();
+                            }
+                            if (row[0]++ < offset) {
+                                return;
+                            }
+                            for (int column = 0; column < names.size(); column++) {
+                                String value = record.isSet(names.get(column)) ? record.get(names.get(column)) : null;
+                                if (value == null || value.isEmpty()) {
+                                    builders.get(column).appendNull();
+                                } else {
+                                    builders.get(column).tryAppend(value);
+                                }
+                            }
+                        });
+                    }
+                }
+            } catch (PageRead e) {
+                // Every row of the page was read
+            } catch (IOException e) {
+                throw new DataProcessingException("Failed to read rows of dataset " + dataset.getId()
+                        + ": " + e.getMessage(), e);
+            }
+        }
+
+        Map<String, DictionaryColumn> columns = new HashMap<>();
+        for (int column = 0; column < names.size(); column++) {
+            columns.put(names.get(column),
+                    new OffsetDictionaryColumn(builders.get(column).build(names.get(column)), offset));
+        }
+        return columns;
+    }
+
+    /**
+     * Thrown from the record callback to stop reading once a page is complete.
+     */
+    private static final class PageRead extends RuntimeException {
+        private PageRead() {
+            super(null, null, false, false);
+        }
+    }
+
+    public Map<String, Map<String, Double>> getCorrelations(String datasetId, String userId) {
+        Dataset dataset = datasetRepository.findByIdAndUserId(datasetId, userId)
+                .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + datasetId));
+
+        try (MemoryGovernor.Reservation ignored = memoryGovernor.reserve("correlations",
+                memoryGovernor.estimateAnalysis(dataset, AnalysisRequest.AnalysisType.CORRELATION_ANALYSIS))) {
+            return statisticsService.calculateCorrelations(columnStore.open(dataset).getNumericColumns());
+        }
+    }
+
+    /**
+     * Groups rows by a dictionary-encoded column, optionally keeping only rows where
+     * {@code filterColumn} equals {@code filterValue}, and aggregates {@code measure} per group.
+     * Large datasets are grouped on their stratified sample when {@link SamplingPlanner} chooses
+     * it, estimating counts, sums and means with confidence intervals.
+     */
+    public GroupByResult groupBy(String datasetId, String userId, String by, String measure,
+                                 String filterColumn, String filterValue, int limit,
+                                 String approximate, Long latencyTargetMs) {
+        Dataset dataset = datasetRepository.findByIdAndUserId(datasetId, userId)
+                .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + datasetId));
+
+        SamplingPlanner.Plan plan = samplingPlanner.planGroupBy(dataset, approximate, latencyTargetMs);
+        if (plan.sampled()) {
+            StratifiedSample sample = columnStore.openSample(dataset);
+            return new GroupByResult(estimateGroups(sample, by, measure, filterColumn, filterValue, limit),
+                    samplingPlanner.describe(plan, sample));
+        }
+
+        ColumnFile columns = columnStore.open(dataset);
+        DictionaryColumn keys = requireDictionaryColumn(columns.getDictionaryColumn(by), by);
+        DoubleColumn values = measure != null ? requireNumericColumn(columns.getNumericColumn(measure), measure) : null;
+
+        // Aggregates are held per key value, so the reservation follows the key's cardinality
+        try (MemoryGovernor.Reservation ignored = memoryGovernor.reserve("group-by",
+                memoryGovernor.estimateGroupBy(keys.getDictionary().size(), 0, keys.size()))) {
+            BitSet rows = null;
+            if (filterColumn != null) {
+                rows = requireDictionaryColumn(columns.getDictionaryColumn(filterColumn), filterColumn)
+                        .filterEquals(filterValue);
+            }
+
+            GroupBy groups = GroupBy.aggregate(keys, values, rows);
+            List<String> dictionary = keys.getDictionary();
+            boolean withMeasure = values != null;
+
+            List<GroupStats> result = IntStream.range(0, groups.getGroupCount())
+                    .filter(code -> groups.getCount(code) > 0)
+                    .boxed()
+                    .sorted(Comparator.comparingLong(groups::getCount).reversed())
+                    .limit(groupLimit(limit))
+                    .map(code -> {
+                        boolean hasValues = withMeasure && groups.getMeasureCount(code) > 0;
+                        GroupStats stats = new GroupStats();
+                        stats.setValue(dictionary.get(code));
+                        stats.setCount(groups.getCount(code));
+                        if (hasValues) {
+                            stats.setSum(groups.getSum(code));
+                            stats.setMean(groups.getMean(code));
+                            stats.setMin(groups.getMin(code));
+                            stats.setMax(groups.getMax(code));
+                        }
+                        return stats;
+                    })
+                    .collect(Collectors.toList());
+            return new GroupByResult(result, samplingPlanner.describe(plan, null));
+        }
+    }
+
+    public record GroupByResult(List<GroupStats> groups, SamplingInfo sampling) {
+    }
+
+    private List<GroupStats> estimateGroups(StratifiedSample sample, String by, String measure,
+                                            String filterColumn, String filterValue, int limit) {
+        DictionaryColumn keys = requireDictionaryColumn(sample.getDictionaryColumn(by), by);
+        DoubleColumn values = measure != null ? requireNumericColumn(sample.getNumericColumn(measure), measure) : null;
+
+        try (MemoryGovernor.Reservation ignored = memoryGovernor.reserve("group-by",
+                memoryGovernor.estimateGroupBy(keys.getDictionary().size(), sample.getStratumCount(), keys.size()))) {
+            BitSet rows = null;
+            if (filterColumn != null) {
+                rows = requireDictionaryColumn(sample.getDictionaryColumn(filterColumn), filterColumn)
+                        .filterEquals(filterValue);
+            }
+
+            List<String> dictionary = keys.getDictionary();
+            StratifiedSample.Domain[] groups = new StratifiedSample.Domain[dictionary.size()];
+            for (int code = 0; code < groups.length; code++) {
+                groups[code] = sample.newDomain();
+            }
+            for (int row = rows != null ? rows.nextSetBit(0) : 0;
+                 row >= 0 && row < keys.size();
+                 row = rows != null ? rows.nextSetBit(row + 1) : row + 1) {
+                if (keys.isNull(row)) {
+                    continue;
+                }
+                StratifiedSample.Domain group = groups[keys.getCode(row)];
+                group.add(row);
+                if (values != null && !values.isNull(row)) {
+                    group.addValue(row, values.get(row));
+                }
+            }
+
+            // Groups absent from the sample are not reported
+            return IntStream.range(0, groups.length)
+                    .filter(code -> !groups[code].isEmpty())
+                    .mapToObj(code -> {
+                        StratifiedSample.Domain group = groups[code];
+                        StratifiedSample.Estimate count = group.count();
+                        GroupStats stats = new GroupStats();
+                        stats.setValue(dictionary.get(code));
+                        stats.setCount(Math.round(count.value()));
+                        stats.setCountInterval(interval(count, 0));
+                        if (values != null && group.hasValues()) {
+                            StratifiedSample.Estimate sum = group.sum();
+                            StratifiedSample.Estimate mean = group.mean();
+                            stats.setSum(sum.value());
+                            stats.setSumInterval(interval(sum, Double.NEGATIVE_INFINITY));
+                            stats.setMean(mean.value());
+                            stats.setMeanInterval(interval(mean, Double.NEGATIVE_INFINITY));
+                        }
+                        return stats;
+                    })
+                    .sorted(Comparator.comparingLong(GroupStats::getCount).reversed())
+                    .limit(groupLimit(limit))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private ConfidenceInterval interval(StratifiedSample.Estimate estimate, double floor) {
+        if (Double.isNaN(estimate.standardError())) {
+            // The sample cannot bound this estimate, so no interval is reported
+            return null;
+        }
+        return new ConfidenceInterval(Math.max(floor, estimate.lower()), estimate.upper());
+    }
+
+    private long groupLimit(int limit) {
+        return Math.min(Math.max(limit, 1), ValueDictionary.MAX_SIZE);
+    }
+
+    private DictionaryColumn requireDictionaryColumn(DictionaryColumn column, String name) {
+        if (column == null) {
+            throw new IllegalArgumentException("Not a dictionary-encoded column: " + name);
+        }
+        return column;
+    }
+
+    private DoubleColumn requireNumericColumn(DoubleColumn column, String name) {
+        if (column == null) {
+            throw new IllegalArgumentException("Not a numeric column: " + name);
+        }
+        return column;
+    }
+
+    /**
+     * Per-period aggregates of numeric columns against a date or date-time column, rolled up
+     * from its daily rollup rather than read from the rows. {@code granularity} is day, week
+     * or month; {@code from} and {@code to} keep the periods starting in that range.
+     */
+    public TimeRollupData getRollup(String datasetId, String userId, String timeColumn, String granularity,
+                                    List<String> valueColumns, LocalDate from, LocalDate to) {
+        TimeRollup.Granularity target = parseGranularity(granularity);
+        Dataset dataset = datasetRepository.findByIdAndUserId(datasetId, userId)
+                .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + datasetId));
+
+        Map<String, TimeRollup> rollups = rollupStore.load(dataset, sketchStore.load(dataset));
+        String name = timeColumn != null ? timeColumn : rollups.keySet().stream().findFirst().orElse(null);
+        if (name == null) {
+            throw new IllegalArgumentException("Dataset has no date or date-time column to roll up");
+        }
+        TimeRollup daily = rollups.get(name);
+        if (daily == null) {
+            throw new IllegalArgumentException("No rollup for column: " + name);
+        }
+        TimeRollup rollup = daily.rollUp(target);
+
+        List<Integer> columns = new ArrayList<>();
+        if (valueColumns == null || valueColumns.isEmpty()) {
+            IntStream.range(0, rollup.getColumns().size()).forEach(columns::add);
+        } else {
+            for (String column : valueColumns) {
+                int index = rollup.getColumns().indexOf(column);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Not a numeric column: " + column);
+                }
+                columns.add(index);
+            }
+        }
+
+        long first = from != null ? from.toEpochDay() : Long.MIN_VALUE;
+        long last = to != null ? to.toEpochDay() : Long.MAX_VALUE;
+        int[] periods = IntStream.range(0, rollup.getPeriodCount())
+                .filter(period -> rollup.getPeriod(period) >= first && rollup.getPeriod(period) <= last)
+                .toArray();
+
+        List<RollupSeries> series = new ArrayList<>();
+        for (int column : columns) {
+            List<Long> counts = new ArrayList<>();
+            List<Double> sums = new ArrayList<>();
+            List<Double> mins = new ArrayList<>();
+            List<Double> maxes = new ArrayList<>();
+            List<Double> sumsOfSquares = new ArrayList<>();
+            List<Double> means = new ArrayList<>();
+            List<Double> stdDevs = new ArrayList<>();
+            for (int period : periods) {
+                boolean hasValues = rollup.getCount(column, period) > 0;
+                counts.add(rollup.getCount(column, period));
+                sums.add(rollup.getSum(column, period));
+                mins.add(hasValues ? rollup.getMin(column, period) : null);
+                maxes.add(hasValues ? rollup.getMax(column, period) : null);
+                sumsOfSquares.add(rollup.getSumOfSquares(column, period));
+                means.add(hasValues ? rollup.getMean(column, period) : null);
+                stdDevs.add(hasValues ? Math.sqrt(rollup.getVariance(column, period)) : null);
+            }
+            series.add(RollupSeries.builder()
+                    .column(rollup.getColumns().get(column))
+                    .counts(counts)
+                    .sums(sums)
+                    .mins(mins)
+                    .maxes(maxes)
+                    .sumsOfSquares(sumsOfSquares)
+                    .means(means)
+                    .stdDevs(stdDevs)
+                    .build());
+        }
+
+        return TimeRollupData.builder()
+                .timeColumn(name)
+                .granularity(target.name().toLowerCase(Locale.ROOT))
+                .periods(Arrays.stream(periods).mapToObj(period -> LocalDate.ofEpochDay(rollup.getPeriod(period)))
+                        .collect(Collectors.toList()))
+                .rows(Arrays.stream(periods).mapToObj(rollup::getRows).collect(Collectors.toList()))
+                .series(series)
+                .build();
+    }
+
+    private TimeRollup.Granularity parseGranularity(String granularity) {
+        if (granularity == null) {
+            return TimeRollup.Granularity.DAY;
+        }
+        try {
+            return TimeRollup.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Granularity must be day, week or month: " + granularity);
+        }
+    }
+
     public void deleteDataset(String datasetId, String userId) {
         Dataset dataset = datasetRepository.findById(datasetId)
+                .filter(found -> !found.getStatus().isDeleted())
                 .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + datasetId));
 
         if (!dataset.getUserId().equals(userId)) {
             throw new UnauthorizedAccessException("User not authorized to delete this dataset");
         }
 
-        // Delete file from storage
-        // fileStorageService.deleteFile(dataset.getStoragePath());
-
-        // Delete from database
-        datasetRepository.delete(dataset);
+        // Only mark it here; StorageReaper removes files, sidecars and the document in the background
+        try (UserStatsService.StatsUpdate statsUpdate = userStatsService.beginUpdate(userId)) {
+            if (datasetRepository.markDeleted(datasetId, userId, LocalDateTime.now()) == 0) {
+                throw new DatasetNotFoundException("Dataset not found: " + datasetId);
+            }
+            statsUpdate.recordDelete(dataset);
+        }
 
         log.info("Dataset deleted: {} by user: {}", datasetId, userId);
     }
 
-    public long getUserDatasetCount(String userId) {
-        return datasetRepository.countByUserId(userId);
+    private String encodeCursor(LocalDateTime createdAt, String id) {
+        String position = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
 
-    public List<DatasetDTO> getRecentDatasets(String userId, int limit) {
-        Pageable pageable = PageRequest.of(0, limit, Sort.by("createdAt").descending());
-        Page<Dataset> datasets = datasetRepository.findByUserId(userId, pageable);
+    private String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            LocalDateTime.parse(parts[0]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
 
-        return datasets.getContent().stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    private DatasetSummaryDTO mapToSummaryDTO(Dataset dataset) {
+        return DatasetSummaryDTO.builder()
+                .id(dataset.getId())
+                .originalFileName(dataset.getOriginalFileName())
+                .fileSize(dataset.getFileSize())
+                .rowCount(dataset.getRowCount())
+                .columnCount(dataset.getColumnCount())
+                .createdAt(dataset.getCreatedAt())
+                .updatedAt(dataset.getUpdatedAt())
+                .status(dataset.getStatus().name())
+                .build();
     }
 
     private DatasetDTO mapToDTO(Dataset dataset) {
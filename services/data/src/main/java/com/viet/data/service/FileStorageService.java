@@ -1,49 +1,186 @@
 package com.viet.data.service;
 
+import com.viet.data.dto.dtos.StoredFile;
+import com.viet.data.module.StoredBlob;
+import com.viet.data.processor.CompressedInput;
+import com.viet.data.repository.StoredBlobRepository;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.UUID;
 
+/**
+ * Content-addressed file storage. Uploads are hashed while they are copied to disk and
+ * byte-identical files share one blob under {@code blobs/}, reference counted in Mongo.
+ * Gzip uploads are stored compressed and decompressed on every read.
+ * <p>
+ * A blob whose last reference is dropped is marked as being deleted before its file goes, and
+ * uploads of the same content wait until the record is gone and then store the file anew, so
+ * no upload ever relies on a file that is being deleted.
+ */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class FileStorageService {
 
+    private static final String BLOB_DIR = "blobs";
+    private static final String TEMP_DIR = "tmp";
+    private static final long ACQUIRE_RETRY_MS = 20;
+    // A deletion this old was abandoned by a crashed instance
+    private static final Duration DELETION_TIMEOUT = Duration.ofMinutes(1);
+
+    private final StoredBlobRepository storedBlobRepository;
+
     @Value("${app.file.storage.path:./uploads}")
     private String storagePath;
 
-    public String storeFile(MultipartFile file, String userId) {
+    public StoredFile storeFile(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return storeFile(in, file.getOriginalFilename());
+        } catch (IOException e) {
+            log.error("Error storing file: {}", e.getMessage());
+            throw new RuntimeException("Failed to store file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores content produced by the service itself, such as a join result, like an upload
+     * named {@code fileName}. The stream is read to the end but not closed.
+     */
+    public StoredFile storeFile(InputStream content, String fileName) {
+        Path tempFile = null;
         try {
-            // Create user directory if not exists
-            Path userDir = Paths.get(storagePath, userId);
-            Files.createDirectories(userDir);
+            Path tempDir = Paths.get(storagePath, TEMP_DIR);
+            Files.createDirectories(tempDir);
+            tempFile = tempDir.resolve(UUID.randomUUID().toString());
 
-            // Generate unique filename
-            String originalFileName = file.getOriginalFilename();
-            String fileExtension = getFileExtension(originalFileName);
-            String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
+            // Hash while streaming to disk so the content is only read once
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size;
+            size = Files.copy(new DigestInputStream(content, digest), tempFile);
+            String contentHash = HexFormat.of().formatHex(digest.digest());
 
-            Path filePath = userDir.resolve(uniqueFileName);
+            Path blobPath = Paths.get(storagePath, BLOB_DIR, contentHash.substring(0, 2),
+                    contentHash + getFileExtension(fileName));
 
-            // Save file
-            Files.copy(file.getInputStream(), filePath);
+            // Take the reference before checking the file, so a concurrent release cannot remove it unseen
+            StoredBlob blob = acquire(contentHash, blobPath.toString(), size);
+            Path storedPath = Paths.get(blob.getPath());
 
-            log.info("File stored successfully: {}", filePath);
+            try {
+                if (Files.exists(storedPath)) {
+                    Files.delete(tempFile);
+                    log.info("File deduplicated: {} (references: {})", storedPath, blob.getRefCount());
+                } else {
+                    Files.createDirectories(storedPath.getParent());
+                    moveIntoPlace(tempFile, storedPath);
+                    log.info("File stored successfully: {}", storedPath);
+                }
+            } catch (IOException e) {
+                // Give the reference back, or the blob could never be reclaimed
+                releaseFile(storedPath.toString());
+                throw e;
+            }
 
-            return filePath.toString();
+            return new StoredFile(storedPath.toString(), contentHash, size);
 
-        } catch (IOException e) {
+        } catch (IOException | NoSuchAlgorithmException e) {
             log.error("Error storing file: {}", e.getMessage());
+            deleteQuietly(tempFile);
             throw new RuntimeException("Failed to store file: " + e.getMessage());
         }
     }
 
+    /**
+     * Opens a stored file for reading its CSV content, decompressing it if it is gzip.
+     */
+    public InputStream openFile(String filePath) throws IOException {
+        return CompressedInput.decompress(Files.newInputStream(Paths.get(filePath)));
+    }
+
+    /**
+     * Size of the CSV content of a stored file. For gzip files this is taken from the
+     * trailer, which records the uncompressed length of the last member modulo 2^32, so it
+     * is an estimate for sizing work, not a limit to rely on.
+     */
+    public long contentSize(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath))) {
+            long size = channel.size();
+            ByteBuffer head = ByteBuffer.allocate(2);
+            channel.read(head, 0);
+            if (size < 18 || !CompressedInput.isGzip(head.array())) {
+                return size;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(trailer, size - Integer.BYTES);
+            return Integer.toUnsignedLong(trailer.getInt(0));
+        }
+    }
+
+    /**
+     * Drops one reference to a stored file and deletes it once nothing refers to it.
+     */
+    public void releaseFile(String filePath) {
+        Path path = Paths.get(filePath);
+        String contentHash = contentHashOf(path);
+
+        // Files stored before content addressing have no blob record
+        if (contentHash == null) {
+            deleteFile(filePath);
+            return;
+        }
+
+        if (storedBlobRepository.release(contentHash) > 0) {
+            return;
+        }
+
+        // Claim the deletion before touching the file; an upload that referenced the blob again
+        // in the meantime keeps it
+        if (!storedBlobRepository.claimDeletion(contentHash, LocalDateTime.now())) {
+            return;
+        }
+        deleteFile(filePath);
+        storedBlobRepository.removeDeleted(contentHash);
+    }
+
+    /**
+     * Acquires a blob, waiting while a release deletes its file.
+     */
+    private StoredBlob acquire(String contentHash, String path, long size) throws IOException {
+        while (true) {
+            StoredBlob blob = storedBlobRepository.acquire(contentHash, path, size);
+            if (blob != null) {
+                return blob;
+            }
+            storedBlobRepository.removeStaleDeletion(contentHash, LocalDateTime.now().minus(DELETION_TIMEOUT));
+            try {
+                Thread.sleep(ACQUIRE_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for blob " + contentHash + " to be deleted");
+            }
+        }
+    }
+
     public void deleteFile(String filePath) {
         try {
             Path path = Paths.get(filePath);
@@ -56,6 +193,36 @@ public class FileStorageService {
         }
     }
 
+    private void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another request stored the same content first
+            Files.delete(source);
+        }
+    }
+
+    private String contentHashOf(Path path) {
+        Path parent = path.getParent();
+        if (parent == null || parent.getParent() == null || !BLOB_DIR.equals(parent.getParent().getFileName().toString())) {
+            return null;
+        }
+        String fileName = path.getFileName().toString();
+        int dot = fileName.indexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Error deleting temporary file {}: {}", path, e.getMessage());
+        }
+    }
+
     private String getFileExtension(String fileName) {
         if (fileName == null || !fileName.contains(".")) {
             return "";
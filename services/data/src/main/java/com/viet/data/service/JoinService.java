@@ -0,0 +1,330 @@
+package com.viet.data.service;
+
+import com.viet.data.dto.dtos.DatasetDTO;
+import com.viet.data.dto.dtos.StoredFile;
+import com.viet.data.dto.request.JoinRequest;
+import com.viet.data.exception.DataProcessingException;
+import com.viet.data.exception.DatasetNotFoundException;
+import com.viet.data.exception.MemoryBudgetExceededException;
+import com.viet.data.join.HashJoin;
+import com.viet.data.join.JoinKey;
+import com.viet.data.module.ColumnMetadata;
+import com.viet.data.module.Dataset;
+import com.viet.data.processor.CSVProcessor;
+import com.viet.data.repository.DatasetRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Equi-joins two datasets of one user with {@link HashJoin}. Rows are streamed from the stored
+ * CSV chunks, since text columns of high cardinality are not kept in the column files; the
+ * smaller dataset is the build side. The result either becomes a new dataset of the user or is
+ * streamed back as CSV.
+ * <p>
+ * The result has every left column followed by every right column but the right key. Right
+ * column names that collide with a left one get a {@code right_} prefix.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JoinService {
+
+    // Last line of a streamed result cut off at the row limit
+    public static final String TRUNCATED_MARKER = "# ERROR: truncated";
+
+    private static final String TEMP_DIR = "tmp";
+    private static final String RIGHT_PREFIX = "right_";
+
+    private final DatasetRepository datasetRepository;
+    private final CSVProcessor csvProcessor;
+    private final FileStorageService fileStorageService;
+    private final DataProcessingService dataProcessingService;
+    private final MemoryGovernor memoryGovernor;
+
+    @Value("${app.file.storage.path:./uploads}")
+    private String storagePath;
+
+    // Heap for the build side's hash table; larger build sides are partitioned on disk
+    @Value("${app.join.memory-budget-bytes:67108864}")
+    private long memoryBudgetBytes;
+
+    @Value("${app.join.max-output-rows:10000000}")
+    private long maxOutputRows;
+
+    /**
+     * A validated join holding its memory reservation until closed.
+     */
+    public static final class JoinPlan implements AutoCloseable {
+        private final Dataset left;
+        private final Dataset right;
+        private final int leftKey;
+        private final int rightKey;
+        private final JoinKey key;
+        private final HashJoin.Type type;
+        private final List<String> headers;
+        private final String fileName;
+        private final long budget;
+        private final MemoryGovernor.Reservation reservation;
+
+        private JoinPlan(Dataset left, Dataset right, int leftKey, int rightKey, JoinKey key, HashJoin.Type type,
+                         List<String> headers, String fileName, long budget, MemoryGovernor.Reservation reservation) {
+            this.left = left;
+            this.right = right;
+            this.leftKey = leftKey;
+            this.rightKey = rightKey;
+            this.key = key;
+            this.type = type;
+            this.headers = headers;
+            this.fileName = fileName;
+            this.budget = budget;
+            this.reservation = reservation;
+        }
+
+        /**
+         * File name of the result, ending in {@code .csv}.
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        @Override
+        public void close() {
+            reservation.close();
+        }
+    }
+
+    /**
+     * Validates a join and reserves its memory, so it can be rejected before any output is written.
+     *
+     * @throws DatasetNotFoundException     if either dataset is not the user's
+     * @throws IllegalArgumentException     if a key column does not exist
+     * @throws MemoryBudgetExceededException if the server is too busy
+     */
+    public JoinPlan plan(JoinRequest request, String userId) {
+        Dataset left = findDataset(request.getLeftDatasetId(), userId);
+        Dataset right = findDataset(request.getRightDatasetId(), userId);
+        int leftKey = columnIndex(left, request.getLeftKey());
+        int rightKey = columnIndex(right, request.getRightKey() != null ? request.getRightKey() : request.getLeftKey());
+        HashJoin.Type type = request.getJoinType() == JoinRequest.JoinType.LEFT ? HashJoin.Type.LEFT : HashJoin.Type.INNER;
+        JoinKey key = JoinKey.of(left.getColumns().get(leftKey), right.getColumns().get(rightKey));
+        List<String> headers = outputHeaders(left, right, rightKey);
+        String fileName = fileName(request, left, right);
+
+        // The build side never needs more than its parse footprint, so small joins reserve little
+        Dataset build = buildIsLeft(left, right) ? left : right;
+        long estimate = memoryGovernor.estimateParse(build.getFileSize() != null ? build.getFileSize() : 0,
+                build.getColumns().size());
+        long budget = Math.min(memoryBudgetBytes, estimate);
+        MemoryGovernor.Reservation reservation = memoryGovernor.reserve("join", budget);
+        return new JoinPlan(left, right, leftKey, rightKey, key, type, headers, fileName, budget, reservation);
+    }
+
+    /**
+     * Runs a planned join and writes the result as CSV with a header row.
+     *
+     * @throws DataProcessingException if the result exceeds the configured row limit
+     */
+    public long write(JoinPlan plan, OutputStream out) throws IOException {
+        return write(plan, out, false);
+    }
+
+    /**
+     * Runs a planned join into a response that is already committed. A result over the row limit
+     * is cut off there and ends with a {@value #TRUNCATED_MARKER} comment line giving the limit,
+     * since the status can no longer report it.
+     */
+    public long stream(JoinPlan plan, OutputStream out) throws IOException {
+        return write(plan, out, true);
+    }
+
+    private long write(JoinPlan plan, OutputStream out, boolean truncate) throws IOException {
+        long startTime = System.currentTimeMillis();
+        boolean buildIsLeft = buildIsLeft(plan.left, plan.right);
+        Dataset build = buildIsLeft ? plan.left : plan.right;
+        Dataset probe = buildIsLeft ? plan.right : plan.left;
+        HashJoin join = new HashJoin(plan.key, plan.type, buildIsLeft,
+                buildIsLeft ? plan.leftKey : plan.rightKey, buildIsLeft ? plan.rightKey : plan.leftKey,
+                plan.budget, Paths.get(storagePath, TEMP_DIR));
+
+        int leftWidth = plan.left.getColumns().size();
+        String[] record = new String[plan.headers.size()];
+        long[] rows = {0};
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(plan.headers.toArray(new String[0])));
+        boolean truncated = false;
+        try {
+            join.run(rowSource(build), rowsOf(build), rowSource(probe), (leftRow, rightRow) -> {
+                if (rows[0] == maxOutputRows) {
+                    throw truncate ? new RowLimitReached()
+                            : new DataProcessingException("Join result exceeds " + maxOutputRows + " rows");
+                }
+                rows[0]++;
+                for (int column = 0; column < leftWidth; column++) {
+                    record[column] = leftRow[column];
+                }
+                for (int column = 0, at = leftWidth; column < plan.right.getColumns().size(); column++) {
+                    if (column != plan.rightKey) {
+                        record[at++] = rightRow != null ? rightRow[column] : null;
+                    }
+                }
+                try {
+                    printer.printRecord((Object[]) record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RowLimitReached e) {
+            truncated = true;
+            writer.write(TRUNCATED_MARKER + ", join result exceeds " + maxOutputRows + " rows\r\n");
+        }
+        printer.flush();
+        if (truncated) {
+            log.warn("Streamed join of datasets {} and {} cut off at {} rows",
+                    plan.left.getId(), plan.right.getId(), maxOutputRows);
+        }
+
+        log.info("Joined datasets {} and {} on {} ({} key, {}): {} rows in {} ms, {} spill partitions",
+                plan.left.getId(), plan.right.getId(), plan.headers.get(plan.leftKey), plan.key.describe(),
+                plan.type, rows[0], System.currentTimeMillis() - startTime, join.getPartitionCount());
+        return rows[0];
+    }
+
+    /**
+     * Stops a streamed join at the row limit; carries no stack trace, as it is not an error here.
+     */
+    private static final class RowLimitReached extends RuntimeException {
+        RowLimitReached() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Joins two datasets into a new dataset of the user.
+     */
+    public DatasetDTO joinToDataset(JoinRequest request, String userId, String userRole) {
+        Path tempFile = Paths.get(storagePath, TEMP_DIR, "join-" + UUID.randomUUID() + ".csv");
+        StoredFile storedFile;
+        String fileName;
+        try {
+            // The join's reservation is released before the result is profiled, which reserves its own
+            try (JoinPlan plan = plan(request, userId)) {
+                fileName = plan.getFileName();
+                Files.createDirectories(tempFile.getParent());
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                    write(plan, out);
+                }
+            }
+            try (InputStream in = Files.newInputStream(tempFile)) {
+                storedFile = fileStorageService.storeFile(in, fileName);
+            }
+        } catch (IOException e) {
+            throw new DataProcessingException("Failed to join datasets: " + e.getMessage(), e);
+        } finally {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.warn("Error deleting temporary join file {}: {}", tempFile, e.getMessage());
+            }
+        }
+        return dataProcessingService.ingestDerivedFile(fileName, storedFile, userId, userRole);
+    }
+
+    private Dataset findDataset(String datasetId, String userId) {
+        return datasetRepository.findByIdAndUserId(datasetId, userId)
+                .orElseThrow(() -> new DatasetNotFoundException("Dataset not found: " + datasetId));
+    }
+
+    private int columnIndex(Dataset dataset, String name) {
+        List<ColumnMetadata> columns = dataset.getColumns();
+        for (int column = 0; column < columns.size(); column++) {
+            if (columns.get(column).getName().equals(name)) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException("Column not found in dataset " + dataset.getId() + ": " + name);
+    }
+
+    private static boolean buildIsLeft(Dataset left, Dataset right) {
+        return rowsOf(left) <= rowsOf(right);
+    }
+
+    private static long rowsOf(Dataset dataset) {
+        return dataset.getRowCount() != null ? dataset.getRowCount() : 0;
+    }
+
+    private static List<String> outputHeaders(Dataset left, Dataset right, int rightKey) {
+        List<String> headers = new ArrayList<>();
+        Set<String> taken = new HashSet<>();
+        for (ColumnMetadata column : left.getColumns()) {
+            headers.add(column.getName());
+            // Headers are matched without regard to case when the result is read back
+            taken.add(column.getName().toLowerCase(Locale.ROOT));
+        }
+        for (int column = 0; column < right.getColumns().size(); column++) {
+            if (column == rightKey) {
+                continue;
+            }
+            String name = right.getColumns().get(column).getName();
+            while (!taken.add(name.toLowerCase(Locale.ROOT))) {
+                name = RIGHT_PREFIX + name;
+            }
+            headers.add(name);
+        }
+        return headers;
+    }
+
+    private String fileName(JoinRequest request, Dataset left, Dataset right) {
+        String name = request.getName() != null && !request.getName().isBlank()
+                ? request.getName().trim()
+                : baseName(left) + "-join-" + baseName(right);
+        return name.toLowerCase(Locale.ROOT).endsWith(".csv") ? name : name + ".csv";
+    }
+
+    private String baseName(Dataset dataset) {
+        String name = dataset.getOriginalFileName() != null ? dataset.getOriginalFileName() : dataset.getId();
+        int dot = name.indexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * Rows of every stored chunk in column order, with empty values as null.
+     */
+    private HashJoin.RowSource rowSource(Dataset dataset) {
+        List<String> names = dataset.getColumns().stream().map(ColumnMetadata::getName).toList();
+        List<String> chunkPaths = dataset.getChunkPaths() != null
+                ? dataset.getChunkPaths()
+                : List.of(dataset.getStoragePath());
+        return action -> {
+            for (String chunkPath : chunkPaths) {
+                try (InputStream in = fileStorageService.openFile(chunkPath)) {
+                    csvProcessor.forEachRecord(in, record -> action.accept(toRow(record, names)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private static String[] toRow(CSVRecord record, List<String> names) {
+        String[] row = new String[names.size()];
+        for (int column = 0; column < row.length; column++) {
+            String value = record.isSet(names.get(column)) ? record.get(names.get(column)) : null;
+            row[column] = value == null || value.isEmpty() ? null : value;
+        }
+        return row;
+    }
+}
@@ -0,0 +1,139 @@
+package com.viet.data.service;
+
+import com.viet.data.dto.request.AnalysisRequest;
+import com.viet.data.exception.MemoryBudgetExceededException;
+import com.viet.data.module.Dataset;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control for memory-heavy work. Each parse or analysis reserves its estimated
+ * heap footprint from a global budget before it starts; work that cannot get a reservation
+ * within the queue timeout is rejected instead of risking an OutOfMemoryError.
+ */
+@Component
+@Slf4j
+public class MemoryGovernor {
+
+    private static final long PERMIT_BYTES = 1024;
+
+    // Column vectors take at most 8 bytes a cell, a few times the raw CSV size; distinct
+    // strings are held once more in the dictionaries
+    private static final long PARSE_BYTES_PER_FILE_BYTE = 4;
+    private static final long SKETCH_BYTES_PER_COLUMN = 96 * 1024;
+    private static final long BASE_OPERATION_BYTES = 1024 * 1024;
+    private static final long CORRELATION_BYTES_PER_PAIR = 256;
+    // Aggregates, sort keys and the result entry of a group, plus its sums in each stratum of a sample
+    private static final long GROUP_BYTES = 256;
+    private static final long GROUP_BYTES_PER_STRATUM = 32;
+    // A text cell read back from the CSV: its string, dictionary entry and code
+    private static final long TEXT_CELL_BYTES = 112;
+
+    private final Semaphore permits;
+    private final int totalPermits;
+    private final long queueTimeoutMs;
+    private final long retryAfterSeconds;
+
+    public MemoryGovernor(@Value("${app.memory.budget-bytes:0}") long budgetBytes,
+                          @Value("${app.memory.budget-fraction:0.5}") double budgetFraction,
+                          @Value("${app.memory.queue-timeout-ms:5000}") long queueTimeoutMs,
+                          @Value("${app.memory.retry-after-seconds:5}") long retryAfterSeconds) {
+        long budget = budgetBytes > 0 ? budgetBytes : (long) (Runtime.getRuntime().maxMemory() * budgetFraction);
+        this.totalPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budget / PERMIT_BYTES));
+        this.permits = new Semaphore(totalPermits, true);
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        log.info("Memory budget for processing: {} MB", totalPermits / 1024);
+    }
+
+    /**
+     * Waits up to the queue timeout for {@code bytes} of budget. Requests larger than the whole
+     * budget are clamped to it, so they still run, just alone.
+     */
+    public Reservation reserve(String operation, long bytes) {
+        int needed = (int) Math.min(totalPermits, Math.max(1, (bytes + PERMIT_BYTES - 1) / PERMIT_BYTES));
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(needed, queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            log.warn("Rejecting {}: needs {} KB, {} KB of {} KB available",
+                    operation, needed, permits.availablePermits(), totalPermits);
+            throw new MemoryBudgetExceededException(
+                    "Server is busy processing other data; retry " + operation + " shortly", retryAfterSeconds);
+        }
+        return new Reservation(needed);
+    }
+
+    public long estimateParse(long fileBytes, int columnCount) {
+        return BASE_OPERATION_BYTES + fileBytes * PARSE_BYTES_PER_FILE_BYTE + columnCount * SKETCH_BYTES_PER_COLUMN;
+    }
+
+    public long estimateAnalysis(Dataset dataset, AnalysisRequest.AnalysisType analysisType) {
+        int columnCount = dataset.getColumnCount() != null ? dataset.getColumnCount() : 0;
+        long estimate = BASE_OPERATION_BYTES + columnCount * SKETCH_BYTES_PER_COLUMN;
+
+        // Row-level analyses scan memory-mapped columns, which live outside the heap;
+        // only the correlation matrix grows with the column count
+        if (analysisType == AnalysisRequest.AnalysisType.CORRELATION_ANALYSIS) {
+            long numericColumns = numericColumnCount(dataset);
+            estimate += numericColumns * numericColumns * CORRELATION_BYTES_PER_PAIR;
+        }
+        return estimate;
+    }
+
+    /**
+     * A group-by over {@code groups} key values and {@code rows} rows; {@code strata} is the
+     * number of strata of a sample it estimates from, or 0 for an exact run.
+     */
+    public long estimateGroupBy(long groups, int strata, long rows) {
+        // The row filter is a bitmap
+        return BASE_OPERATION_BYTES + groups * (GROUP_BYTES + strata * GROUP_BYTES_PER_STRATUM) + rows / 8;
+    }
+
+    /**
+     * {@code rows} rows of {@code columns} text columns read from the stored CSV of a dataset.
+     */
+    public long estimateTextPage(Dataset dataset, int columns, int rows) {
+        // Cells are sized from the average of the stored file, as UTF-16 chars at worst
+        long fileBytes = dataset.getFileSize() != null ? dataset.getFileSize() : 0;
+        long rowCount = dataset.getRowCount() != null ? Math.max(1, dataset.getRowCount()) : 1;
+        long columnCount = dataset.getColumnCount() != null ? Math.max(1, dataset.getColumnCount()) : 1;
+        long cells = rowCount * columnCount;
+        return BASE_OPERATION_BYTES + (long) columns * rows * (TEXT_CELL_BYTES + 2 * fileBytes / cells);
+    }
+
+    private long numericColumnCount(Dataset dataset) {
+        if (dataset.getColumns() == null) {
+            return 0;
+        }
+        return dataset.getColumns().stream()
+                .filter(column -> Boolean.TRUE.equals(column.getIsNumeric()))
+                .count();
+    }
+
+    public final class Reservation implements AutoCloseable {
+        private final int permitCount;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(int permitCount) {
+            this.permitCount = permitCount;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release(permitCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.viet.data.service;
+
+import com.viet.data.dto.request.AnalysisRequest;
+import com.viet.data.jfr.DataPipelineEvent;
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for each stage of the upload and analysis pipeline:
+ * <ul>
+ *   <li>{@code data.pipeline.stage}: a timer tagged by stage, analysis type, size bucket and outcome,
+ *       publishing a percentile histogram</li>
+ *   <li>{@code data.pipeline.bytes}: bytes that went through successful stages</li>
+ *   <li>{@code data.pipeline.throughput}: rows per second of each successful stage that handles rows</li>
+ *   <li>{@code data.pipeline.in.flight}: stages currently running</li>
+ * </ul>
+ * Meters are looked up once per tag combination and cached, so recording costs a map lookup
+ * and a few atomic updates. Percentiles are computed by the monitoring backend from the
+ * histogram buckets, so they aggregate across instances and tags. Each run is also a
+ * {@link DataPipelineEvent} for Flight Recorder.
+ */
+@Component
+public class PipelineMetrics {
+
+    public enum Stage {
+        VALIDATE,
+        STORE,
+        PARSE,
+        STATISTICS,
+        SAVE,
+        ANALYSIS;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    static final String STAGE_TIMER = "data.pipeline.stage";
+    static final String BYTES = "data.pipeline.bytes";
+    static final String THROUGHPUT = "data.pipeline.throughput";
+    static final String IN_FLIGHT = "data.pipeline.in.flight";
+
+    private static final String NO_TYPE = "none";
+    private static final long MB = 1024 * 1024;
+    // Bounds of the histogram buckets: from a validation to a parse of the largest upload
+    private static final Duration MIN_EXPECTED_STAGE_TIME = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED_STAGE_TIME = Duration.ofMinutes(10);
+
+    private final MeterRegistry registry;
+    private final Map<Stage, AtomicInteger> inFlight = new EnumMap<>(Stage.class);
+    private final ConcurrentMap<MeterKey, StageMeters> meters = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            inFlight.put(stage, registry.gauge(IN_FLIGHT, Tags.of("stage", stage.tag), new AtomicInteger()));
+        }
+    }
+
+    public StageTimer start(Stage stage, long bytes) {
+        return new StageTimer(stage, NO_TYPE, bytes);
+    }
+
+    public StageTimer start(Stage stage, AnalysisRequest.AnalysisType type, long bytes) {
+        StageTimer timer = new StageTimer(stage, type.name(), bytes);
+        timer.event.analysisType(type.name());
+        return timer;
+    }
+
+    /**
+     * Times {@code action} as one run of {@code stage} that does not count rows.
+     */
+    public <T> T time(Stage stage, long bytes, Supplier<T> action) {
+        try (StageTimer timer = start(stage, bytes)) {
+            T result = action.get();
+            timer.complete();
+            return result;
+        }
+    }
+
+    public void time(Stage stage, long bytes, Runnable action) {
+        time(stage, bytes, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Mean rows per second of the successful runs of an analysis type so far, or NaN before
+     * the first one.
+     */
+    public double observedThroughput(AnalysisRequest.AnalysisType type) {
+        double total = 0;
+        long count = 0;
+        for (Map.Entry<MeterKey, StageMeters> entry : meters.entrySet()) {
+            MeterKey key = entry.getKey();
+            if (key.stage() == Stage.ANALYSIS && key.type().equals(type.name()) && key.success()) {
+                total += entry.getValue().throughput().totalAmount();
+                count += entry.getValue().throughput().count();
+            }
+        }
+        return count > 0 ? total / count : Double.NaN;
+    }
+
+    static String sizeBucket(long bytes) {
+        if (bytes < MB) {
+            return "lt1mb";
+        }
+        if (bytes < 10 * MB) {
+            return "1-10mb";
+        }
+        return bytes < 50 * MB ? "10-50mb" : "gte50mb";
+    }
+
+    private StageMeters meters(MeterKey key) {
+        return meters.computeIfAbsent(key, this::register);
+    }
+
+    private StageMeters register(MeterKey key) {
+        Tags tags = Tags.of("stage", key.stage().tag, "type", key.type(), "size", key.size());
+        Timer timer = Timer.builder(STAGE_TIMER)
+                .description("Time spent in one upload or analysis pipeline stage")
+                .tags(tags)
+                .tag("outcome", key.success() ? "success" : "error")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED_STAGE_TIME)
+                .maximumExpectedValue(MAX_EXPECTED_STAGE_TIME)
+                .register(registry);
+        Counter bytes = Counter.builder(BYTES)
+                .description("Bytes handled by successful pipeline stages")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+        DistributionSummary throughput = DistributionSummary.builder(THROUGHPUT)
+                .description("Rows per second of successful pipeline stages")
+                .baseUnit("rows/s")
+                .tags(tags)
+                .register(registry);
+        return new StageMeters(timer, bytes, throughput);
+    }
+
+    private record MeterKey(Stage stage, String type, String size, boolean success) {
+    }
+
+    private record StageMeters(Timer timer, Counter bytes, DistributionSummary throughput) {
+    }
+
+    /**
+     * One run of a stage, recorded when closed. Runs closed without {@link #complete} are
+     * recorded as errors.
+     */
+    public final class StageTimer implements AutoCloseable {
+        private final Stage stage;
+        private final String type;
+        private final long bytes;
+        private final long startNanos;
+        private final DataPipelineEvent event;
+        private long rows = -1;
+        private boolean completed;
+
+        private StageTimer(Stage stage, String type, long bytes) {
+            this.stage = stage;
+            this.type = type;
+            this.bytes = bytes;
+            inFlight.get(stage).incrementAndGet();
+            this.event = DataPipelineEvent.start(stage.tag).bytes(bytes);
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Describes the dataset in the Flight Recorder event; the meters are not tagged by dataset.
+         * Rows passed to {@link #complete(long)} take precedence.
+         */
+        public StageTimer dataset(String datasetId, long rows, int columns) {
+            event.datasetId(datasetId).rows(rows).columns(columns);
+            return this;
+        }
+
+        public void complete() {
+            completed = true;
+        }
+
+        public void complete(long rows) {
+            this.rows = rows;
+            completed = true;
+        }
+
+        @Override
+        public void close() {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            inFlight.get(stage).decrementAndGet();
+
+            event.end();
+            if (event.shouldCommit()) {
+                if (completed) {
+                    event.succeeded();
+                }
+                if (rows >= 0) {
+                    event.rows(rows);
+                }
+                event.commit();
+            }
+
+            StageMeters stageMeters = meters(new MeterKey(stage, type, sizeBucket(bytes), completed));
+            stageMeters.timer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+            if (!completed) {
+                return;
+            }
+            stageMeters.bytes().increment(bytes);
+            if (rows >= 0 && elapsedNanos > 0) {
+                stageMeters.throughput().record(rows * 1e9 / elapsedNanos);
+            }
+        }
+    }
+}
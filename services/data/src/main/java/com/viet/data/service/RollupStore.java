@@ -0,0 +1,88 @@
+package com.viet.data.service;
+
+import com.viet.data.column.ColumnFile;
+import com.viet.data.column.LongColumn;
+import com.viet.data.module.ColumnMetadata;
+import com.viet.data.module.Dataset;
+import com.viet.data.processor.TemporalFormat;
+import com.viet.data.sketch.SketchBundle;
+import com.viet.data.sketch.TimeRollup;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Daily rollups of a dataset against its date and date-time columns. Ingestion stores them in
+ * the sketch bundle; datasets profiled before rollups existed, or whose rollup was dropped
+ * when an append could not merge it, get theirs built from the decoded columns once per version.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RollupStore {
+
+    private static final int CACHE_SIZE = 32;
+
+    private final ColumnStore columnStore;
+
+    private final Map<String, Map<String, TimeRollup>> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, TimeRollup>> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    /**
+     * Returns the daily rollup of every time column that has one, keyed by column name.
+     */
+    public Map<String, TimeRollup> load(Dataset dataset, SketchBundle sketches) {
+        String key = cacheKey(dataset);
+        Map<String, TimeRollup> cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Map<String, TimeRollup> rollups = new LinkedHashMap<>();
+        ColumnFile columns = null;
+        for (ColumnMetadata column : dataset.getColumns()) {
+            TemporalFormat format = TemporalFormat.of(column);
+            if (format == null) {
+                continue;
+            }
+            TimeRollup rollup = sketches != null ? sketches.getRollup(column.getName()) : null;
+            if (rollup == null) {
+                columns = columns != null ? columns : columnStore.open(dataset);
+                LongColumn time = columns.getLongColumn(column.getName());
+                long startTime = System.currentTimeMillis();
+                rollup = time != null
+                        ? TimeRollup.build(time, format.getDataType() == ColumnMetadata.DataType.DATETIME,
+                                columns.getNumericColumns())
+                        : null;
+                log.info("Rolled up dataset {} by {} in {} ms", dataset.getId(), column.getName(),
+                        System.currentTimeMillis() - startTime);
+            }
+            if (rollup != null) {
+                rollups.put(column.getName(), rollup);
+            }
+        }
+
+        rollups = Collections.unmodifiableMap(rollups);
+        cache.put(key, rollups);
+        return rollups;
+    }
+
+    public void delete(String datasetId) {
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> key.startsWith(datasetId + "@"));
+        }
+    }
+
+    private String cacheKey(Dataset dataset) {
+        return dataset.getId() + "@" + dataset.getUpdatedAt();
+    }
+}
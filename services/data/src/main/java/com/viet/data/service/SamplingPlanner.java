@@ -0,0 +1,145 @@
+package com.viet.data.service;
+
+import com.viet.data.column.StratifiedSample;
+import com.viet.data.dto.request.AnalysisRequest;
+import com.viet.data.dto.response.SamplingInfo;
+import com.viet.data.module.Dataset;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Chooses between exact execution and execution on the stratified sample of a dataset.
+ * The {@code approximate} option is {@code true}, {@code false} or {@code auto} (the default);
+ * in auto mode the sample is used when the exact run is predicted to miss the latency target,
+ * predicting from the rows per second earlier runs of the same analysis achieved.
+ * Datasets no larger than the sample always run exactly.
+ */
+@Component
+@RequiredArgsConstructor
+public class SamplingPlanner {
+
+    public static final String APPROXIMATE = "approximate";
+    public static final String LATENCY_TARGET = "latencyTargetMs";
+
+    private final PipelineMetrics pipelineMetrics;
+
+    @Value("${app.analysis.sample.rows:100000}")
+    private long sampleRows;
+
+    @Value("${app.analysis.approximate.latency-target-ms:200}")
+    private long defaultLatencyTargetMs;
+
+    // Used until an analysis type has run once, and for group-bys
+    @Value("${app.analysis.approximate.default-rows-per-second:50000000}")
+    private double defaultRowsPerSecond;
+
+    private enum Mode {
+        AUTO,
+        EXACT,
+        APPROXIMATE
+    }
+
+    public record Plan(boolean sampled, String reason, long latencyTargetMs, Long estimatedExactMs) {
+    }
+
+    /**
+     * Plans an analysis from the {@code approximate} and {@code latencyTargetMs} request parameters.
+     *
+     * @throws IllegalArgumentException for an unrecognised parameter value
+     */
+    public Plan planAnalysis(Dataset dataset, AnalysisRequest request) {
+        Map<String, Object> parameters = request.getParameters() != null ? request.getParameters() : Map.of();
+        Mode mode = parseMode(parameters.get(APPROXIMATE));
+        long targetMs = parseLatencyTarget(parameters.get(LATENCY_TARGET));
+
+        switch (request.getAnalysisType()) {
+            case CORRELATION_ANALYSIS:
+                double observed = pipelineMetrics.observedThroughput(request.getAnalysisType());
+                return plan(dataset, mode, targetMs, Double.isNaN(observed) ? defaultRowsPerSecond : observed);
+
+            case DESCRIPTIVE_STATS:
+                return exact("Descriptive statistics are read from the dataset sketches without scanning rows",
+                        targetMs);
+
+            default:
+                return exact("Only correlations and group-bys can run on the sample", targetMs);
+        }
+    }
+
+    public Plan planGroupBy(Dataset dataset, String approximate, Long latencyTargetMs) {
+        return plan(dataset, parseMode(approximate), parseLatencyTarget(latencyTargetMs), defaultRowsPerSecond);
+    }
+
+    public SamplingInfo describe(Plan plan, StratifiedSample sample) {
+        SamplingInfo.SamplingInfoBuilder info = SamplingInfo.builder()
+                .approximate(plan.sampled())
+                .reason(plan.reason())
+                .latencyTargetMs(plan.latencyTargetMs())
+                .estimatedExactMs(plan.estimatedExactMs());
+        if (sample != null) {
+            info.sampleRows((long) sample.getRowCount())
+                    .populationRows(sample.getPopulationRows())
+                    .strataColumn(sample.getStrataColumn())
+                    .confidenceLevel(StratifiedSample.CONFIDENCE_LEVEL);
+        }
+        return info.build();
+    }
+
+    private Plan plan(Dataset dataset, Mode mode, long targetMs, double rowsPerSecond) {
+        long rows = dataset.getRowCount() != null ? dataset.getRowCount() : 0;
+        if (mode == Mode.EXACT) {
+            return exact("Exact execution was requested", targetMs);
+        }
+        if (rows <= sampleRows) {
+            return exact("The dataset is no larger than its sample", targetMs);
+        }
+        if (mode == Mode.APPROXIMATE) {
+            return new Plan(true, "Approximate execution was requested", targetMs, null);
+        }
+
+        long estimatedMs = (long) Math.ceil(rows * 1000.0 / rowsPerSecond);
+        return estimatedMs > targetMs
+                ? new Plan(true, "Exact execution would exceed the latency target", targetMs, estimatedMs)
+                : new Plan(false, "Exact execution fits the latency target", targetMs, estimatedMs);
+    }
+
+    private Plan exact(String reason, long targetMs) {
+        return new Plan(false, reason, targetMs, null);
+    }
+
+    private Mode parseMode(Object value) {
+        if (value == null) {
+            return Mode.AUTO;
+        }
+        switch (value.toString().toLowerCase(Locale.ROOT)) {
+            case "auto":
+                return Mode.AUTO;
+            case "true":
+                return Mode.APPROXIMATE;
+            case "false":
+                return Mode.EXACT;
+            default:
+                throw new IllegalArgumentException("approximate must be true, false or auto: " + value);
+        }
+    }
+
+    private long parseLatencyTarget(Object value) {
+        if (value == null) {
+            return defaultLatencyTargetMs;
+        }
+        long targetMs;
+        try {
+            targetMs = value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("latencyTargetMs must be a number of milliseconds: " + value);
+        }
+        if (targetMs <= 0) {
+            throw new IllegalArgumentException("latencyTargetMs must be positive: " + value);
+        }
+        return targetMs;
+    }
+}
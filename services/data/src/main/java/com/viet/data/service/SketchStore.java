@@ -0,0 +1,121 @@
+package com.viet.data.service;
+
+import com.viet.data.module.Dataset;
+import com.viet.data.sketch.SketchBundle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@Slf4j
+public class SketchStore {
+
+    private static final int CACHE_SIZE = 128;
+
+    @Value("${app.file.storage.path:./uploads}")
+    private String storagePath;
+
+    // Bundles above this size go to a sidecar file instead of the Mongo document
+    @Value("${app.sketch.inline-max-bytes:262144}")
+    private int inlineMaxBytes;
+
+    private final Map<String, SketchBundle> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SketchBundle> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    public void attach(Dataset dataset, SketchBundle bundle) {
+        byte[] bytes = bundle.toBytes();
+
+        if (bytes.length <= inlineMaxBytes) {
+            dataset.setSketchBundle(bytes);
+            dataset.setSketchPath(null);
+        } else {
+            // A fresh file per version, so a failed update never clobbers the current bundle
+            Path sidecar = Paths.get(storagePath, "sketches", dataset.getId() + "-" + UUID.randomUUID() + ".sketch");
+            try {
+                Files.createDirectories(sidecar.getParent());
+                Files.write(sidecar, bytes);
+            } catch (IOException e) {
+                log.error("Error writing sketch bundle for dataset {}: {}", dataset.getId(), e.getMessage());
+                throw new RuntimeException("Failed to store sketch bundle: " + e.getMessage());
+            }
+            dataset.setSketchBundle(null);
+            dataset.setSketchPath(sidecar.toString());
+        }
+
+        log.debug("Sketch bundle for dataset {}: {} bytes ({})", dataset.getId(), bytes.length,
+                dataset.getSketchPath() != null ? "sidecar" : "inline");
+
+        cache.put(cacheKey(dataset), bundle);
+    }
+
+    /**
+     * Returns the cached bundle for the dataset, or null for datasets profiled before
+     * bundles existed. Callers must not mutate the returned bundle; use {@link #loadCopy}.
+     */
+    public SketchBundle load(Dataset dataset) {
+        SketchBundle cached = cache.get(cacheKey(dataset));
+        if (cached != null) {
+            return cached;
+        }
+
+        SketchBundle bundle = loadCopy(dataset);
+        if (bundle != null) {
+            cache.put(cacheKey(dataset), bundle);
+        }
+        return bundle;
+    }
+
+    /**
+     * Decodes a private copy of the bundle that the caller may merge into.
+     */
+    public SketchBundle loadCopy(Dataset dataset) {
+        if (dataset.getSketchBundle() != null) {
+            return SketchBundle.fromBytes(dataset.getSketchBundle());
+        }
+        if (dataset.getSketchPath() != null) {
+            try {
+                return SketchBundle.fromBytes(Files.readAllBytes(Paths.get(dataset.getSketchPath())));
+            } catch (IOException e) {
+                log.error("Error reading sketch bundle for dataset {}: {}", dataset.getId(), e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    public void delete(Dataset dataset) {
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> key.startsWith(dataset.getId() + "@"));
+        }
+        deleteSidecar(dataset.getSketchPath());
+    }
+
+    public void deleteSidecar(String sketchPath) {
+        if (sketchPath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(sketchPath));
+        } catch (IOException e) {
+            log.error("Error deleting sketch bundle {}: {}", sketchPath, e.getMessage());
+        }
+    }
+
+    private String cacheKey(Dataset dataset) {
+        // Keyed by version so a dataset updated elsewhere is never served stale
+        return dataset.getId() + "@" + dataset.getUpdatedAt();
+    }
+}
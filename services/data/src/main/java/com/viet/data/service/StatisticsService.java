@@ -1,31 +1,67 @@
 package com.viet.data.service;
 
+import com.viet.data.column.DoubleColumn;
+import com.viet.data.column.NumericKernels;
+import com.viet.data.column.StratifiedSample;
 import com.viet.data.dto.response.*;
+import com.viet.data.jfr.DataPipelineEvent;
 import com.viet.data.module.ColumnMetadata;
 import com.viet.data.module.ColumnStatistics;
 import com.viet.data.module.Dataset;
+import com.viet.data.sketch.BaseHistogram;
+import com.viet.data.sketch.ColumnSketch;
+import com.viet.data.sketch.MomentSketch;
+import com.viet.data.sketch.QuantileSketch;
+import com.viet.data.sketch.SketchBundle;
+import com.viet.data.sketch.TimeRollup;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class StatisticsService {
 
+    public static final int DEFAULT_HISTOGRAM_BINS = 10;
+    private static final int MAX_VALUE_COUNTS = 20;
+    private static final int MAX_OUTLIERS_PER_COLUMN = 10;
+    private static final double OUTLIER_FENCE = 1.5;
+    private static final int MAX_TREND_PERIODS = 366;
+    private static final double MIN_TREND_R_SQUARED = 0.5;
+    private static final int MIN_SEASONAL_DAYS = 14;
+    private static final double MIN_SEASONAL_ETA_SQUARED = 0.1;
+
     public Map<String, ColumnStatistics> calculateBasicStatistics(CSVParseResult parseResult) {
+        return calculateBasicStatistics(parseResult.getColumns(), parseResult.getSketches());
+    }
+
+    public Map<String, ColumnStatistics> calculateBasicStatistics(List<ColumnMetadata> columns, SketchBundle sketches) {
+        return traced(DataPipelineEvent.start("statistics.basic").rows(sketches.getRowCount()).columns(columns.size()),
+                () -> basicStatistics(columns, sketches));
+    }
+
+    private Map<String, ColumnStatistics> basicStatistics(List<ColumnMetadata> columns, SketchBundle sketches) {
         Map<String, ColumnStatistics> stats = new HashMap<>();
 
-        for (ColumnMetadata column : parseResult.getColumns()) {
-            ColumnStatistics columnStats = calculateColumnStatistics(column, parseResult);
+        for (ColumnMetadata column : columns) {
+            ColumnStatistics columnStats = calculateColumnStatistics(column, sketches.get(column.getName()),
+                    sketches.getRowCount());
             stats.put(column.getName(), columnStats);
         }
 
         return stats;
     }
 
-    public Map<String, Object> calculateDescriptiveStats(Dataset dataset) {
+    public Map<String, Object> calculateDescriptiveStats(Dataset dataset, SketchBundle sketches) {
+        return traced(datasetEvent("statistics.descriptive", dataset), () -> descriptiveStats(dataset, sketches));
+    }
+
+    private Map<String, Object> descriptiveStats(Dataset dataset, SketchBundle sketches) {
         Map<String, Object> stats = new HashMap<>();
 
         // Dataset info
@@ -36,8 +72,10 @@ public class StatisticsService {
                 "uploadDate", dataset.getCreatedAt()
         ));
 
-        // Column statistics
-        stats.put("columnStats", dataset.getBasicStats());
+        // Column statistics, derived from the sketch bundle when the dataset has one
+        stats.put("columnStats", sketches != null
+                ? calculateBasicStatistics(dataset.getColumns(), sketches)
+                : dataset.getBasicStats());
 
         // Data quality metrics
         stats.put("dataQuality", calculateDataQualityMetrics(dataset));
@@ -53,33 +91,136 @@ public class StatisticsService {
         return stats;
     }
 
-    public Map<String, Map<String, Double>> calculateCorrelations(Dataset dataset) {
-        Map<String, Map<String, Double>> correlations = new HashMap<>();
-
-        // Get numeric columns only
-        List<ColumnMetadata> numericColumns = dataset.getColumns().stream()
-                .filter(col -> col.getIsNumeric() != null && col.getIsNumeric())
-                .collect(Collectors.toList());
-
-        // Calculate correlation matrix
-        for (ColumnMetadata col1 : numericColumns) {
-            Map<String, Double> rowCorrelations = new HashMap<>();
-            for (ColumnMetadata col2 : numericColumns) {
-                if (!col1.getName().equals(col2.getName())) {
-                    // Simulate correlation calculation
-                    double correlation = calculateSimulatedCorrelation(col1, col2);
-                    rowCorrelations.put(col2.getName(), correlation);
-                } else {
-                    rowCorrelations.put(col2.getName(), 1.0);
+    /**
+     * Pearson correlation between every pair of numeric columns, over the rows where both
+     * are present. Pairs involving a constant column are left out.
+     */
+    public Map<String, Map<String, Double>> calculateCorrelations(List<? extends DoubleColumn> columns) {
+        return traced(columnsEvent("statistics.correlations", columns), () -> correlations(columns));
+    }
+
+    private Map<String, Map<String, Double>> correlations(List<? extends DoubleColumn> columns) {
+        Map<String, Map<String, Double>> correlations = new LinkedHashMap<>();
+        columns.forEach(column -> correlations.put(column.getName(), new LinkedHashMap<>()));
+
+        for (int i = 0; i < columns.size(); i++) {
+            DoubleColumn x = columns.get(i);
+            correlations.get(x.getName()).put(x.getName(), 1.0);
+
+            for (int j = i + 1; j < columns.size(); j++) {
+                DoubleColumn y = columns.get(j);
+                double correlation = pearson(x, y);
+                if (Double.isFinite(correlation)) {
+                    double rounded = Math.round(correlation * 10000) / 10000.0;
+                    correlations.get(x.getName()).put(y.getName(), rounded);
+                    correlations.get(y.getName()).put(x.getName(), rounded);
                 }
             }
-            correlations.put(col1.getName(), rowCorrelations);
         }
 
         return correlations;
     }
 
+    /**
+     * Correlations estimated from a stratified sample, weighting each row by the population rows
+     * it stands for, with Fisher-z confidence intervals over the Kish effective sample size.
+     */
+    public SampledCorrelations estimateCorrelations(StratifiedSample sample) {
+        List<DoubleColumn> columns = sample.getNumericColumns();
+        return traced(columnsEvent("statistics.correlations.sampled", columns),
+                () -> sampledCorrelations(sample, columns));
+    }
+
+    public record SampledCorrelations(Map<String, Map<String, Double>> correlations,
+                                      Map<String, Map<String, ConfidenceInterval>> intervals) {
+    }
+
+    private SampledCorrelations sampledCorrelations(StratifiedSample sample, List<DoubleColumn> columns) {
+        Map<String, Map<String, Double>> correlations = new LinkedHashMap<>();
+        Map<String, Map<String, ConfidenceInterval>> intervals = new LinkedHashMap<>();
+        columns.forEach(column -> {
+            correlations.put(column.getName(), new LinkedHashMap<>());
+            intervals.put(column.getName(), new LinkedHashMap<>());
+        });
+
+        double[] weights = new double[sample.getRowCount()];
+        for (int row = 0; row < weights.length; row++) {
+            weights[row] = sample.getWeight(row);
+        }
+
+        for (int i = 0; i < columns.size(); i++) {
+            DoubleColumn x = columns.get(i);
+            correlations.get(x.getName()).put(x.getName(), 1.0);
+
+            for (int j = i + 1; j < columns.size(); j++) {
+                DoubleColumn y = columns.get(j);
+                double[] estimate = weightedPearson(x, y, weights);
+                double correlation = estimate[0];
+                if (!Double.isFinite(correlation)) {
+                    continue;
+                }
+                double rounded = Math.round(correlation * 10000) / 10000.0;
+                correlations.get(x.getName()).put(y.getName(), rounded);
+                correlations.get(y.getName()).put(x.getName(), rounded);
+
+                ConfidenceInterval interval = fisherInterval(correlation, estimate[1]);
+                intervals.get(x.getName()).put(y.getName(), interval);
+                intervals.get(y.getName()).put(x.getName(), interval);
+            }
+        }
+
+        return new SampledCorrelations(correlations, intervals);
+    }
+
+    /**
+     * Weighted Pearson correlation over the rows where both columns are present, with West's
+     * incremental co-moments; returns the correlation and the effective sample size.
+     */
+    private double[] weightedPearson(DoubleColumn x, DoubleColumn y, double[] weights) {
+        double weightSum = 0;
+        double weightSquares = 0;
+        double meanX = 0;
+        double meanY = 0;
+        double cxx = 0;
+        double cyy = 0;
+        double cxy = 0;
+        for (int row = 0; row < weights.length; row++) {
+            if (x.isNull(row) || y.isNull(row)) {
+                continue;
+            }
+            double w = weights[row];
+            double vx = x.get(row);
+            double vy = y.get(row);
+            weightSum += w;
+            weightSquares += w * w;
+            double dx = vx - meanX;
+            double dy = vy - meanY;
+            meanX += dx * w / weightSum;
+            meanY += dy * w / weightSum;
+            cxx += w * dx * (vx - meanX);
+            cyy += w * dy * (vy - meanY);
+            cxy += w * dx * (vy - meanY);
+        }
+        double effectiveRows = weightSquares > 0 ? weightSum * weightSum / weightSquares : 0;
+        return new double[]{cxy / Math.sqrt(cxx * cyy), effectiveRows};
+    }
+
+    private ConfidenceInterval fisherInterval(double correlation, double effectiveRows) {
+        if (effectiveRows <= 3) {
+            return new ConfidenceInterval(-1.0, 1.0);
+        }
+        double z = 0.5 * Math.log((1 + correlation) / (1 - correlation));
+        double margin = StratifiedSample.Z / Math.sqrt(effectiveRows - 3);
+        return new ConfidenceInterval(
+                Math.round(Math.tanh(z - margin) * 10000) / 10000.0,
+                Math.round(Math.tanh(z + margin) * 10000) / 10000.0);
+    }
+
     public List<DataPattern> detectPatterns(Dataset dataset) {
+        return traced(datasetEvent("statistics.patterns", dataset), () -> patterns(dataset));
+    }
+
+    private List<DataPattern> patterns(Dataset dataset) {
         List<DataPattern> patterns = new ArrayList<>();
 
         // Simulate pattern detection
@@ -104,46 +245,263 @@ public class StatisticsService {
         return patterns;
     }
 
-    public List<DataAnomaly> detectOutliers(Dataset dataset) {
+    /**
+     * Flags values outside Tukey's fences (1.5 IQR beyond the quartiles), taking the quartiles
+     * from the column sketches. Reports the most extreme values of each column.
+     */
+    public List<DataAnomaly> detectOutliers(List<? extends DoubleColumn> columns, SketchBundle sketches) {
+        return traced(columnsEvent("statistics.outliers", columns), () -> outliers(columns, sketches));
+    }
+
+    private List<DataAnomaly> outliers(List<? extends DoubleColumn> columns, SketchBundle sketches) {
         List<DataAnomaly> anomalies = new ArrayList<>();
+        if (sketches == null) {
+            return anomalies;
+        }
+
+        for (DoubleColumn column : columns) {
+            ColumnSketch sketch = sketches.get(column.getName());
+            if (sketch == null || !sketch.hasNumericProfile()) {
+                continue;
+            }
 
-        // Simulate outlier detection
-        List<ColumnMetadata> numericColumns = dataset.getColumns().stream()
-                .filter(col -> col.getIsNumeric() != null && col.getIsNumeric())
-                .collect(Collectors.toList());
-
-        for (ColumnMetadata column : numericColumns) {
-            // Simulate finding some outliers
-            if (column.getNullCount() > 0) {
-                DataAnomaly anomaly = new DataAnomaly();
-                anomaly.setColumnName(column.getName());
-                anomaly.setRowIndex(42); // Example row
-                anomaly.setValue("EXTREME_VALUE");
-                anomaly.setAnomalyScore(0.95);
-                anomaly.setReason("Value significantly deviates from mean");
-                anomalies.add(anomaly);
+            QuantileSketch quantiles = sketch.getQuantiles();
+            double q1 = quantiles.quantile(0.25);
+            double q3 = quantiles.quantile(0.75);
+            double iqr = q3 - q1;
+            if (!(iqr > 0)) {
+                continue;
             }
+            double lower = q1 - OUTLIER_FENCE * iqr;
+            double upper = q3 + OUTLIER_FENCE * iqr;
+
+            // Min-heap of the most extreme outliers seen so far
+            PriorityQueue<DataAnomaly> extremes = new PriorityQueue<>(
+                    Comparator.comparingDouble(DataAnomaly::getAnomalyScore));
+            BitSet outliers = NumericKernels.get().selectOutside(column, lower, upper);
+            long outlierCount = outliers.cardinality();
+
+            for (int row = outliers.nextSetBit(0); row >= 0; row = outliers.nextSetBit(row + 1)) {
+                double value = column.get(row);
+                double excess = value < lower ? lower - value : value - upper;
+                double score = 1 - Math.exp(-excess / iqr);
+                if (extremes.size() < MAX_OUTLIERS_PER_COLUMN) {
+                    extremes.add(new DataAnomaly(column.getName(), row, value, score, null));
+                } else if (score > extremes.peek().getAnomalyScore()) {
+                    extremes.poll();
+                    extremes.add(new DataAnomaly(column.getName(), row, value, score, null));
+                }
+            }
+
+            String reason = String.format("Outside the expected range [%.4g, %.4g]; %d outliers in column",
+                    lower, upper, outlierCount);
+            extremes.stream()
+                    .sorted(Comparator.comparingDouble(DataAnomaly::getAnomalyScore).reversed())
+                    .forEach(anomaly -> {
+                        anomaly.setAnomalyScore(Math.round(anomaly.getAnomalyScore() * 1000) / 1000.0);
+                        anomaly.setReason(reason);
+                        anomalies.add(anomaly);
+                    });
         }
 
         return anomalies;
     }
 
-    public List<DataPattern> analyzeTrends(Dataset dataset) {
+    /**
+     * Fits a linear trend to every numeric column against each time column and measures its
+     * weekly seasonality, reading only the daily rollups. The slope is the least-squares fit over
+     * all rows with time resolved to the day, which the daily sums give exactly. A trend is
+     * reported when it explains at least half the variance of the period means, at the finest
+     * granularity with no more than {@value #MAX_TREND_PERIODS} periods; seasonality when the day
+     * of week explains at least a tenth of the rows' variance around the trend line.
+     */
+    public List<DataPattern> analyzeTrends(Dataset dataset, Map<String, TimeRollup> rollups) {
+        return traced(datasetEvent("statistics.trends", dataset), () -> trends(rollups));
+    }
+
+    private List<DataPattern> trends(Map<String, TimeRollup> rollups) {
         List<DataPattern> trends = new ArrayList<>();
 
-        // Simulate trend analysis
-        if (hasTimeSeriesData(dataset)) {
-            DataPattern seasonalPattern = new DataPattern();
-            seasonalPattern.setType("SEASONALITY");
-            seasonalPattern.setDescription("Weekly seasonality pattern detected");
-            seasonalPattern.setConfidence(0.78);
-            seasonalPattern.setDetails(Map.of("period", "7 days", "amplitude", "moderate"));
-            trends.add(seasonalPattern);
+        for (Map.Entry<String, TimeRollup> entry : rollups.entrySet()) {
+            TimeRollup daily = entry.getValue();
+            TimeRollup.Granularity granularity = TimeRollup.Granularity.DAY;
+            TimeRollup periods = daily;
+            while (periods.getPeriodCount() > MAX_TREND_PERIODS && granularity != TimeRollup.Granularity.MONTH) {
+                granularity = TimeRollup.Granularity.values()[granularity.ordinal() + 1];
+                periods = daily.rollUp(granularity);
+            }
+
+            for (int column = 0; column < daily.getColumns().size(); column++) {
+                DataPattern trend = linearTrend(entry.getKey(), daily, periods, column);
+                if (trend != null) {
+                    trends.add(trend);
+                }
+                DataPattern seasonality = weeklySeasonality(entry.getKey(), daily, column);
+                if (seasonality != null) {
+                    trends.add(seasonality);
+                }
+            }
         }
 
         return trends;
     }
 
+    /**
+     * Least-squares line through every row of a column, with t in days from the first period.
+     */
+    private record LineFit(long firstDay, double intercept, double slope) {
+        double at(long day) {
+            return intercept + slope * (day - firstDay);
+        }
+    }
+
+    private LineFit fitLine(TimeRollup daily, int column) {
+        long first = daily.getPeriodCount() > 0 ? daily.getPeriod(0) : 0;
+        double n = 0, st = 0, stt = 0, sy = 0, sty = 0;
+        for (int period = 0; period < daily.getPeriodCount(); period++) {
+            long count = daily.getCount(column, period);
+            double t = daily.getPeriod(period) - first;
+            double sum = daily.getSum(column, period);
+            n += count;
+            st += count * t;
+            stt += count * t * t;
+            sy += sum;
+            sty += t * sum;
+        }
+        double sxx = n > 0 ? stt - st * st / n : 0;
+        if (sxx <= 0) {
+            return null;
+        }
+        double slope = (sty - st * sy / n) / sxx;
+        return new LineFit(first, (sy - slope * st) / n, slope);
+    }
+
+    private DataPattern linearTrend(String timeColumn, TimeRollup daily, TimeRollup periods, int column) {
+        LineFit fit = fitLine(daily, column);
+        if (fit == null) {
+            return null;
+        }
+        long first = fit.firstDay();
+        double slope = fit.slope();
+
+        // How well a line describes the period means a chart of this column would show
+        int points = 0;
+        double px = 0, py = 0, pxx = 0, pxy = 0, pyy = 0;
+        for (int period = 0; period < periods.getPeriodCount(); period++) {
+            if (periods.getCount(column, period) == 0) {
+                continue;
+            }
+            double x = periods.getPeriod(period) - first;
+            double y = periods.getMean(column, period);
+            points++;
+            px += x;
+            py += y;
+            pxx += x * x;
+            pxy += x * y;
+            pyy += y * y;
+        }
+        if (points < 3) {
+            return null;
+        }
+        double covariance = pxy - px * py / points;
+        double varianceX = pxx - px * px / points;
+        double varianceY = pyy - py * py / points;
+        double rSquared = varianceX > 0 && varianceY > 0 ? covariance * covariance / (varianceX * varianceY) : 0;
+        if (rSquared < MIN_TREND_R_SQUARED || slope == 0) {
+            return null;
+        }
+
+        String name = daily.getColumns().get(column);
+        String direction = slope > 0 ? "increasing" : "decreasing";
+        double span = daily.getPeriod(daily.getPeriodCount() - 1) - first;
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("column", name);
+        details.put("timeColumn", timeColumn);
+        details.put("direction", direction);
+        details.put("slopePerDay", slope);
+        details.put("changeOverRange", slope * span);
+        details.put("granularity", periods.getGranularity().name().toLowerCase(Locale.ROOT));
+        details.put("periods", points);
+        details.put("rSquared", Math.round(rSquared * 1000) / 1000.0);
+
+        DataPattern trend = new DataPattern();
+        trend.setType("TREND");
+        trend.setDescription(String.format("%s is %s over %s by %.4g per day", name, direction, timeColumn, slope));
+        trend.setConfidence(Math.round(rSquared * 1000) / 1000.0);
+        trend.setDetails(details);
+        return trend;
+    }
+
+    private DataPattern weeklySeasonality(String timeColumn, TimeRollup daily, int column) {
+        LineFit fit = daily.getPeriodCount() >= MIN_SEASONAL_DAYS ? fitLine(daily, column) : null;
+        if (fit == null) {
+            return null;
+        }
+
+        // Residuals from the trend line, so a trend is not mistaken for variance between weekdays
+        long[] counts = new long[7];
+        double[] residuals = new double[7];
+        double total = 0;
+        for (int period = 0; period < daily.getPeriodCount(); period++) {
+            long count = daily.getCount(column, period);
+            double line = fit.at(daily.getPeriod(period));
+            double sum = daily.getSum(column, period);
+            // Epoch day 0 was a Thursday
+            int day = (int) Math.floorMod(daily.getPeriod(period) + 3, 7);
+            counts[day] += count;
+            residuals[day] += sum - count * line;
+            if (count > 0) {
+                // Squared residuals of the day's rows: their spread plus the mean's distance from the line
+                double offset = sum / count - line;
+                total += daily.getSumOfSquaredDeviations(column, period) + count * offset * offset;
+            }
+        }
+        if (total <= 0) {
+            return null;
+        }
+
+        double between = 0;
+        int peak = -1;
+        int trough = -1;
+        for (int day = 0; day < 7; day++) {
+            if (counts[day] == 0) {
+                continue;
+            }
+            between += residuals[day] * residuals[day] / counts[day];
+            if (peak < 0 || residuals[day] / counts[day] > residuals[peak] / counts[peak]) {
+                peak = day;
+            }
+            if (trough < 0 || residuals[day] / counts[day] < residuals[trough] / counts[trough]) {
+                trough = day;
+            }
+        }
+        // Share of the detrended variance explained by the day of week (eta squared)
+        double strength = Math.min(1.0, Math.max(0.0, between / total));
+        if (strength < MIN_SEASONAL_ETA_SQUARED) {
+            return null;
+        }
+
+        String name = daily.getColumns().get(column);
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("column", name);
+        details.put("timeColumn", timeColumn);
+        details.put("period", "7 days");
+        details.put("peakDay", DayOfWeek.of(peak + 1).name());
+        details.put("peakOffset", residuals[peak] / counts[peak]);
+        details.put("troughDay", DayOfWeek.of(trough + 1).name());
+        details.put("troughOffset", residuals[trough] / counts[trough]);
+        details.put("etaSquared", Math.round(strength * 1000) / 1000.0);
+
+        DataPattern seasonality = new DataPattern();
+        seasonality.setType("SEASONALITY");
+        seasonality.setDescription(String.format("%s follows a weekly cycle, highest on %s and lowest on %s",
+                name, DayOfWeek.of(peak + 1).getDisplayName(TextStyle.FULL, Locale.ENGLISH),
+                DayOfWeek.of(trough + 1).getDisplayName(TextStyle.FULL, Locale.ENGLISH)));
+        seasonality.setConfidence(Math.round(strength * 1000) / 1000.0);
+        seasonality.setDetails(details);
+        return seasonality;
+    }
+
     public List<VisualizationSuggestion> generateVisualizationSuggestions(Dataset dataset, AnalysisResult result) {
         List<VisualizationSuggestion> suggestions = new ArrayList<>();
 
@@ -153,7 +511,7 @@ public class StatisticsService {
             histSuggestion.setChartType("histogram");
             histSuggestion.setTitle("Distribution Analysis");
             histSuggestion.setDescription("View distribution of numeric variables");
-            histSuggestion.setConfiguration(Map.of("bins", 10, "normalize", true));
+            histSuggestion.setConfiguration(Map.of("bins", DEFAULT_HISTOGRAM_BINS, "normalize", true));
             suggestions.add(histSuggestion);
 
             VisualizationSuggestion scatterSuggestion = new VisualizationSuggestion();
@@ -185,6 +543,39 @@ public class StatisticsService {
         return suggestions;
     }
 
+    public HistogramData rebinHistogram(String columnName, BaseHistogram base, int bins, HistogramData.Mode mode) {
+        if (bins < 1 || bins > base.getBinCount()) {
+            throw new IllegalArgumentException(
+                    "Bin count must be between 1 and " + base.getBinCount() + ": " + bins);
+        }
+
+        double min = base.getMin();
+        double max = base.getMax();
+        long total = base.getTotalCount();
+
+        // Constant column: everything falls into a single bin
+        if (max <= min) {
+            return new HistogramData(columnName, mode, 1, List.of(min, max), List.of(total), total);
+        }
+
+        double[] edges = new double[bins + 1];
+        edges[0] = min;
+        for (int i = 1; i < bins; i++) {
+            edges[i] = mode == HistogramData.Mode.QUANTILE
+                    ? base.valueAtRank((double) total * i / bins)
+                    : min + (max - min) * i / bins;
+        }
+        edges[bins] = max;
+
+        return new HistogramData(
+                columnName,
+                mode,
+                bins,
+                Arrays.stream(edges).boxed().collect(Collectors.toList()),
+                Arrays.stream(base.countsBetween(edges)).boxed().collect(Collectors.toList()),
+                total);
+    }
+
     public List<String> generateCorrelationInsights(Map<String, Map<String, Double>> correlations) {
         List<String> insights = new ArrayList<>();
 
@@ -212,45 +603,78 @@ public class StatisticsService {
         return insights;
     }
 
-    private ColumnStatistics calculateColumnStatistics(ColumnMetadata column, CSVParseResult parseResult) {
+    private DataPipelineEvent datasetEvent(String stage, Dataset dataset) {
+        DataPipelineEvent event = DataPipelineEvent.start(stage).datasetId(dataset.getId());
+        if (event.isEnabled()) {
+            event.rows(dataset.getRowCount() != null ? dataset.getRowCount() : 0)
+                    .columns(dataset.getColumnCount() != null ? dataset.getColumnCount() : 0)
+                    .bytes(dataset.getFileSize() != null ? dataset.getFileSize() : 0);
+        }
+        return event;
+    }
+
+    private DataPipelineEvent columnsEvent(String stage, List<? extends DoubleColumn> columns) {
+        return DataPipelineEvent.start(stage)
+                .rows(columns.isEmpty() ? 0 : columns.get(0).size())
+                .columns(columns.size());
+    }
+
+    /**
+     * Runs {@code work} inside a Flight Recorder event, committed whether or not it succeeds.
+     */
+    private <T> T traced(DataPipelineEvent event, Supplier<T> work) {
+        try {
+            T result = work.get();
+            event.succeeded();
+            return result;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private ColumnStatistics calculateColumnStatistics(ColumnMetadata column, ColumnSketch sketch, long rowCount) {
         ColumnStatistics stats = new ColumnStatistics();
         stats.setColumnName(column.getName());
         stats.setDataType(column.getDataType());
-        stats.setTotalCount((long) parseResult.getRowCount());
+        stats.setTotalCount(rowCount);
         stats.setNullCount(column.getNullCount());
         stats.setUniqueCount(column.getUniqueCount());
-        stats.setNullPercentage((double) column.getNullCount() / parseResult.getRowCount() * 100);
+        stats.setNullPercentage(rowCount > 0 ? (double) column.getNullCount() / rowCount * 100 : 0.0);
 
-        // Simulate numeric statistics
-        if (column.getIsNumeric() != null && column.getIsNumeric()) {
-            stats.setMin(0.0);
-            stats.setMax(100.0);
-            stats.setMean(50.0);
-            stats.setMedian(49.5);
-            stats.setStdDev(15.0);
-            stats.setVariance(225.0);
-            stats.setSkewness(0.1);
-            stats.setKurtosis(-0.2);
-            stats.setQuartiles(Arrays.asList(25.0, 50.0, 75.0));
+        if (sketch == null) {
+            return stats;
+        }
+
+        if (sketch.hasNumericProfile()) {
+            MomentSketch moments = sketch.getMoments();
+            QuantileSketch quantiles = sketch.getQuantiles();
+            stats.setMin(moments.getMin());
+            stats.setMax(moments.getMax());
+            stats.setMean(moments.getMean());
+            stats.setMedian(quantiles.quantile(0.5));
+            stats.setStdDev(moments.getStdDev());
+            stats.setVariance(moments.getVariance());
+            stats.setSkewness(moments.getSkewness());
+            stats.setKurtosis(moments.getKurtosis());
+            stats.setQuartiles(Arrays.asList(
+                    quantiles.quantile(0.25), quantiles.quantile(0.5), quantiles.quantile(0.75)));
+        }
+
+        if (column.getIsCategorical() != null && column.getIsCategorical()) {
+            long nonNullCount = sketch.getTotalCount() - sketch.getNullCount();
+            Map<String, Long> valueCounts = sketch.getFrequentItems().getTopItems(MAX_VALUE_COUNTS);
+            Map<String, Double> valuePercentages = new LinkedHashMap<>();
+            valueCounts.forEach((value, count) -> valuePercentages.put(value,
+                    nonNullCount > 0 ? Math.round((double) count / nonNullCount * 10000) / 100.0 : 0.0));
+            stats.setValueCounts(valueCounts);
+            stats.setValuePercentages(valuePercentages);
         }
 
         return stats;
     }
 
-    private double calculateSimulatedCorrelation(ColumnMetadata col1, ColumnMetadata col2) {
-        // Simulate correlation based on column names (for demo purposes)
-        String name1 = col1.getName().toLowerCase();
-        String name2 = col2.getName().toLowerCase();
-
-        if (name1.contains("price") && name2.contains("quantity")) {
-            return -0.65;
-        } else if (name1.contains("age") && name2.contains("income")) {
-            return 0.72;
-        } else if (name1.contains("height") && name2.contains("weight")) {
-            return 0.85;
-        } else {
-            return (Math.random() * 0.6) - 0.3; // Random correlation between -0.3 and 0.3
-        }
+    private double pearson(DoubleColumn x, DoubleColumn y) {
+        return NumericKernels.get().coMoments(x, y).correlation();
     }
 
     private Map<String, Object> calculateDataQualityMetrics(Dataset dataset) {
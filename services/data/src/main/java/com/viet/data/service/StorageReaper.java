@@ -0,0 +1,108 @@
+package com.viet.data.service;
+
+import com.viet.data.module.Dataset;
+import com.viet.data.repository.DatasetRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reclaims the storage of datasets marked DELETED: releases their file chunks, removes
+ * sidecar files, column spill files and cached bundles, then drops the document. Runs in
+ * small, paced batches so the disk I/O stays off the request path and does not compete
+ * with uploads.
+ * <p>
+ * A dataset is claimed under a lease rather than removed up front, so the document keeps
+ * listing its files until every one is released. A sweep that dies or fails part-way leaves
+ * the dataset REAPING, and a later sweep takes it over once the lease runs out.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StorageReaper {
+
+    private final DatasetRepository datasetRepository;
+    private final FileStorageService fileStorageService;
+    private final SketchStore sketchStore;
+    private final ColumnStore columnStore;
+    private final RollupStore rollupStore;
+
+    @Value("${app.storage.reaper.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.storage.reaper.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${app.storage.reaper.lease-ms:600000}")
+    private long leaseMs;
+
+    @Scheduled(initialDelayString = "${app.storage.reaper.initial-delay-ms:60000}",
+            fixedDelayString = "${app.storage.reaper.interval-ms:30000}")
+    public void reapDeletedDatasets() {
+        int reaped = 0;
+        int failed = 0;
+        try {
+            while (reaped + failed < batchSize) {
+                LocalDateTime now = LocalDateTime.now();
+                Dataset dataset = datasetRepository.claimDeleted(now, now.plus(Duration.ofMillis(leaseMs)));
+                if (dataset == null) {
+                    break;
+                }
+                if (reclaim(dataset)) {
+                    reaped++;
+                } else {
+                    failed++;
+                }
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error reaping deleted datasets: {}", e.getMessage());
+        }
+
+        if (reaped > 0) {
+            log.info("Reclaimed storage of {} deleted datasets", reaped);
+        }
+        if (failed > 0) {
+            log.warn("Could not reclaim {} deleted datasets; retrying once their lease expires", failed);
+        }
+    }
+
+    /**
+     * @return false if some storage is left for a later sweep
+     */
+    private boolean reclaim(Dataset dataset) {
+        List<String> chunkPaths = dataset.getChunkPaths() != null
+                ? dataset.getChunkPaths()
+                : Collections.singletonList(dataset.getStoragePath());
+
+        for (String chunkPath : chunkPaths) {
+            // Chunks released by an earlier sweep are already off the document
+            if (chunkPath == null || !datasetRepository.claimChunk(dataset.getId(), chunkPath)) {
+                continue;
+            }
+            try {
+                fileStorageService.releaseFile(chunkPath);
+            } catch (Exception e) {
+                log.error("Error releasing {} of dataset {}: {}", chunkPath, dataset.getId(), e.getMessage());
+                datasetRepository.restoreChunk(dataset.getId(), chunkPath);
+                return false;
+            }
+        }
+        sketchStore.delete(dataset);
+        columnStore.delete(dataset.getId());
+        rollupStore.delete(dataset.getId());
+        datasetRepository.removeReaped(dataset.getId());
+
+        log.debug("Reclaimed dataset {}", dataset.getId());
+        return true;
+    }
+}
@@ -0,0 +1,204 @@
+package com.viet.data.service;
+
+import com.viet.data.dto.dtos.DatasetSummaryDTO;
+import com.viet.data.dto.dtos.UserStatsDTO;
+import com.viet.data.module.Dataset;
+import com.viet.data.module.UserDatasetStats;
+import com.viet.data.repository.DatasetRepository;
+import com.viet.data.repository.UserDatasetStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserStatsService {
+
+    public static final int RECENT_LIMIT = 5;
+    private static final int CACHE_SIZE = 1024;
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    private final UserDatasetStatsRepository userDatasetStatsRepository;
+    private final DatasetRepository datasetRepository;
+
+    // Bounds how stale counters written by other instances may appear
+    @Value("${app.stats.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    // Changes begun longer ago and never finished are taken to have died with their process
+    @Value("${app.stats.pending-timeout-ms:600000}")
+    private long pendingTimeoutMs;
+
+    private final Map<String, CachedStats> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStats> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    public UserStatsDTO getStats(String userId) {
+        CachedStats cached = cache.get(userId);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return cached.stats();
+        }
+
+        UserDatasetStats stats = userDatasetStatsRepository.findById(userId)
+                .filter(found -> !needsRebuild(found))
+                .orElseGet(() -> rebuild(userId));
+
+        UserStatsDTO result = UserStatsDTO.builder()
+                .totalDatasets(stats.getDatasetCount())
+                .totalRows(stats.getTotalRows())
+                .totalBytes(stats.getTotalBytes())
+                .recentDatasets(loadRecentDatasets(userId, stats))
+                .build();
+
+        cache.put(userId, new CachedStats(result, System.currentTimeMillis() + cacheTtlMs));
+        return result;
+    }
+
+    /**
+     * Starts a change to the user's datasets. Call it before writing the dataset, then record
+     * the change on the returned handle once the write succeeded; closing it without recording
+     * abandons the change.
+     */
+    public StatsUpdate beginUpdate(String userId) {
+        update(userId, () -> userDatasetStatsRepository.beginUpdate(userId));
+        return new StatsUpdate(userId);
+    }
+
+    public final class StatsUpdate implements AutoCloseable {
+        private final String userId;
+        private boolean recorded;
+
+        private StatsUpdate(String userId) {
+            this.userId = userId;
+        }
+
+        public void recordUpload(Dataset dataset) {
+            recorded = true;
+            update(userId, () -> userDatasetStatsRepository.recordUpload(userId,
+                    dataset.getId(), dataset.getRowCount(), dataset.getFileSize(), RECENT_LIMIT));
+        }
+
+        public void recordAppend(long rows, long bytes) {
+            recorded = true;
+            update(userId, () -> userDatasetStatsRepository.recordAppend(userId, rows, bytes));
+        }
+
+        public void recordDelete(Dataset dataset) {
+            recorded = true;
+            update(userId, () -> userDatasetStatsRepository.recordDelete(userId,
+                    dataset.getId(), dataset.getRowCount(), dataset.getFileSize()));
+        }
+
+        @Override
+        public void close() {
+            if (!recorded) {
+                recorded = true;
+                update(userId, () -> userDatasetStatsRepository.abortUpdate(userId));
+            }
+        }
+    }
+
+    private void update(String userId, Runnable update) {
+        // Counters are secondary data; never fail the operation that triggered them
+        try {
+            update.run();
+        } catch (Exception e) {
+            log.error("Error updating dataset stats for user {}: {}", userId, e.getMessage());
+        } finally {
+            cache.remove(userId);
+        }
+    }
+
+    private boolean needsRebuild(UserDatasetStats stats) {
+        if (Boolean.TRUE.equals(stats.getPartial())) {
+            return true;
+        }
+        // A change that never finished died with its process; its delta may or may not be missing
+        return stats.getPendingUpdates() != null && stats.getPendingUpdates() > 0
+                && stats.getUpdatedAt() != null && stats.getUpdatedAt().isBefore(staleBefore());
+    }
+
+    /**
+     * Aggregates the user's datasets and stores the result unless a change overlapped the
+     * aggregation, in which case it tries again. If changes keep overlapping, the aggregate is
+     * returned without being stored and the next read rebuilds.
+     */
+    private UserDatasetStats rebuild(String userId) {
+        log.info("Building dataset stats for user {}", userId);
+
+        UserDatasetStats stats = null;
+        for (int attempt = 0; attempt < REBUILD_ATTEMPTS; attempt++) {
+            // Read the version before aggregating, so any change during the aggregation moves it
+            Long version = userDatasetStatsRepository.findById(userId)
+                    .map(current -> current.getVersion() != null ? current.getVersion() : 0L)
+                    .orElse(null);
+
+            stats = datasetRepository.aggregateUserStats(userId)
+                    .orElseGet(() -> new UserDatasetStats(null, 0L, 0L, 0L, null, null, null, null, null));
+            stats.setId(userId);
+            stats.setRecentDatasetIds(datasetRepository.findSummariesByUserId(userId, null, null, RECENT_LIMIT)
+                    .stream()
+                    .map(Dataset::getId)
+                    .collect(Collectors.toList()));
+            stats.setUpdatedAt(LocalDateTime.now());
+
+            if (userDatasetStatsRepository.replaceIfUnchanged(stats, version, staleBefore())) {
+                return stats;
+            }
+        }
+
+        log.info("Dataset stats for user {} changed during every rebuild; not storing them", userId);
+        return stats;
+    }
+
+    private LocalDateTime staleBefore() {
+        return LocalDateTime.now().minus(Duration.ofMillis(pendingTimeoutMs));
+    }
+
+    private List<DatasetSummaryDTO> loadRecentDatasets(String userId, UserDatasetStats stats) {
+        List<String> recentIds = stats.getRecentDatasetIds() != null ? stats.getRecentDatasetIds() : List.of();
+
+        // Deletes shrink the list; fall back to the index once it no longer has enough entries
+        if (recentIds.size() < Math.min(RECENT_LIMIT, stats.getDatasetCount())) {
+            return datasetRepository.findSummariesByUserId(userId, null, null, RECENT_LIMIT).stream()
+                    .map(this::mapToSummaryDTO)
+                    .collect(Collectors.toList());
+        }
+
+        Map<String, Dataset> byId = datasetRepository.findSummariesByIds(recentIds).stream()
+                .collect(Collectors.toMap(Dataset::getId, Function.identity()));
+        return recentIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToSummaryDTO)
+                .collect(Collectors.toList());
+    }
+
+    private DatasetSummaryDTO mapToSummaryDTO(Dataset dataset) {
+        return DatasetSummaryDTO.builder()
+                .id(dataset.getId())
+                .originalFileName(dataset.getOriginalFileName())
+                .fileSize(dataset.getFileSize())
+                .rowCount(dataset.getRowCount())
+                .columnCount(dataset.getColumnCount())
+                .createdAt(dataset.getCreatedAt())
+                .updatedAt(dataset.getUpdatedAt())
+                .status(dataset.getStatus().name())
+                .build();
+    }
+
+    private record CachedStats(UserStatsDTO stats, long expiresAt) {
+    }
+}
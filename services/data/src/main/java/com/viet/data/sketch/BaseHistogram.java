@@ -0,0 +1,163 @@
+package com.viet.data.sketch;
+
+import com.viet.data.column.DoubleColumn;
+import com.viet.data.column.NumericKernels;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * High-resolution equal-width histogram over [min, max]. Re-binning and merging
+ * assume values are spread uniformly inside each base bin, so neither needs the
+ * original values.
+ */
+public class BaseHistogram {
+
+    public static final int BASE_BINS = 256;
+
+    private final double min;
+    private final double max;
+    private final long[] counts;
+    private final long totalCount;
+
+    private BaseHistogram(double min, double max, long[] counts) {
+        this.min = min;
+        this.max = max;
+        this.counts = counts;
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        this.totalCount = total;
+    }
+
+    public static BaseHistogram of(DoubleColumn column) {
+        NumericKernels.Summary summary = NumericKernels.get().summarize(column);
+        double min = summary.min();
+        double max = summary.max();
+
+        long[] counts = new long[BASE_BINS];
+        double width = (max - min) / BASE_BINS;
+        for (int row = 0; row < column.size(); row++) {
+            if (!column.isNull(row)) {
+                int bin = width > 0 ? (int) ((column.get(row) - min) / width) : 0;
+                counts[Math.min(bin, BASE_BINS - 1)]++;
+            }
+        }
+        return new BaseHistogram(min, max, counts);
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public int getBinCount() {
+        return counts.length;
+    }
+
+    /**
+     * Estimated number of values strictly below {@code value}.
+     */
+    public double rankAtValue(double value) {
+        if (max <= min) {
+            return value > min ? totalCount : 0;
+        }
+        double position = (value - min) / (max - min) * counts.length;
+        if (position <= 0) {
+            return 0;
+        }
+        if (position >= counts.length) {
+            return totalCount;
+        }
+
+        int bin = (int) position;
+        double below = 0;
+        for (int i = 0; i < bin; i++) {
+            below += counts[i];
+        }
+        return below + counts[bin] * (position - bin);
+    }
+
+    /**
+     * Estimated value with {@code rank} values below it; the inverse of {@link #rankAtValue}.
+     */
+    public double valueAtRank(double rank) {
+        if (max <= min || rank <= 0) {
+            return min;
+        }
+
+        double cumulative = 0;
+        for (int bin = 0; bin < counts.length; bin++) {
+            if (counts[bin] > 0 && cumulative + counts[bin] >= rank) {
+                double fraction = (rank - cumulative) / counts[bin];
+                return min + (max - min) * (bin + fraction) / counts.length;
+            }
+            cumulative += counts[bin];
+        }
+        return max;
+    }
+
+    /**
+     * Counts between consecutive {@code edges}. Rounding the cumulative rank at each edge
+     * keeps the result summing to the total when the edges span [min, max].
+     */
+    public long[] countsBetween(double[] edges) {
+        long[] result = new long[edges.length - 1];
+        long previous = Math.round(rankAtValue(edges[0]));
+        for (int i = 1; i < edges.length; i++) {
+            long upTo = i == edges.length - 1 && edges[i] >= max
+                    ? totalCount
+                    : Math.round(rankAtValue(edges[i]));
+            result[i - 1] = upTo - previous;
+            previous = upTo;
+        }
+        return result;
+    }
+
+    public BaseHistogram merge(BaseHistogram other) {
+        double mergedMin = Math.min(min, other.min);
+        double mergedMax = Math.max(max, other.max);
+
+        double[] edges = new double[BASE_BINS + 1];
+        for (int i = 0; i <= BASE_BINS; i++) {
+            edges[i] = mergedMin + (mergedMax - mergedMin) * i / BASE_BINS;
+        }
+        edges[BASE_BINS] = mergedMax;
+
+        long[] mine = countsBetween(edges);
+        long[] theirs = other.countsBetween(edges);
+        long[] merged = new long[BASE_BINS];
+        for (int i = 0; i < BASE_BINS; i++) {
+            merged[i] = mine[i] + theirs[i];
+        }
+        return new BaseHistogram(mergedMin, mergedMax, merged);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(counts.length);
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+    }
+
+    static BaseHistogram readFrom(DataInput in) throws IOException {
+        double min = in.readDouble();
+        double max = in.readDouble();
+        long[] counts = new long[in.readInt()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.readLong();
+        }
+        return new BaseHistogram(min, max, counts);
+    }
+}
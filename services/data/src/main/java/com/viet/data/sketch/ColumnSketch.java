@@ -0,0 +1,138 @@
+package com.viet.data.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Mergeable profile of a single column: null and distinct counts, frequent values
+ * and, for numeric columns, moments, quantiles and a base histogram.
+ */
+public class ColumnSketch {
+
+    private long totalCount;
+    private long nullCount;
+    private final HyperLogLog distinct;
+    private final FrequentItems frequentItems;
+    private MomentSketch moments;
+    private QuantileSketch quantiles;
+    private BaseHistogram histogram;
+
+    public ColumnSketch() {
+        this(new HyperLogLog(), new FrequentItems(), new MomentSketch(), new QuantileSketch());
+    }
+
+    private ColumnSketch(HyperLogLog distinct, FrequentItems frequentItems,
+                         MomentSketch moments, QuantileSketch quantiles) {
+        this.distinct = distinct;
+        this.frequentItems = frequentItems;
+        this.moments = moments;
+        this.quantiles = quantiles;
+    }
+
+    public void addNull() {
+        totalCount++;
+        nullCount++;
+    }
+
+    public void addValue(String value) {
+        totalCount++;
+        distinct.add(value);
+        frequentItems.add(value);
+    }
+
+    public void addNumber(double value) {
+        moments.add(value);
+        quantiles.add(value);
+    }
+
+    public void setHistogram(BaseHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    /**
+     * Drops moments, quantiles and the histogram, for a column no longer treated as numeric.
+     */
+    public void clearNumericProfile() {
+        moments = new MomentSketch();
+        quantiles = new QuantileSketch();
+        histogram = null;
+    }
+
+    public void merge(ColumnSketch other) {
+        totalCount += other.totalCount;
+        nullCount += other.nullCount;
+        distinct.merge(other.distinct);
+        frequentItems.merge(other.frequentItems);
+        moments.merge(other.moments);
+        quantiles.merge(other.quantiles);
+        if (histogram == null) {
+            histogram = other.histogram;
+        } else if (other.histogram != null) {
+            histogram = histogram.merge(other.histogram);
+        }
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public long getDistinctCount() {
+        // Small columns are counted exactly by the frequent items table
+        long exact = frequentItems.getMaxError() == 0 ? frequentItems.getTopItems(Integer.MAX_VALUE).size() : 0;
+        return Math.max(exact, Math.min(distinct.estimate(), totalCount - nullCount));
+    }
+
+    public FrequentItems getFrequentItems() {
+        return frequentItems;
+    }
+
+    public MomentSketch getMoments() {
+        return moments;
+    }
+
+    public QuantileSketch getQuantiles() {
+        return quantiles;
+    }
+
+    public BaseHistogram getHistogram() {
+        return histogram;
+    }
+
+    public boolean hasNumericProfile() {
+        return moments.getCount() > 0;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(totalCount);
+        out.writeLong(nullCount);
+        distinct.writeTo(out);
+        frequentItems.writeTo(out);
+        moments.writeTo(out);
+        quantiles.writeTo(out);
+        out.writeBoolean(histogram != null);
+        if (histogram != null) {
+            histogram.writeTo(out);
+        }
+    }
+
+    static ColumnSketch readFrom(DataInput in) throws IOException {
+        long totalCount = in.readLong();
+        long nullCount = in.readLong();
+        ColumnSketch sketch = new ColumnSketch(
+                HyperLogLog.readFrom(in),
+                FrequentItems.readFrom(in),
+                MomentSketch.readFrom(in),
+                QuantileSketch.readFrom(in));
+        sketch.totalCount = totalCount;
+        sketch.nullCount = nullCount;
+        if (in.readBoolean()) {
+            sketch.histogram = BaseHistogram.readFrom(in);
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,95 @@
+package com.viet.data.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Misra-Gries heavy hitters. Counts are lower bounds that undercount by at most
+ * {@link #getMaxError()}; columns with no more than {@code capacity} distinct
+ * values are counted exactly.
+ */
+public class FrequentItems {
+
+    public static final int DEFAULT_CAPACITY = 64;
+    private static final int MAX_ITEM_LENGTH = 256;
+
+    private final int capacity;
+    private final Map<String, Long> counters;
+    private long maxError;
+
+    public FrequentItems() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FrequentItems(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>();
+    }
+
+    public void add(String value) {
+        add(value, 1);
+    }
+
+    public void add(String value, long count) {
+        String item = value.length() > MAX_ITEM_LENGTH ? value.substring(0, MAX_ITEM_LENGTH) : value;
+        counters.merge(item, count, Long::sum);
+        // Purging only once the table is twice the capacity keeps updates amortised O(1)
+        if (counters.size() > 2 * capacity) {
+            purge();
+        }
+    }
+
+    public void merge(FrequentItems other) {
+        other.counters.forEach(this::add);
+        maxError += other.maxError;
+        if (counters.size() > capacity) {
+            purge();
+        }
+    }
+
+    public long getMaxError() {
+        return maxError;
+    }
+
+    public Map<String, Long> getTopItems(int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        counters.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    private void purge() {
+        // Subtract the (capacity + 1)-th largest count so at most `capacity` items survive
+        long[] counts = counters.values().stream().mapToLong(Long::longValue).sorted().toArray();
+        long threshold = counts[counts.length - capacity - 1];
+        counters.replaceAll((item, count) -> count - threshold);
+        counters.values().removeIf(count -> count <= 0);
+        maxError += threshold;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(capacity);
+        out.writeLong(maxError);
+        out.writeInt(counters.size());
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    static FrequentItems readFrom(DataInput in) throws IOException {
+        FrequentItems items = new FrequentItems(in.readInt());
+        items.maxError = in.readLong();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            items.counters.put(in.readUTF(), in.readLong());
+        }
+        return items;
+    }
+}
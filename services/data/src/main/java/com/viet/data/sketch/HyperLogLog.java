@@ -0,0 +1,87 @@
+package com.viet.data.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * HyperLogLog distinct-count estimator with 2^12 one-byte registers
+ * (about 1.6% standard error). Merging takes the register-wise maximum.
+ */
+public class HyperLogLog {
+
+    private static final int PRECISION = 12;
+    private static final int REGISTER_COUNT = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTER_COUNT];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public void add(String value) {
+        long hash = hash64(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Sentinel bit bounds the rank when the remaining bits are all zero
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTER_COUNT; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeroRegisters = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeroRegisters++;
+            }
+        }
+
+        double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        if (estimate <= 2.5 * REGISTER_COUNT && zeroRegisters > 0) {
+            // Linear counting is more accurate for small cardinalities
+            estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    static long hash64(String value) {
+        // FNV-1a over the chars, finished with the MurmurHash3 fmix64 avalanche
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.write(registers);
+    }
+
+    static HyperLogLog readFrom(DataInput in) throws IOException {
+        byte[] registers = new byte[REGISTER_COUNT];
+        in.readFully(registers);
+        return new HyperLogLog(registers);
+    }
+}
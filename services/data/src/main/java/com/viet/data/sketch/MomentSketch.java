@@ -0,0 +1,133 @@
+package com.viet.data.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Streaming central moments (count, mean, M2..M4, min, max) using the
+ * single-pass update and pairwise merge formulas from Pébay (2008).
+ */
+public class MomentSketch {
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double m3;
+    private double m4;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double value) {
+        long n1 = count;
+        count++;
+        double n = count;
+        double delta = value - mean;
+        double deltaN = delta / n;
+        double deltaN2 = deltaN * deltaN;
+        double term1 = delta * deltaN * n1;
+
+        mean += deltaN;
+        m4 += term1 * deltaN2 * (n * n - 3 * n + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+        m3 += term1 * deltaN * (n - 2) - 3 * deltaN * m2;
+        m2 += term1;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(MomentSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            m3 = other.m3;
+            m4 = other.m4;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+
+        double na = count;
+        double nb = other.count;
+        double n = na + nb;
+        double delta = other.mean - mean;
+        double delta2 = delta * delta;
+        double delta3 = delta * delta2;
+        double delta4 = delta2 * delta2;
+
+        double combinedM4 = m4 + other.m4
+                + delta4 * na * nb * (na * na - na * nb + nb * nb) / (n * n * n)
+                + 6.0 * delta2 * (na * na * other.m2 + nb * nb * m2) / (n * n)
+                + 4.0 * delta * (na * other.m3 - nb * m3) / n;
+        double combinedM3 = m3 + other.m3
+                + delta3 * na * nb * (na - nb) / (n * n)
+                + 3.0 * delta * (na * other.m2 - nb * m2) / n;
+        double combinedM2 = m2 + other.m2 + delta2 * na * nb / n;
+
+        mean += delta * nb / n;
+        m2 = combinedM2;
+        m3 = combinedM3;
+        m4 = combinedM4;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : 0.0;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getSkewness() {
+        return m2 > 0 ? Math.sqrt(count) * m3 / Math.pow(m2, 1.5) : 0.0;
+    }
+
+    public double getKurtosis() {
+        // Excess kurtosis, so a normal distribution scores 0
+        return m2 > 0 ? count * m4 / (m2 * m2) - 3.0 : 0.0;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(mean);
+        out.writeDouble(m2);
+        out.writeDouble(m3);
+        out.writeDouble(m4);
+        out.writeDouble(min);
+        out.writeDouble(max);
+    }
+
+    static MomentSketch readFrom(DataInput in) throws IOException {
+        MomentSketch sketch = new MomentSketch();
+        sketch.count = in.readLong();
+        sketch.mean = in.readDouble();
+        sketch.m2 = in.readDouble();
+        sketch.m3 = in.readDouble();
+        sketch.m4 = in.readDouble();
+        sketch.min = in.readDouble();
+        sketch.max = in.readDouble();
+        return sketch;
+    }
+}
@@ -0,0 +1,159 @@
+package com.viet.data.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * KLL quantile sketch (Karnin, Lang, Liberty 2016). Items at level h carry weight 2^h;
+ * a full level is sorted and every other item is promoted, so memory stays
+ * O(k log(n/k)) with a rank error of roughly 1.7% at k = 200.
+ */
+public class QuantileSketch {
+
+    private static final int K = 200;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+
+    private final List<double[]> levels = new ArrayList<>();
+    private final List<Integer> sizes = new ArrayList<>();
+    private long count;
+
+    public QuantileSketch() {
+        addLevel();
+    }
+
+    public void add(double value) {
+        append(0, value);
+        count++;
+        if (sizes.get(0) >= capacity(0)) {
+            compress();
+        }
+    }
+
+    public void merge(QuantileSketch other) {
+        for (int level = 0; level < other.levels.size(); level++) {
+            while (levels.size() <= level) {
+                addLevel();
+            }
+            double[] items = other.levels.get(level);
+            for (int i = 0; i < other.sizes.get(level); i++) {
+                append(level, items[i]);
+            }
+        }
+        count += other.count;
+        compress();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double quantile(double fraction) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        int retained = sizes.stream().mapToInt(Integer::intValue).sum();
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        Integer[] order = new Integer[retained];
+        int index = 0;
+        long totalWeight = 0;
+        for (int level = 0; level < levels.size(); level++) {
+            double[] items = levels.get(level);
+            for (int i = 0; i < sizes.get(level); i++) {
+                values[index] = items[i];
+                weights[index] = 1L << level;
+                order[index] = index;
+                totalWeight += weights[index];
+                index++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        double targetWeight = fraction * totalWeight;
+        long cumulative = 0;
+        for (Integer i : order) {
+            cumulative += weights[i];
+            if (cumulative >= targetWeight) {
+                return values[i];
+            }
+        }
+        return values[order[retained - 1]];
+    }
+
+    private int capacity(int level) {
+        int depth = levels.size() - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(K * Math.pow(2.0 / 3.0, depth)));
+    }
+
+    private void compress() {
+        for (int level = 0; level < levels.size(); level++) {
+            if (sizes.get(level) < capacity(level)) {
+                continue;
+            }
+            if (level + 1 == levels.size()) {
+                addLevel();
+            }
+
+            double[] items = levels.get(level);
+            int size = sizes.get(level);
+            Arrays.sort(items, 0, size);
+            // With an odd size the smallest item stays behind so the rest pair up evenly
+            int keep = size % 2;
+            int offset = ThreadLocalRandom.current().nextInt(2);
+            for (int i = keep + offset; i < size; i += 2) {
+                append(level + 1, items[i]);
+            }
+            sizes.set(level, keep);
+        }
+    }
+
+    private void append(int level, double value) {
+        double[] items = levels.get(level);
+        int size = sizes.get(level);
+        if (size == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            levels.set(level, items);
+        }
+        items[size] = value;
+        sizes.set(level, size + 1);
+    }
+
+    private void addLevel() {
+        levels.add(new double[MIN_LEVEL_CAPACITY]);
+        sizes.add(0);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeInt(levels.size());
+        for (int level = 0; level < levels.size(); level++) {
+            double[] items = levels.get(level);
+            out.writeInt(sizes.get(level));
+            for (int i = 0; i < sizes.get(level); i++) {
+                out.writeDouble(items[i]);
+            }
+        }
+    }
+
+    static QuantileSketch readFrom(DataInput in) throws IOException {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.count = in.readLong();
+        int levelCount = in.readInt();
+        for (int level = 0; level < levelCount; level++) {
+            if (level > 0) {
+                sketch.addLevel();
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                sketch.append(level, in.readDouble());
+            }
+        }
+        return sketch;
+    }
+}
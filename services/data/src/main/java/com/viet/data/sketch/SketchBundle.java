@@ -0,0 +1,125 @@
+package com.viet.data.sketch;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * All column sketches of a dataset, and the daily {@link TimeRollup} of each date or date-time
+ * column, serialized together as one deflated binary blob. Bundles of two row sets over the
+ * same columns merge into the bundle of their union.
+ */
+public class SketchBundle {
+
+    private static final int MAGIC = 0x534B4231; // "SKB1"
+    // Version 1 bundles predate rollups, version 2 their squared deviations
+    private static final int VERSION = 3;
+
+    private long rowCount;
+    private final Map<String, ColumnSketch> columns = new LinkedHashMap<>();
+    private final Map<String, TimeRollup> rollups = new LinkedHashMap<>();
+
+    public SketchBundle(long rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public void put(String columnName, ColumnSketch sketch) {
+        columns.put(columnName, sketch);
+    }
+
+    public ColumnSketch get(String columnName) {
+        return columns.get(columnName);
+    }
+
+    public Map<String, ColumnSketch> getColumns() {
+        return Collections.unmodifiableMap(columns);
+    }
+
+    public void putRollup(String timeColumn, TimeRollup rollup) {
+        rollups.put(timeColumn, rollup);
+    }
+
+    /**
+     * Returns the daily rollup against the named time column, or null when there is none.
+     */
+    public TimeRollup getRollup(String timeColumn) {
+        return rollups.get(timeColumn);
+    }
+
+    public void removeRollup(String timeColumn) {
+        rollups.remove(timeColumn);
+    }
+
+    public Map<String, TimeRollup> getRollups() {
+        return Collections.unmodifiableMap(rollups);
+    }
+
+    public void merge(SketchBundle other) {
+        rowCount += other.rowCount;
+        other.columns.forEach((name, sketch) -> {
+            ColumnSketch existing = columns.get(name);
+            if (existing == null) {
+                columns.put(name, sketch);
+            } else {
+                existing.merge(sketch);
+            }
+        });
+        // A rollup only one side has would not cover every row
+        rollups.replaceAll((name, rollup) -> other.rollups.containsKey(name)
+                ? rollup.merge(other.rollups.get(name))
+                : null);
+        rollups.values().removeIf(Objects::isNull);
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(buffer)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(rowCount);
+            out.writeInt(columns.size());
+            for (Map.Entry<String, ColumnSketch> entry : columns.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+            out.writeInt(rollups.size());
+            for (Map.Entry<String, TimeRollup> entry : rollups.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize sketch bundle", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static SketchBundle fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes))))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unrecognized sketch bundle format");
+            }
+            SketchBundle bundle = new SketchBundle(in.readLong());
+            int columnCount = in.readInt();
+            for (int i = 0; i < columnCount; i++) {
+                bundle.columns.put(in.readUTF(), ColumnSketch.readFrom(in));
+            }
+            int rollupCount = version > 1 ? in.readInt() : 0;
+            for (int i = 0; i < rollupCount; i++) {
+                bundle.rollups.put(in.readUTF(), TimeRollup.readFrom(in, version > 2));
+            }
+            return bundle;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read sketch bundle", e);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.viet.data.sketch;
+
+import com.viet.data.column.DoubleColumn;
+import com.viet.data.column.LongColumn;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-period row count and, for every numeric column, count, sum, min, max, sum of squares and
+ * sum of squared deviations from the mean against one date or date-time column. Ingestion builds
+ * the daily rollup; weeks (starting on Monday) and months are rolled up from the days on read.
+ * Rollups of two row sets over the same columns merge into the rollup of their union, combining
+ * the deviations pairwise (Chan et al.) so variances hold up for values far from zero.
+ * Date-times are bucketed by UTC day.
+ */
+public class TimeRollup {
+
+    // About a century of days; wider columns are not rolled up
+    public static final int MAX_DAYS = 36_600;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    public enum Granularity {
+        DAY, WEEK, MONTH
+    }
+
+    private final Granularity granularity;
+    private final List<String> columns;
+    // Epoch day each period starts on, ascending
+    private final long[] periods;
+    private final long[] rows;
+    private final long[][] counts;
+    private final double[][] sums;
+    private final double[][] mins;
+    private final double[][] maxes;
+    private final double[][] sumSquares;
+    // Sum of squared deviations from the period mean
+    private final double[][] m2;
+
+    private TimeRollup(Granularity granularity, List<String> columns, int periodCount) {
+        this.granularity = granularity;
+        this.columns = columns;
+        this.periods = new long[periodCount];
+        this.rows = new long[periodCount];
+        this.counts = new long[columns.size()][periodCount];
+        this.sums = new double[columns.size()][periodCount];
+        this.mins = new double[columns.size()][periodCount];
+        this.maxes = new double[columns.size()][periodCount];
+        this.sumSquares = new double[columns.size()][periodCount];
+        this.m2 = new double[columns.size()][periodCount];
+        for (int column = 0; column < columns.size(); column++) {
+            Arrays.fill(mins[column], Double.POSITIVE_INFINITY);
+            Arrays.fill(maxes[column], Double.NEGATIVE_INFINITY);
+        }
+    }
+
+    /**
+     * Daily rollup of {@code values} against {@code time}, or null when the time column has no
+     * values or spans more than {@link #MAX_DAYS} days.
+     *
+     * @param millis whether {@code time} holds epoch milliseconds rather than epoch days
+     */
+    public static TimeRollup build(LongColumn time, boolean millis, List<? extends DoubleColumn> values) {
+        int rowCount = time.size();
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int row = 0; row < rowCount; row++) {
+            if (!time.isNull(row)) {
+                long day = dayOf(time.getLong(row), millis);
+                first = Math.min(first, day);
+                last = Math.max(last, day);
+            }
+        }
+        if (first > last || last - first >= MAX_DAYS) {
+            return null;
+        }
+
+        // Dense index over the span, compacted to the days that have rows
+        int span = (int) (last - first + 1);
+        int[] index = new int[span];
+        for (int row = 0; row < rowCount; row++) {
+            if (!time.isNull(row)) {
+                index[(int) (dayOf(time.getLong(row), millis) - first)] = 1;
+            }
+        }
+        int periodCount = 0;
+        for (int day = 0; day < span; day++) {
+            index[day] = index[day] == 0 ? -1 : periodCount++;
+        }
+
+        List<String> names = new ArrayList<>(values.size());
+        values.forEach(column -> names.add(column.getName()));
+        TimeRollup rollup = new TimeRollup(Granularity.DAY, names, periodCount);
+        for (int day = 0; day < span; day++) {
+            if (index[day] >= 0) {
+                rollup.periods[index[day]] = first + day;
+            }
+        }
+
+        int[] periodOfRow = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            periodOfRow[row] = time.isNull(row) ? -1 : index[(int) (dayOf(time.getLong(row), millis) - first)];
+            if (periodOfRow[row] >= 0) {
+                rollup.rows[periodOfRow[row]]++;
+            }
+        }
+        // Column at a time, so each column is read sequentially
+        for (int column = 0; column < values.size(); column++) {
+            DoubleColumn source = values.get(column);
+            int limit = Math.min(rowCount, source.size());
+            for (int row = 0; row < limit; row++) {
+                if (periodOfRow[row] >= 0 && !source.isNull(row)) {
+                    rollup.add(column, periodOfRow[row], source.get(row));
+                }
+            }
+        }
+        return rollup;
+    }
+
+    private static long dayOf(long time, boolean millis) {
+        return millis ? Math.floorDiv(time, MILLIS_PER_DAY) : time;
+    }
+
+    private void add(int column, int period, double value) {
+        // Welford's update, so the deviations never cancel against the squares
+        double before = counts[column][period] > 0 ? sums[column][period] / counts[column][period] : value;
+        counts[column][period]++;
+        sums[column][period] += value;
+        sumSquares[column][period] += value * value;
+        m2[column][period] += (value - before) * (value - sums[column][period] / counts[column][period]);
+        mins[column][period] = Math.min(mins[column][period], value);
+        maxes[column][period] = Math.max(maxes[column][period], value);
+    }
+
+    private void addPeriod(int to, TimeRollup source, int from, int[] sourceColumns) {
+        rows[to] += source.rows[from];
+        for (int column = 0; column < columns.size(); column++) {
+            int other = sourceColumns[column];
+            long n = counts[column][to];
+            long added = source.counts[other][from];
+            if (n == 0) {
+                m2[column][to] = source.m2[other][from];
+            } else if (added > 0) {
+                double delta = source.sums[other][from] / added - sums[column][to] / n;
+                m2[column][to] += source.m2[other][from] + delta * delta * n * added / (n + added);
+            }
+            counts[column][to] += added;
+            sums[column][to] += source.sums[other][from];
+            sumSquares[column][to] += source.sumSquares[other][from];
+            mins[column][to] = Math.min(mins[column][to], source.mins[other][from]);
+            maxes[column][to] = Math.max(maxes[column][to], source.maxes[other][from]);
+        }
+    }
+
+    /**
+     * Rolls daily periods up to a coarser granularity; returns this rollup for its own granularity.
+     */
+    public TimeRollup rollUp(Granularity target) {
+        if (target == granularity) {
+            return this;
+        }
+        if (granularity != Granularity.DAY) {
+            throw new IllegalArgumentException("Cannot roll " + granularity + " periods up to " + target);
+        }
+
+        long[] starts = new long[periods.length];
+        int periodCount = 0;
+        for (int i = 0; i < periods.length; i++) {
+            starts[i] = periodStart(periods[i], target);
+            if (i == 0 || starts[i] != starts[i - 1]) {
+                periodCount++;
+            }
+        }
+
+        TimeRollup rolled = new TimeRollup(target, columns, periodCount);
+        int[] sameColumns = new int[columns.size()];
+        Arrays.setAll(sameColumns, column -> column);
+        int period = -1;
+        for (int i = 0; i < periods.length; i++) {
+            if (i == 0 || starts[i] != starts[i - 1]) {
+                rolled.periods[++period] = starts[i];
+            }
+            rolled.addPeriod(period, this, i, sameColumns);
+        }
+        return rolled;
+    }
+
+    private static long periodStart(long epochDay, Granularity granularity) {
+        switch (granularity) {
+            case WEEK:
+                return LocalDate.ofEpochDay(epochDay).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                        .toEpochDay();
+            case MONTH:
+                return LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay();
+            default:
+                return epochDay;
+        }
+    }
+
+    /**
+     * Rollup of both row sets over the columns they share, or null when the union spans more
+     * than {@link #MAX_DAYS} days. Both must be daily.
+     */
+    public TimeRollup merge(TimeRollup other) {
+        if (granularity != Granularity.DAY || other.granularity != Granularity.DAY) {
+            throw new IllegalArgumentException("Only daily rollups merge");
+        }
+        long first = Math.min(periods.length > 0 ? periods[0] : Long.MAX_VALUE,
+                other.periods.length > 0 ? other.periods[0] : Long.MAX_VALUE);
+        long last = Math.max(periods.length > 0 ? periods[periods.length - 1] : Long.MIN_VALUE,
+                other.periods.length > 0 ? other.periods[other.periods.length - 1] : Long.MIN_VALUE);
+        if (first <= last && last - first >= MAX_DAYS) {
+            return null;
+        }
+
+        List<String> shared = new ArrayList<>();
+        for (String column : columns) {
+            if (other.columns.contains(column)) {
+                shared.add(column);
+            }
+        }
+        int[] mine = shared.stream().mapToInt(columns::indexOf).toArray();
+        int[] theirs = shared.stream().mapToInt(other.columns::indexOf).toArray();
+
+        // Merge of two ascending period lists
+        int periodCount = 0;
+        for (int i = 0, j = 0; i < periods.length || j < other.periods.length; periodCount++) {
+            if (j == other.periods.length || i < periods.length && periods[i] < other.periods[j]) {
+                i++;
+            } else if (i == periods.length || other.periods[j] < periods[i]) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+
+        TimeRollup merged = new TimeRollup(Granularity.DAY, shared, periodCount);
+        int period = 0;
+        for (int i = 0, j = 0; i < periods.length || j < other.periods.length; period++) {
+            boolean takeMine = j == other.periods.length || i < periods.length && periods[i] <= other.periods[j];
+            boolean takeTheirs = i == periods.length || j < other.periods.length && other.periods[j] <= periods[i];
+            merged.periods[period] = takeMine ? periods[i] : other.periods[j];
+            if (takeMine) {
+                merged.addPeriod(period, this, i++, mine);
+            }
+            if (takeTheirs) {
+                merged.addPeriod(period, other, j++, theirs);
+            }
+        }
+        return merged;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public int getPeriodCount() {
+        return periods.length;
+    }
+
+    /**
+     * Epoch day the period starts on.
+     */
+    public long getPeriod(int period) {
+        return periods[period];
+    }
+
+    /**
+     * Rows of the period, whether or not their numeric values are set.
+     */
+    public long getRows(int period) {
+        return rows[period];
+    }
+
+    public long getCount(int column, int period) {
+        return counts[column][period];
+    }
+
+    public double getSum(int column, int period) {
+        return sums[column][period];
+    }
+
+    public double getMin(int column, int period) {
+        return mins[column][period];
+    }
+
+    public double getMax(int column, int period) {
+        return maxes[column][period];
+    }
+
+    public double getSumOfSquares(int column, int period) {
+        return sumSquares[column][period];
+    }
+
+    /**
+     * Sum of squared deviations from the period mean.
+     */
+    public double getSumOfSquaredDeviations(int column, int period) {
+        return m2[column][period];
+    }
+
+    public double getMean(int column, int period) {
+        return counts[column][period] > 0 ? sums[column][period] / counts[column][period] : Double.NaN;
+    }
+
+    public double getVariance(int column, int period) {
+        long n = counts[column][period];
+        return n < 2 ? 0.0 : m2[column][period] / (n - 1);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(columns.size());
+        for (String column : columns) {
+            out.writeUTF(column);
+        }
+        out.writeInt(periods.length);
+        for (int period = 0; period < periods.length; period++) {
+            out.writeLong(periods[period]);
+            out.writeLong(rows[period]);
+            for (int column = 0; column < columns.size(); column++) {
+                out.writeLong(counts[column][period]);
+                out.writeDouble(sums[column][period]);
+                out.writeDouble(mins[column][period]);
+                out.writeDouble(maxes[column][period]);
+                out.writeDouble(sumSquares[column][period]);
+                out.writeDouble(m2[column][period]);
+            }
+        }
+    }
+
+    /**
+     * @param withDeviations whether the squared deviations were written; older rollups derive
+     *                       them from the sums, as exactly as those allow
+     */
+    static TimeRollup readFrom(DataInput in, boolean withDeviations) throws IOException {
+        int columnCount = in.readInt();
+        List<String> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(in.readUTF());
+        }
+        TimeRollup rollup = new TimeRollup(Granularity.DAY, columns, in.readInt());
+        for (int period = 0; period < rollup.periods.length; period++) {
+            rollup.periods[period] = in.readLong();
+            rollup.rows[period] = in.readLong();
+            for (int column = 0; column < columnCount; column++) {
+                rollup.counts[column][period] = in.readLong();
+                rollup.sums[column][period] = in.readDouble();
+                rollup.mins[column][period] = in.readDouble();
+                rollup.maxes[column][period] = in.readDouble();
+                rollup.sumSquares[column][period] = in.readDouble();
+                long n = rollup.counts[column][period];
+                double sum = rollup.sums[column][period];
+                rollup.m2[column][period] = withDeviations ? in.readDouble()
+                        : n > 0 ? Math.max(0.0, rollup.sumSquares[column][period] - sum * sum / n) : 0.0;
+            }
+        }
+        return rollup;
+    }
+}
@@ -0,0 +1,127 @@
+package com.viet.data.column;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTripsEveryKindWithNulls() throws Exception {
+        LinkedHashMap<String, ColumnFile.Kind> kinds = new LinkedHashMap<>();
+        kinds.put("price", ColumnFile.Kind.DOUBLE);
+        kinds.put("city", ColumnFile.Kind.DICTIONARY);
+        kinds.put("day", ColumnFile.Kind.LONG);
+        // Capacity above the written row count and past a validity word boundary
+        int capacity = 200;
+        int rowCount = 130;
+        Path path = tempDir.resolve("dataset.cols");
+
+        String[] cities = {"Hanoi", "Hue", "Da Nang", "Hồ Chí Minh"};
+        try (ColumnFile.Writer writer = ColumnFile.create(path, kinds, capacity)) {
+            assertEquals(capacity, writer.getCapacity());
+            for (int row = 0; row < rowCount; row++) {
+                if (row % 7 != 0) {
+                    writer.set(0, row, row * 1.5 - 40);
+                }
+                if (row % 5 != 0) {
+                    writer.setString(1, row, cities[row % cities.length]);
+                }
+                if (row % 3 != 0) {
+                    writer.setLong(2, row, Long.MIN_VALUE / 2 + row * 86_400_000L);
+                }
+            }
+            writer.finish(rowCount);
+        }
+
+        ColumnFile file = ColumnFile.open(path);
+        assertEquals(rowCount, file.getRowCount());
+        assertEquals(path, file.getPath());
+
+        DoubleColumn price = file.getNumericColumn("price");
+        DictionaryColumn city = file.getDictionaryColumn("city");
+        LongColumn day = file.getLongColumn("day");
+        assertNotNull(price);
+        assertNotNull(city);
+        assertNotNull(day);
+        assertNull(file.getNumericColumn("city"));
+        assertNull(file.getDictionaryColumn("missing"));
+        assertEquals(List.of(price), file.getNumericColumns());
+        assertEquals(List.of(day), file.getLongColumns());
+        assertEquals(rowCount, price.size());
+        assertEquals(rowCount, city.size());
+        assertEquals(rowCount, day.size());
+
+        for (int row = 0; row < rowCount; row++) {
+            assertEquals(row % 7 == 0, price.isNull(row), "price null at " + row);
+            if (row % 7 != 0) {
+                assertEquals(row * 1.5 - 40, price.get(row));
+            }
+            assertEquals(row % 5 == 0, city.isNull(row), "city null at " + row);
+            assertEquals(row % 5 == 0 ? null : cities[row % cities.length], city.getString(row));
+            assertEquals(row % 3 == 0, day.isNull(row), "day null at " + row);
+            if (row % 3 != 0) {
+                assertEquals(Long.MIN_VALUE / 2 + row * 86_400_000L, day.getLong(row));
+            }
+        }
+
+        // The dictionary holds each distinct value once, in first-seen order
+        assertEquals(List.of("Hue", "Da Nang", "Hồ Chí Minh", "Hanoi"), city.getDictionary());
+        long[] counts = city.countByCode();
+        assertEquals(rowCount - (rowCount + 4) / 5, counts[0] + counts[1] + counts[2] + counts[3]);
+
+        // Validity words agree with isNull, with no bits past the row count
+        for (int word = 0; word <= (rowCount - 1) >>> 6; word++) {
+            long bits = 0;
+            for (int row = word << 6; row < Math.min(rowCount, (word + 1) << 6); row++) {
+                if (!price.isNull(row)) {
+                    bits |= 1L << row;
+                }
+            }
+            assertEquals(bits, price.validityWord(word), "validity word " + word);
+        }
+
+        double[] bulk = new double[10];
+        price.get(100, bulk, bulk.length);
+        for (int i = 0; i < bulk.length; i++) {
+            if (!price.isNull(100 + i)) {
+                assertEquals(price.get(100 + i), bulk[i]);
+            }
+        }
+    }
+
+    @Test
+    void emptyFileHasNoRows() throws Exception {
+        LinkedHashMap<String, ColumnFile.Kind> kinds = new LinkedHashMap<>();
+        kinds.put("value", ColumnFile.Kind.DOUBLE);
+        kinds.put("label", ColumnFile.Kind.DICTIONARY);
+        Path path = tempDir.resolve("empty.cols");
+        try (ColumnFile.Writer writer = ColumnFile.create(path, kinds, 0)) {
+            writer.finish(0);
+        }
+
+        ColumnFile file = ColumnFile.open(path);
+        assertEquals(0, file.getRowCount());
+        assertEquals(0, file.getNumericColumn("value").size());
+        assertEquals(List.of(), file.getDictionaryColumn("label").getDictionary());
+    }
+
+    @Test
+    void rejectsRowCountAboveCapacity() throws Exception {
+        LinkedHashMap<String, ColumnFile.Kind> kinds = new LinkedHashMap<>();
+        kinds.put("value", ColumnFile.Kind.LONG);
+        try (ColumnFile.Writer writer = ColumnFile.create(tempDir.resolve("small.cols"), kinds, 4)) {
+            assertThrows(IllegalArgumentException.class, () -> writer.finish(5));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> ColumnFile.create(tempDir.resolve("huge.cols"), kinds, ColumnFile.MAX_ROWS + 1));
+    }
+}
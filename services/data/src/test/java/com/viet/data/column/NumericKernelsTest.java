@@ -0,0 +1,169 @@
+package com.viet.data.column;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class NumericKernelsTest {
+
+    // Around the lane counts and the 64-row chunk, so partial lanes and chunks are covered
+    private static final int[] SIZES = {0, 1, 3, 7, 63, 64, 65, 127, 131, 1000};
+
+    private final NumericKernels scalar = new ScalarKernels();
+    private NumericKernels vectorized;
+
+    @BeforeEach
+    void setUp() {
+        boolean supported;
+        try {
+            supported = VectorizedKernels.isSupported();
+        } catch (LinkageError e) {
+            supported = false;
+        }
+        assumeTrue(supported, "no vector lanes for doubles");
+        vectorized = new VectorizedKernels();
+    }
+
+    @Test
+    void summarizeMatchesScalar() {
+        for (int size : SIZES) {
+            DoubleVector column = column(size, size, 0.1, false);
+            NumericKernels.Summary expected = scalar.summarize(column);
+            NumericKernels.Summary actual = vectorized.summarize(column);
+            assertEquals(expected.count(), actual.count(), "count at " + size);
+            assertClose(expected.sum(), actual.sum(), "sum at " + size);
+            assertClose(expected.sumOfSquares(), actual.sumOfSquares(), "sum of squares at " + size);
+            assertEquals(expected.min(), actual.min(), "min at " + size);
+            assertEquals(expected.max(), actual.max(), "max at " + size);
+        }
+    }
+
+    @Test
+    void summarizeIgnoresValuesUnderNulls() {
+        DoubleVector.Builder builder = new DoubleVector.Builder();
+        for (int row = 0; row < 70; row++) {
+            if (row % 2 == 0) {
+                builder.appendNull();
+            } else {
+                builder.append(row);
+            }
+        }
+        DoubleVector column = builder.build("x");
+
+        NumericKernels.Summary summary = vectorized.summarize(column);
+        assertEquals(scalar.summarize(column), summary);
+        assertEquals(35, summary.count());
+        assertEquals(1, summary.min());
+        assertEquals(69, summary.max());
+    }
+
+    @Test
+    void summarizeAllNullColumn() {
+        DoubleVector column = column(130, 130, 1.0, false);
+        assertEquals(scalar.summarize(column), vectorized.summarize(column));
+        assertEquals(0, vectorized.summarize(column).count());
+    }
+
+    @Test
+    void nanPropagatesLikeScalar() {
+        for (int size : new int[]{1, 5, 64, 67}) {
+            DoubleVector column = column(size, size, 0.2, true);
+            NumericKernels.Summary expected = scalar.summarize(column);
+            NumericKernels.Summary actual = vectorized.summarize(column);
+            assertEquals(expected.count(), actual.count());
+            assertTrue(Double.isNaN(actual.sum()), "sum at " + size);
+            assertTrue(Double.isNaN(actual.min()), "min at " + size);
+            assertTrue(Double.isNaN(actual.max()), "max at " + size);
+            assertEquals(scalar.selectOutside(column, -1, 1), vectorized.selectOutside(column, -1, 1));
+        }
+    }
+
+    @Test
+    void coMomentsMatchScalar() {
+        for (int size : SIZES) {
+            DoubleVector x = column(size, 2 * size + 1, 0.1, false);
+            DoubleVector y = column(size, 3 * size + 2, 0.15, false);
+            assertCoMoments(scalar.coMoments(x, y), vectorized.coMoments(x, y), "size " + size);
+        }
+    }
+
+    @Test
+    void coMomentsStopAtTheShorterColumn() {
+        DoubleVector x = column(100, 11, 0.1, false);
+        DoubleVector y = column(70, 12, 0.1, false);
+        assertCoMoments(scalar.coMoments(x, y), vectorized.coMoments(x, y), "x longer");
+        assertCoMoments(scalar.coMoments(y, x), vectorized.coMoments(y, x), "y longer");
+    }
+
+    @Test
+    void coMomentsWithNoSharedRows() {
+        DoubleVector x = column(10, 1, 1.0, false);
+        DoubleVector y = column(10, 2, 0.0, false);
+        NumericKernels.CoMoments moments = vectorized.coMoments(x, y);
+        assertEquals(0, moments.count());
+        assertTrue(Double.isNaN(moments.meanX()));
+    }
+
+    @Test
+    void selectOutsideMatchesScalar() {
+        for (int size : SIZES) {
+            DoubleVector column = column(size, 5 * size + 3, 0.1, false);
+            assertEquals(scalar.selectOutside(column, -0.5, 0.5), vectorized.selectOutside(column, -0.5, 0.5),
+                    "size " + size);
+        }
+    }
+
+    @Test
+    void selectOutsideSkipsNullRowsAndBounds() {
+        DoubleVector.Builder builder = new DoubleVector.Builder();
+        builder.append(-2);
+        builder.appendNull();
+        builder.append(-1);
+        builder.append(1);
+        builder.append(2);
+        DoubleVector column = builder.build("x");
+
+        assertEquals(scalar.selectOutside(column, -1, 1), vectorized.selectOutside(column, -1, 1));
+        assertEquals("{0, 4}", vectorized.selectOutside(column, -1, 1).toString());
+    }
+
+    /**
+     * Gaussian values with the given share of nulls, and a NaN every 13th row when asked.
+     */
+    private static DoubleVector column(int size, long seed, double nullShare, boolean withNaN) {
+        Random random = new Random(seed);
+        DoubleVector.Builder builder = new DoubleVector.Builder();
+        for (int row = 0; row < size; row++) {
+            if (random.nextDouble() < nullShare) {
+                builder.appendNull();
+            } else if (withNaN && row % 13 == 0) {
+                builder.append(Double.NaN);
+            } else {
+                builder.append(random.nextGaussian());
+            }
+        }
+        return builder.build("x");
+    }
+
+    private static void assertCoMoments(NumericKernels.CoMoments expected, NumericKernels.CoMoments actual,
+                                        String message) {
+        assertEquals(expected.count(), actual.count(), message);
+        if (expected.count() == 0) {
+            return;
+        }
+        assertClose(expected.meanX(), actual.meanX(), message);
+        assertClose(expected.meanY(), actual.meanY(), message);
+        assertClose(expected.sxx(), actual.sxx(), message);
+        assertClose(expected.syy(), actual.syy(), message);
+        assertClose(expected.sxy(), actual.sxy(), message);
+    }
+
+    // Lanes add in a different order, so sums agree to rounding rather than bit for bit
+    private static void assertClose(double expected, double actual, String message) {
+        assertEquals(expected, actual, 1e-9 * Math.max(1, Math.abs(expected)), message);
+    }
+}
@@ -0,0 +1,117 @@
+package com.viet.data.column;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StratifiedSampleTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void estimatesATotalWithTheFinitePopulationCorrection() throws Exception {
+        // Four rows standing for ten: s^2 = 5/3, so Var = N^2 (1 - n/N) s^2 / n = 100 * 0.6 * (5/3) / 4
+        StratifiedSample sample = sample(new String[]{"a", "a", "a", "a"}, new double[]{1, 2, 3, 4}, 2.5);
+        StratifiedSample.Domain all = domain(sample, 0, 1, 2, 3);
+
+        assertEquals(10, sample.getPopulationRows());
+        assertEstimate(25, 5, all.sum());
+        // Every row is in the domain, so its count is known exactly
+        assertEstimate(10, 0, all.count());
+        // Ratio mean with the linearized error: sqrt((1 - n/N) s^2 / n)
+        assertEstimate(2.5, 0.5, all.mean());
+
+        StratifiedSample.Estimate sum = all.sum();
+        assertEquals(25 - StratifiedSample.Z * 5, sum.lower(), TOLERANCE);
+        assertEquals(25 + StratifiedSample.Z * 5, sum.upper(), TOLERANCE);
+    }
+
+    @Test
+    void estimatesTheCountOfAPartialDomain() throws Exception {
+        StratifiedSample sample = sample(new String[]{"a", "a", "a", "a"}, new double[]{1, 2, 3, 4}, 2.5);
+
+        // Indicator 0, 0, 1, 1: s^2 = 1/3, so Var = 6.25 * 4 * 0.6 / 3
+        assertEstimate(5, Math.sqrt(5), domain(sample, 2, 3).count());
+    }
+
+    @Test
+    void fullySampledStrataAddNoError() throws Exception {
+        // Stratum a is complete; stratum b has four rows standing for twenty
+        StratifiedSample sample = sample(new String[]{"a", "a", "a", "a", "b", "b", "b", "b"},
+                new double[]{10, 20, 30, 40, 1, 2, 3, 4}, 1, 1, 1, 1, 5, 5, 5, 5);
+
+        assertEquals(24, sample.getPopulationRows());
+        StratifiedSample.Domain all = domain(sample, 0, 1, 2, 3, 4, 5, 6, 7);
+        assertEstimate(150, Math.sqrt(25 * 4 * 0.8 * 5 / 3.0), all.sum());
+        assertEstimate(24, 0, all.count());
+
+        assertEstimate(100, 0, domain(sample, 0, 1, 2, 3).sum());
+    }
+
+    @Test
+    void aSingleRowStandingForSeveralHasNoKnownError() throws Exception {
+        StratifiedSample sample = sample(new String[]{"a", "a", "b"}, new double[]{1, 3, 7}, 1, 1, 3);
+        StratifiedSample.Domain all = domain(sample, 0, 1, 2);
+
+        assertEquals(25, all.sum().value(), TOLERANCE);
+        assertTrue(Double.isNaN(all.sum().standardError()));
+        assertTrue(Double.isNaN(all.count().standardError()));
+
+        // A single row that is its whole stratum is still exact
+        StratifiedSample complete = sample(new String[]{"a", "a", "b"}, new double[]{1, 3, 7}, 2, 2, 1);
+        assertEquals(0, domain(complete, 2).sum().standardError());
+    }
+
+    @Test
+    void meanWithoutValuesIsUndefined() throws Exception {
+        StratifiedSample sample = sample(new String[]{"a", "a"}, new double[]{1, 2}, 2);
+        StratifiedSample.Domain domain = sample.newDomain();
+        domain.add(0);
+
+        assertFalse(domain.hasValues());
+        assertTrue(Double.isNaN(domain.mean().value()));
+    }
+
+    private static StratifiedSample.Domain domain(StratifiedSample sample, int... rows) {
+        StratifiedSample.Domain domain = sample.newDomain();
+        DoubleColumn values = sample.getNumericColumn("value");
+        for (int row : rows) {
+            domain.add(row);
+            domain.addValue(row, values.get(row));
+        }
+        return domain;
+    }
+
+    private static void assertEstimate(double value, double standardError, StratifiedSample.Estimate estimate) {
+        assertEquals(value, estimate.value(), TOLERANCE, "value");
+        assertEquals(standardError, estimate.standardError(), TOLERANCE, "standard error");
+    }
+
+    /**
+     * Sampled rows of a value column, stratified on {@code strata}, with one weight per row or
+     * a single weight for all of them.
+     */
+    private StratifiedSample sample(String[] strata, double[] values, double... weights) throws Exception {
+        LinkedHashMap<String, ColumnFile.Kind> kinds = new LinkedHashMap<>();
+        kinds.put("value", ColumnFile.Kind.DOUBLE);
+        kinds.put("stratum", ColumnFile.Kind.DICTIONARY);
+        kinds.put("weight", ColumnFile.Kind.DOUBLE);
+        Path path = tempDir.resolve("sample-" + System.nanoTime() + ".cols");
+        try (ColumnFile.Writer writer = ColumnFile.create(path, kinds, values.length)) {
+            for (int row = 0; row < values.length; row++) {
+                writer.set(0, row, values[row]);
+                writer.setString(1, row, strata[row]);
+                writer.set(2, row, weights.length == 1 ? weights[0] : weights[row]);
+            }
+            writer.finish(values.length);
+        }
+        return new StratifiedSample(ColumnFile.open(path), "weight", "stratum");
+    }
+}
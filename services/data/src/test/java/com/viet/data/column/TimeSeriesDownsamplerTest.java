@@ -0,0 +1,129 @@
+package com.viet.data.column;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSeriesDownsamplerTest {
+
+    @Test
+    void keepsTheEndPointsOfTheWindow() {
+        Columns columns = columns(new long[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, new double[]{5, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+        TimeSeriesDownsampler.Series series = TimeSeriesDownsampler.downsample(columns.time, columns.values, 0, 9, 3);
+
+        assertEquals(10, series.pointsInWindow());
+        assertEquals(0, series.times()[0]);
+        assertEquals(5, series.values()[0]);
+        assertEquals(9, series.times()[series.times().length - 1]);
+        assertEquals(9, series.values()[series.values().length - 1]);
+        // The end points plus at most one point per bucket, in time order
+        assertTrue(series.times().length <= 3 + 2);
+        for (int i = 1; i < series.times().length; i++) {
+            assertTrue(series.times()[i] > series.times()[i - 1]);
+        }
+    }
+
+    @Test
+    void envelopesHoldEachBucketsExtremes() {
+        // Buckets of 0-3, 4-7 and 8-11; rows outside the window and null rows are left out
+        Columns columns = columns(new long[]{0, 1, 2, 4, 5, 9, 11, 20, -1, 3},
+                new double[]{3, -2, 7, 10, 12, 4, 6, 100, 100, Double.NaN});
+        TimeSeriesDownsampler.Series series = TimeSeriesDownsampler.downsample(columns.time, columns.values, 0, 11, 3);
+
+        assertEquals(7, series.pointsInWindow());
+        assertArrayEquals(new long[]{0, 4, 8}, series.bucketTimes());
+        assertArrayEquals(new double[]{-2, 10, 4}, series.mins());
+        assertArrayEquals(new double[]{7, 12, 6}, series.maxes());
+    }
+
+    @Test
+    void emptyBucketsHaveNoEnvelope() {
+        Columns columns = columns(new long[]{0, 1, 10, 11}, new double[]{1, 2, 3, 4});
+        TimeSeriesDownsampler.Series series = TimeSeriesDownsampler.downsample(columns.time, columns.values, 0, 11, 6);
+
+        assertArrayEquals(new long[]{0, 10}, series.bucketTimes());
+        assertArrayEquals(new double[]{1, 3}, series.mins());
+        assertArrayEquals(new double[]{2, 4}, series.maxes());
+    }
+
+    @Test
+    void keepsASpike() {
+        long[] times = new long[1000];
+        double[] values = new double[1000];
+        for (int row = 0; row < times.length; row++) {
+            times[row] = row;
+            values[row] = row == 437 ? 1000 : Math.sin(row / 50.0);
+        }
+        Columns columns = columns(times, values);
+        TimeSeriesDownsampler.Series series =
+                TimeSeriesDownsampler.downsample(columns.time, columns.values, 0, 999, 20);
+
+        boolean spike = false;
+        for (int i = 0; i < series.times().length; i++) {
+            spike |= series.times()[i] == 437 && series.values()[i] == 1000;
+        }
+        assertTrue(spike);
+        assertEquals(1000, series.maxes()[8]);
+    }
+
+    @Test
+    void unsortedRowsGiveTheSameSeries() {
+        long[] times = new long[200];
+        double[] values = new double[200];
+        for (int row = 0; row < times.length; row++) {
+            times[row] = row * 3L;
+            values[row] = Math.cos(row / 7.0) * row;
+        }
+        Columns sorted = columns(times, values);
+
+        // Reverse the rows; ties in time cannot occur, so every bucket's pick is the same
+        long[] reversedTimes = new long[times.length];
+        double[] reversedValues = new double[values.length];
+        for (int row = 0; row < times.length; row++) {
+            reversedTimes[row] = times[times.length - 1 - row];
+            reversedValues[row] = values[values.length - 1 - row];
+        }
+        Columns reversed = columns(reversedTimes, reversedValues);
+
+        TimeSeriesDownsampler.Series expected =
+                TimeSeriesDownsampler.downsample(sorted.time, sorted.values, 10, 500, 16);
+        TimeSeriesDownsampler.Series actual =
+                TimeSeriesDownsampler.downsample(reversed.time, reversed.values, 10, 500, 16);
+        assertArrayEquals(expected.times(), actual.times());
+        assertArrayEquals(expected.values(), actual.values());
+        assertArrayEquals(expected.bucketTimes(), actual.bucketTimes());
+        assertArrayEquals(expected.mins(), actual.mins());
+        assertArrayEquals(expected.maxes(), actual.maxes());
+        assertEquals(expected.pointsInWindow(), actual.pointsInWindow());
+    }
+
+    @Test
+    void emptyWindowHasNoPoints() {
+        Columns columns = columns(new long[]{0, 1, 2}, new double[]{1, 2, 3});
+        TimeSeriesDownsampler.Series series = TimeSeriesDownsampler.downsample(columns.time, columns.values, 5, 9, 4);
+
+        assertEquals(0, series.pointsInWindow());
+        assertEquals(0, series.times().length);
+        assertEquals(0, series.bucketTimes().length);
+    }
+
+    private record Columns(LongColumn time, DoubleColumn values) {
+    }
+
+    /**
+     * Time and value columns; a NaN value stands for a null.
+     */
+    private static Columns columns(long[] times, double[] values) {
+        LongVector.Builder time = new LongVector.Builder();
+        DoubleVector.Builder value = new DoubleVector.Builder();
+        for (int row = 0; row < times.length; row++) {
+            time.append(times[row]);
+            if (Double.isNaN(values[row])) {
+                value.appendNull();
+            } else {
+                value.append(values[row]);
+            }
+        }
+        return new Columns(time.build("time"), value.build("value"));
+    }
+}
@@ -0,0 +1,197 @@
+package com.viet.data.join;
+
+import com.viet.data.exception.DataProcessingException;
+import com.viet.data.module.ColumnMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashJoinTest {
+
+    private static final long UNLIMITED = Long.MAX_VALUE;
+    // A handful of rows per partition, so the build side always spills
+    private static final long SPILL_BUDGET = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void spilledJoinMatchesInMemoryJoin() throws IOException {
+        List<String[]> left = rows(3000, 700, "l");
+        List<String[]> right = rows(2000, 900, "r");
+        JoinKey key = textKey();
+
+        for (HashJoin.Type type : HashJoin.Type.values()) {
+            for (boolean buildIsLeft : new boolean[]{true, false}) {
+                List<String> expected = nestedLoop(type, left, right);
+
+                HashJoin inMemory = join(key, type, buildIsLeft, UNLIMITED);
+                assertEquals(expected, run(inMemory, buildIsLeft, left, right), type + " built " + side(buildIsLeft));
+                assertEquals(0, inMemory.getPartitionCount());
+
+                HashJoin spilled = join(key, type, buildIsLeft, SPILL_BUDGET);
+                assertEquals(expected, run(spilled, buildIsLeft, left, right), type + " built " + side(buildIsLeft));
+                assertTrue(spilled.getPartitionCount() > 0);
+            }
+        }
+        assertSpillFilesDeleted();
+    }
+
+    @Test
+    void splitsPartitionsOverTheBudget() throws IOException {
+        List<String[]> left = rows(4000, 3000, "l");
+        List<String[]> right = rows(4000, 3000, "r");
+
+        // Partitions of the first spill hold more rows than this fits
+        HashJoin join = join(textKey(), HashJoin.Type.INNER, true, 1024);
+        assertEquals(nestedLoop(HashJoin.Type.INNER, left, right), run(join, true, left, right));
+        assertTrue(join.getPartitionCount() > 256, "partitions: " + join.getPartitionCount());
+        assertSpillFilesDeleted();
+    }
+
+    @Test
+    void leftJoinBuiltOnTheLeftEmitsUnmatchedRows() throws IOException {
+        List<String[]> left = List.of(row("a", "l1"), row("b", "l2"), row("c", "l3"), row(null, "l4"));
+        List<String[]> right = List.of(row("a", "r1"), row("a", "r2"), row("c", "r3"), row("d", "r4"), row(null, "r5"));
+        List<String> expected = sorted(
+                "[a, l1]|[a, r1]",
+                "[a, l1]|[a, r2]",
+                "[b, l2]|null",
+                "[c, l3]|[c, r3]",
+                "[null, l4]|null");
+
+        assertEquals(expected, run(join(textKey(), HashJoin.Type.LEFT, true, UNLIMITED), true, left, right));
+        // Budget for a single row, so each of them spills
+        HashJoin spilled = join(textKey(), HashJoin.Type.LEFT, true, 200);
+        assertEquals(expected, run(spilled, true, left, right));
+        assertTrue(spilled.getPartitionCount() > 0);
+    }
+
+    @Test
+    void numericKeysMatchAcrossNotationsWhenSpilled() throws IOException {
+        List<String[]> left = new ArrayList<>();
+        List<String[]> right = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            left.add(row(Integer.toString(i), "l" + i));
+            right.add(row(i + ".0", "r" + i));
+        }
+        left.add(row("0", "zero"));
+        right.add(row("-0.0", "negative zero"));
+
+        JoinKey key = JoinKey.of(numeric(ColumnMetadata.DataType.INTEGER), numeric(ColumnMetadata.DataType.DOUBLE));
+        HashJoin join = join(key, HashJoin.Type.INNER, true, SPILL_BUDGET);
+        List<String> result = run(join, true, left, right);
+
+        assertTrue(join.getPartitionCount() > 0);
+        // Both zeros of each side match both of the other
+        assertEquals(500 + 3, result.size());
+        assertTrue(result.contains("[7, l7]|[7.0, r7]"));
+        assertTrue(result.contains("[0, zero]|[-0.0, negative zero]"));
+    }
+
+    @Test
+    void refusesRowsOfOneKeyOverTheBudget() {
+        List<String[]> left = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            left.add(row("hot", "l" + i));
+        }
+        List<String[]> right = Collections.singletonList(row("hot", "r"));
+
+        HashJoin join = join(textKey(), HashJoin.Type.INNER, true, SPILL_BUDGET);
+        assertThrows(DataProcessingException.class, () -> run(join, true, left, right));
+        assertSpillFilesDeleted();
+    }
+
+    private HashJoin join(JoinKey key, HashJoin.Type type, boolean buildIsLeft, long budget) {
+        return new HashJoin(key, type, buildIsLeft, 0, 0, budget, tempDir);
+    }
+
+    private static List<String> run(HashJoin join, boolean buildIsLeft, List<String[]> left, List<String[]> right)
+            throws IOException {
+        List<String[]> build = buildIsLeft ? left : right;
+        List<String[]> probe = buildIsLeft ? right : left;
+        List<String> result = new ArrayList<>();
+        join.run(build::forEach, build.size(), probe::forEach,
+                (leftRow, rightRow) -> result.add(format(leftRow, rightRow)));
+        Collections.sort(result);
+        return result;
+    }
+
+    private static List<String> nestedLoop(HashJoin.Type type, List<String[]> left, List<String[]> right) {
+        List<String> result = new ArrayList<>();
+        for (String[] leftRow : left) {
+            boolean matched = false;
+            for (String[] rightRow : right) {
+                if (leftRow[0] != null && leftRow[0].equals(rightRow[0])) {
+                    result.add(format(leftRow, rightRow));
+                    matched = true;
+                }
+            }
+            if (!matched && type == HashJoin.Type.LEFT) {
+                result.add(format(leftRow, null));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Rows keyed {@code k0 .. k(keys - 1)} in turn, every 50th without a key.
+     */
+    private static List<String[]> rows(int count, int keys, String prefix) {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(row(i % 50 == 0 ? null : "k" + i % keys, prefix + i));
+        }
+        return rows;
+    }
+
+    private static String[] row(String key, String value) {
+        return new String[]{key, value};
+    }
+
+    private static String format(String[] left, String[] right) {
+        return Arrays.toString(left) + "|" + (right != null ? Arrays.toString(right) : "null");
+    }
+
+    private static List<String> sorted(String... values) {
+        List<String> list = new ArrayList<>(List.of(values));
+        Collections.sort(list);
+        return list;
+    }
+
+    private static String side(boolean left) {
+        return left ? "left" : "right";
+    }
+
+    private static JoinKey textKey() {
+        ColumnMetadata column = new ColumnMetadata();
+        column.setName("id");
+        column.setDataType(ColumnMetadata.DataType.STRING);
+        column.setIsNumeric(false);
+        return JoinKey.of(column, column);
+    }
+
+    private static ColumnMetadata numeric(ColumnMetadata.DataType type) {
+        ColumnMetadata column = new ColumnMetadata();
+        column.setName("id");
+        column.setDataType(type);
+        column.setIsNumeric(true);
+        return column;
+    }
+
+    private void assertSpillFilesDeleted() {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.viet.data.join;
+
+import com.viet.data.module.ColumnMetadata;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JoinKeyTest {
+
+    @Test
+    void integerKeysIgnoreDecimalNotation() {
+        JoinKey key = JoinKey.of(column(ColumnMetadata.DataType.INTEGER, true), column(ColumnMetadata.DataType.INTEGER, true));
+        assertEquals("integer", key.describe());
+        assertTrue(key.isPrimitive());
+
+        assertEquals(7L, key.toLong("7", true));
+        assertEquals(key.toLong("7", true), key.toLong("7.0", false));
+        assertEquals(1000L, key.toLong("1e3", false));
+        assertEquals(key.toLong("0", true), key.toLong("-0.0", false));
+        assertThrows(IllegalArgumentException.class, () -> key.toLong("7.5", true));
+        assertThrows(IllegalArgumentException.class, () -> key.toLong("1e19", true));
+        assertThrows(IllegalArgumentException.class, () -> key.toLong("seven", true));
+    }
+
+    @Test
+    void decimalKeysMatchAcrossNotationsAndZeros() {
+        JoinKey key = JoinKey.of(column(ColumnMetadata.DataType.INTEGER, true), column(ColumnMetadata.DataType.DOUBLE, true));
+        assertEquals("decimal", key.describe());
+
+        assertEquals(key.toLong("7", true), key.toLong("7.0", false));
+        assertEquals(key.toLong("7", true), key.toLong("7.000", false));
+        assertEquals(key.toLong("0.0", true), key.toLong("-0.0", false));
+        assertEquals(key.toLong("0", true), key.toLong("-0", false));
+        assertNotEquals(key.toLong("7", true), key.toLong("7.5", false));
+        assertThrows(IllegalArgumentException.class, () -> key.toLong("NaN", true));
+        assertThrows(IllegalArgumentException.class, () -> key.toLong("-Infinity", true));
+    }
+
+    @Test
+    void mixedColumnsCompareAsText() {
+        JoinKey key = JoinKey.of(column(ColumnMetadata.DataType.INTEGER, true), column(ColumnMetadata.DataType.STRING, false));
+        assertEquals("text", key.describe());
+        assertFalse(key.isPrimitive());
+        assertThrows(IllegalStateException.class, () -> key.toLong("7", true));
+    }
+
+    private static ColumnMetadata column(ColumnMetadata.DataType type, boolean numeric) {
+        ColumnMetadata column = new ColumnMetadata();
+        column.setName("id");
+        column.setDataType(type);
+        column.setIsNumeric(numeric);
+        return column;
+    }
+}
@@ -0,0 +1,77 @@
+package com.viet.data.processor;
+
+import com.viet.data.column.ColumnVector;
+import com.viet.data.dto.response.CSVParseResult;
+import com.viet.data.module.ColumnMetadata;
+import com.viet.data.sketch.ColumnSketch;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CSVProcessorTest {
+
+    // Rows in the inference sample
+    private static final int SAMPLE = 1000;
+
+    private final CSVProcessor processor = new CSVProcessor();
+
+    @Test
+    void rejectsADayFirstDateAfterAMonthFirstSample() {
+        StringBuilder csv = new StringBuilder("day\n");
+        for (int row = 0; row < SAMPLE; row++) {
+            // Every sampled day is 12 or less, so the order is ambiguous
+            csv.append(String.format("%02d/%02d/2024\n", row % 12 + 1, row / 12 % 12 + 1));
+        }
+        csv.append("25/12/2024\n").append("01/02/2024\n");
+
+        CSVParseResult result = parse(csv);
+        ColumnMetadata day = result.getColumns().get(0);
+        assertEquals(TemporalFormat.US_DATE.name(), day.getTemporalFormat());
+        assertEquals(1, day.getRejectedCount());
+        assertEquals(1, day.getNullCount());
+
+        ColumnVector vector = result.getTable().getColumn("day");
+        assertTrue(vector.isNull(SAMPLE));
+        assertFalse(vector.isNull(SAMPLE + 1));
+        assertFalse(result.getSketches().get("day").getFrequentItems().getTopItems(100).containsKey("25/12/2024"));
+    }
+
+    @Test
+    void rejectsLateTextInANumericColumn() {
+        StringBuilder csv = new StringBuilder("amount,label\n");
+        for (int row = 0; row < SAMPLE; row++) {
+            csv.append(row).append(",a\n");
+        }
+        csv.append("n/a,b\n").append("7.5,c\n").append(",d\n");
+
+        CSVParseResult result = parse(csv);
+        ColumnMetadata amount = result.getColumns().get(0);
+        // The decimal widened the column; the text was rejected, not counted as a value
+        assertEquals(ColumnMetadata.DataType.DOUBLE, amount.getDataType());
+        assertEquals(1, amount.getRejectedCount());
+        assertEquals(2, amount.getNullCount());
+        assertEquals(SAMPLE + 1, amount.getUniqueCount());
+
+        ColumnSketch sketch = result.getSketches().get("amount");
+        assertEquals(SAMPLE + 1, sketch.getMoments().getCount());
+        assertEquals(SAMPLE + 3, sketch.getTotalCount());
+        assertTrue(result.getTable().getColumn("amount").isNull(SAMPLE));
+        assertEquals(0, result.getColumns().get(1).getRejectedCount());
+    }
+
+    @Test
+    void sampleRowsAreNeverRejected() {
+        CSVParseResult result = parse(new StringBuilder("when,value\n2024-01-31,1\n2024-02-01,2.5\n,\n"));
+        for (ColumnMetadata column : result.getColumns()) {
+            assertEquals(0, column.getRejectedCount(), column.getName());
+            assertEquals(1, column.getNullCount(), column.getName());
+        }
+    }
+
+    private CSVParseResult parse(CharSequence csv) {
+        return processor.processCSV(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,56 @@
+package com.viet.data.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemporalFormatTest {
+
+    @Test
+    void detectsEachLayout() {
+        assertEquals(TemporalFormat.ISO_DATE, TemporalFormat.detect(List.of("2024-01-31", "2023-12-01")));
+        assertEquals(TemporalFormat.SLASHED_ISO_DATE, TemporalFormat.detect(List.of("2024/01/31")));
+        assertEquals(TemporalFormat.DOTTED_DATE, TemporalFormat.detect(List.of("31.01.2024")));
+        assertEquals(TemporalFormat.NAMED_MONTH_DATE, TemporalFormat.detect(List.of("31-Jan-2024", "01-dec-2023")));
+        assertEquals(TemporalFormat.ISO_DATETIME, TemporalFormat.detect(List.of("2024-01-31T08:15", "2024-01-31T08:15:30.5Z")));
+        assertEquals(TemporalFormat.SPACED_ISO_DATETIME, TemporalFormat.detect(List.of("2024-01-31 08:15:30")));
+        assertEquals(TemporalFormat.EUROPEAN_DATETIME, TemporalFormat.detect(List.of("31/01/2024 08:15")));
+    }
+
+    @Test
+    void monthFirstWinsUntilADayPastTwelve() {
+        assertEquals(TemporalFormat.US_DATE, TemporalFormat.detect(List.of("03/04/2024", "12/11/2024")));
+        assertEquals(TemporalFormat.US_DATE, TemporalFormat.detect(List.of("03/04/2024", "01/25/2024")));
+        assertEquals(TemporalFormat.EUROPEAN_DATE, TemporalFormat.detect(List.of("03/04/2024", "25/01/2024")));
+    }
+
+    @Test
+    void rejectsMixedOrInvalidValues() {
+        assertNull(TemporalFormat.detect(List.of()));
+        assertNull(TemporalFormat.detect(List.of("2024-01-31", "31/01/2024")));
+        // Strict resolving: no 30th of February, no month 13
+        assertNull(TemporalFormat.detect(List.of("2024-02-30")));
+        assertNull(TemporalFormat.detect(List.of("13/13/2024")));
+        assertNull(TemporalFormat.detect(List.of("hello")));
+    }
+
+    @Test
+    void parsesToEpochValues() {
+        assertEquals(LocalDate.of(2024, 3, 4).toEpochDay(), TemporalFormat.US_DATE.parse("03/04/2024"));
+        assertEquals(LocalDate.of(2024, 4, 3).toEpochDay(), TemporalFormat.EUROPEAN_DATE.parse("03/04/2024"));
+        // No offset is UTC; an offset shifts the instant
+        assertEquals(1_706_688_930_000L, TemporalFormat.ISO_DATETIME.parse("2024-01-31T08:15:30"));
+        assertEquals(1_706_688_930_000L - 7 * 3_600_000L, TemporalFormat.ISO_DATETIME.parse("2024-01-31T08:15:30+07:00"));
+        assertEquals(1_706_688_930_250L, TemporalFormat.ISO_DATETIME.parse("2024-01-31T08:15:30.25Z"));
+    }
+
+    @Test
+    void formatsAsIso() {
+        assertEquals("2024-03-04", TemporalFormat.US_DATE.format(TemporalFormat.US_DATE.parse("03/04/2024")));
+        assertEquals("2024-01-31T01:15:30Z",
+                TemporalFormat.ISO_DATETIME.format(TemporalFormat.ISO_DATETIME.parse("2024-01-31T08:15:30+07:00")));
+    }
+}
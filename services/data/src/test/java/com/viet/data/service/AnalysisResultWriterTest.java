@@ -0,0 +1,88 @@
+package com.viet.data.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viet.data.dto.request.AnalysisRequest;
+import com.viet.data.dto.response.AnalysisResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisResultWriterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final AnalysisResultWriter writer = new AnalysisResultWriter(objectMapper);
+
+    @Test
+    void blankSelectsEveryFieldInDeclarationOrder() {
+        List<String> declared = Arrays.stream(AnalysisResult.class.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .map(Field::getName)
+                .toList();
+
+        assertEquals(declared, new ArrayList<>(writer.parseFields(null)));
+        assertEquals(declared, new ArrayList<>(writer.parseFields(" ")));
+    }
+
+    @Test
+    void parsesASelector() {
+        assertEquals(Set.of("status", "correlations"), writer.parseFields(" status,,correlations ,status"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> writer.parseFields("status,getStatus"));
+        assertTrue(e.getMessage().startsWith("Unknown field: getStatus"));
+    }
+
+    @Test
+    void writesOnlyTheSelectedFields() throws Exception {
+        JsonNode response = write(writer.parseFields("correlations,status,processingTimeMs"));
+
+        assertTrue(response.get("success").asBoolean());
+        assertEquals("done", response.get("message").asText());
+        assertTrue(response.get("errorCode").isNull());
+        // Response order, not selector order
+        assertEquals(List.of("correlations", "processingTimeMs", "status"), fieldNames(response.get("data")));
+        assertEquals(0.5, response.at("/data/correlations/a/b").asDouble());
+        assertEquals(42, response.at("/data/processingTimeMs").asLong());
+    }
+
+    @Test
+    void writesEveryFieldAsTheMapperWould() throws Exception {
+        AnalysisResult result = result();
+        JsonNode response = write(writer.parseFields(null));
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(result)), response.get("data"));
+    }
+
+    private JsonNode write(Set<String> fields) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write("done", result(), fields, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private static AnalysisResult result() {
+        AnalysisResult result = new AnalysisResult();
+        result.setId("r1");
+        result.setDatasetId("d1");
+        result.setAnalysisType(AnalysisRequest.AnalysisType.CORRELATION_ANALYSIS);
+        result.setCorrelations(Map.of("a", Map.of("b", 0.5)));
+        result.setAnalyzedAt(LocalDateTime.of(2024, 1, 31, 8, 15));
+        result.setProcessingTimeMs(42L);
+        result.setStatus("COMPLETED");
+        result.setInsights(List.of("a and b move together"));
+        return result;
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
@@ -0,0 +1,164 @@
+package com.viet.data.service;
+
+import com.viet.data.dto.dtos.StoredFile;
+import com.viet.data.module.StoredBlob;
+import com.viet.data.repository.StoredBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStorageServiceTest {
+
+    private static final byte[] CONTENT = "id,value\n1,2\n".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path storageDir;
+
+    private final Map<String, StoredBlob> blobs = new ConcurrentHashMap<>();
+    private FileStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorageService(blobRepository());
+        ReflectionTestUtils.setField(storage, "storagePath", storageDir.toString());
+    }
+
+    @Test
+    void identicalContentSharesOneBlob() throws Exception {
+        StoredFile first = store(CONTENT);
+        StoredFile second = store(CONTENT);
+        StoredFile other = store("id,value\n1,3\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(first.getPath(), second.getPath());
+        assertEquals(sha256(CONTENT), first.getContentHash());
+        assertNotEquals(first.getPath(), other.getPath());
+        assertEquals(2L, blobs.get(first.getContentHash()).getRefCount());
+        assertEquals(1L, blobs.get(other.getContentHash()).getRefCount());
+        assertArrayEquals(CONTENT, Files.readAllBytes(Path.of(first.getPath())));
+        assertEquals(0, countFiles(storageDir.resolve("tmp")));
+    }
+
+    @Test
+    void deletesTheFileWithItsLastReference() {
+        StoredFile first = store(CONTENT);
+        store(CONTENT);
+
+        storage.releaseFile(first.getPath());
+        assertTrue(Files.exists(Path.of(first.getPath())));
+        assertEquals(1L, blobs.get(first.getContentHash()).getRefCount());
+
+        storage.releaseFile(first.getPath());
+        assertFalse(Files.exists(Path.of(first.getPath())));
+        assertFalse(blobs.containsKey(first.getContentHash()));
+
+        // Stored again from scratch once it is gone
+        StoredFile again = store(CONTENT);
+        assertTrue(Files.exists(Path.of(again.getPath())));
+        assertEquals(1L, blobs.get(again.getContentHash()).getRefCount());
+    }
+
+    @Test
+    void givesTheReferenceBackWhenTheFileCannotBeStored() throws Exception {
+        // A plain file where the blob's directory belongs makes storing it fail
+        String hash = sha256(CONTENT);
+        Files.createDirectories(storageDir.resolve("blobs"));
+        Files.writeString(storageDir.resolve("blobs").resolve(hash.substring(0, 2)), "in the way");
+
+        assertThrows(RuntimeException.class, () -> store(CONTENT));
+        assertFalse(blobs.containsKey(hash));
+        assertEquals(0, countFiles(storageDir.resolve("tmp")));
+    }
+
+    @Test
+    void takesOverAnAbandonedDeletion() throws Exception {
+        String hash = sha256(CONTENT);
+        blobs.put(hash, new StoredBlob(hash, storageDir.resolve("blobs/gone.csv").toString(), (long) CONTENT.length,
+                0L, LocalDateTime.now().minusHours(1), LocalDateTime.now().minusHours(1)));
+
+        StoredFile stored = store(CONTENT);
+        assertTrue(Files.exists(Path.of(stored.getPath())));
+        assertEquals(1L, blobs.get(hash).getRefCount());
+        assertNull(blobs.get(hash).getDeletingSince());
+    }
+
+    private StoredFile store(byte[] content) {
+        return storage.storeFile(new ByteArrayInputStream(content), "data.csv");
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private static long countFiles(Path dir) throws Exception {
+        if (!Files.exists(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    /**
+     * The blob operations the service uses, over a map.
+     */
+    private StoredBlobRepository blobRepository() {
+        return (StoredBlobRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{StoredBlobRepository.class}, (proxy, method, args) -> {
+                    String id = (String) args[0];
+                    switch (method.getName()) {
+                        case "acquire": {
+                            StoredBlob blob = blobs.compute(id, (key, current) -> {
+                                if (current == null) {
+                                    return new StoredBlob(key, (String) args[1], (Long) args[2], 1L,
+                                            LocalDateTime.now(), null);
+                                }
+                                if (current.getDeletingSince() == null) {
+                                    current.setRefCount(current.getRefCount() + 1);
+                                }
+                                return current;
+                            });
+                            return blob.getDeletingSince() == null ? blob : null;
+                        }
+                        case "release": {
+                            StoredBlob blob = blobs.computeIfPresent(id, (key, current) -> {
+                                current.setRefCount(current.getRefCount() - 1);
+                                return current;
+                            });
+                            return blob != null ? blob.getRefCount() : -1L;
+                        }
+                        case "claimDeletion": {
+                            StoredBlob blob = blobs.get(id);
+                            if (blob == null || blob.getRefCount() > 0 || blob.getDeletingSince() != null) {
+                                return false;
+                            }
+                            blob.setDeletingSince((LocalDateTime) args[1]);
+                            return true;
+                        }
+                        case "removeDeleted":
+                            blobs.computeIfPresent(id, (key, blob) -> blob.getDeletingSince() != null ? null : blob);
+                            return null;
+                        case "removeStaleDeletion":
+                            blobs.computeIfPresent(id, (key, blob) -> blob.getDeletingSince() != null
+                                    && blob.getDeletingSince().isBefore((LocalDateTime) args[1]) ? null : blob);
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
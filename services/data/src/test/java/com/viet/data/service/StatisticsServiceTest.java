@@ -0,0 +1,117 @@
+package com.viet.data.service;
+
+import com.viet.data.column.ColumnFile;
+import com.viet.data.column.StratifiedSample;
+import com.viet.data.dto.response.ConfidenceInterval;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsServiceTest {
+
+    private static final int ROWS = 28;
+
+    @TempDir
+    Path tempDir;
+
+    private final StatisticsService statisticsService = new StatisticsService();
+
+    @Test
+    void equalWeightsKeepEverySampledRow() throws Exception {
+        double[] weights = new double[ROWS];
+        Arrays.fill(weights, 2);
+
+        // n_eff = n = 28, so the Fisher-z margin is Z / sqrt(25)
+        assertInterval(sample(weights), ROWS);
+    }
+
+    @Test
+    void unequalWeightsShrinkTheEffectiveSampleSize() throws Exception {
+        double[] weights = new double[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            weights[row] = row % 2 == 0 ? 1 : 3;
+        }
+
+        // Kish: (sum w)^2 / sum w^2 = 56^2 / 140
+        assertInterval(sample(weights), 56.0 * 56.0 / 140.0);
+    }
+
+    @Test
+    void tooFewEffectiveRowsSpanEveryCorrelation() throws Exception {
+        double[] weights = new double[ROWS];
+        Arrays.fill(weights, 1);
+        weights[0] = 1000;
+
+        ConfidenceInterval interval = statisticsService.estimateCorrelations(sample(weights))
+                .intervals().get("x").get("y");
+        assertEquals(-1.0, interval.getLower());
+        assertEquals(1.0, interval.getUpper());
+    }
+
+    private void assertInterval(StratifiedSample sample, double effectiveRows) {
+        StatisticsService.SampledCorrelations result = statisticsService.estimateCorrelations(sample);
+        double r = weightedCorrelation(sample);
+        assertEquals(Math.round(r * 10000) / 10000.0, result.correlations().get("x").get("y"));
+
+        double z = 0.5 * Math.log((1 + r) / (1 - r));
+        double margin = StratifiedSample.Z / Math.sqrt(effectiveRows - 3);
+        ConfidenceInterval interval = result.intervals().get("x").get("y");
+        assertEquals(Math.round(Math.tanh(z - margin) * 10000) / 10000.0, interval.getLower());
+        assertEquals(Math.round(Math.tanh(z + margin) * 10000) / 10000.0, interval.getUpper());
+        assertEquals(interval, result.intervals().get("y").get("x"));
+    }
+
+    // Two-pass weighted Pearson, independent of the service's incremental one
+    private static double weightedCorrelation(StratifiedSample sample) {
+        double weightSum = 0;
+        double sumX = 0;
+        double sumY = 0;
+        for (int row = 0; row < sample.getRowCount(); row++) {
+            weightSum += sample.getWeight(row);
+            sumX += sample.getWeight(row) * x(row);
+            sumY += sample.getWeight(row) * y(row);
+        }
+        double meanX = sumX / weightSum;
+        double meanY = sumY / weightSum;
+        double cxx = 0;
+        double cyy = 0;
+        double cxy = 0;
+        for (int row = 0; row < sample.getRowCount(); row++) {
+            double w = sample.getWeight(row);
+            cxx += w * (x(row) - meanX) * (x(row) - meanX);
+            cyy += w * (y(row) - meanY) * (y(row) - meanY);
+            cxy += w * (x(row) - meanX) * (y(row) - meanY);
+        }
+        return cxy / Math.sqrt(cxx * cyy);
+    }
+
+    private static double x(int row) {
+        return row;
+    }
+
+    private static double y(int row) {
+        return row + 6 * Math.sin(row * 1.7);
+    }
+
+    private StratifiedSample sample(double[] weights) throws Exception {
+        LinkedHashMap<String, ColumnFile.Kind> kinds = new LinkedHashMap<>();
+        kinds.put("x", ColumnFile.Kind.DOUBLE);
+        kinds.put("y", ColumnFile.Kind.DOUBLE);
+        kinds.put("weight", ColumnFile.Kind.DOUBLE);
+        Path path = tempDir.resolve("sample.cols");
+        try (ColumnFile.Writer writer = ColumnFile.create(path, kinds, ROWS)) {
+            for (int row = 0; row < ROWS; row++) {
+                writer.set(0, row, x(row));
+                writer.set(1, row, y(row));
+                writer.set(2, row, weights[row]);
+            }
+            writer.finish(ROWS);
+        }
+        return new StratifiedSample(ColumnFile.open(path), "weight", null);
+    }
+}
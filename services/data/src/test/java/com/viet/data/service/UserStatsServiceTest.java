@@ -0,0 +1,281 @@
+package com.viet.data.service;
+
+import com.viet.data.dto.dtos.UserStatsDTO;
+import com.viet.data.module.Dataset;
+import com.viet.data.module.UserDatasetStats;
+import com.viet.data.repository.DatasetRepository;
+import com.viet.data.repository.UserDatasetStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserStatsServiceTest {
+
+    private static final String USER = "user-1";
+
+    private final Map<String, UserDatasetStats> documents = new HashMap<>();
+    private final List<Dataset> datasets = new ArrayList<>();
+    private int aggregations;
+    // Runs inside the next aggregation, as a change racing the rebuild would
+    private Runnable duringAggregation;
+    private UserStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserStatsService(statsRepository(), datasetRepository());
+        // Every read goes to the counters
+        ReflectionTestUtils.setField(service, "cacheTtlMs", 0L);
+        ReflectionTestUtils.setField(service, "pendingTimeoutMs", 60_000L);
+        addDataset("a", 10, 100);
+        addDataset("b", 20, 200);
+    }
+
+    @Test
+    void rebuildsOnceThenCountsIncrementally() {
+        assertTotals(2, 30, 300, service.getStats(USER));
+        assertEquals(1, aggregations);
+
+        upload("c", 5, 50);
+        delete("a");
+        try (UserStatsService.StatsUpdate update = service.beginUpdate(USER)) {
+            update.recordAppend(7, 70);
+        }
+
+        UserStatsDTO stats = service.getStats(USER);
+        assertTotals(2, 32, 320, stats);
+        assertEquals(List.of("c", "b"), stats.getRecentDatasets().stream().map(d -> d.getId()).toList());
+        assertEquals(1, aggregations);
+    }
+
+    @Test
+    void keepsAChangeThatLandsDuringTheRebuild() {
+        duringAggregation = () -> upload("c", 5, 50);
+
+        assertTotals(3, 35, 350, service.getStats(USER));
+        // The first aggregate missed the upload and was not stored
+        assertEquals(2, aggregations);
+        assertFalse(documents.get(USER).getPartial());
+
+        assertTotals(3, 35, 350, service.getStats(USER));
+        assertEquals(2, aggregations);
+    }
+
+    @Test
+    void doesNotStoreARebuildWhileAChangeIsInFlight() {
+        service.getStats(USER);
+        UserStatsService.StatsUpdate[] update = new UserStatsService.StatsUpdate[1];
+        documents.get(USER).setPartial(true);
+        duringAggregation = () -> {
+            update[0] = service.beginUpdate(USER);
+            addDataset("c", 5, 50);
+        };
+
+        // Each attempt overlaps the pending change, so the aggregate is only returned
+        assertTotals(3, 35, 350, service.getStats(USER));
+        assertTrue(documents.get(USER).getPartial());
+
+        update[0].recordUpload(datasets.get(2));
+        update[0].close();
+        assertTotals(3, 35, 350, service.getStats(USER));
+        assertFalse(documents.get(USER).getPartial());
+    }
+
+    @Test
+    void abandonedChangeLeavesTheCounters() {
+        service.getStats(USER);
+        service.beginUpdate(USER).close();
+
+        assertEquals(0L, documents.get(USER).getPendingUpdates());
+        assertTotals(2, 30, 300, service.getStats(USER));
+        assertEquals(1, aggregations);
+    }
+
+    @Test
+    void rebuildsWhenAChangeNeverFinished() {
+        service.getStats(USER);
+        service.beginUpdate(USER);
+        addDataset("c", 5, 50);
+
+        // Still within the timeout the change may finish, so the counters stand
+        assertTotals(2, 30, 300, service.getStats(USER));
+        assertEquals(1, aggregations);
+
+        documents.get(USER).setUpdatedAt(LocalDateTime.now().minusHours(1));
+        assertTotals(3, 35, 350, service.getStats(USER));
+        assertEquals(2, aggregations);
+        assertEquals(0L, documents.get(USER).getPendingUpdates());
+    }
+
+    private void upload(String id, int rows, long bytes) {
+        try (UserStatsService.StatsUpdate update = service.beginUpdate(USER)) {
+            update.recordUpload(addDataset(id, rows, bytes));
+        }
+    }
+
+    private void delete(String id) {
+        Dataset dataset = datasets.stream().filter(d -> d.getId().equals(id)).findFirst().orElseThrow();
+        try (UserStatsService.StatsUpdate update = service.beginUpdate(USER)) {
+            dataset.setStatus(Dataset.DatasetStatus.DELETED);
+            update.recordDelete(dataset);
+        }
+    }
+
+    private Dataset addDataset(String id, int rows, long bytes) {
+        Dataset dataset = new Dataset();
+        dataset.setId(id);
+        dataset.setUserId(USER);
+        dataset.setRowCount(rows);
+        dataset.setFileSize(bytes);
+        dataset.setStatus(Dataset.DatasetStatus.PROCESSED);
+        dataset.setCreatedAt(LocalDateTime.now().plusSeconds(datasets.size()));
+        datasets.add(dataset);
+        return dataset;
+    }
+
+    private static void assertTotals(long count, long rows, long bytes, UserStatsDTO stats) {
+        assertEquals(count, stats.getTotalDatasets());
+        assertEquals(rows, stats.getTotalRows());
+        assertEquals(bytes, stats.getTotalBytes());
+    }
+
+    private List<Dataset> liveDatasets() {
+        return datasets.stream().filter(d -> !d.getStatus().isDeleted()).collect(Collectors.toList());
+    }
+
+    /**
+     * The counter updates with the semantics of their Mongo upserts.
+     */
+    private UserDatasetStatsRepository statsRepository() {
+        return (UserDatasetStatsRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{UserDatasetStatsRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findById": {
+                            UserDatasetStats stats = documents.get((String) args[0]);
+                            return Optional.ofNullable(stats != null ? copy(stats) : null);
+                        }
+                        case "beginUpdate":
+                            change((String) args[0]).setPendingUpdates(pending((String) args[0]) + 1);
+                            return null;
+                        case "abortUpdate":
+                            change((String) args[0]).setPendingUpdates(pending((String) args[0]) - 1);
+                            return null;
+                        case "recordUpload": {
+                            UserDatasetStats stats = record((String) args[0], 1, (Long) args[2], (Long) args[3]);
+                            stats.getRecentDatasetIds().add(0, (String) args[1]);
+                            while (stats.getRecentDatasetIds().size() > (Integer) args[4]) {
+                                stats.getRecentDatasetIds().remove(stats.getRecentDatasetIds().size() - 1);
+                            }
+                            return null;
+                        }
+                        case "recordAppend":
+                            record((String) args[0], 0, (Long) args[1], (Long) args[2]);
+                            return null;
+                        case "recordDelete":
+                            record((String) args[0], -1, -(Long) args[2], -(Long) args[3])
+                                    .getRecentDatasetIds().remove((String) args[1]);
+                            return null;
+                        case "replaceIfUnchanged":
+                            return replaceIfUnchanged((UserDatasetStats) args[0], (Long) args[1], (LocalDateTime) args[2]);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private UserDatasetStats change(String userId) {
+        UserDatasetStats stats = documents.computeIfAbsent(userId, id ->
+                new UserDatasetStats(id, 0L, 0L, 0L, new ArrayList<>(), null, true, 0L, 0L));
+        stats.setVersion(stats.getVersion() + 1);
+        stats.setUpdatedAt(LocalDateTime.now());
+        return stats;
+    }
+
+    private long pending(String userId) {
+        return documents.get(userId).getPendingUpdates();
+    }
+
+    private UserDatasetStats record(String userId, long datasets, long rows, long bytes) {
+        UserDatasetStats stats = change(userId);
+        stats.setDatasetCount(stats.getDatasetCount() + datasets);
+        stats.setTotalRows(stats.getTotalRows() + rows);
+        stats.setTotalBytes(stats.getTotalBytes() + bytes);
+        stats.setPendingUpdates(stats.getPendingUpdates() - 1);
+        return stats;
+    }
+
+    private boolean replaceIfUnchanged(UserDatasetStats stats, Long expectedVersion, LocalDateTime staleBefore) {
+        UserDatasetStats current = documents.get(stats.getId());
+        if (expectedVersion == null) {
+            if (current != null) {
+                return false;
+            }
+            UserDatasetStats inserted = copy(stats);
+            inserted.setVersion(0L);
+            inserted.setPendingUpdates(0L);
+            inserted.setPartial(false);
+            documents.put(stats.getId(), inserted);
+            return true;
+        }
+        boolean quiet = current.getPendingUpdates() <= 0 || current.getUpdatedAt().isBefore(staleBefore);
+        if (!current.getVersion().equals(expectedVersion) || !quiet) {
+            return false;
+        }
+        current.setDatasetCount(stats.getDatasetCount());
+        current.setTotalRows(stats.getTotalRows());
+        current.setTotalBytes(stats.getTotalBytes());
+        current.setRecentDatasetIds(new ArrayList<>(stats.getRecentDatasetIds()));
+        current.setUpdatedAt(stats.getUpdatedAt());
+        current.setPartial(false);
+        current.setPendingUpdates(0L);
+        return true;
+    }
+
+    private static UserDatasetStats copy(UserDatasetStats stats) {
+        return new UserDatasetStats(stats.getId(), stats.getDatasetCount(), stats.getTotalRows(),
+                stats.getTotalBytes(), new ArrayList<>(stats.getRecentDatasetIds()), stats.getUpdatedAt(),
+                stats.getPartial(), stats.getVersion(), stats.getPendingUpdates());
+    }
+
+    /**
+     * The aggregation and summary queries over the dataset list.
+     */
+    private DatasetRepository datasetRepository() {
+        return (DatasetRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DatasetRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "aggregateUserStats": {
+                            aggregations++;
+                            List<Dataset> live = liveDatasets();
+                            UserDatasetStats stats = new UserDatasetStats(null, (long) live.size(),
+                                    live.stream().mapToLong(Dataset::getRowCount).sum(),
+                                    live.stream().mapToLong(Dataset::getFileSize).sum(),
+                                    null, null, null, null, null);
+                            if (duringAggregation != null) {
+                                Runnable change = duringAggregation;
+                                duringAggregation = null;
+                                change.run();
+                            }
+                            return Optional.of(stats);
+                        }
+                        case "findSummariesByUserId":
+                            return liveDatasets().stream()
+                                    .sorted(Comparator.comparing(Dataset::getCreatedAt).reversed())
+                                    .limit((Integer) args[3])
+                                    .collect(Collectors.toList());
+                        case "findSummariesByIds": {
+                            Collection<?> ids = (Collection<?>) args[0];
+                            return liveDatasets().stream().filter(d -> ids.contains(d.getId())).collect(Collectors.toList());
+                        }
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
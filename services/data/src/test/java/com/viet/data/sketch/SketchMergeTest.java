@@ -0,0 +1,175 @@
+package com.viet.data.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Appends merge the sketch of the new rows into the stored one, so a merged sketch has to
+ * answer like one built over both row sets.
+ */
+class SketchMergeTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void hyperLogLogMergeEqualsSketchOfConcatenation() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog whole = new HyperLogLog();
+        // Overlapping ranges: 0..59999 and 40000..99999
+        for (int i = 0; i < 60_000; i++) {
+            first.add("user-" + i);
+            whole.add("user-" + i);
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            second.add("user-" + i);
+            whole.add("user-" + i);
+        }
+
+        first.merge(second);
+
+        assertEquals(whole.estimate(), first.estimate());
+        assertEquals(100_000, first.estimate(), 100_000 * 0.05);
+    }
+
+    @Test
+    void quantileSketchMergeStaysWithinRankError() {
+        double[] left = gaussian(50_000, 0, 1);
+        double[] right = gaussian(30_000, 3, 2);
+        QuantileSketch merged = sketch(left);
+        merged.merge(sketch(right));
+        QuantileSketch whole = sketch(left);
+        for (double value : right) {
+            whole.add(value);
+        }
+
+        double[] all = concat(left, right);
+        Arrays.sort(all);
+        assertEquals(all.length, merged.getCount());
+        for (double fraction : new double[]{0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99}) {
+            // Compare ranks, not values: KLL bounds the rank error
+            assertEquals(fraction, rank(all, merged.quantile(fraction)), 0.03, "merged q" + fraction);
+            assertEquals(fraction, rank(all, whole.quantile(fraction)), 0.03, "whole q" + fraction);
+        }
+    }
+
+    @Test
+    void momentSketchMergeEqualsSketchOfConcatenation() {
+        double[] left = gaussian(10_000, 100, 5);
+        double[] right = gaussian(3_000, -20, 40);
+        MomentSketch merged = new MomentSketch();
+        MomentSketch other = new MomentSketch();
+        MomentSketch whole = new MomentSketch();
+        for (double value : left) {
+            merged.add(value);
+            whole.add(value);
+        }
+        for (double value : right) {
+            other.add(value);
+            whole.add(value);
+        }
+
+        merged.merge(other);
+
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getMean(), merged.getMean(), 1e-9 * Math.abs(whole.getMean()));
+        assertEquals(whole.getVariance(), merged.getVariance(), 1e-9 * whole.getVariance());
+        assertEquals(whole.getSkewness(), merged.getSkewness(), 1e-9);
+        assertEquals(whole.getKurtosis(), merged.getKurtosis(), 1e-9);
+        assertEquals(whole.getMin(), merged.getMin());
+        assertEquals(whole.getMax(), merged.getMax());
+    }
+
+    @Test
+    void momentSketchMergeWithEmptySketch() {
+        MomentSketch sketch = new MomentSketch();
+        sketch.add(1);
+        sketch.add(3);
+        MomentSketch empty = new MomentSketch();
+
+        empty.merge(sketch);
+        sketch.merge(new MomentSketch());
+
+        assertEquals(2, empty.getCount());
+        assertEquals(2.0, empty.getMean());
+        assertEquals(sketch.getVariance(), empty.getVariance());
+    }
+
+    @Test
+    void frequentItemsMergeIsExactBelowCapacity() {
+        FrequentItems merged = new FrequentItems();
+        FrequentItems other = new FrequentItems();
+        Map<String, Long> expected = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            String item = "c" + random.nextInt(40);
+            (i % 3 == 0 ? other : merged).add(item);
+            expected.merge(item, 1L, Long::sum);
+        }
+
+        merged.merge(other);
+
+        assertEquals(0, merged.getMaxError());
+        assertEquals(expected, merged.getTopItems(FrequentItems.DEFAULT_CAPACITY));
+    }
+
+    @Test
+    void frequentItemsMergeBoundsCountsAboveCapacity() {
+        FrequentItems merged = new FrequentItems(16);
+        FrequentItems other = new FrequentItems(16);
+        FrequentItems whole = new FrequentItems(16);
+        Map<String, Long> exact = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            // A few heavy hitters over a long tail
+            String item = random.nextInt(4) == 0 ? "heavy" + random.nextInt(3) : "tail" + random.nextInt(5_000);
+            (i < 20_000 ? merged : other).add(item);
+            whole.add(item);
+            exact.merge(item, 1L, Long::sum);
+        }
+
+        merged.merge(other);
+
+        Map<String, Long> top = merged.getTopItems(3);
+        assertEquals(3, top.size());
+        for (Map.Entry<String, Long> entry : top.entrySet()) {
+            assertTrue(entry.getKey().startsWith("heavy"), entry.getKey());
+            long truth = exact.get(entry.getKey());
+            assertTrue(entry.getValue() <= truth, "merged counts are lower bounds");
+            assertTrue(entry.getValue() >= truth - merged.getMaxError(), "undercount within max error");
+        }
+        assertEquals(whole.getTopItems(3).keySet(), top.keySet());
+    }
+
+    private double[] gaussian(int count, double mean, double stdDev) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = mean + stdDev * random.nextGaussian();
+        }
+        return values;
+    }
+
+    private static QuantileSketch sketch(double[] values) {
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : values) {
+            sketch.add(value);
+        }
+        return sketch;
+    }
+
+    private static double[] concat(double[] first, double[] second) {
+        double[] all = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+
+    private static double rank(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        return (index >= 0 ? index : -index - 1) / (double) sorted.length;
+    }
+}
@@ -0,0 +1,169 @@
+package com.viet.data.sketch;
+
+import com.viet.data.column.DoubleVector;
+import com.viet.data.column.LongVector;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Weeks and months are rolled up from the days, and appends merge daily rollups, so both have
+ * to give the variances a single pass over the rows would.
+ */
+class TimeRollupTest {
+
+    private static final long FIRST_DAY = LocalDate.of(2024, 1, 1).toEpochDay();
+    // Far enough from zero that squares summed over a period lose the spread entirely
+    private static final double OFFSET = 1e9;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void weekAndMonthRollupsMatchRows() {
+        Rows rows = rows(0, 120, 4_000);
+        TimeRollup daily = rows.rollup();
+
+        assertMatches(rows, daily.rollUp(TimeRollup.Granularity.WEEK), this::weekOf);
+        assertMatches(rows, daily.rollUp(TimeRollup.Granularity.MONTH), this::monthOf);
+    }
+
+    @Test
+    void mergeMatchesRollupOfUnion() {
+        // Overlapping spans, so some days are merged from both sides
+        Rows first = rows(0, 70, 2_500);
+        Rows second = rows(40, 100, 2_000);
+        Rows union = first.plus(second);
+
+        TimeRollup merged = first.rollup().merge(second.rollup());
+
+        assertNotNull(merged);
+        assertMatches(union, merged, day -> day);
+        assertMatches(union, merged.rollUp(TimeRollup.Granularity.WEEK), this::weekOf);
+        assertMatches(union, merged.rollUp(TimeRollup.Granularity.MONTH), this::monthOf);
+    }
+
+    @Test
+    void bundleRoundTripKeepsDeviations() {
+        TimeRollup daily = rows(0, 60, 1_000).rollup();
+        SketchBundle bundle = new SketchBundle(1_000);
+        bundle.putRollup("day", daily);
+
+        TimeRollup read = SketchBundle.fromBytes(bundle.toBytes()).getRollup("day");
+
+        assertEquals(daily.getPeriodCount(), read.getPeriodCount());
+        for (int period = 0; period < daily.getPeriodCount(); period++) {
+            assertEquals(daily.getSumOfSquaredDeviations(0, period), read.getSumOfSquaredDeviations(0, period));
+            assertEquals(daily.getVariance(0, period), read.getVariance(0, period));
+        }
+    }
+
+    @Test
+    void readsRollupsWrittenBeforeDeviations() throws IOException {
+        // A version 2 bundle with one daily period of 1, 2, 3 and 6
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(buffer))) {
+            out.writeInt(0x534B4231);
+            out.writeInt(2);
+            out.writeLong(4);
+            out.writeInt(0);
+            out.writeInt(1);
+            out.writeUTF("day");
+            out.writeInt(1);
+            out.writeUTF("x");
+            out.writeInt(1);
+            out.writeLong(FIRST_DAY);
+            out.writeLong(4);
+            out.writeLong(4);
+            out.writeDouble(12);
+            out.writeDouble(1);
+            out.writeDouble(6);
+            out.writeDouble(50);
+        }
+
+        TimeRollup read = SketchBundle.fromBytes(buffer.toByteArray()).getRollup("day");
+
+        assertEquals(14.0, read.getSumOfSquaredDeviations(0, 0), 1e-12);
+        assertEquals(14.0 / 3, read.getVariance(0, 0), 1e-12);
+        assertEquals(14.0 / 3, read.rollUp(TimeRollup.Granularity.MONTH).getVariance(0, 0), 1e-12);
+    }
+
+    private void assertMatches(Rows rows, TimeRollup rollup, LongUnaryOperator periodOf) {
+        Map<Long, List<Double>> expected = new LinkedHashMap<>();
+        for (int row = 0; row < rows.days.size(); row++) {
+            expected.computeIfAbsent(periodOf.applyAsLong(rows.days.get(row)), period -> new ArrayList<>())
+                    .add(rows.values.get(row));
+        }
+        assertEquals(expected.size(), rollup.getPeriodCount());
+        for (int period = 0; period < rollup.getPeriodCount(); period++) {
+            List<Double> values = expected.get(rollup.getPeriod(period));
+            assertNotNull(values, "period " + rollup.getPeriod(period));
+            double mean = values.stream().mapToDouble(Double::doubleValue).average().orElseThrow();
+            double m2 = values.stream().mapToDouble(value -> (value - mean) * (value - mean)).sum();
+            String message = rollup.getGranularity() + " " + LocalDate.ofEpochDay(rollup.getPeriod(period));
+            assertEquals(values.size(), rollup.getCount(0, period), message);
+            assertEquals(mean, rollup.getMean(0, period), 1e-12 * mean, message);
+            assertEquals(m2, rollup.getSumOfSquaredDeviations(0, period), 1e-6 * m2, message);
+            if (values.size() > 1) {
+                assertEquals(m2 / (values.size() - 1), rollup.getVariance(0, period), 1e-6 * m2, message);
+            }
+        }
+    }
+
+    private long weekOf(long day) {
+        return day - Math.floorMod(day + 3, 7);
+    }
+
+    private long monthOf(long day) {
+        return LocalDate.ofEpochDay(day).withDayOfMonth(1).toEpochDay();
+    }
+
+    /**
+     * Rows on days {@code from} to {@code to} past the first, each day with its own spread.
+     */
+    private Rows rows(int from, int to, int count) {
+        Rows rows = new Rows();
+        for (int row = 0; row < count; row++) {
+            int day = from + random.nextInt(to - from);
+            rows.days.add(FIRST_DAY + day);
+            rows.values.add(OFFSET + day + (1 + day % 5) * random.nextGaussian());
+        }
+        return rows;
+    }
+
+    private static class Rows {
+        final List<Long> days = new ArrayList<>();
+        final List<Double> values = new ArrayList<>();
+
+        Rows plus(Rows other) {
+            Rows union = new Rows();
+            union.days.addAll(days);
+            union.days.addAll(other.days);
+            union.values.addAll(values);
+            union.values.addAll(other.values);
+            return union;
+        }
+
+        TimeRollup rollup() {
+            LongVector.Builder time = new LongVector.Builder();
+            DoubleVector.Builder value = new DoubleVector.Builder();
+            for (int row = 0; row < days.size(); row++) {
+                time.append(days.get(row));
+                value.append(values.get(row));
+            }
+            return TimeRollup.build(time.build("day"), false, List.of(value.build("x")));
+        }
+    }
+}